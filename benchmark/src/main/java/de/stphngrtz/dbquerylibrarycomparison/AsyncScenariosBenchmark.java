@@ -0,0 +1,73 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single thread, like an event loop, with a number of requests in flight. Blocking, it runs them one after the
+ * other. Async, it hands them to {@link AsyncScenarios} and is free until the results are there. The score is the
+ * time until all requests are answered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AsyncScenariosBenchmark {
+
+    private static final int POOL_SIZE = 8;
+    private static final int QUEUE_SIZE = 32;
+
+    @Param({"JOOQ", "QUERYDSL_SQL", "SQL2O", "QUERYDSL_JPA"})
+    public Library library;
+
+    @Param({"false", "true"})
+    public boolean async;
+
+    /**
+     * at most {@link #POOL_SIZE} + {@link #QUEUE_SIZE}, everything beyond would be rejected
+     */
+    @Param({"1", "8", "32"})
+    public int inFlight;
+
+    private PGPoolingDataSource dataSource;
+    private Scenarios scenarios;
+    private AsyncScenarios asyncScenarios;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = Database.dataSource(getClass().getSimpleName(), POOL_SIZE);
+        scenarios = library.scenarios(dataSource);
+        asyncScenarios = new AsyncScenarios(library.scenariosPerThread(dataSource), POOL_SIZE, QUEUE_SIZE);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        asyncScenarios.close();
+        Library.close(dataSource);
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<List<User>> requests() throws Exception {
+        List<List<User>> results = new ArrayList<>(inFlight);
+        if (!async) {
+            for (int i = 0; i < inFlight; i++)
+                results.add(scenarios.selectWhereEquals(1));
+            return results;
+        }
+
+        List<CompletableFuture<List<User>>> futures = new ArrayList<>(inFlight);
+        for (int i = 0; i < inFlight; i++)
+            futures.add(asyncScenarios.selectWhereEquals(1));
+        for (CompletableFuture<List<User>> future : futures)
+            results.add(future.get());
+        return results;
+    }
+}
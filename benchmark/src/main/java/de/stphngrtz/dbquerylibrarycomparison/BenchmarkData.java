@@ -0,0 +1,93 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Additional users and role assignments to run the benchmarks at scale. Ids start at {@link #FIRST_ID}, the rows of
+ * db/init.sql (which the tests rely on) stay untouched.
+ * <p>
+ * User n has n % 4 roles and every fifth user's name starts with "S".
+ * <p>
+ * Inserts and deletes would take ages with the triggers of db/notify.sql, benchmarks needing them install them
+ * afterwards (see {@link ChangeTriggers}).
+ */
+public class BenchmarkData {
+
+    public static final int FIRST_ID = 1000;
+    private static final int BATCH_SIZE = 10000;
+
+    public static void insert(DataSource dataSource, int users) throws SQLException {
+        delete(dataSource); // leftovers of an aborted run
+        try (Connection c = dataSource.getConnection()) {
+            try (PreparedStatement ps = c.prepareStatement("" +
+                    "INSERT INTO users (id, name, email)" +
+                    "SELECT g, CASE WHEN g % 5 = 0 THEN 'S' ELSE 'U' END || 'ser ' || g, 'user' || g || '@mail.de'" +
+                    "  FROM generate_series(?, ?) g")) {
+                ps.setInt(1, FIRST_ID);
+                ps.setInt(2, FIRST_ID + users - 1);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = c.prepareStatement("" +
+                    "INSERT INTO users_with_roles (user_id, role_id)" +
+                    "SELECT g, r" +
+                    "  FROM generate_series(?, ?) g, generate_series(1, 3) r" +
+                    " WHERE r <= g % 4")) {
+                ps.setInt(1, FIRST_ID);
+                ps.setInt(2, FIRST_ID + users - 1);
+                ps.executeUpdate();
+            }
+            try (Statement s = c.createStatement()) {
+                s.execute("ANALYZE users");
+                s.execute("ANALYZE users_with_roles");
+            }
+        }
+    }
+
+    /**
+     * The same users and role assignments, inserted through the Scenarios in batches of {@link #BATCH_SIZE} users, e.g.
+     * into a {@link ShardedScenarios}. Nothing is deleted first, notifications aren't skipped.
+     */
+    public static void insert(Scenarios scenarios, int users) {
+        for (int from = FIRST_ID; from < FIRST_ID + users; from += BATCH_SIZE) {
+            int to = Math.min(from + BATCH_SIZE, FIRST_ID + users);
+            List<User> batch = new ArrayList<>(to - from);
+            IntStream.Builder userIds = IntStream.builder();
+            IntStream.Builder roleIds = IntStream.builder();
+            for (int id = from; id < to; id++) {
+                batch.add(new User(id, (id % 5 == 0 ? "S" : "U") + "ser " + id, "user" + id + "@mail.de"));
+                for (int r = 1; r <= id % 4; r++) {
+                    userIds.add(id);
+                    roleIds.add(r);
+                }
+            }
+            scenarios.insert(batch);
+            scenarios.insertRoles(userIds.build().toArray(), roleIds.build().toArray());
+        }
+    }
+
+    public static void delete(DataSource dataSource) throws SQLException {
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            s.executeUpdate("DELETE FROM users_with_roles WHERE user_id >= " + FIRST_ID);
+            s.executeUpdate("DELETE FROM users WHERE id >= " + FIRST_ID);
+        }
+    }
+
+    /**
+     * Enables or disables the user-defined triggers of the tables, e.g. those of db/notify.sql if they're installed.
+     * USER spares the foreign keys' triggers. It's an ALTER TABLE: it holds for all sessions, not just the benchmark's,
+     * until the triggers are enabled again, so benchmarks disabling them have to enable them in their tear down.
+     */
+    public static void triggers(DataSource dataSource, boolean enabled) throws SQLException {
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            for (String table : new String[]{"users", "roles", "users_with_roles"})
+                s.execute("ALTER TABLE " + table + (enabled ? " ENABLE" : " DISABLE") + " TRIGGER USER");
+        }
+    }
+}
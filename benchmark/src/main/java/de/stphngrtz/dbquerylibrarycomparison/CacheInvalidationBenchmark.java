@@ -0,0 +1,100 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A write-heavy mix, three threads assigning and taking roles and one reading the users per role from a
+ * {@link CachingScenarios}, with and without the triggers of db/notify.sql and a {@link ChangeListener} invalidating
+ * the cache. The difference in writes is what the notifications cost, the difference in reads what coherence costs:
+ * without notifications the cache never reloads and its counts are stale.
+ * <p>
+ * Prints the listener's notifications, invalidations and batches per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CacheInvalidationBenchmark {
+
+    @Param({"JOOQ", "QUERYDSL_SQL", "SQL2O", "QUERYDSL_JPA"})
+    public Library library;
+
+    @Param({"true", "false"})
+    public boolean notify;
+
+    @Param({"10"})
+    public int pollIntervalMillis;
+
+    @Param({"100000"})
+    public int users;
+
+    private PGPoolingDataSource dataSource;
+    private CachingScenarios cache;
+    private ChangeListener listener;
+
+    /**
+     * Users without roles, see {@link BenchmarkData}, one per writing thread.
+     */
+    private final AtomicInteger nextUserId = new AtomicInteger(BenchmarkData.FIRST_ID);
+
+    @State(Scope.Thread)
+    public static class Writer {
+
+        int userId;
+
+        @Setup
+        public void setUp(CacheInvalidationBenchmark benchmark) {
+            userId = benchmark.nextUserId.getAndAdd(4);
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = Database.dataSource(getClass().getSimpleName(), 6);
+        BenchmarkData.insert(dataSource, users);
+        cache = new CachingScenarios(library.scenarios(dataSource));
+        if (notify) {
+            ChangeTriggers.install(dataSource);
+            listener = new ChangeListener(dataSource, pollIntervalMillis, TimeUnit.MILLISECONDS, cache);
+            if (!listener.awaitListening(10, TimeUnit.SECONDS))
+                throw new IllegalStateException("listener isn't listening");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try {
+            if (listener != null) {
+                listener.close();
+                System.out.println(listener.notifications() + " notifications, " + listener.invalidations() + " invalidations, " + listener.batches() + " batches");
+            }
+        } finally {
+            ChangeTriggers.drop(dataSource);
+            BenchmarkData.delete(dataSource);
+            Library.close(dataSource);
+            dataSource.close();
+        }
+    }
+
+    @Benchmark
+    @Group("writeHeavy")
+    @GroupThreads(3)
+    public int[] changeRole(Writer writer) {
+        cache.insertRoles(writer.userId, 1);
+        return cache.deleteRoles(writer.userId, 1);
+    }
+
+    @Benchmark
+    @Group("writeHeavy")
+    @GroupThreads(1)
+    public List<String> selectCountWithGroupBy() {
+        return cache.selectCountWithGroupBy();
+    }
+}
@@ -0,0 +1,70 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The joins of users and their roles, joined by the database vs. with the roles joined on the client (see
+ * {@link HashJoin}), against roles loaded once. With a limited bandwidth ({@code -Dproxy.bandwidth}) the narrower rows
+ * of the client-side join count for more.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ClientJoinBenchmark {
+
+    public enum Join {
+        INNER,
+        LEFT_OUTER
+    }
+
+    public enum Side {
+        SERVER,
+        CLIENT
+    }
+
+    @Param({"JOOQ", "QUERYDSL_SQL", "SQL2O", "QUERYDSL_JPA"})
+    public Library library;
+
+    @Param({"INNER", "LEFT_OUTER"})
+    public Join join;
+
+    @Param({"SERVER", "CLIENT"})
+    public Side side;
+
+    @Param({"100000"})
+    public int users;
+
+    private PGPoolingDataSource dataSource;
+    private Scenarios scenarios;
+    private HashJoin<Role> roles;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = Database.dataSource(getClass().getSimpleName(), 1);
+        BenchmarkData.insert(dataSource, users);
+        scenarios = library.scenarios(dataSource);
+        roles = new HashJoin<>(scenarios.selectAllOrderedBy(), r -> r.id);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkData.delete(dataSource);
+        Library.close(dataSource);
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<String> join() {
+        if (join == Join.INNER)
+            return side == Side.SERVER ? scenarios.selectWithExplicitJoin() : scenarios.selectWithExplicitJoin(roles);
+        else
+            return side == Side.SERVER ? scenarios.selectWithExplicitLeftOuterJoin() : scenarios.selectWithExplicitLeftOuterJoin(roles);
+    }
+}
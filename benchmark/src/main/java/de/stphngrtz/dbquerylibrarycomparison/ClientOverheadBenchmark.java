@@ -0,0 +1,94 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU time a library spends per query on the client: building the query, rendering the SQL, binding parameters and
+ * mapping rows. There is no database, each query gets canned rows from a {@link StubDataSource}.
+ * <p>
+ * With {@code rows=0} nothing is mapped, the rest is the cost per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ClientOverheadBenchmark {
+
+    public enum Scenario {
+        SELECT_ALL_ORDERED_BY {
+            @Override
+            StubResult result(int rows) {
+                return StubData.roles(rows);
+            }
+
+            @Override
+            List<?> run(Scenarios scenarios) {
+                return scenarios.selectAllOrderedBy();
+            }
+        },
+        SELECT_WHERE_EQUALS {
+            @Override
+            StubResult result(int rows) {
+                return StubData.users(rows);
+            }
+
+            @Override
+            List<?> run(Scenarios scenarios) {
+                return scenarios.selectWhereEquals(1);
+            }
+        },
+        SELECT_COUNT_WITH_GROUP_BY {
+            @Override
+            StubResult result(int rows) {
+                return StubData.roleCounts(rows);
+            }
+
+            @Override
+            List<?> run(Scenarios scenarios) {
+                return scenarios.selectCountWithGroupBy();
+            }
+        };
+
+        abstract StubResult result(int rows);
+
+        abstract List<?> run(Scenarios scenarios);
+    }
+
+    @Param({"JOOQ", "QUERYDSL_SQL", "SQL2O", "QUERYDSL_JPA"})
+    public Library library;
+
+    @Param({"SELECT_ALL_ORDERED_BY", "SELECT_WHERE_EQUALS", "SELECT_COUNT_WITH_GROUP_BY"})
+    public Scenario scenario;
+
+    @Param({"0", "10", "1000"})
+    public int rows;
+
+    private StubDataSource dataSource;
+    private Scenarios scenarios;
+
+    @Setup
+    public void setUp() throws Exception {
+        StubResult result = scenario.result(rows);
+        dataSource = new StubDataSource(sql -> result);
+        scenarios = library.scenarios(dataSource);
+
+        int mapped = scenario.run(scenarios).size();
+        if (mapped != rows)
+            throw new IllegalStateException(library + " mapped " + mapped + " of " + rows + " rows");
+    }
+
+    @TearDown
+    public void tearDown() {
+        Library.close(dataSource);
+    }
+
+    @Benchmark
+    public List<?> query() {
+        return scenario.run(scenarios);
+    }
+}
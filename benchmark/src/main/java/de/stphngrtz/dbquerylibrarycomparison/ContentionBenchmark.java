@@ -0,0 +1,154 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link #THREADS} threads run the units of work of {@link ContentionScenarios} on the same {@code hotRows} users,
+ * fewer rows make more contention. Pessimistic and optimistic units of work pick a user at random, optimistic ones are
+ * retried until they succeed, skip-locked ones take whichever user is free and poll again if none is.
+ * <p>
+ * Every iteration prints the units of work, the retries (aborted optimistic units of work, empty skip-locked polls)
+ * and the lock wait per unit of work: the number of backends waiting for a lock in pg_stat_activity (PostgreSQL 9.6
+ * or later), sampled every {@link #SAMPLE_MILLIS} ms by a thread of its own. User-defined triggers, e.g. those of db/notify.sql,
+ * are disabled (see {@link BenchmarkData#triggers}), their notifications would wait for a lock of their own on commit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Threads(ContentionBenchmark.THREADS)
+@Fork(1)
+public class ContentionBenchmark {
+
+    static final int THREADS = 8;
+    private static final int SAMPLE_MILLIS = 5;
+
+    public enum Strategy {
+        PESSIMISTIC,
+        OPTIMISTIC,
+        SKIP_LOCKED
+    }
+
+    @Param({"JOOQ", "QUERYDSL_SQL", "SQL2O", "QUERYDSL_JPA"})
+    public Library library;
+
+    @Param({"PESSIMISTIC", "OPTIMISTIC", "SKIP_LOCKED"})
+    public Strategy strategy;
+
+    @Param({"64", "16", "4", "1"})
+    public int hotRows;
+
+    private PGPoolingDataSource dataSource;
+    private ContentionScenarios scenarios;
+    private Thread sampler;
+
+    private final AtomicLong names = new AtomicLong();
+    private final LongAdder units = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final AtomicLong lockWaitNanos = new AtomicLong();
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = Database.dataSource(getClass().getSimpleName(), THREADS + 1);
+        BenchmarkData.insert(dataSource, hotRows);
+        BenchmarkData.triggers(dataSource, false);
+        scenarios = library.contentionScenarios(dataSource);
+
+        sampler = new Thread(this::sampleLockWaits, "lock-wait-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try {
+            sampler.interrupt();
+            sampler.join();
+            BenchmarkData.triggers(dataSource, true);
+        } finally {
+            BenchmarkData.delete(dataSource);
+            Library.close(dataSource);
+            dataSource.close();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        units.reset();
+        retries.reset();
+        lockWaitNanos.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long units = this.units.sum();
+        long retries = this.retries.sum();
+        System.out.printf("%n%d units of work, %d retries (%.1f%% of attempts), %.3f ms lock wait per unit of work%n",
+                units, retries, 100.0 * retries / Math.max(units + retries, 1), lockWaitNanos.get() / 1e6 / Math.max(units, 1));
+    }
+
+    @Benchmark
+    public int update() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String name = "Contender " + names.incrementAndGet();
+        int roleId = 1 + random.nextInt(3);
+        int userId;
+        switch (strategy) {
+            case PESSIMISTIC:
+                userId = BenchmarkData.FIRST_ID + random.nextInt(hotRows);
+                scenarios.updatePessimistic(userId, name, roleId);
+                break;
+            case OPTIMISTIC:
+                userId = BenchmarkData.FIRST_ID + random.nextInt(hotRows);
+                while (!scenarios.updateOptimistic(userId, name, roleId))
+                    retries.increment();
+                break;
+            case SKIP_LOCKED:
+                while ((userId = scenarios.updateSkipLocked(BenchmarkData.FIRST_ID, BenchmarkData.FIRST_ID + hotRows - 1, name, roleId)) == -1)
+                    retries.increment();
+                break;
+            default:
+                throw new IllegalStateException(strategy.name());
+        }
+        units.increment();
+        return userId;
+    }
+
+    /**
+     * Each sample counts for the time since the previous one.
+     */
+    private void sampleLockWaits() {
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            long last = System.nanoTime();
+            while (!Thread.currentThread().isInterrupted()) {
+                try (ResultSet rs = s.executeQuery("" +
+                        "SELECT count(*)" +
+                        "  FROM pg_stat_activity" +
+                        " WHERE wait_event_type = 'Lock'" +
+                        "   AND datname = current_database()" +
+                        "   AND pid <> pg_backend_pid()")) {
+                    rs.next();
+                    long now = System.nanoTime();
+                    lockWaitNanos.addAndGet(rs.getLong(1) * (now - last));
+                    last = now;
+                }
+                Thread.sleep(SAMPLE_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            // done
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The export of {@link Scenarios#selectWithExplicitLeftOuterJoin(ChannelExport)} by the database itself, via
+ * {@code COPY ... TO STDOUT}. The driver hands over the rows as the server encoded them, the output is the same as
+ * {@link ChannelExport}'s.
+ * <p>
+ * JSON is the single {@code row_to_json} column in CSV format, with quote and delimiter characters that never occur in
+ * it. The text format would escape its backslashes.
+ */
+public class CopyExport {
+
+    private static final String SELECT = "" +
+            "SELECT u.id, u.name, u.email, r.name AS role" +
+            "  FROM users u" +
+            "  LEFT JOIN users_with_roles z on z.user_id = u.id" +
+            "  LEFT JOIN roles r on r.id = z.role_id" +
+            " ORDER BY u.id, z.role_id";
+
+    private static final String COPY_CSV = "COPY (" + SELECT + ") TO STDOUT WITH (FORMAT csv)";
+    private static final String COPY_JSON = "COPY (SELECT row_to_json(t) FROM (" + SELECT + ") t) TO STDOUT WITH (FORMAT csv, QUOTE E'\\x01', DELIMITER E'\\x02')";
+
+    /**
+     * The driver writes every row on its own, they're buffered before they reach the channel.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * @return rows written
+     */
+    public static long export(Connection connection, ChannelExport.Format format, WritableByteChannel channel) throws SQLException, IOException {
+        CopyManager copyManager = new CopyManager(connection.unwrap(BaseConnection.class));
+        OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+        long rows = copyManager.copyOut(format == ChannelExport.Format.CSV ? COPY_CSV : COPY_JSON, out);
+        out.flush();
+        return rows;
+    }
+}
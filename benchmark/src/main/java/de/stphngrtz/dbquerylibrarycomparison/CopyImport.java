@@ -0,0 +1,45 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Loads the rows of a {@link CsvImport} via {@code COPY ... FROM STDIN}. They're sent as they are, the server parses
+ * them. A single statement, i.e. a transaction of its own.
+ */
+public class CopyImport implements CsvImport.Loader {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final DataSource dataSource;
+
+    public CopyImport(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void load(CsvImport.Table table, ByteBuffer rows, int count) throws SQLException {
+        byte[] chunk = new byte[Math.min(CHUNK_SIZE, rows.remaining())];
+        try (Connection c = dataSource.getConnection()) {
+            CopyIn copyIn = new CopyManager(c.unwrap(BaseConnection.class))
+                    .copyIn("COPY " + table.name + " (" + String.join(", ", table.columns) + ") FROM STDIN WITH (FORMAT csv)");
+            try {
+                while (rows.hasRemaining()) {
+                    int length = Math.min(chunk.length, rows.remaining());
+                    rows.get(chunk, 0, length);
+                    copyIn.writeToCopy(chunk, 0, length);
+                }
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive())
+                    copyIn.cancelCopy();
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection settings of the benchmarks. Defaults are the same as in the tests, each one can be overridden with a
+ * system property, e.g. {@code -Ddb.url=localhost}.
+ * <p>
+ * With {@code -Dproxy.latency=1} (one-way, in milliseconds) all connections are routed through a {@link LatencyProxy},
+ * optionally with {@code -Dproxy.jitter=0.5} (milliseconds) and {@code -Dproxy.bandwidth=100} (MBit/s).
+ */
+public class Database {
+
+    public static final String db_url = System.getProperty("db.url", "192.168.99.100");
+    public static final String db_port = System.getProperty("db.port", "5432");
+    public static final String db_username = System.getProperty("db.username", "stephan");
+    public static final String db_password = System.getProperty("db.password", "mysecretpassword");
+    public static final String db_database = System.getProperty("db.database", db_username);
+
+    private static final String proxy_latency = System.getProperty("proxy.latency");
+    private static final String proxy_jitter = System.getProperty("proxy.jitter", "0");
+    private static final String proxy_bandwidth = System.getProperty("proxy.bandwidth", "0");
+
+    private static LatencyProxy proxy;
+
+    public static String jdbcUrl() {
+        return "jdbc:postgresql://" + host() + ":" + port() + "/" + db_database;
+    }
+
+    /**
+     * @param name has to be unique as long as the DataSource isn't closed
+     */
+    public static PGPoolingDataSource dataSource(String name, int maxConnections) {
+        return dataSource(name, null, db_database, maxConnections);
+    }
+
+    /**
+     * Another database, e.g. a shard, with the same credentials.
+     *
+     * @param server {@code host:port} of another server (not routed through the proxy), null for the one of
+     *               {@code db.url} and {@code db.port}
+     */
+    public static PGPoolingDataSource dataSource(String name, String server, String database, int maxConnections) {
+        PGPoolingDataSource pgPoolingDataSource = new PGPoolingDataSource();
+        pgPoolingDataSource.setDataSourceName(name);
+        if (server == null) {
+            pgPoolingDataSource.setServerName(host());
+            pgPoolingDataSource.setPortNumber(port());
+        } else {
+            pgPoolingDataSource.setServerName(server.substring(0, server.lastIndexOf(':')));
+            pgPoolingDataSource.setPortNumber(Integer.valueOf(server.substring(server.lastIndexOf(':') + 1)));
+        }
+        pgPoolingDataSource.setDatabaseName(database);
+        pgPoolingDataSource.setUser(db_username);
+        pgPoolingDataSource.setPassword(db_password);
+        pgPoolingDataSource.setMaxConnections(maxConnections);
+        return pgPoolingDataSource;
+    }
+
+    /**
+     * The R2DBC counterpart of {@link #dataSource(String, int)}. Statements always use the extended query protocol
+     * ({@code forceBinary}), the simple one ignores the fetch size.
+     */
+    public static ConnectionPool connectionFactory(int maxConnections) {
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(new PostgresqlConnectionFactory(PostgresqlConnectionConfiguration.builder()
+                .host(host())
+                .port(port())
+                .database(db_database)
+                .username(db_username)
+                .password(db_password)
+                .forceBinary(true)
+                .build()))
+                .initialSize(1)
+                .maxSize(maxConnections)
+                .build());
+    }
+
+    private static String host() {
+        return proxy() != null ? "localhost" : db_url;
+    }
+
+    private static int port() {
+        return proxy() != null ? proxy().getPort() : Integer.valueOf(db_port);
+    }
+
+    /**
+     * Started on first use and running until the JVM (i.e. the benchmark fork) exits.
+     */
+    private static synchronized LatencyProxy proxy() {
+        if (proxy_latency == null)
+            return null;
+
+        if (proxy == null) {
+            try {
+                proxy = new LatencyProxy(
+                        new InetSocketAddress(db_url, Integer.valueOf(db_port)),
+                        microseconds(proxy_latency),
+                        microseconds(proxy_jitter),
+                        TimeUnit.MICROSECONDS,
+                        (long) (Double.valueOf(proxy_bandwidth) * 1_000_000 / 8)
+                );
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return proxy;
+    }
+
+    private static long microseconds(String milliseconds) {
+        return (long) (Double.valueOf(milliseconds) * 1000);
+    }
+}
@@ -0,0 +1,154 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link #THREADS} threads look up users by id while a thread of its own injects slow queries: every
+ * {@code stallEveryMillis} it locks the users for {@code stallMillis}, the lookups meanwhile wait. The latency
+ * percentiles show the tail, with a {@link Deadline} {@code timeoutMillis} after the start of a call it ends there:
+ * <ul>
+ * <li>{@code NONE}: no deadline, a lookup waits for the lock as long as it's held</li>
+ * <li>{@code CANCEL}: the library's hooks cancel the statement at the deadline ({@link Library#deadlineScenarios}),
+ * QueryDSL-JPA's query timeout is in whole seconds though</li>
+ * <li>{@code STATEMENT_TIMEOUT}: PostgreSQL cancels it, see {@link Deadline#statementTimeout}</li>
+ * </ul>
+ * Every iteration prints the calls and the ones that missed their deadline, those count with their time to the
+ * cancel. A cancel is a connection of its own to the server, for the cancel request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(DeadlineBenchmark.THREADS)
+@Fork(1)
+public class DeadlineBenchmark {
+
+    static final int THREADS = 8;
+
+    public enum Deadlines {
+        NONE,
+        CANCEL,
+        STATEMENT_TIMEOUT
+    }
+
+    @Param({"JOOQ", "QUERYDSL_SQL", "SQL2O", "QUERYDSL_JPA"})
+    public Library library;
+
+    @Param({"NONE", "CANCEL", "STATEMENT_TIMEOUT"})
+    public Deadlines deadlines;
+
+    @Param({"100"})
+    public long timeoutMillis;
+
+    @Param({"300"})
+    public long stallMillis;
+
+    @Param({"1000"})
+    public long stallEveryMillis;
+
+    @Param({"10000"})
+    public int users;
+
+    private PGPoolingDataSource dataSource;
+    private DataSource statementTimeouts;
+    private Scenarios scenarios;
+    private Thread stalls;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder exceeded = new LongAdder();
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = Database.dataSource(getClass().getSimpleName(), THREADS + 1);
+        BenchmarkData.insert(dataSource, users);
+        switch (deadlines) {
+            case NONE:
+                scenarios = library.scenarios(dataSource);
+                break;
+            case CANCEL:
+                scenarios = new DeadlineScenarios(library.deadlineScenarios(dataSource), timeoutMillis, TimeUnit.MILLISECONDS);
+                break;
+            case STATEMENT_TIMEOUT:
+                statementTimeouts = Deadline.statementTimeout(dataSource);
+                scenarios = new DeadlineScenarios(library.scenarios(statementTimeouts), timeoutMillis, TimeUnit.MILLISECONDS);
+                break;
+            default:
+                throw new IllegalStateException(deadlines.name());
+        }
+
+        stalls = new Thread(this::stall, "stalls");
+        stalls.setDaemon(true);
+        stalls.start();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try {
+            stalls.interrupt();
+            stalls.join();
+        } finally {
+            BenchmarkData.delete(dataSource);
+            if (statementTimeouts != null)
+                Library.close(statementTimeouts);
+            Library.close(dataSource);
+            dataSource.close();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        calls.reset();
+        exceeded.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long calls = this.calls.sum();
+        long exceeded = this.exceeded.sum();
+        System.out.printf("%n%d calls, %d past their deadline (%.1f%%)%n", calls, exceeded, 100.0 * exceeded / Math.max(calls, 1));
+    }
+
+    @Benchmark
+    public List<User> selectWhereEquals() {
+        calls.increment();
+        try {
+            return scenarios.selectWhereEquals(BenchmarkData.FIRST_ID + ThreadLocalRandom.current().nextInt(users));
+        } catch (DeadlineExceededException e) {
+            exceeded.increment();
+            return null;
+        }
+    }
+
+    /**
+     * The lock is taken once the lookups in flight are done, those that come in meanwhile queue up behind it.
+     */
+    private void stall() {
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            c.setAutoCommit(false);
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.sleep(stallEveryMillis);
+                s.execute("LOCK TABLE users IN ACCESS EXCLUSIVE MODE");
+                try {
+                    Thread.sleep(stallMillis);
+                } finally {
+                    c.rollback();
+                }
+            }
+        } catch (InterruptedException e) {
+            // done
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports users joined with their roles to a file, streamed by each library into a {@link ChannelExport} vs. by the
+ * database via {@code COPY ... TO STDOUT} ({@link CopyExport}). Every iteration prints its throughput in MB/s and the
+ * bytes allocated per row by the benchmark thread, which does all the work (the driver included).
+ * <p>
+ * The default of 5714286 users makes 10M rows, a user without roles makes one row too. The file stays in the page
+ * cache, the disk isn't measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExportBenchmark {
+
+    private static final int FETCH_SIZE = 10000;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    public enum Export {
+        JOOQ,
+        QUERYDSL_SQL,
+        SQL2O,
+        QUERYDSL_JPA,
+        COPY
+    }
+
+    @Param({"JOOQ", "QUERYDSL_SQL", "SQL2O", "QUERYDSL_JPA", "COPY"})
+    public Export export;
+
+    @Param({"CSV", "JSON"})
+    public ChannelExport.Format format;
+
+    @Param({"5714286"})
+    public int users;
+
+    private PGPoolingDataSource dataSource;
+    private Scenarios scenarios;
+    private DirectBufferPool buffers;
+    private Path file;
+
+    private long rows;
+    private long bytes;
+    private long nanos;
+    private long allocated;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = Database.dataSource(getClass().getSimpleName(), 1);
+        dataSource.setDefaultRowFetchSize(FETCH_SIZE);
+        BenchmarkData.insert(dataSource, users);
+
+        if (export != Export.COPY)
+            scenarios = Library.valueOf(export.name()).scenarios(dataSource);
+        buffers = new DirectBufferPool(BUFFER_SIZE);
+        file = Files.createTempFile("users", "." + format.name().toLowerCase());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try {
+            Files.deleteIfExists(file);
+        } finally {
+            BenchmarkData.delete(dataSource);
+            Library.close(dataSource);
+            dataSource.close();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        System.out.printf("%n%d rows, %.1f MB, %.1f MB/s, %.1f bytes allocated per row%n",
+                rows, bytes / 1e6, bytes / 1e6 / (nanos / 1e9), (double) allocated / rows);
+    }
+
+    @Benchmark
+    public long export() throws Exception {
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (export == Export.COPY) {
+                try (Connection c = dataSource.getConnection()) {
+                    rows = CopyExport.export(c, format, channel);
+                }
+            } else {
+                try (ChannelExport channelExport = new ChannelExport(channel, format, buffers)) {
+                    scenarios.selectWithExplicitLeftOuterJoin(channelExport);
+                    rows = channelExport.rows();
+                }
+            }
+            bytes = channel.size();
+        }
+        nanos = System.nanoTime() - start;
+        allocated = allocatedBytes() - allocatedBefore;
+        return rows;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,87 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.util.Multiset;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import javax.persistence.EntityManager;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * What the libraries' results take on the heap. Per library the bytes a result retains per row, measured with JOL on
+ * {@code rows} users (default 10000) as {@link Scenarios#selectAll(Partition)} returns them: everything reachable
+ * from the list, e.g. a UserJPA with its collection wrapper, its boxed id and its strings, broken down by class.
+ * <p>
+ * For QueryDSL-JPA also the heap taken by {@code users} (default 1000000) loaded entities while they're managed, their
+ * persistence context included, as the difference in used heap after GC, and the bytes allocated to load them.
+ * <p>
+ * Settings are system properties: {@code libraries} (comma separated, default all), {@code rows}, {@code users} and
+ * those of {@link Database}, e.g.
+ * {@code java -Ddb.url=localhost -Xmx4g -cp benchmark/target/benchmarks.jar de.stphngrtz.dbquerylibrarycomparison.FootprintReport}
+ */
+public class FootprintReport {
+
+    private static final List<Library> libraries = Arrays.stream(System.getProperty("libraries", "JOOQ,QUERYDSL_SQL,SQL2O,QUERYDSL_JPA").split(",")).map(Library::valueOf).collect(Collectors.toList());
+    private static final int rows = Integer.getInteger("rows", 10_000);
+    private static final int users = Integer.getInteger("users", 1_000_000);
+
+    public static void main(String[] args) throws Exception {
+        PGPoolingDataSource dataSource = Database.dataSource(FootprintReport.class.getSimpleName(), 1);
+        try {
+            BenchmarkData.insert(dataSource, Math.max(rows, users));
+            for (Library library : libraries)
+                retainedPerRow(library, dataSource);
+            if (libraries.contains(Library.QUERYDSL_JPA))
+                managedPerEntity(dataSource);
+        } finally {
+            BenchmarkData.delete(dataSource);
+            Library.close(dataSource);
+            dataSource.close();
+        }
+    }
+
+    private static void retainedPerRow(Library library, PGPoolingDataSource dataSource) {
+        List<User> result = library.scenarios(dataSource).selectAll(new Partition(BenchmarkData.FIRST_ID, BenchmarkData.FIRST_ID + rows - 1));
+        GraphLayout layout = GraphLayout.parseInstance(result);
+        System.out.printf("%n%s: %d rows, %.1f bytes retained per row%n", library, result.size(), (double) layout.totalSize() / result.size());
+
+        Multiset<Class<?>> counts = layout.getClassCounts();
+        Multiset<Class<?>> sizes = layout.getClassSizes();
+        System.out.printf("  %10s %10s  %s%n", "per row", "bytes", "class");
+        layout.getClasses().stream()
+                .sorted(Comparator.comparing((Class<?> c) -> sizes.count(c)).reversed())
+                .forEach(c -> System.out.printf("  %10.2f %10.1f  %s%n", (double) counts.count(c) / result.size(), (double) sizes.count(c) / result.size(), c.getName()));
+    }
+
+    private static void managedPerEntity(PGPoolingDataSource dataSource) {
+        EntityManager entityManager = Library.entityManagerFactory(dataSource).createEntityManager();
+        try {
+            QUserJPA qUserJPA = QUserJPA.userJPA;
+            long usedBefore = usedHeapAfterGc();
+            long allocatedBefore = allocatedBytes();
+            List<UserJPA> entities = new JPAQueryFactory(entityManager).selectFrom(qUserJPA).where(qUserJPA.id.goe(BenchmarkData.FIRST_ID)).fetch();
+            long allocated = allocatedBytes() - allocatedBefore;
+            long retained = usedHeapAfterGc() - usedBefore;
+
+            System.out.printf("%nQUERYDSL_JPA: %d managed entities, %.1f bytes retained and %.1f bytes allocated per entity%n",
+                    entities.size(), (double) retained / entities.size(), (double) allocated / entities.size());
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
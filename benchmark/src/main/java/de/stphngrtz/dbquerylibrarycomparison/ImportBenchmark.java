@@ -0,0 +1,128 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Imports users and their role assignments from CSV files with a {@link CsvImport}, via {@code COPY FROM STDIN}
+ * ({@link CopyImport}) vs. each library's batch API. Every iteration prints rows/s per table.
+ * <p>
+ * The files are exported from {@link BenchmarkData} once. With {@code rejects} > 0 the assignments file gets that many
+ * rows of an unknown user, which end up in quarantine. The tables' user-defined triggers (e.g. db/notify.sql) are
+ * disabled meanwhile (see {@link BenchmarkData#triggers}), a notification per row takes ages in transactions this
+ * large.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ImportBenchmark {
+
+    public enum Loader {
+        COPY,
+        JOOQ,
+        QUERYDSL_SQL,
+        SQL2O,
+        QUERYDSL_JPA
+    }
+
+    @Param({"COPY", "JOOQ", "QUERYDSL_SQL", "SQL2O", "QUERYDSL_JPA"})
+    public Loader loader;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    @Param({"10000"})
+    public int commitSize;
+
+    @Param({"1000000"})
+    public int users;
+
+    @Param({"0"})
+    public int rejects;
+
+    private PGPoolingDataSource dataSource;
+    private Path directory;
+    private Path usersFile;
+    private Path usersWithRolesFile;
+    private CsvImport csvImport;
+    private List<CsvImport.Result> results;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = Database.dataSource(getClass().getSimpleName(), threads);
+        directory = Files.createTempDirectory("import");
+        usersFile = directory.resolve("users.csv");
+        usersWithRolesFile = directory.resolve("users_with_roles.csv");
+
+        BenchmarkData.insert(dataSource, users);
+        try {
+            export("SELECT id, name, email FROM users WHERE id >= " + BenchmarkData.FIRST_ID + " ORDER BY id", usersFile);
+            export("SELECT user_id, role_id FROM users_with_roles WHERE user_id >= " + BenchmarkData.FIRST_ID + " ORDER BY user_id, role_id", usersWithRolesFile);
+        } finally {
+            BenchmarkData.delete(dataSource);
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(usersWithRolesFile, StandardOpenOption.APPEND))) {
+            for (int i = 0; i < rejects; i++)
+                out.print(Integer.MAX_VALUE + "," + (i % 3 + 1) + "\n");
+        }
+
+        BenchmarkData.triggers(dataSource, false);
+        csvImport = new CsvImport(
+                loader == Loader.COPY ? new CopyImport(dataSource) : CsvImport.batches(Library.valueOf(loader.name()).scenarios(dataSource)),
+                threads,
+                commitSize,
+                directory.resolve("quarantine"));
+    }
+
+    private void export(String select, Path file) throws Exception {
+        try (Connection c = dataSource.getConnection(); OutputStream out = Files.newOutputStream(file)) {
+            new CopyManager(c.unwrap(BaseConnection.class)).copyOut("COPY (" + select + ") TO STDOUT WITH (FORMAT csv)", out);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try {
+            BenchmarkData.triggers(dataSource, true);
+            BenchmarkData.delete(dataSource);
+        } finally {
+            Library.close(dataSource);
+            dataSource.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void clear() throws Exception {
+        BenchmarkData.delete(dataSource);
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        System.out.println();
+        results.forEach(System.out::println);
+    }
+
+    @Benchmark
+    public List<CsvImport.Result> run() throws Exception {
+        return results = csvImport.run(usersFile, usersWithRolesFile);
+    }
+}
@@ -0,0 +1,78 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How long a change takes to reach a {@link ChangeListener}: a role assignment on its own vs. until its invalidation
+ * arrived, the difference is the lag. It's up to a poll interval plus a round trip, see {@link ChangeListener}.
+ * Installs the triggers of db/notify.sql.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class InvalidationLagBenchmark {
+
+    @Param({"JOOQ", "QUERYDSL_SQL", "SQL2O", "QUERYDSL_JPA"})
+    public Library library;
+
+    @Param({"1", "10"})
+    public int pollIntervalMillis;
+
+    private PGPoolingDataSource dataSource;
+    private Scenarios scenarios;
+    private ChangeListener listener;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final int userId = BenchmarkData.FIRST_ID;
+    private boolean assigned;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = Database.dataSource(getClass().getSimpleName(), 2);
+        BenchmarkData.delete(dataSource);
+        scenarios = library.scenarios(dataSource);
+        scenarios.insert(new User(userId, "Benchmark", "benchmark@mail.de"));
+        ChangeTriggers.install(dataSource);
+        listener = new ChangeListener(dataSource, pollIntervalMillis, TimeUnit.MILLISECONDS, (table, id) -> {
+            if (table.equals("users_with_roles") && id == userId)
+                invalidations.incrementAndGet();
+        }, () -> {
+        });
+        if (!listener.awaitListening(10, TimeUnit.SECONDS))
+            throw new IllegalStateException("listener isn't listening");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try {
+            listener.close();
+        } finally {
+            ChangeTriggers.drop(dataSource);
+            BenchmarkData.delete(dataSource);
+            Library.close(dataSource);
+            dataSource.close();
+        }
+    }
+
+    @Benchmark
+    public int[] write() {
+        assigned = !assigned;
+        return assigned ? scenarios.insertRoles(userId, 1) : scenarios.deleteRoles(userId, 1);
+    }
+
+    @Benchmark
+    public int[] writeUntilInvalidated() {
+        long seen = invalidations.get();
+        int[] written = write();
+        while (invalidations.get() == seen)
+            LockSupport.parkNanos(10_000);
+        return written;
+    }
+}
@@ -0,0 +1,108 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link Snapshot.Source} reading from one repeatable read transaction. The marker is the transaction snapshot's
+ * xmax, the first transaction id not yet assigned: every transaction that writes takes a new one. Unless another
+ * transaction is still running, then the marker is {@link Snapshot#UNKNOWN}, its changes could still show up.
+ * <p>
+ * An LSN would do as well, but it's ahead of the transaction snapshot, a commit can be written before it without being
+ * visible yet.
+ */
+public class JdbcSnapshotSource implements Snapshot.Source, AutoCloseable {
+
+    private final Connection connection;
+    private final int isolation;
+
+    public JdbcSnapshotSource(DataSource dataSource) throws SQLException {
+        connection = dataSource.getConnection();
+        isolation = connection.getTransactionIsolation();
+        connection.setAutoCommit(false);
+        connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        connection.setReadOnly(true);
+    }
+
+    @Override
+    public long marker() {
+        try (Statement s = connection.createStatement();
+             ResultSet rs = s.executeQuery("" +
+                     "SELECT txid_snapshot_xmax(s), NOT EXISTS (SELECT txid_snapshot_xip(s))" +
+                     "  FROM txid_current_snapshot() s")) {
+            rs.next();
+            return rs.getBoolean(2) ? rs.getLong(1) : Snapshot.UNKNOWN;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public List<Role> roles() {
+        try (Statement s = connection.createStatement();
+             ResultSet rs = s.executeQuery("SELECT id, name FROM roles ORDER BY id")) {
+            List<Role> roles = new ArrayList<>();
+            while (rs.next())
+                roles.add(new Role(rs.getInt(1), rs.getString(2)));
+            return roles;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public List<Snapshot.Block> blocks(int blockSize) {
+        try (PreparedStatement ps = connection.prepareStatement("" +
+                "SELECT b, count(*), sum((x * x % 2147483647)::int) % 2147483647" +
+                "  FROM (SELECT user_id / ? AS b, (user_id::bigint * 40503 + role_id) % 2147483647 AS x FROM users_with_roles) l" +
+                " GROUP BY b" +
+                " ORDER BY b")) {
+            ps.setInt(1, blockSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Snapshot.Block> blocks = new ArrayList<>();
+                while (rs.next())
+                    blocks.add(new Snapshot.Block(rs.getInt(1), rs.getInt(2), rs.getLong(3)));
+                return blocks;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void links(Partition users, Snapshot.Links links) {
+        try (PreparedStatement ps = connection.prepareStatement("" +
+                "SELECT user_id, role_id" +
+                "  FROM users_with_roles" +
+                " WHERE user_id BETWEEN ? AND ?" +
+                " ORDER BY user_id, role_id")) {
+            ps.setInt(1, users.from);
+            ps.setInt(2, users.to);
+            ps.setFetchSize(10000);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next())
+                    links.accept(rs.getInt(1), rs.getInt(2));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            connection.commit();
+            connection.setReadOnly(false);
+            connection.setTransactionIsolation(isolation);
+            connection.setAutoCommit(true);
+        } finally {
+            connection.close(); // back into the pool
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches all users with QueryDSL-JPA, as managed entities vs. read-only entities vs. projected into plain
+ * {@link User}s (see {@link QueryDSLJpaScenarios.Fetch}) vs. scrolled through a StatelessSession. Every iteration
+ * prints the bytes allocated per user by the benchmark thread and the peak of the heap, which includes garbage not
+ * collected yet but shows what a persistence context full of entities and snapshots costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class JpaFetchBenchmark {
+
+    private static final int FETCH_SIZE = 10000;
+
+    public enum Fetch {
+        MANAGED,
+        READ_ONLY,
+        PROJECTION,
+        STATELESS
+    }
+
+    @Param({"MANAGED", "READ_ONLY", "PROJECTION", "STATELESS"})
+    public Fetch fetch;
+
+    @Param({"100000"})
+    public int users;
+
+    private PGPoolingDataSource dataSource;
+    private QueryDSLJpaScenarios scenarios;
+
+    private long calls;
+    private long fetched;
+    private long allocated;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = Database.dataSource(getClass().getSimpleName(), 1);
+        dataSource.setDefaultRowFetchSize(FETCH_SIZE);
+        BenchmarkData.insert(dataSource, users);
+        scenarios = new QueryDSLJpaScenarios(Library.entityManagerFactory(dataSource),
+                fetch == Fetch.STATELESS ? QueryDSLJpaScenarios.Fetch.MANAGED : QueryDSLJpaScenarios.Fetch.valueOf(fetch.name()));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkData.delete(dataSource);
+        Library.close(dataSource);
+        dataSource.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPeaks() {
+        calls = fetched = allocated = 0;
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            pool.resetPeakUsage();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP)
+                peak += pool.getPeakUsage().getUsed();
+        System.out.printf("%n%d users per call, %.1f bytes allocated per user, %.1f MB peak heap%n",
+                fetched / calls, (double) allocated / fetched, peak / 1e6);
+    }
+
+    @Benchmark
+    public void fetch(Blackhole blackhole) {
+        long allocatedBefore = allocatedBytes();
+        if (fetch == Fetch.STATELESS) {
+            long[] count = new long[1];
+            scenarios.selectAll(Partition.ALL, user -> {
+                blackhole.consume(user);
+                count[0]++;
+            });
+            fetched += count[0];
+        } else {
+            List<User> result = scenarios.selectAll(Partition.ALL);
+            blackhole.consume(result);
+            fetched += result.size();
+        }
+        allocated += allocatedBytes() - allocatedBefore;
+        calls++;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,221 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.PostgreSQLTemplates;
+import com.querydsl.sql.SQLQueryFactory;
+import org.jooq.ExecuteListener;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.sql2o.Sql2o;
+import org.sql2o.quirks.PostgresQuirks;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The libraries under comparison, set up the same way as in their tests but on top of a shared DataSource.
+ * <p>
+ * With {@code -Dquery.events=true} their hooks report {@link QueryEvent}s and the Scenarios are named in them (see
+ * {@link QueryEventScenarios}), for a flight recording, e.g. {@code -XX:StartFlightRecording=filename=query.jfr}.
+ */
+public enum Library {
+
+    JOOQ {
+        @Override
+        public QueryFormulations queryFormulations(DataSource dataSource) {
+            return new JooqQueryFormulations(configuration(dataSource));
+        }
+
+        @Override
+        public Scenarios scenarios(DataSource dataSource) {
+            return queryEvents(new JooqScenarios(configuration(dataSource)));
+        }
+
+        @Override
+        public ContentionScenarios contentionScenarios(DataSource dataSource) {
+            return new JooqContentionScenarios(configuration(dataSource));
+        }
+
+        @Override
+        public Scenarios deadlineScenarios(DataSource dataSource) {
+            return queryEvents(new JooqScenarios(configuration(dataSource, new JooqDeadlines())));
+        }
+
+        @Override
+        public UserWrites userWrites(DataSource dataSource) {
+            return new JooqUserWrites(configuration(dataSource));
+        }
+
+        private org.jooq.Configuration configuration(DataSource dataSource, ExecuteListener... listeners) {
+            org.jooq.Configuration configuration = new DefaultConfiguration()
+                    .set(dataSource)
+                    .set(SQLDialect.POSTGRES);
+            List<ExecuteListener> all = new ArrayList<>(Arrays.asList(listeners));
+            if (QUERY_EVENTS)
+                all.add(new JooqQueryEvents());
+            return all.isEmpty() ? configuration : configuration.set(DefaultExecuteListenerProvider.providers(all.toArray(new ExecuteListener[all.size()])));
+        }
+    },
+    QUERYDSL_SQL {
+        @Override
+        public QueryFormulations queryFormulations(DataSource dataSource) {
+            return new QueryDSLSqlQueryFormulations(queryFactory(dataSource));
+        }
+
+        @Override
+        public Scenarios scenarios(DataSource dataSource) {
+            return queryEvents(new QueryDSLSqlScenarios(queryFactory(dataSource)));
+        }
+
+        @Override
+        public ContentionScenarios contentionScenarios(DataSource dataSource) {
+            return new QueryDSLSqlContentionScenarios(queryFactory(dataSource));
+        }
+
+        @Override
+        public Scenarios deadlineScenarios(DataSource dataSource) {
+            SQLQueryFactory queryFactory = queryFactory(dataSource);
+            queryFactory.getConfiguration().addListener(new QueryDSLSqlDeadlines());
+            return queryEvents(new QueryDSLSqlScenarios(queryFactory));
+        }
+
+        @Override
+        public UserWrites userWrites(DataSource dataSource) {
+            return new QueryDSLSqlUserWrites(queryFactory(dataSource));
+        }
+
+        private SQLQueryFactory queryFactory(DataSource dataSource) {
+            Configuration configuration = new Configuration(new PostgreSQLTemplates());
+            if (QUERY_EVENTS)
+                configuration.addListener(new QueryDSLSqlQueryEvents());
+            return new SQLQueryFactory(configuration, dataSource);
+        }
+    },
+    SQL2O {
+        @Override
+        public QueryFormulations queryFormulations(DataSource dataSource) {
+            return new Sql2oQueryFormulations(sql2o(dataSource));
+        }
+
+        @Override
+        public Scenarios scenarios(DataSource dataSource) {
+            return queryEvents(new Sql2oScenarios(sql2o(dataSource)));
+        }
+
+        @Override
+        public ContentionScenarios contentionScenarios(DataSource dataSource) {
+            return new Sql2oContentionScenarios(sql2o(dataSource));
+        }
+
+        @Override
+        public Scenarios deadlineScenarios(DataSource dataSource) {
+            return queryEvents(new Sql2oScenarios(sql2o(Sql2oDeadlines.dataSource(dataSource))));
+        }
+
+        @Override
+        public UserWrites userWrites(DataSource dataSource) {
+            return new Sql2oUserWrites(sql2o(dataSource));
+        }
+
+        /**
+         * The quirks are given, sql2o can't tell them from a wrapped DataSource (e.g. {@link ConcurrencyLimiter}'s).
+         */
+        private Sql2o sql2o(DataSource dataSource) {
+            return QUERY_EVENTS ? Sql2oQueryEvents.sql2o(dataSource) : new Sql2o(dataSource, new PostgresQuirks());
+        }
+    },
+    QUERYDSL_JPA {
+        @Override
+        public QueryFormulations queryFormulations(DataSource dataSource) {
+            return new QueryDSLJpaQueryFormulations(new JPAQueryFactory(entityManagerFactory(dataSource).createEntityManager()));
+        }
+
+        @Override
+        public Scenarios scenarios(DataSource dataSource) {
+            return queryEvents(new QueryDSLJpaScenarios(entityManagerFactory(dataSource)));
+        }
+
+        @Override
+        public ContentionScenarios contentionScenarios(DataSource dataSource) {
+            return new QueryDSLJpaContentionScenarios(entityManagerFactory(dataSource));
+        }
+
+        /**
+         * QueryDSLJpaScenarios apply the deadline themselves.
+         */
+        @Override
+        public Scenarios deadlineScenarios(DataSource dataSource) {
+            return scenarios(dataSource);
+        }
+
+        /**
+         * There's no WriteBehindBuffer backend for QueryDSL-JPA, a persistence context already defers and batches its
+         * writes until the flush.
+         */
+        @Override
+        public UserWrites userWrites(DataSource dataSource) {
+            throw new UnsupportedOperationException("no UserWrites for QueryDSL-JPA");
+        }
+    };
+
+    private static final boolean QUERY_EVENTS = Boolean.getBoolean("query.events");
+    private static final Map<DataSource, EntityManagerFactory> entityManagerFactories = new ConcurrentHashMap<>();
+
+    public abstract QueryFormulations queryFormulations(DataSource dataSource);
+
+    public abstract Scenarios scenarios(DataSource dataSource);
+
+    public abstract ContentionScenarios contentionScenarios(DataSource dataSource);
+
+    /**
+     * The Scenarios with the library's hooks for the current {@link Deadline}, for {@link DeadlineScenarios}.
+     */
+    public abstract Scenarios deadlineScenarios(DataSource dataSource);
+
+    /**
+     * The backend of a {@link WriteBehindBuffer}.
+     */
+    public abstract UserWrites userWrites(DataSource dataSource);
+
+    /**
+     * For {@link AsyncScenarios}, whose threads need their own Scenarios unless they're thread-safe.
+     */
+    public Supplier<Scenarios> scenariosPerThread(DataSource dataSource) {
+        Scenarios scenarios = scenarios(dataSource);
+        return () -> scenarios;
+    }
+
+    /**
+     * Closes what the libraries keep open for the DataSource, before it's closed itself.
+     */
+    public static void close(DataSource dataSource) {
+        EntityManagerFactory entityManagerFactory = entityManagerFactories.remove(dataSource);
+        if (entityManagerFactory != null)
+            entityManagerFactory.close();
+    }
+
+    /**
+     * One per DataSource, shared by all of QueryDSL-JPA's Scenarios on it until {@link #close(DataSource)}.
+     */
+    static EntityManagerFactory entityManagerFactory(DataSource dataSource) {
+        return entityManagerFactories.computeIfAbsent(dataSource, key -> {
+            Map<String, Object> properties = QUERY_EVENTS ? QueryDSLJpaQueryEvents.properties() : new HashMap<>();
+            properties.put("hibernate.connection.datasource", key);
+            return Persistence.createEntityManagerFactory("QueryDSLJpaBenchmark", properties);
+        });
+    }
+
+    private static Scenarios queryEvents(Scenarios scenarios) {
+        return QUERY_EVENTS ? new QueryEventScenarios(scenarios) : scenarios;
+    }
+}
@@ -0,0 +1,181 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.postgresql.ds.PGPoolingDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Overloads each library with lookups of users by id, open loop: the calls arrive at a fixed rate, whether the calls
+ * before are done or not, like the requests of independent clients. The rate is {@code overload} times the capacity,
+ * the calls per second {@code pool.size} threads make one after the other. The same pool of {@code pool.size}
+ * connections is used without a limiter, the calls beyond queue up without bound, and with a {@link ConcurrencyLimiter}
+ * starting at half of {@code pool.size} and growing up to it, the calls beyond wait up to {@code limiter.wait} ms (at
+ * most {@code pool.size} of them) or are rejected.
+ * <p>
+ * A call's latency counts from the time it was due, so the time it waited for a thread counts too. The report per run
+ * shows the goodput (calls per second done within {@code slo} ms), the throughput, the rejected calls and the latency
+ * percentiles of the calls done, with the limiter also its limit, sampled every 100 ms. The calls still queued at the
+ * end of a run are waited for, they count.
+ * <p>
+ * Settings are system properties: {@code libraries} (comma separated, default all), {@code seconds} (per run, default
+ * 10), {@code overload} (default 2), {@code slo} (ms, default 50), {@code pool.size} (connections, default 10, like the
+ * tests of QueryDSL-SQL), {@code limiter.wait} (ms, default 10), {@code clients} (threads making the calls, default
+ * 256), {@code users} (default 10000) and those of {@link Database}.
+ * <p>
+ * {@code java -Ddb.url=localhost -cp benchmark/target/benchmarks.jar de.stphngrtz.dbquerylibrarycomparison.OverloadReport}
+ */
+public class OverloadReport {
+
+    private static final List<Library> libraries = Arrays.stream(System.getProperty("libraries", "JOOQ,QUERYDSL_SQL,SQL2O,QUERYDSL_JPA").split(",")).map(Library::valueOf).collect(Collectors.toList());
+    private static final long seconds = Long.getLong("seconds", 10);
+    private static final double overload = Double.parseDouble(System.getProperty("overload", "2"));
+    private static final long slo = Long.getLong("slo", 50);
+    private static final int poolSize = Integer.getInteger("pool.size", 10);
+    private static final long limiterWait = Long.getLong("limiter.wait", 10);
+    private static final int clients = Integer.getInteger("clients", 256);
+    private static final int users = Integer.getInteger("users", 10_000);
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%d s per run at %.1fx capacity, %d connections, SLO %d ms%n%n", seconds, overload, poolSize, slo);
+
+        List<Run> runs = new ArrayList<>();
+        for (Library library : libraries) {
+            PGPoolingDataSource dataSource = Database.dataSource(OverloadReport.class.getSimpleName() + "-" + library, poolSize);
+            try {
+                BenchmarkData.insert(dataSource, users);
+                double capacity = capacity(library.scenarios(dataSource));
+                runs.add(run(library, capacity, dataSource, null));
+
+                ConcurrencyLimiter limiter = new ConcurrencyLimiter(dataSource, Math.max(1, poolSize / 2), poolSize, poolSize, limiterWait, TimeUnit.MILLISECONDS);
+                runs.add(run(library, capacity, limiter.dataSource(), limiter));
+            } finally {
+                BenchmarkData.delete(dataSource);
+                Library.close(dataSource);
+                dataSource.close();
+            }
+        }
+
+        System.out.printf("%n%-14s %-8s %10s %10s %10s %10s %9s %9s %9s %9s %7s%n",
+                "library", "limiter", "offered/s", "goodput/s", "done/s", "rejected", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "limit");
+        for (Run run : runs)
+            run.print();
+    }
+
+    /**
+     * Calls per second of {@code pool.size} threads, one call after the other, after a warm-up of the same length.
+     */
+    private static double capacity(Scenarios scenarios) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        try {
+            LongAdder calls = new LongAdder();
+            AtomicBoolean measuring = new AtomicBoolean();
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(2 * Math.max(1, seconds / 2));
+            for (int i = 0; i < poolSize; i++) {
+                executor.execute(() -> {
+                    while (System.nanoTime() < end) {
+                        call(scenarios);
+                        if (measuring.get())
+                            calls.increment();
+                    }
+                });
+            }
+            TimeUnit.SECONDS.sleep(Math.max(1, seconds / 2));
+            measuring.set(true);
+            long start = System.nanoTime();
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            return calls.sum() / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Run run(Library library, double capacity, DataSource dataSource, ConcurrencyLimiter limiter) throws Exception {
+        Scenarios scenarios = library.scenarios(dataSource);
+        Run run = new Run(library, limiter != null, capacity * overload);
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            long intervalNanos = (long) (1e9 / run.offered);
+            long start = System.nanoTime();
+            long end = start + TimeUnit.SECONDS.toNanos(seconds);
+            long nextSample = start;
+            for (long due = start; due < end; due += intervalNanos) {
+                long now;
+                while ((now = System.nanoTime()) < due)
+                    LockSupport.parkNanos(due - now);
+                if (limiter != null && now >= nextSample) {
+                    run.limits.add(limiter.limit());
+                    nextSample += TimeUnit.MILLISECONDS.toNanos(100);
+                }
+
+                long dueNanos = due;
+                executor.execute(() -> {
+                    try {
+                        call(scenarios);
+                        run.done(System.nanoTime() - dueNanos);
+                    } catch (RuntimeException e) {
+                        if (!ConcurrencyLimiter.rejection(e))
+                            throw e;
+                        run.rejected.increment();
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+            Library.close(dataSource);
+        }
+        return run;
+    }
+
+    private static void call(Scenarios scenarios) {
+        scenarios.selectWhereEquals(BenchmarkData.FIRST_ID + ThreadLocalRandom.current().nextInt(users));
+    }
+
+    private static class Run {
+
+        private final Library library;
+        private final boolean limited;
+        private final double offered;
+        private final List<Long> latencies = new ArrayList<>();
+        private final List<Integer> limits = new ArrayList<>();
+        private final LongAdder rejected = new LongAdder();
+
+        private Run(Library library, boolean limited, double offered) {
+            this.library = library;
+            this.limited = limited;
+            this.offered = offered;
+        }
+
+        private synchronized void done(long latencyNanos) {
+            latencies.add(latencyNanos);
+        }
+
+        private synchronized void print() {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            long good = Arrays.stream(sorted).filter(l -> l <= TimeUnit.MILLISECONDS.toNanos(slo)).count();
+            System.out.printf("%-14s %-8s %10.0f %10.0f %10.0f %10d %9.1f %9.1f %9.1f %9.1f %7s%n",
+                    library, limited ? "yes" : "no", offered, good / (double) seconds, sorted.length / (double) seconds, rejected.sum(),
+                    percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 0.999), percentile(sorted, 1.0),
+                    limits.isEmpty() ? "-" : String.format("%.1f", limits.stream().mapToInt(Integer::intValue).average().getAsDouble()));
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0)
+                return Double.NaN;
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The scans and the aggregate over all users, split into a number of id ranges which are queried in parallel and
+ * merged (see {@link PartitionedScan}). {@code partitions=1} is the single query, the other counts show the speedup
+ * against it. It levels off at the cores of the client and the database, whichever runs out first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PartitionedScanBenchmark {
+
+    public enum Scenario {
+        SELECT_ALL,
+        SELECT_ALL_ORDERED_BY,
+        SELECT_COUNT_WITH_GROUP_BY
+    }
+
+    @Param({"JOOQ", "QUERYDSL_SQL", "SQL2O", "QUERYDSL_JPA"})
+    public Library library;
+
+    @Param({"SELECT_ALL", "SELECT_ALL_ORDERED_BY", "SELECT_COUNT_WITH_GROUP_BY"})
+    public Scenario scenario;
+
+    @Param({"1", "2", "4", "8"})
+    public int partitions;
+
+    @Param({"100000"})
+    public int users;
+
+    private PGPoolingDataSource dataSource;
+    private PartitionedScan scan;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = Database.dataSource(getClass().getSimpleName(), partitions);
+        BenchmarkData.insert(dataSource, users);
+        scan = new PartitionedScan(library.scenariosPerThread(dataSource), Partition.byIdRange(partitions, 1, BenchmarkData.FIRST_ID + users - 1));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        scan.close();
+        BenchmarkData.delete(dataSource);
+        Library.close(dataSource);
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<?> scan() {
+        switch (scenario) {
+            case SELECT_ALL:
+                return scan.selectAll();
+            case SELECT_ALL_ORDERED_BY:
+                return scan.selectAllOrderedBy();
+            case SELECT_COUNT_WITH_GROUP_BY:
+                return scan.selectCountWithGroupBy();
+            default:
+                throw new IllegalArgumentException(scenario.name());
+        }
+    }
+}
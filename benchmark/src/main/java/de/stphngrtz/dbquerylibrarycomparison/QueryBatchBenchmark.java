@@ -0,0 +1,89 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end latency of a typical request handler, which needs a user by id, the list of roles and the number of
+ * users per role. The three independent queries are run one after the other, together in a single round trip or
+ * in parallel on pooled connections (see {@link QueryBatch}).
+ * <p>
+ * Against a database on localhost round trips are cheap, so the difference shows best with a remote database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class QueryBatchBenchmark {
+
+    public enum Execution {
+        /**
+         * without a batch, each scenario on its own
+         */
+        NONE,
+        SEQUENTIALLY,
+        SINGLE_ROUND_TRIP,
+        IN_PARALLEL
+    }
+
+    @Param({"JOOQ", "QUERYDSL_SQL", "SQL2O"})
+    public Library library;
+
+    @Param({"NONE", "SEQUENTIALLY", "SINGLE_ROUND_TRIP", "IN_PARALLEL"})
+    public Execution execution;
+
+    private PGPoolingDataSource dataSource;
+    private ExecutorService executor;
+    private Scenarios scenarios;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = Database.dataSource(getClass().getSimpleName(), 3);
+        executor = Executors.newFixedThreadPool(3);
+        scenarios = library.scenarios(dataSource);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        executor.shutdown();
+        Library.close(dataSource);
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<?> request() throws Exception {
+        if (execution == Execution.NONE)
+            return Arrays.asList(scenarios.selectWhereEquals(1), scenarios.selectAllOrderedBy(), scenarios.selectCountWithGroupBy());
+
+        QueryBatch batch = new QueryBatch();
+        CompletableFuture<List<User>> user = scenarios.selectWhereEquals(batch, 1);
+        CompletableFuture<List<Role>> roles = scenarios.selectAllOrderedBy(batch);
+        CompletableFuture<List<String>> counts = scenarios.selectCountWithGroupBy(batch);
+        switch (execution) {
+            case SEQUENTIALLY:
+                try (Connection connection = dataSource.getConnection()) {
+                    batch.executeSequentially(connection);
+                }
+                break;
+            case SINGLE_ROUND_TRIP:
+                try (Connection connection = dataSource.getConnection()) {
+                    batch.execute(connection);
+                }
+                break;
+            case IN_PARALLEL:
+                batch.executeInParallel(dataSource, executor);
+                break;
+        }
+        return Arrays.asList(user.get(), roles.get(), counts.get());
+    }
+}
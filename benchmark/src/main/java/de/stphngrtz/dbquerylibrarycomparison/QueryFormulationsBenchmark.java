@@ -0,0 +1,101 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Runs each {@link Formulation} of the {@link QueryFormulations} scenarios at scale. Before measuring, the result of
+ * a formulation is checked against the one of the scenario's original formulation (the one of the tests).
+ * Combinations a library can't express fail in setup and are reported as such by JMH.
+ * <p>
+ * {@code java -Ddb.url=localhost -jar benchmark/target/benchmarks.jar QueryFormulationsBenchmark -p users=100000}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class QueryFormulationsBenchmark {
+
+    @Param({"JOOQ", "QUERYDSL_SQL", "SQL2O", "QUERYDSL_JPA"})
+    public Library library;
+
+    @Param({"10000"})
+    public int users;
+
+    @Param({
+            "selectWithSubselectInSelectBlock:CORRELATED_SUBQUERY",
+            "selectWithSubselectInSelectBlock:JOIN_GROUP_BY",
+            "selectWithSubselectInSelectBlock:LATERAL",
+            "selectWithSubselectInWhereBlock:IN_SUBQUERY",
+            "selectWithSubselectInWhereBlock:EXISTS",
+            "selectWithSubselectInWhereBlock:JOIN_GROUP_BY",
+            "selectWithSubselectInWhereBlock:LATERAL",
+            "selectFromMoreComplexCommonTable:MATERIALIZED_CTE",
+            "selectFromMoreComplexCommonTable:INLINED_CTE"
+    })
+    public String scenario;
+
+    private PGPoolingDataSource dataSource;
+    private QueryFormulations queryFormulations;
+    private BiFunction<QueryFormulations, Formulation, List<String>> query;
+    private Formulation formulation;
+
+    @Setup
+    public void setUp() throws Exception {
+        String[] scenarioAndFormulation = scenario.split(":");
+        Formulation original;
+        switch (scenarioAndFormulation[0]) {
+            case "selectWithSubselectInSelectBlock":
+                query = QueryFormulations::selectWithSubselectInSelectBlock;
+                original = Formulation.CORRELATED_SUBQUERY;
+                break;
+            case "selectWithSubselectInWhereBlock":
+                query = QueryFormulations::selectWithSubselectInWhereBlock;
+                original = Formulation.IN_SUBQUERY;
+                break;
+            case "selectFromMoreComplexCommonTable":
+                query = QueryFormulations::selectFromMoreComplexCommonTable;
+                original = Formulation.MATERIALIZED_CTE;
+                break;
+            default:
+                throw new IllegalArgumentException("unknown scenario " + scenarioAndFormulation[0]);
+        }
+        formulation = Formulation.valueOf(scenarioAndFormulation[1]);
+
+        dataSource = Database.dataSource(getClass().getSimpleName(), 4);
+        BenchmarkData.insert(dataSource, users);
+        try {
+            queryFormulations = library.queryFormulations(dataSource);
+
+            List<String> expected = new ArrayList<>(query.apply(queryFormulations, original));
+            List<String> actual = new ArrayList<>(query.apply(queryFormulations, formulation));
+            Collections.sort(expected);
+            Collections.sort(actual);
+            if (!expected.equals(actual))
+                throw new IllegalStateException(scenario + " returns " + actual.size() + " rows which differ from the " + expected.size() + " rows of " + original);
+        } catch (RuntimeException e) {
+            tearDown(); // JMH doesn't tear down after a failed setup
+            throw e;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkData.delete(dataSource);
+        Library.close(dataSource);
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<String> query() {
+        return query.apply(queryFormulations, formulation);
+    }
+}
@@ -0,0 +1,129 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.PostgreSQLTemplates;
+import com.querydsl.sql.SQLQuery;
+import io.r2dbc.pool.ConnectionPool;
+import org.jooq.Cursor;
+import org.jooq.DSLContext;
+import org.jooq.Record3;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.postgresql.ds.PGPoolingDataSource;
+import reactor.core.publisher.Flux;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static de.stphngrtz.dbquerylibrarycomparison.tables.Users.USERS;
+
+/**
+ * A scan of all users, fetched as a list, streamed through a cursor and streamed on demand via R2DBC (see
+ * {@link R2dbcScenarios}). All paths fetch {@link #FETCH_SIZE} rows at a time, the list paths keep every row until
+ * the last one arrived, the streaming ones only the current chunk.
+ * <p>
+ * Run with {@code -prof gc} to compare the allocations per scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ReactiveScanBenchmark {
+
+    private static final int FETCH_SIZE = 1000;
+
+    public enum Path {
+        JOOQ_LIST,
+        JOOQ_CURSOR,
+        QUERYDSL_SQL_LIST,
+        QUERYDSL_SQL_ITERATE,
+        R2DBC
+    }
+
+    @Param({"JOOQ_LIST", "JOOQ_CURSOR", "QUERYDSL_SQL_LIST", "QUERYDSL_SQL_ITERATE", "R2DBC"})
+    public Path path;
+
+    @Param({"100000"})
+    public int users;
+
+    private PGPoolingDataSource dataSource;
+    private ConnectionPool connectionFactory;
+    private Configuration configuration;
+    private R2dbcScenarios scenarios;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = Database.dataSource(getClass().getSimpleName(), 1);
+        dataSource.setDefaultRowFetchSize(FETCH_SIZE);
+        BenchmarkData.insert(dataSource, users);
+
+        connectionFactory = Database.connectionFactory(1);
+        configuration = new Configuration(new PostgreSQLTemplates());
+        scenarios = new R2dbcScenarios(connectionFactory, FETCH_SIZE);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkData.delete(dataSource);
+        connectionFactory.dispose();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public void scan(Blackhole blackhole) throws Exception {
+        if (path == Path.R2DBC) {
+            Flux.from(scenarios.selectAll()).doOnNext(blackhole::consume).blockLast();
+            return;
+        }
+
+        // the PostgreSQL driver fetches in chunks only within a transaction
+        try (Connection c = dataSource.getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                scan(c, blackhole);
+            } finally {
+                c.rollback();
+                c.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void scan(Connection c, Blackhole blackhole) throws Exception {
+        DSLContext dsl = DSL.using(c, SQLDialect.POSTGRES);
+        QUsers qUsers = QUsers.users;
+        switch (path) {
+            case JOOQ_LIST:
+                List<User> list = dsl.select(USERS.ID, USERS.NAME, USERS.EMAIL).from(USERS).fetchSize(FETCH_SIZE)
+                        .fetch(r -> new User(r.value1(), r.value2(), r.value3()));
+                list.forEach(blackhole::consume);
+                break;
+            case JOOQ_CURSOR:
+                try (Cursor<Record3<Integer, String, String>> cursor = dsl.select(USERS.ID, USERS.NAME, USERS.EMAIL).from(USERS).fetchSize(FETCH_SIZE).fetchLazy()) {
+                    while (cursor.hasNext()) {
+                        Record3<Integer, String, String> r = cursor.fetchOne();
+                        blackhole.consume(new User(r.value1(), r.value2(), r.value3()));
+                    }
+                }
+                break;
+            case QUERYDSL_SQL_LIST:
+                for (Tuple t : new SQLQuery<Void>(c, configuration).select(qUsers.id, qUsers.name, qUsers.email).from(qUsers).fetch())
+                    blackhole.consume(new User(t.get(qUsers.id), t.get(qUsers.name), t.get(qUsers.email)));
+                break;
+            case QUERYDSL_SQL_ITERATE:
+                try (CloseableIterator<Tuple> iterator = new SQLQuery<Void>(c, configuration).select(qUsers.id, qUsers.name, qUsers.email).from(qUsers).iterate()) {
+                    while (iterator.hasNext()) {
+                        Tuple t = iterator.next();
+                        blackhole.consume(new User(t.get(qUsers.id), t.get(qUsers.name), t.get(qUsers.email)));
+                    }
+                }
+                break;
+        }
+    }
+}
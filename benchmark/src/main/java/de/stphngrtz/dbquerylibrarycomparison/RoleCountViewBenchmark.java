@@ -0,0 +1,82 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the users per role, counted by the database on every call vs. kept in memory by a
+ * {@link RoleCountView}, with and without a threshold. Meanwhile another thread keeps assigning and taking a role
+ * through the view, as the scenarios' DML would in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RoleCountViewBenchmark {
+
+    public enum Source {
+        SQL,
+        VIEW
+    }
+
+    @Param({"JOOQ", "QUERYDSL_SQL", "SQL2O", "QUERYDSL_JPA"})
+    public Library library;
+
+    @Param({"SQL", "VIEW"})
+    public Source source;
+
+    @Param({"100000"})
+    public int users;
+
+    private PGPoolingDataSource dataSource;
+    private RoleCountView view;
+    private Scenarios scenarios;
+    private int userId;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = Database.dataSource(getClass().getSimpleName(), 2);
+        BenchmarkData.insert(dataSource, users);
+        view = new RoleCountView(library.scenarios(dataSource));
+        scenarios = source == Source.VIEW ? view : library.scenarios(dataSource);
+
+        userId = BenchmarkData.FIRST_ID + users;
+        view.insert(new User(userId, "Benchmark", "benchmark@mail.de"));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try {
+            if (!view.isConsistent())
+                throw new IllegalStateException("view and database disagree");
+        } finally {
+            BenchmarkData.delete(dataSource);
+            Library.close(dataSource);
+            dataSource.close();
+        }
+    }
+
+    @Benchmark
+    @Group("dashboard")
+    public List<String> selectCountWithGroupBy() {
+        return scenarios.selectCountWithGroupBy();
+    }
+
+    @Benchmark
+    @Group("dashboard")
+    public int[] changeRole() {
+        view.insertRoles(userId, 1);
+        return view.deleteRoles(userId, 1);
+    }
+
+    @Benchmark
+    @Group("dashboard")
+    public List<String> selectCountWithGroupByHaving() {
+        return scenarios.selectCountWithGroupByHaving(users / 3);
+    }
+}
@@ -0,0 +1,92 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * {@link #THREADS} threads run the scenarios against the users spread over a number of shards (see
+ * {@link ShardedScenarios} and {@link Shards}): lookups by id, which go to a single shard, and a join and an aggregate
+ * over all users, which go to all shards in parallel. {@code shards=1} is a single database, the other counts show
+ * the scaling against it. With all shards on one server, that levels off at the cores of the server, spread them
+ * over several with {@code -Dshards.servers}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Threads(ShardedScenariosBenchmark.THREADS)
+@Fork(1)
+public class ShardedScenariosBenchmark {
+
+    static final int THREADS = 8;
+
+    public enum Scenario {
+        SELECT_WHERE_EQUALS,
+        SELECT_WITH_EXPLICIT_JOIN,
+        SELECT_COUNT_WITH_GROUP_BY
+    }
+
+    @Param({"JOOQ", "QUERYDSL_SQL", "SQL2O"})
+    public Library library;
+
+    @Param({"SELECT_WHERE_EQUALS", "SELECT_WITH_EXPLICIT_JOIN", "SELECT_COUNT_WITH_GROUP_BY"})
+    public Scenario scenario;
+
+    @Param({"1", "2", "4", "8"})
+    public int shards;
+
+    @Param({"100000"})
+    public int users;
+
+    private List<PGPoolingDataSource> dataSources;
+    private ShardedScenarios scenarios;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSources = Shards.dataSources(getClass().getSimpleName(), shards, THREADS);
+        for (PGPoolingDataSource dataSource : dataSources)
+            BenchmarkData.delete(dataSource); // leftovers of an aborted run
+
+        scenarios = new ShardedScenarios(dataSources.stream().map(library::scenarios).collect(Collectors.toList()));
+        BenchmarkData.insert(scenarios, users);
+        for (PGPoolingDataSource dataSource : dataSources) {
+            try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+                s.execute("ANALYZE users");
+                s.execute("ANALYZE users_with_roles");
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try {
+            scenarios.close();
+            for (PGPoolingDataSource dataSource : dataSources)
+                BenchmarkData.delete(dataSource);
+        } finally {
+            Shards.close(dataSources);
+        }
+    }
+
+    @Benchmark
+    public List<?> run() {
+        switch (scenario) {
+            case SELECT_WHERE_EQUALS:
+                return scenarios.selectWhereEquals(BenchmarkData.FIRST_ID + ThreadLocalRandom.current().nextInt(users));
+            case SELECT_WITH_EXPLICIT_JOIN:
+                return scenarios.selectWithExplicitJoin();
+            case SELECT_COUNT_WITH_GROUP_BY:
+                return scenarios.selectCountWithGroupBy();
+            default:
+                throw new IllegalArgumentException(scenario.name());
+        }
+    }
+}
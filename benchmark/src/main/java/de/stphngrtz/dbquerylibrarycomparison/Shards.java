@@ -0,0 +1,91 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The databases of {@link ShardedScenarios}. Shard i is the database {@code <db.database>_shard<i>}, by default on the
+ * server of {@link Database}, with {@code -Dshards.servers=localhost:5432,localhost:5433} round robin on several
+ * (local) PostgreSQL clusters. A missing database is created, with the tables and the roles of db/init.sql but
+ * without its users, they're on their shards only.
+ */
+public class Shards {
+
+    private static final List<String> servers = System.getProperty("shards.servers") == null
+            ? null
+            : Arrays.asList(System.getProperty("shards.servers").split(","));
+
+    /**
+     * @param name           unique as long as the DataSources aren't closed, see {@link Database#dataSource(String, int)}
+     * @param maxConnections per shard
+     */
+    public static List<PGPoolingDataSource> dataSources(String name, int shards, int maxConnections) throws SQLException {
+        List<PGPoolingDataSource> dataSources = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            String server = servers == null ? null : servers.get(i % servers.size());
+            String database = Database.db_database + "_shard" + i;
+            create(server, database);
+            dataSources.add(Database.dataSource(name + "-shard" + i, server, database, maxConnections));
+        }
+        return dataSources;
+    }
+
+    public static void close(List<PGPoolingDataSource> dataSources) {
+        dataSources.forEach(PGPoolingDataSource::close);
+    }
+
+    private static void create(String server, String database) throws SQLException {
+        PGPoolingDataSource admin = Database.dataSource(Shards.class.getSimpleName() + "-" + database, server, Database.db_database, 1);
+        try (Connection c = admin.getConnection()) {
+            try (PreparedStatement ps = c.prepareStatement("SELECT 1 FROM pg_database WHERE datname = ?")) {
+                ps.setString(1, database);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next())
+                        return;
+                }
+            }
+            try (Statement s = c.createStatement()) {
+                s.execute("CREATE DATABASE " + database);
+            }
+        } finally {
+            admin.close();
+        }
+
+        PGPoolingDataSource shard = Database.dataSource(Shards.class.getSimpleName() + "-" + database, server, database, 1);
+        try (Connection c = shard.getConnection(); Statement s = c.createStatement()) {
+            for (String statement : schema())
+                s.execute(statement);
+        } finally {
+            shard.close();
+        }
+    }
+
+    /**
+     * The statements of db/init.sql (on the classpath), except for the inserts of users and role assignments.
+     */
+    private static List<String> schema() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Shards.class.getResourceAsStream("/init.sql"), StandardCharsets.UTF_8))) {
+            return Arrays.stream(reader.lines().collect(Collectors.joining("\n")).split(";"))
+                    .map(String::trim)
+                    .filter(statement -> !statement.isEmpty())
+                    .filter(statement -> !statement.startsWith("insert into \"users"))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to ready, i.e. the roles and role assignments at hand: reloaded over JDBC onto the heap vs. a {@link Snapshot}
+ * left behind by the previous run, mapped and checked against the database. With {@code SNAPSHOT} nothing changed
+ * since, with {@code SNAPSHOT_REFRESH} one assignment did and its block is read again. The checksums of the blocks
+ * take the database a scan of all assignments, on localhost that costs about as much as sending them; it pays off with
+ * a limited bandwidth ({@code -Dproxy.bandwidth}).
+ * <p>
+ * The default of 6666667 users makes 10M role assignments. The snapshot stays in the page cache between iterations,
+ * as it would for a restart on the same host, not for a new one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SnapshotStartupBenchmark {
+
+    public enum Start {
+        JDBC,
+        SNAPSHOT,
+        SNAPSHOT_REFRESH
+    }
+
+    @Param({"JDBC", "SNAPSHOT", "SNAPSHOT_REFRESH"})
+    public Start start;
+
+    @Param({"6666667"})
+    public int users;
+
+    @Param({"4096"})
+    public int blockSize;
+
+    private PGPoolingDataSource dataSource;
+    private Path previousRun;
+    private Path snapshot;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = Database.dataSource(getClass().getSimpleName(), 1);
+        BenchmarkData.insert(dataSource, users);
+
+        previousRun = Files.createTempFile("roles", ".snapshot");
+        Files.delete(previousRun);
+        try (JdbcSnapshotSource source = new JdbcSnapshotSource(dataSource)) {
+            Snapshot.refresh(previousRun, source, blockSize);
+        }
+        snapshot = previousRun.resolveSibling("current-" + previousRun.getFileName());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try {
+            Files.deleteIfExists(snapshot);
+            Files.deleteIfExists(previousRun);
+        } finally {
+            BenchmarkData.delete(dataSource);
+            dataSource.close();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void restart() throws Exception {
+        Files.copy(previousRun, snapshot, StandardCopyOption.REPLACE_EXISTING);
+        if (start == Start.SNAPSHOT_REFRESH)
+            changeRole("INSERT INTO users_with_roles (user_id, role_id) VALUES (?, 1)");
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() throws Exception {
+        if (start == Start.SNAPSHOT_REFRESH)
+            changeRole("DELETE FROM users_with_roles WHERE user_id = ? AND role_id = 1");
+    }
+
+    /**
+     * user n has n % 4 roles, {@link BenchmarkData#FIRST_ID} none
+     */
+    private void changeRole(String sql) throws SQLException {
+        try (Connection c = dataSource.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, BenchmarkData.FIRST_ID);
+            ps.executeUpdate();
+        }
+    }
+
+    @Benchmark
+    public void ready(Blackhole blackhole) throws Exception {
+        if (start == Start.JDBC) {
+            reload(blackhole);
+        } else {
+            try (JdbcSnapshotSource source = new JdbcSnapshotSource(dataSource)) {
+                blackhole.consume(Snapshot.refresh(snapshot, source, blockSize));
+            }
+        }
+    }
+
+    /**
+     * The roles by id and the role ids by user id.
+     */
+    private void reload(Blackhole blackhole) throws SQLException {
+        try (Connection c = dataSource.getConnection()) {
+            c.setAutoCommit(false);
+            IntMap<Role> roles = new IntMap<>();
+            try (Statement s = c.createStatement(); ResultSet rs = s.executeQuery("SELECT id, name FROM roles")) {
+                while (rs.next())
+                    roles.put(rs.getInt(1), new Role(rs.getInt(1), rs.getString(2)));
+            }
+
+            IntMap<int[]> links = new IntMap<>(users);
+            try (Statement s = c.createStatement()) {
+                s.setFetchSize(10000);
+                try (ResultSet rs = s.executeQuery("SELECT user_id, role_id FROM users_with_roles ORDER BY user_id, role_id")) {
+                    int userId = 0;
+                    int[] roleIds = new int[0];
+                    while (rs.next()) {
+                        if (rs.getInt(1) != userId || roleIds.length == 0) {
+                            userId = rs.getInt(1);
+                            roleIds = new int[]{rs.getInt(2)};
+                        } else {
+                            roleIds = Arrays.copyOf(roleIds, roleIds.length + 1);
+                            roleIds[roleIds.length - 1] = rs.getInt(2);
+                        }
+                        links.put(userId, roleIds);
+                    }
+                }
+            }
+            c.commit();
+            blackhole.consume(roles);
+            blackhole.consume(links);
+        }
+    }
+}
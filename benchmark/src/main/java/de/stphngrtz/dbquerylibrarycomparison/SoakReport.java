@@ -0,0 +1,350 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Soaks each library with a mixed workload for hours, to reproduce leaks that only show after days of uptime: lookups
+ * by id, the roles, counts per role, small id ranges and a user inserted, given roles, taken them and deleted again.
+ * Every interval it samples the heap after GC (the lowest of the interval, as the collectors' notifications report
+ * it), the GC pauses, the allocation rate of the workload's threads, metaspace and loaded classes. It writes the
+ * samples to {@code soak-<library>.csv} and reports per library: the pause distribution, and whether heap after GC,
+ * metaspace or classes grew steadily after the warm-up (the first quarter of the samples).
+ * <p>
+ * Settings are system properties: {@code libraries} (comma separated, default all), {@code soak.minutes} (per library,
+ * default 240), {@code soak.interval} (seconds, default 60), {@code threads} (default 4), {@code users} (default
+ * 100000), {@code pool.size} (connections, default 4) and those of {@link Database}. Run one library per JVM to see its
+ * metaspace on its own: classes of the libraries before stay loaded.
+ * <p>
+ * {@code java -Ddb.url=localhost -Dlibraries=QUERYDSL_JPA -Xmx512m -cp benchmark/target/benchmarks.jar de.stphngrtz.dbquerylibrarycomparison.SoakReport}
+ */
+public class SoakReport {
+
+    private static final List<Library> libraries = Arrays.stream(System.getProperty("libraries", "JOOQ,QUERYDSL_SQL,SQL2O,QUERYDSL_JPA").split(",")).map(Library::valueOf).collect(Collectors.toList());
+    private static final long minutes = Long.getLong("soak.minutes", 240);
+    private static final long interval = Long.getLong("soak.interval", 60);
+    private static final int threads = Integer.getInteger("threads", 4);
+    private static final int users = Integer.getInteger("users", 100_000);
+    private static final int poolSize = Integer.getInteger("pool.size", 4);
+
+    /**
+     * Kendall's tau of a series against time, above which it counts as growing: most pairs of samples increase.
+     */
+    private static final double GROWING_TAU = 0.5;
+
+    /**
+     * Fitted growth over the measured samples, relative to their mean, below which a trend doesn't count.
+     */
+    private static final double GROWING_MIN = 0.01;
+
+    private static final int MIN_SAMPLES = 8;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%d minutes per library, a sample every %d s, %d threads, %d users%n%n", minutes, interval, threads, users);
+
+        GcPauses gcPauses = new GcPauses();
+        List<Report> reports = new ArrayList<>();
+        for (Library library : libraries)
+            reports.add(soak(library, gcPauses));
+
+        for (Report report : reports)
+            report.print();
+    }
+
+    private static Report soak(Library library, GcPauses gcPauses) throws Exception {
+        PGPoolingDataSource dataSource = Database.dataSource(SoakReport.class.getSimpleName() + "-" + library, poolSize);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            BenchmarkData.insert(dataSource, users);
+            Supplier<Scenarios> scenarios = library.scenariosPerThread(dataSource);
+
+            AtomicLong requests = new AtomicLong();
+            AtomicLong errors = new AtomicLong();
+            ConcurrentLinkedQueue<Long> threadIds = new ConcurrentLinkedQueue<>();
+            long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(minutes);
+            gcPauses.drain();
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int userId = BenchmarkData.FIRST_ID + users + thread; // not one of BenchmarkData's
+                futures.add(executor.submit(() -> {
+                    threadIds.add(Thread.currentThread().getId());
+                    work(scenarios.get(), userId, deadline, requests, errors);
+                }));
+            }
+
+            Report report = new Report(library);
+            long start = System.nanoTime();
+            double previousSeconds = 0;
+            long allocated = 0;
+            long previousRequests = 0;
+            double heapAfterGc = heapUsed();
+            while (System.nanoTime() < deadline) {
+                TimeUnit.SECONDS.sleep(Math.min(interval, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(deadline - System.nanoTime()))));
+
+                List<GcPause> pauses = gcPauses.drain();
+                report.pauses.addAll(pauses);
+                if (!pauses.isEmpty())
+                    heapAfterGc = pauses.stream().mapToLong(p -> p.heapAfter).min().getAsLong();
+
+                double seconds = (System.nanoTime() - start) / 1e9;
+                long allocatedNow = allocatedBytes(threadIds);
+                long requestsNow = requests.get();
+                Sample sample = new Sample(
+                        seconds,
+                        heapAfterGc / 1024 / 1024,
+                        pauses.stream().mapToDouble(p -> p.millis).max().orElse(0),
+                        (allocatedNow - allocated) / 1024.0 / 1024 / (seconds - previousSeconds),
+                        metaspaceUsed() / 1024.0 / 1024,
+                        ManagementFactory.getClassLoadingMXBean().getLoadedClassCount(),
+                        (requestsNow - previousRequests) / (seconds - previousSeconds));
+                previousSeconds = seconds;
+                allocated = allocatedNow;
+                previousRequests = requestsNow;
+                report.samples.add(sample);
+                System.out.printf("%s %6.0f s: %8.1f MB heap after GC, %8.1f MB/s allocated, %6.1f MB metaspace, %6.0f classes, %6.0f requests/s, %d errors%n",
+                        library, sample.seconds, sample.heapAfterGc, sample.allocationRate, sample.metaspace, sample.classes, sample.requestsPerSecond, errors.get());
+            }
+            for (Future<?> future : futures)
+                future.get();
+            report.errors = errors.get();
+            report.write();
+            return report;
+        } finally {
+            executor.shutdownNow();
+            BenchmarkData.delete(dataSource);
+            Library.close(dataSource);
+            dataSource.close();
+        }
+    }
+
+    private static void work(Scenarios scenarios, int userId, long deadline, AtomicLong requests, AtomicLong errors) {
+        for (int request = 0; System.nanoTime() < deadline; request++) {
+            try {
+                request(scenarios, userId, request);
+                requests.incrementAndGet();
+            } catch (RuntimeException e) {
+                if (errors.getAndIncrement() == 0)
+                    e.printStackTrace();
+            }
+        }
+    }
+
+    private static void request(Scenarios scenarios, int userId, int request) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (request % 5) {
+            case 0:
+                scenarios.selectWhereEquals(BenchmarkData.FIRST_ID + random.nextInt(users));
+                break;
+            case 1:
+                scenarios.selectAllOrderedBy();
+                break;
+            case 2:
+                scenarios.selectCountWithGroupByHaving(random.nextInt(users / 2));
+                break;
+            case 3:
+                int from = BenchmarkData.FIRST_ID + random.nextInt(users - 100);
+                scenarios.selectAll(new Partition(from, from + 100));
+                break;
+            default:
+                try {
+                    scenarios.insert(new User(userId, "Soak " + userId, "soak" + userId + "@mail.de"));
+                    scenarios.insertRoles(userId, 1, 2);
+                } finally { // leftovers of a failed request would fail all the following ones
+                    scenarios.deleteRoles(userId, 1, 2);
+                    scenarios.delete(userId);
+                }
+        }
+    }
+
+    private static long allocatedBytes(ConcurrentLinkedQueue<Long> threadIds) {
+        long[] ids = threadIds.stream().mapToLong(Long::longValue).toArray();
+        return Arrays.stream(((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(ids)).filter(b -> b > 0).sum();
+    }
+
+    private static long heapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long metaspaceUsed() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getName().equals("Metaspace"))
+                .mapToLong(pool -> pool.getUsage().getUsed())
+                .sum();
+    }
+
+    private static class GcPause {
+        private final double millis;
+        private final long heapAfter;
+
+        GcPause(double millis, long heapAfter) {
+            this.millis = millis;
+            this.heapAfter = heapAfter;
+        }
+    }
+
+    /**
+     * Collections as the collectors report them, with the heap after each one. For a concurrent collector (e.g. CMS's
+     * old generation) that's the duration of its cycle, not only the pause.
+     */
+    private static class GcPauses {
+
+        private final ConcurrentLinkedQueue<GcPause> pauses = new ConcurrentLinkedQueue<>();
+
+        GcPauses() {
+            Set<String> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                    .filter(pool -> pool.getType() == MemoryType.HEAP)
+                    .map(MemoryPoolMXBean::getName)
+                    .collect(Collectors.toSet());
+            NotificationListener listener = (notification, handback) -> {
+                if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION))
+                    return;
+                GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                long heapAfter = 0;
+                for (Map.Entry<String, MemoryUsage> entry : info.getGcInfo().getMemoryUsageAfterGc().entrySet())
+                    if (heapPools.contains(entry.getKey()))
+                        heapAfter += entry.getValue().getUsed();
+                pauses.add(new GcPause(info.getGcInfo().getDuration(), heapAfter));
+            };
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+                ((NotificationEmitter) collector).addNotificationListener(listener, null, null);
+        }
+
+        List<GcPause> drain() {
+            List<GcPause> drained = new ArrayList<>();
+            GcPause pause;
+            while ((pause = pauses.poll()) != null)
+                drained.add(pause);
+            return drained;
+        }
+    }
+
+    private static class Sample {
+        private final double seconds;
+        private final double heapAfterGc;
+        private final double maxPause;
+        private final double allocationRate;
+        private final double metaspace;
+        private final double classes;
+        private final double requestsPerSecond;
+
+        Sample(double seconds, double heapAfterGc, double maxPause, double allocationRate, double metaspace, double classes, double requestsPerSecond) {
+            this.seconds = seconds;
+            this.heapAfterGc = heapAfterGc;
+            this.maxPause = maxPause;
+            this.allocationRate = allocationRate;
+            this.metaspace = metaspace;
+            this.classes = classes;
+            this.requestsPerSecond = requestsPerSecond;
+        }
+    }
+
+    private static class Report {
+        private final Library library;
+        private final List<Sample> samples = new ArrayList<>();
+        private final List<GcPause> pauses = new ArrayList<>();
+        private long errors;
+
+        Report(Library library) {
+            this.library = library;
+        }
+
+        void write() throws IOException {
+            Path file = Paths.get("soak-" + library + ".csv");
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file))) {
+                writer.println("seconds,heap_after_gc_mb,max_gc_pause_ms,allocation_mb_per_s,metaspace_mb,classes,requests_per_s");
+                for (Sample s : samples)
+                    writer.printf("%.0f,%.1f,%.1f,%.1f,%.1f,%.0f,%.1f%n", s.seconds, s.heapAfterGc, s.maxPause, s.allocationRate, s.metaspace, s.classes, s.requestsPerSecond);
+            }
+        }
+
+        void print() {
+            System.out.printf("%n%s: %d samples, %d errors, see soak-%s.csv%n", library, samples.size(), errors, library);
+
+            List<Double> millis = pauses.stream().map(p -> p.millis).sorted().collect(Collectors.toList());
+            if (millis.isEmpty())
+                System.out.println("  GC pauses: none");
+            else
+                System.out.printf("  GC pauses: %d, %.0f ms total, p50 %.0f ms, p99 %.0f ms, p99.9 %.0f ms, max %.0f ms%n",
+                        millis.size(), millis.stream().mapToDouble(Double::doubleValue).sum(),
+                        percentile(millis, 0.5), percentile(millis, 0.99), percentile(millis, 0.999), millis.get(millis.size() - 1));
+            System.out.printf("  allocation: %.1f MB/s on average%n", samples.stream().mapToDouble(s -> s.allocationRate).average().orElse(0));
+
+            trend("heap after GC", "MB", s -> s.heapAfterGc);
+            trend("metaspace", "MB", s -> s.metaspace);
+            trend("classes", "", s -> s.classes);
+        }
+
+        /**
+         * The samples after the warm-up, fitted to a line (least squares) for the growth per hour, and ranked against
+         * time (Kendall's tau) for how steady it is: 1 if every sample is above all the ones before.
+         */
+        private void trend(String name, String unit, ToDoubleFunction<Sample> value) {
+            List<Sample> measured = samples.subList(samples.size() / 4, samples.size());
+            if (measured.size() < MIN_SAMPLES) {
+                System.out.printf("  %-13s too few samples for a trend%n", name + ":");
+                return;
+            }
+            int n = measured.size();
+            double[] x = measured.stream().mapToDouble(s -> s.seconds / 3600).toArray();
+            double[] y = measured.stream().mapToDouble(value).toArray();
+            double meanX = Arrays.stream(x).average().getAsDouble();
+            double meanY = Arrays.stream(y).average().getAsDouble();
+            double covariance = 0;
+            double variance = 0;
+            for (int i = 0; i < n; i++) {
+                covariance += (x[i] - meanX) * (y[i] - meanY);
+                variance += (x[i] - meanX) * (x[i] - meanX);
+            }
+            double slope = covariance / variance;
+
+            int concordant = 0;
+            int discordant = 0;
+            for (int i = 0; i < n; i++)
+                for (int j = i + 1; j < n; j++) {
+                    if (y[j] > y[i])
+                        concordant++;
+                    else if (y[j] < y[i])
+                        discordant++;
+                }
+            double tau = (concordant - discordant) / (n * (n - 1) / 2.0);
+
+            boolean growing = tau > GROWING_TAU && slope * (x[n - 1] - x[0]) > GROWING_MIN * meanY;
+            System.out.printf("  %-13s %10.1f -> %10.1f %-2s %+10.2f %-4s tau %+.2f%s%n",
+                    name + ":", y[0], y[n - 1], unit, slope, unit + "/h,", tau, growing ? "  GROWING" : "");
+        }
+
+        private static double percentile(List<Double> sorted, double p) {
+            return sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(p * sorted.size()) - 1));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.hibernate.engine.spi.ManagedEntity;
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to the first query in a fresh JVM, as for a pod that was just scaled out: creating the library's Scenarios and
+ * selecting a user, class loading included. Every fork measures a single start, the DataSource is created beforehand
+ * (its first connection counts).
+ * <p>
+ * QueryDSL-JPA starts with the benchmarks' persistence unit, with {@code hibernate.hbm2ddl.auto=update} on top (as the
+ * tests do) and with the fast-startup one: no JDBC metadata lookups, no scanning, no schema update. Its entities are
+ * enhanced at build time with {@code mvn package -Pfast-startup}, unenhanced otherwise (which the fork prints).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+
+    public enum Startup {
+        JOOQ,
+        QUERYDSL_SQL,
+        SQL2O,
+        QUERYDSL_JPA,
+        QUERYDSL_JPA_SCHEMA_UPDATE,
+        QUERYDSL_JPA_FAST_STARTUP
+    }
+
+    @Param({"JOOQ", "QUERYDSL_SQL", "SQL2O", "QUERYDSL_JPA", "QUERYDSL_JPA_SCHEMA_UPDATE", "QUERYDSL_JPA_FAST_STARTUP"})
+    public Startup startup;
+
+    private PGPoolingDataSource dataSource;
+    private EntityManagerFactory entityManagerFactory;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = Database.dataSource(getClass().getSimpleName(), 2); // the schema update takes a second connection
+        if (startup == Startup.QUERYDSL_JPA_FAST_STARTUP)
+            System.out.printf("%nentities enhanced: %s%n", ManagedEntity.class.isAssignableFrom(UserJPA.class));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (entityManagerFactory != null)
+            entityManagerFactory.close();
+        Library.close(dataSource);
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<User> firstQuery() {
+        return scenarios().selectWhereEquals(1);
+    }
+
+    private Scenarios scenarios() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.connection.datasource", dataSource);
+        switch (startup) {
+            case QUERYDSL_JPA:
+                entityManagerFactory = Persistence.createEntityManagerFactory("QueryDSLJpaBenchmark", properties);
+                return new QueryDSLJpaScenarios(entityManagerFactory);
+            case QUERYDSL_JPA_SCHEMA_UPDATE:
+                properties.put("hibernate.hbm2ddl.auto", "update");
+                entityManagerFactory = Persistence.createEntityManagerFactory("QueryDSLJpaBenchmark", properties);
+                return new QueryDSLJpaScenarios(entityManagerFactory);
+            case QUERYDSL_JPA_FAST_STARTUP:
+                entityManagerFactory = Persistence.createEntityManagerFactory("QueryDSLJpaFastStartup", properties);
+                return new QueryDSLJpaScenarios(entityManagerFactory);
+            default:
+                return Library.valueOf(startup.name()).scenarios(dataSource);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link #THREADS} threads rename users at random among {@code hotUsers}, each waiting until its update is durable:
+ * committed on its own ({@link UserWrites#update(User)}, a transaction per statement) or by a {@link WriteBehindBuffer}
+ * in groups of up to {@code maxBatch} updates, at most {@code maxDelay} ms after the first one. Fewer hot users make
+ * more updates of the same user coalesce within a group, and more row lock waits between commits of their own.
+ * <p>
+ * Every iteration prints the groups written and the updates coalesced. User-defined triggers, e.g. those of db/notify.sql,
+ * are disabled (see {@link BenchmarkData#triggers}), they'd notify per row either way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Threads(WriteBehindBenchmark.THREADS)
+@Fork(1)
+public class WriteBehindBenchmark {
+
+    static final int THREADS = 32;
+
+    public enum Commit {
+        PER_STATEMENT,
+        WRITE_BEHIND
+    }
+
+    @Param({"JOOQ", "QUERYDSL_SQL", "SQL2O"})
+    public Library library;
+
+    @Param({"PER_STATEMENT", "WRITE_BEHIND"})
+    public Commit commit;
+
+    @Param({"1000", "10"})
+    public int hotUsers;
+
+    @Param({"256"})
+    public int maxBatch;
+
+    @Param({"1"})
+    public long maxDelay;
+
+    private PGPoolingDataSource dataSource;
+    private UserWrites writes;
+    private WriteBehindBuffer buffer;
+
+    private final AtomicLong names = new AtomicLong();
+    private long groups;
+    private long coalesced;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = Database.dataSource(getClass().getSimpleName(), THREADS);
+        BenchmarkData.insert(dataSource, hotUsers);
+        BenchmarkData.triggers(dataSource, false);
+        writes = library.userWrites(dataSource);
+        if (commit == Commit.WRITE_BEHIND)
+            buffer = new WriteBehindBuffer(writes, maxBatch, maxDelay, TimeUnit.MILLISECONDS);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try {
+            if (buffer != null)
+                buffer.close();
+            BenchmarkData.triggers(dataSource, true);
+        } finally {
+            BenchmarkData.delete(dataSource);
+            Library.close(dataSource);
+            dataSource.close();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        if (buffer == null)
+            return;
+        long groups = buffer.groups() - this.groups;
+        long coalesced = buffer.coalesced() - this.coalesced;
+        System.out.printf("%n%d groups, %d updates coalesced%n", groups, coalesced);
+        this.groups += groups;
+        this.coalesced += coalesced;
+    }
+
+    @Benchmark
+    public void update() {
+        int id = BenchmarkData.FIRST_ID + ThreadLocalRandom.current().nextInt(hotUsers);
+        User user = new User(id, "Writer " + names.incrementAndGet(), "writer" + id + "@web.de");
+        if (commit == Commit.WRITE_BEHIND)
+            buffer.update(user).join();
+        else
+            writes.update(user);
+    }
+}
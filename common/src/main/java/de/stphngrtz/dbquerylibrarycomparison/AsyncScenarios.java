@@ -0,0 +1,107 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The {@link Scenarios} without blocking the caller, e.g. an event loop. Queries run on a dedicated executor with as
+ * many threads as the connection pool has connections, so no thread ever waits for a connection, and a bounded queue
+ * in front of it. Once the queue is full, new calls return a future that has already failed with a
+ * {@link RejectedExecutionException} instead of piling up: that's the back-pressure for the caller. The same goes for
+ * calls after {@link #close()}.
+ * <p>
+ * Each thread of the executor gets its own {@link Scenarios} from the given supplier, which matters for libraries
+ * with non thread-safe state like an {@code EntityManager}. Thread-safe ones can supply the same instance every time.
+ * Those which are {@link AutoCloseable} are closed with this.
+ * <p>
+ * Results are completed on the executor's threads. Callers with an event loop should hop back onto it, e.g. with
+ * {@link CompletableFuture#thenAcceptAsync(java.util.function.Consumer, java.util.concurrent.Executor)}.
+ */
+public class AsyncScenarios implements AutoCloseable {
+
+    private final ThreadLocal<Scenarios> scenarios;
+    private final Set<Scenarios> created = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param poolSize  max connections of the scenarios' connection pool
+     * @param queueSize calls waiting for a thread, before further calls are rejected
+     */
+    public AsyncScenarios(Supplier<Scenarios> scenarios, int poolSize, int queueSize) {
+        this.scenarios = ThreadLocal.withInitial(() -> {
+            Scenarios instance = scenarios.get();
+            created.add(instance);
+            return instance;
+        });
+
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "async-scenarios-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<List<Role>> selectAllOrderedBy() {
+        return supply(() -> scenarios.get().selectAllOrderedBy());
+    }
+
+    public CompletableFuture<List<User>> selectWhereEquals(int id) {
+        return supply(() -> scenarios.get().selectWhereEquals(id));
+    }
+
+    public CompletableFuture<List<String>> selectCountWithGroupBy() {
+        return supply(() -> scenarios.get().selectCountWithGroupBy());
+    }
+
+    /**
+     * @return calls running or waiting right now
+     */
+    public int inFlight() {
+        return executor.getActiveCount() + executor.getQueue().size();
+    }
+
+    private <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+        try {
+            return CompletableFuture.supplyAsync(supplier, executor);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
+    }
+
+    /**
+     * Waits for calls in flight to finish, then closes the threads' Scenarios.
+     */
+    @Override
+    public void close() throws Exception {
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        Exception failure = null;
+        for (Scenarios scenarios : created) {
+            if (!(scenarios instanceof AutoCloseable))
+                continue;
+            try {
+                ((AutoCloseable) scenarios).close();
+            } catch (Exception e) {
+                if (failure == null)
+                    failure = e;
+                else
+                    failure.addSuppressed(e);
+            }
+        }
+        created.clear();
+        if (failure != null)
+            throw failure;
+    }
+}
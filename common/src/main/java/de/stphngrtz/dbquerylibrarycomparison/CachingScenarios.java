@@ -0,0 +1,74 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link Scenarios} with the results of {@link #selectAllOrderedBy()}, {@link #selectWhereEquals(int)} and
+ * {@link #selectCountWithGroupBy()} cached until they're invalidated, e.g. by a ChangeListener on the database's
+ * notifications. There is no expiry, a cached result is as fresh as the invalidations are. Everything else is passed
+ * through, the DML too: a write shows up in the cache once its own notification arrived.
+ * <p>
+ * A result is loaded within {@link ConcurrentHashMap#computeIfAbsent}, an invalidation of the same key waits for the
+ * load to finish. That way a result read before a change can't outlive the change's invalidation.
+ */
+public class CachingScenarios extends ForwardingScenarios {
+
+    private static final String ROLES = "selectAllOrderedBy";
+    private static final String COUNTS = "selectCountWithGroupBy";
+
+    private final Map<Integer, List<User>> usersById = new ConcurrentHashMap<>();
+    private final Map<String, List<?>> queries = new ConcurrentHashMap<>();
+
+    public CachingScenarios(Scenarios scenarios) {
+        super(scenarios);
+    }
+
+    /**
+     * @param table the changed table, as in db/notify.sql
+     * @param id    the changed row's key, the user's for users_with_roles
+     */
+    public void invalidate(String table, int id) {
+        switch (table) {
+            case "users":
+                usersById.remove(id);
+                break;
+            case "roles":
+                queries.remove(ROLES);
+                queries.remove(COUNTS);
+                break;
+            case "users_with_roles":
+                queries.remove(COUNTS);
+                break;
+            default:
+                invalidateAll();
+        }
+    }
+
+    /**
+     * For changes that may have been missed, e.g. while the listener was reconnecting.
+     */
+    public void invalidateAll() {
+        usersById.clear();
+        queries.clear();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Role> selectAllOrderedBy() {
+        return (List<Role>) queries.computeIfAbsent(ROLES, key -> Collections.unmodifiableList(scenarios.selectAllOrderedBy()));
+    }
+
+    @Override
+    public List<User> selectWhereEquals(int id) {
+        return usersById.computeIfAbsent(id, key -> Collections.unmodifiableList(scenarios.selectWhereEquals(id)));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<String> selectCountWithGroupBy() {
+        return (List<String>) queries.computeIfAbsent(COUNTS, key -> Collections.unmodifiableList(scenarios.selectCountWithGroupBy()));
+    }
+}
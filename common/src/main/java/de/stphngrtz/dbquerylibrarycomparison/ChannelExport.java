@@ -0,0 +1,251 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes users with a role, one row at a time, as CSV or JSON lines to a channel. A row is encoded right into a pooled
+ * direct buffer (UTF-8, without an intermediate String or byte[]), which is written to the channel whenever it's full,
+ * so an export of any size allocates nothing per row.
+ * <p>
+ * The output is the same as PostgreSQL's for the same rows: {@code COPY ... TO STDOUT WITH (FORMAT csv)} for CSV, i.e.
+ * quoted only where needed and null as an empty field, and {@code row_to_json} for JSON, i.e.
+ * {@code {"id":1,"name":"...","email":"...","role":null}} per line.
+ */
+public class ChannelExport implements AutoCloseable {
+
+    public enum Format {
+        CSV,
+        JSON
+    }
+
+    /**
+     * The most bytes a char takes, as a JSON escape ({@code \u001f}).
+     */
+    private static final int MAX_CHAR_BYTES = 6;
+
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] ID = ascii("{\"id\":");
+    private static final byte[] NAME = ascii(",\"name\":");
+    private static final byte[] EMAIL = ascii(",\"email\":");
+    private static final byte[] ROLE = ascii(",\"role\":");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    private final WritableByteChannel channel;
+    private final Format format;
+    private final DirectBufferPool buffers;
+    private final byte[] digits = new byte[11];
+
+    private ByteBuffer buffer;
+    private long rows;
+    private long bytes;
+
+    /**
+     * @param buffers of at least 64 bytes, the channel is written to a buffer at a time
+     */
+    public ChannelExport(WritableByteChannel channel, Format format, DirectBufferPool buffers) {
+        this.channel = channel;
+        this.format = format;
+        this.buffers = buffers;
+        this.buffer = buffers.acquire();
+        if (buffer.capacity() < 64)
+            throw new IllegalArgumentException("buffers of " + buffer.capacity() + " bytes, at least 64 needed");
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @param role null for a user without roles
+     */
+    public void row(int id, String name, String email, String role) {
+        if (format == Format.CSV) {
+            integer(id);
+            put((byte) ',');
+            csv(name);
+            put((byte) ',');
+            csv(email);
+            put((byte) ',');
+            csv(role);
+        } else {
+            put(ID);
+            integer(id);
+            put(NAME);
+            json(name);
+            put(EMAIL);
+            json(email);
+            put(ROLE);
+            json(role);
+            put((byte) '}');
+        }
+        put((byte) '\n');
+        rows++;
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    /**
+     * @return bytes written to the channel so far, the ones still buffered not included
+     */
+    public long bytes() {
+        return bytes;
+    }
+
+    private void integer(int value) {
+        long remaining = value;
+        if (remaining < 0) {
+            put((byte) '-');
+            remaining = -remaining;
+        }
+        int i = digits.length;
+        do {
+            digits[--i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        ensure(digits.length - i);
+        buffer.put(digits, i, digits.length - i);
+    }
+
+    /**
+     * Quoted if it's empty (which tells it from null) or contains a delimiter, quote or line break.
+     */
+    private void csv(String value) {
+        if (value == null)
+            return;
+
+        boolean quoted = value.isEmpty();
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (quoted)
+            put((byte) '"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            ensure(MAX_CHAR_BYTES);
+            if (c == '"')
+                buffer.put((byte) '"').put((byte) '"');
+            else
+                i = utf8(value, i);
+        }
+        if (quoted)
+            put((byte) '"');
+    }
+
+    /**
+     * Escaped like PostgreSQL's escape_json: quotes, backslashes and control characters, nothing else.
+     */
+    private void json(String value) {
+        if (value == null) {
+            put(NULL);
+            return;
+        }
+
+        put((byte) '"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            ensure(MAX_CHAR_BYTES);
+            switch (c) {
+                case '"':
+                case '\\':
+                    buffer.put((byte) '\\').put((byte) c);
+                    break;
+                case '\b':
+                    buffer.put((byte) '\\').put((byte) 'b');
+                    break;
+                case '\f':
+                    buffer.put((byte) '\\').put((byte) 'f');
+                    break;
+                case '\n':
+                    buffer.put((byte) '\\').put((byte) 'n');
+                    break;
+                case '\r':
+                    buffer.put((byte) '\\').put((byte) 'r');
+                    break;
+                case '\t':
+                    buffer.put((byte) '\\').put((byte) 't');
+                    break;
+                default:
+                    if (c < 0x20)
+                        buffer.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0').put(HEX[c >> 4]).put(HEX[c & 0xF]);
+                    else
+                        i = utf8(value, i);
+            }
+        }
+        put((byte) '"');
+    }
+
+    /**
+     * Encodes the char at the given index, or the pair of chars of a supplementary code point, into the buffer, which
+     * has room for it. A lone surrogate becomes '?', as with {@link String#getBytes}.
+     *
+     * @return the index of the last char encoded
+     */
+    private int utf8(String value, int i) {
+        char c = value.charAt(i);
+        if (c < 0x80) {
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+        } else if (!Character.isSurrogate(c)) {
+            buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(++i));
+            buffer.put((byte) (0xF0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3F)).put((byte) (0x80 | codePoint >> 6 & 0x3F)).put((byte) (0x80 | codePoint & 0x3F));
+        } else {
+            buffer.put((byte) '?');
+        }
+        return i;
+    }
+
+    private void put(byte b) {
+        ensure(1);
+        buffer.put(b);
+    }
+
+    private void put(byte[] b) {
+        ensure(b.length);
+        buffer.put(b);
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes)
+            flush();
+    }
+
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining())
+                bytes += channel.write(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes what's buffered and releases the buffer, the channel stays open.
+     */
+    @Override
+    public void close() throws IOException {
+        if (buffer == null)
+            return;
+
+        try {
+            flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            buffers.release(buffer);
+            buffer = null;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * A {@link ConcurrencyLimiter} didn't hand out a connection: its limit was reached and its queue full, or the wait for
+ * a connection took too long. A transient failure, the call may succeed once the load has gone down.
+ */
+public class ConcurrencyLimitExceededException extends SQLTransientConnectionException {
+
+    public ConcurrencyLimitExceededException(String message) {
+        super(message, "08004");
+    }
+}
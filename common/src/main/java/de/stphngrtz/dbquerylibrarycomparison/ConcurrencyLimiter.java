@@ -0,0 +1,206 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the connections taken from a DataSource at a time, any library's, to a limit that adapts to their latency:
+ * the time from taking a connection to giving it back. The limit follows the gradient between the lowest latency seen
+ * and the latest one, like Netflix' concurrency-limits: as long as the latency stays within {@link #RTT_TOLERANCE}
+ * times the lowest, the limit grows by its square root (a queue that's allowed to build up), beyond that it shrinks by
+ * up to half. It doesn't grow while less than half of it is used, and stays between 1 and {@code maxLimit}.
+ * <p>
+ * Callers above the limit wait, up to {@code maxQueue} of them for at most {@code maxWait} (or until the current
+ * {@link Deadline}), the others are rejected with a {@link ConcurrencyLimitExceededException}, which the libraries
+ * pass on as the cause of their own exception, see {@link #rejection(Throwable)}. Without the limiter they'd queue up
+ * in the connection pool, for as long as it takes.
+ * <p>
+ * The lowest latency is forgotten every {@link #PROBE_SAMPLES} samples, to follow the database getting faster or
+ * slower for good.
+ */
+public class ConcurrencyLimiter {
+
+    static final double RTT_TOLERANCE = 2.0;
+    static final double SMOOTHING = 0.2;
+    static final int PROBE_SAMPLES = 1000;
+
+    private final DataSource dataSource;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile double limit;
+    private volatile int inFlight;
+    private volatile int waiting;
+    private long minRttNanos = Long.MAX_VALUE;
+    private int samples;
+
+    /**
+     * Starts at {@code initialLimit} and probes upward from there, up to {@code maxLimit}, which shouldn't exceed the
+     * connections of the pool behind. Started at {@code maxLimit} it can only back off and grow back.
+     */
+    public ConcurrencyLimiter(DataSource dataSource, int initialLimit, int maxLimit, int maxQueue, long maxWait, TimeUnit unit) {
+        if (maxLimit < 1)
+            throw new IllegalArgumentException("maxLimit " + maxLimit);
+        if (initialLimit < 1 || initialLimit > maxLimit)
+            throw new IllegalArgumentException("initialLimit " + initialLimit);
+        this.dataSource = dataSource;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.maxWaitNanos = unit.toNanos(maxWait);
+        this.limit = initialLimit;
+    }
+
+    /**
+     * The limited DataSource, its connections count until they're closed.
+     */
+    public DataSource dataSource() {
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            if (!method.getName().equals("getConnection"))
+                return invoke(dataSource, method, args);
+
+            acquire();
+            long start = System.nanoTime();
+            Connection connection;
+            try {
+                connection = (Connection) invoke(dataSource, method, args);
+            } catch (Throwable e) {
+                release(-1);
+                throw e;
+            }
+            boolean[] closed = {false};
+            return proxy(Connection.class, (p, m, a) -> {
+                if (!m.getName().equals("close") || closed[0])
+                    return invoke(connection, m, a);
+                closed[0] = true;
+                try {
+                    return invoke(connection, m, a);
+                } finally {
+                    release(System.nanoTime() - start);
+                }
+            });
+        });
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight;
+    }
+
+    public int waiting() {
+        return waiting;
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Whether the failure of a call is the limiter's rejection, as the cause of a library's exception.
+     */
+    public static boolean rejection(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause())
+            if (cause instanceof ConcurrencyLimitExceededException)
+                return true;
+        return false;
+    }
+
+    private void acquire() throws SQLException {
+        long waitNanos = maxWaitNanos;
+        Deadline deadline = Deadline.current();
+        if (deadline != null)
+            waitNanos = Math.min(waitNanos, deadline.remaining(TimeUnit.NANOSECONDS));
+
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return;
+            }
+            if (waiting >= maxQueue || waitNanos <= 0)
+                throw reject();
+
+            waiting++;
+            try {
+                while (inFlight >= (int) limit) {
+                    if (waitNanos <= 0)
+                        throw reject();
+                    waitNanos = released.awaitNanos(waitNanos);
+                }
+                inFlight++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("interrupted while waiting for the concurrency limit", e);
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param rttNanos the time the connection was taken, negative if it couldn't be
+     */
+    private void release(long rttNanos) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (rttNanos >= 0)
+                update(rttNanos);
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called with the lock held, after the sample's connection was given back.
+     */
+    void update(long rttNanos) {
+        rttNanos = Math.max(1, rttNanos);
+        if (++samples % PROBE_SAMPLES == 0)
+            minRttNanos = rttNanos;
+        else
+            minRttNanos = Math.min(minRttNanos, rttNanos);
+
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * minRttNanos / rttNanos));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        if (newLimit > limit && inFlight + 1 < limit / 2)
+            return;
+        limit = Math.max(1, Math.min(maxLimit, (1 - SMOOTHING) * limit + SMOOTHING * newLimit));
+    }
+
+    private ConcurrencyLimitExceededException reject() {
+        rejected.increment();
+        return new ConcurrencyLimitExceededException("concurrency limit of " + (int) limit + " reached, " + waiting + " waiting");
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(ConcurrencyLimiter.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+}
@@ -0,0 +1,35 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+/**
+ * The same unit of work, safe against concurrent writers in three ways. A unit of work renames a user and toggles one
+ * of its roles (deletes the role assignment, inserts it if there was none to delete), in a transaction of its own.
+ * <p>
+ * The user's row is updated first, before its role assignments, in every strategy: whoever holds that row lock owns
+ * the user's assignments, concurrent toggles of the same assignment can't collide on its primary key.
+ */
+public interface ContentionScenarios {
+
+    /**
+     * Locks the user's row ({@code SELECT ... FOR UPDATE}), concurrent units of work on the same user wait for each
+     * other.
+     */
+    void updatePessimistic(int userId, String name, int roleId);
+
+    /**
+     * Reads the user's version without a lock and updates the row only if it's still the same version
+     * ({@code ... WHERE id = ? AND version = ?}), incrementing it. Nothing is changed if another unit of work got there
+     * first.
+     *
+     * @return {@code false} if the version changed in between, i.e. the unit of work was aborted and can be retried
+     */
+    boolean updateOptimistic(int userId, String name, int roleId);
+
+    /**
+     * Takes the first user of the range whose row isn't locked by someone else
+     * ({@code ... ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED}), like a worker takes the next job of a queue: no one
+     * waits, but it's not up to the caller which user is changed.
+     *
+     * @return the id of the user, -1 if all users of the range are locked
+     */
+    int updateSkipLocked(int fromUserId, int toUserId, String name, int roleId);
+}
@@ -0,0 +1,339 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loads CSV files into users and users_with_roles, in the format of {@code COPY ... (FORMAT csv)} without a header
+ * (and of {@link ChannelExport}). The files are mapped into memory and cut into batches of whole rows, which are loaded
+ * concurrently, each in a transaction of its own, by a {@link Loader}: {@link #batches(Scenarios)} or e.g.
+ * {@code COPY FROM STDIN}. A batch isn't copied, the loader gets its rows as a slice of the mapped file.
+ * <p>
+ * A batch that fails is split in halves, which are loaded on their own, down to single rows. A row that fails on its
+ * own is quarantined: written to {@code <table>.csv} in the quarantine directory, the reason to {@code <table>.log}
+ * (line by line), to be fixed and imported again. A few bad rows cost a few more transactions, not the whole import.
+ * Beware, a batch that fails for reasons of its own (e.g. the database being down) is quarantined row by row too.
+ * <p>
+ * {@link #run(Path, Path)} loads the users before their role assignments, the foreign key needs them. An assignment of
+ * a quarantined user is quarantined as well.
+ */
+public class CsvImport {
+
+    public enum Table {
+        USERS("users", "id", "name", "email"),
+        USERS_WITH_ROLES("users_with_roles", "user_id", "role_id");
+
+        public final String name;
+        public final List<String> columns;
+
+        Table(String name, String... columns) {
+            this.name = name;
+            this.columns = Collections.unmodifiableList(Arrays.asList(columns));
+        }
+    }
+
+    /**
+     * Called concurrently, from as many threads as the import has.
+     */
+    public interface Loader {
+
+        /**
+         * Loads all of the rows in a single transaction, or none of them.
+         *
+         * @param rows  whole rows of the file, each ending with a line break
+         * @param count of the rows
+         */
+        void load(Table table, ByteBuffer rows, int count) throws Exception;
+    }
+
+    public static class Result {
+
+        public final Table table;
+        public final long rows;
+        public final long rejected;
+        public final long nanos;
+
+        Result(Table table, long rows, long rejected, long nanos) {
+            this.table = table;
+            this.rows = rows;
+            this.rejected = rejected;
+            this.nanos = nanos;
+        }
+
+        public double rowsPerSecond() {
+            return rows / (nanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d rows, %d rejected, %.0f rows/s", table.name, rows, rejected, rowsPerSecond());
+        }
+    }
+
+    /**
+     * Mapped at once, a mapped buffer can't be larger than 2 GB. A row can't be larger than that.
+     */
+    private static final int REGION_SIZE = 1 << 30;
+
+    private final Loader loader;
+    private final int threads;
+    private final int commitSize;
+    private final Path quarantine;
+    private final int regionSize;
+
+    /**
+     * @param commitSize rows per batch
+     * @param quarantine directory of the rejected rows, created if need be
+     */
+    public CsvImport(Loader loader, int threads, int commitSize, Path quarantine) {
+        this(loader, threads, commitSize, quarantine, REGION_SIZE);
+    }
+
+    CsvImport(Loader loader, int threads, int commitSize, Path quarantine, int regionSize) {
+        this.loader = loader;
+        this.threads = threads;
+        this.commitSize = commitSize;
+        this.quarantine = quarantine;
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * Loads the rows via {@link Scenarios#insert(List)} and {@link Scenarios#insertRoles(int[], int[])}, i.e. the
+     * library's batch API.
+     */
+    public static Loader batches(Scenarios scenarios) {
+        return (table, rows, count) -> {
+            List<String[]> records = parse(rows, table.columns.size());
+            if (table == Table.USERS) {
+                List<User> users = new ArrayList<>(records.size());
+                for (String[] record : records)
+                    users.add(new User(Integer.parseInt(record[0]), record[1], record[2]));
+                scenarios.insert(users);
+            } else {
+                int[] userIds = new int[records.size()];
+                int[] roleIds = new int[records.size()];
+                for (int i = 0; i < userIds.length; i++) {
+                    userIds[i] = Integer.parseInt(records.get(i)[0]);
+                    roleIds[i] = Integer.parseInt(records.get(i)[1]);
+                }
+                scenarios.insertRoles(userIds, roleIds);
+            }
+        };
+    }
+
+    /**
+     * Users first, then their role assignments.
+     */
+    public List<Result> run(Path users, Path usersWithRoles) throws IOException, InterruptedException {
+        return Arrays.asList(run(Table.USERS, users), run(Table.USERS_WITH_ROLES, usersWithRoles));
+    }
+
+    public Result run(Table table, Path file) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        LongAdder loaded = new LongAdder();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Semaphore inFlight = new Semaphore(threads * 2); // the batches waiting for a thread keep their regions mapped
+        List<Future<?>> batches = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ); Rejects rejects = new Rejects(table)) {
+            try {
+                long size = channel.size();
+                long position = 0;
+                while (position < size) {
+                    ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(regionSize, size - position));
+                    boolean last = position + region.limit() == size;
+
+                    int from = 0, rows = 0, end;
+                    while ((end = nextRow(region, region.position(), last)) >= 0) {
+                        region.position(end);
+                        if (++rows == commitSize) {
+                            submit(executor, inFlight, batches, table, slice(region, from, end), rows, loaded, rejects);
+                            from = end;
+                            rows = 0;
+                        }
+                    }
+                    if (rows > 0)
+                        submit(executor, inFlight, batches, table, slice(region, from, region.position()), rows, loaded, rejects);
+
+                    if (region.position() == 0)
+                        throw new IOException("row at " + position + " of " + file + " exceeds " + regionSize + " bytes");
+                    position += region.position();
+                }
+
+                for (Future<?> batch : batches)
+                    batch.get();
+                return new Result(table, loaded.sum(), rejects.count, System.nanoTime() - start);
+            } finally {
+                // the batches still running write to the rejects
+                executor.shutdownNow();
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException)
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void submit(ExecutorService executor, Semaphore inFlight, List<Future<?>> batches, Table table, ByteBuffer rows, int count, LongAdder loaded, Rejects rejects) throws InterruptedException {
+        inFlight.acquire();
+        batches.add(executor.submit(() -> {
+            try {
+                load(table, rows, count, loaded, rejects);
+            } finally {
+                inFlight.release();
+            }
+        }));
+    }
+
+    private void load(Table table, ByteBuffer rows, int count, LongAdder loaded, Rejects rejects) {
+        try {
+            loader.load(table, rows.duplicate(), count);
+            loaded.add(count);
+        } catch (Exception e) {
+            if (count == 1) {
+                rejects.add(rows.duplicate(), e);
+                return;
+            }
+
+            int half = count / 2;
+            int split = 0;
+            for (int i = 0; i < half; i++)
+                split = nextRow(rows, split, true);
+            load(table, slice(rows, 0, split), half, loaded, rejects);
+            load(table, slice(rows, split, rows.limit()), count - half, loaded, rejects);
+        }
+    }
+
+    /**
+     * @param last whether the buffer ends with the file, the file's last row may lack its line break
+     * @return the position after the row starting at the given one, or -1 if the buffer holds no whole row there
+     */
+    static int nextRow(ByteBuffer buffer, int position, boolean last) {
+        boolean quoted = false;
+        for (int i = position; i < buffer.limit(); i++) {
+            byte b = buffer.get(i);
+            if (b == '"')
+                quoted = !quoted;
+            else if (b == '\n' && !quoted)
+                return i + 1;
+        }
+        return last && position < buffer.limit() ? buffer.limit() : -1;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int from, int to) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(to);
+        slice.position(from);
+        return slice.slice();
+    }
+
+    /**
+     * @return the fields of each row, null for an empty unquoted one
+     */
+    static List<String[]> parse(ByteBuffer rows, int columns) {
+        List<String[]> records = new ArrayList<>();
+        byte[] field = new byte[64];
+        int position = rows.position();
+        while (position < rows.limit()) {
+            String[] record = new String[columns];
+            for (int column = 0; ; column++) {
+                boolean quoted = false, wasQuoted = false;
+                int length = 0;
+                for (; position < rows.limit(); position++) {
+                    byte b = rows.get(position);
+                    if (b == '"') {
+                        if (quoted && position + 1 < rows.limit() && rows.get(position + 1) == '"')
+                            position++;
+                        else {
+                            quoted = !quoted;
+                            wasQuoted = true;
+                            continue;
+                        }
+                    } else if (!quoted && (b == ',' || b == '\n')) {
+                        break;
+                    } else if (!quoted && b == '\r' && position + 1 < rows.limit() && rows.get(position + 1) == '\n') {
+                        continue;
+                    }
+                    if (length == field.length)
+                        field = Arrays.copyOf(field, length * 2);
+                    field[length++] = b;
+                }
+                if (column >= columns)
+                    throw new IllegalArgumentException("row " + (records.size() + 1) + " has more than " + columns + " fields");
+                record[column] = length == 0 && !wasQuoted ? null : new String(field, 0, length, StandardCharsets.UTF_8);
+
+                if (position >= rows.limit() || rows.get(position++) == '\n')
+                    break;
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * The quarantined rows of a table, the files are created with the first one.
+     */
+    private class Rejects implements AutoCloseable {
+
+        private final Table table;
+        private FileChannel rows;
+        private FileChannel reasons;
+        private long count;
+
+        Rejects(Table table) {
+            this.table = table;
+        }
+
+        synchronized void add(ByteBuffer row, Exception reason) {
+            try {
+                if (rows == null) {
+                    Files.createDirectories(quarantine);
+                    rows = open(table.name + ".csv");
+                    reasons = open(table.name + ".log");
+                }
+                boolean lineBreak = row.get(row.limit() - 1) == '\n';
+                while (row.hasRemaining())
+                    rows.write(row);
+                if (!lineBreak)
+                    rows.write(ByteBuffer.wrap(new byte[]{'\n'}));
+
+                String message = String.valueOf(reason.getMessage()).split("\\R", 2)[0];
+                ByteBuffer line = ByteBuffer.wrap((reason.getClass().getSimpleName() + ": " + message + "\n").getBytes(StandardCharsets.UTF_8));
+                while (line.hasRemaining())
+                    reasons.write(line);
+                count++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private FileChannel open(String name) throws IOException {
+            return FileChannel.open(quarantine.resolve(name), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (rows != null) {
+                rows.close();
+                reasons.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A point in time by which a call has to be done, its statements are cancelled once it has passed.
+ * {@link #call(Deadline, Supplier)} makes it the current deadline of the calling thread, the libraries' hooks apply it
+ * to each statement they execute within the call:
+ * <ul>
+ * <li>jOOQ, QueryDSL-SQL and sql2o cancel the statement ({@link Statement#cancel()}) at the deadline, see
+ * {@link #cancelAt(Statement)}. {@link Statement#setQueryTimeout(int)} would do the same, but in whole seconds.</li>
+ * <li>QueryDSL-JPA sets the {@code javax.persistence.query.timeout} hint, which Hibernate turns into whole seconds too
+ * ({@link #remainingSecondsRoundedUp()})</li>
+ * <li>{@link #statementTimeout(DataSource)} has PostgreSQL cancel them, via {@code statement_timeout}, for any library</li>
+ * </ul>
+ * A cancelled statement fails, the libraries roll back and close their connection as after any other failure, and the
+ * call throws a {@link DeadlineExceededException}.
+ * <p>
+ * Deadlines are propagated to nested calls, the earlier one applies. They don't follow a call onto other threads, e.g.
+ * the shards of {@link ShardedScenarios} or the queries of a {@link QueryBatch}.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> current = new ThreadLocal<>();
+
+    private static final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "deadline-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    private final long nanos;
+
+    private Deadline(long nanos) {
+        this.nanos = nanos;
+    }
+
+    public static Deadline after(long timeout, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * @return the deadline of the calling thread, null outside of {@link #call(Deadline, Supplier)}
+     */
+    public static Deadline current() {
+        return current.get();
+    }
+
+    /**
+     * Runs the call with the deadline, or with the current one if that's earlier.
+     *
+     * @throws DeadlineExceededException if the deadline has passed, before or during the call
+     */
+    public static <T> T call(Deadline deadline, Supplier<T> call) {
+        Deadline outer = current.get();
+        Deadline effective = outer != null && outer.nanos - deadline.nanos < 0 ? outer : deadline;
+        if (effective.expired())
+            throw new DeadlineExceededException("deadline passed before the call", null);
+
+        current.set(effective);
+        try {
+            return call.get();
+        } catch (DeadlineExceededException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            if (effective.expired() || cancelled(e))
+                throw new DeadlineExceededException("deadline passed during the call", e);
+            throw e;
+        } finally {
+            if (outer == null)
+                current.remove();
+            else
+                current.set(outer);
+        }
+    }
+
+    public long remaining(TimeUnit unit) {
+        return unit.convert(nanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    public boolean expired() {
+        return nanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * The remaining time rounded up to whole seconds, for timeouts in seconds: rounded down, less than a second would
+     * be no timeout at all.
+     */
+    public long remainingSecondsRoundedUp() {
+        return Math.max(1, (remaining(TimeUnit.MILLISECONDS) + 999) / 1000);
+    }
+
+    /**
+     * Cancels the statement at the current deadline, unless it's done by then, i.e. the returned Cancellation is closed
+     * right after the statement was executed: a cancel is never sent once the connection might run someone else's
+     * statement. Without a current deadline nothing is scheduled.
+     * <p>
+     * A deadline within microseconds may still let a statement through: a cancel that arrives before the statement is
+     * ignored by the server.
+     *
+     * @throws DeadlineExceededException if the deadline has passed already
+     */
+    public static Cancellation cancelAt(Statement statement) {
+        Deadline deadline = current.get();
+        if (deadline == null)
+            return Cancellation.NONE;
+        if (deadline.expired())
+            throw new DeadlineExceededException("deadline passed before the statement", null);
+
+        Cancellation cancellation = new Cancellation(statement);
+        cancellation.future = timer.schedule(cancellation::cancel, deadline.remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        return cancellation;
+    }
+
+    public static class Cancellation implements AutoCloseable {
+
+        private static final Cancellation NONE = new Cancellation(null);
+
+        private final Statement statement;
+        private ScheduledFuture<?> future;
+        private boolean done;
+
+        private Cancellation(Statement statement) {
+            this.statement = statement;
+        }
+
+        private synchronized void cancel() {
+            if (done)
+                return;
+            done = true;
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                // the statement runs to its end then
+            }
+        }
+
+        /**
+         * Waits for a cancel being sent right now.
+         */
+        @Override
+        public synchronized void close() {
+            done = true;
+            if (future != null)
+                future.cancel(false);
+        }
+    }
+
+    /**
+     * The DataSource, setting PostgreSQL's {@code statement_timeout} to the time remaining when a connection is taken
+     * within a call with a deadline, and resetting it when the connection is given back. The timeout applies to every
+     * statement of the connection, a call that keeps its connection for several statements gets less precise.
+     */
+    public static DataSource statementTimeout(DataSource dataSource) {
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            Object result = invoke(dataSource, method, args);
+            Deadline deadline = current.get();
+            if (!method.getName().equals("getConnection") || deadline == null)
+                return result;
+
+            Connection connection = (Connection) result;
+            try (Statement s = connection.createStatement()) {
+                s.execute("SET statement_timeout = " + Math.max(1, deadline.remaining(TimeUnit.MILLISECONDS)));
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    connection.close(); // back into the pool, the caller never gets it
+                } catch (SQLException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+            return proxy(Connection.class, (p, m, a) -> {
+                if (!m.getName().equals("close"))
+                    return invoke(connection, m, a);
+                try {
+                    resetStatementTimeout(connection);
+                } finally {
+                    connection.close();
+                }
+                return null;
+            });
+        });
+    }
+
+    /**
+     * A transaction left aborted by a cancelled statement is rolled back first, the reset would fail otherwise.
+     */
+    private static void resetStatementTimeout(Connection connection) throws SQLException {
+        if (!connection.isClosed() && !connection.getAutoCommit())
+            connection.rollback();
+        try (Statement s = connection.createStatement()) {
+            s.execute("RESET statement_timeout");
+        }
+    }
+
+    /**
+     * PostgreSQL's query_canceled, by a cancel or by {@code statement_timeout}.
+     */
+    private static boolean cancelled(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause())
+            if (cause instanceof SQLException && "57014".equals(((SQLException) cause).getSQLState()))
+                return true;
+        return false;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(Deadline.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+}
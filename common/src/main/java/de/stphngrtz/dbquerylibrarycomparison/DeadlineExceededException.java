@@ -0,0 +1,12 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+/**
+ * A call of {@link Deadline#call(Deadline, java.util.function.Supplier)} didn't make it by its deadline, the cause is
+ * the failure of the cancelled statement, if it got that far.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,41 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The {@link Scenarios} with a {@link Deadline} per call, a fixed time from its start, or an earlier deadline of the
+ * caller. The library's hooks have to be in place (see {@link Deadline}), a call that misses its deadline throws a
+ * {@link DeadlineExceededException}. A variant with a {@link QueryBatch} has none, its queries run when the batch does.
+ */
+public class DeadlineScenarios extends ForwardingScenarios {
+
+    private final long timeoutNanos;
+
+    public DeadlineScenarios(Scenarios scenarios, long timeout, TimeUnit unit) {
+        super(scenarios);
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    @Override
+    protected <T> T forward(String scenario, Supplier<T> call) {
+        return Deadline.call(Deadline.after(timeoutNanos, TimeUnit.NANOSECONDS), call);
+    }
+
+    @Override
+    public CompletableFuture<List<Role>> selectAllOrderedBy(QueryBatch batch) {
+        return scenarios.selectAllOrderedBy(batch);
+    }
+
+    @Override
+    public CompletableFuture<List<User>> selectWhereEquals(QueryBatch batch, int id) {
+        return scenarios.selectWhereEquals(batch, id);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> selectCountWithGroupBy(QueryBatch batch) {
+        return scenarios.selectCountWithGroupBy(batch);
+    }
+}
@@ -0,0 +1,36 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Direct buffers of a fixed size, reused instead of allocated per use. A direct buffer is written to a channel as it
+ * is, a heap buffer gets copied into a temporary direct one first, and allocating a direct buffer is expensive. Buffers
+ * are never freed, the pool holds as many as were in use at once.
+ */
+public class DirectBufferPool {
+
+    private final int bufferSize;
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    public DirectBufferPool(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * @return a cleared buffer, to be released when done
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null)
+            return ByteBuffer.allocateDirect(bufferSize);
+
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        buffers.offer(buffer);
+    }
+}
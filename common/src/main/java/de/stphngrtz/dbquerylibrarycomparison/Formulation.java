@@ -0,0 +1,46 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+/**
+ * Equivalent ways to write the same query. Not every library (or database version) is able to express all of them.
+ */
+public enum Formulation {
+
+    /**
+     * {@code SELECT u.name, (SELECT count(*) FROM users_with_roles z WHERE z.user_id = u.id) FROM users u}
+     */
+    CORRELATED_SUBQUERY,
+
+    /**
+     * {@code SELECT u.name, count(z.user_id) FROM users u LEFT JOIN users_with_roles z ... GROUP BY u.id, u.name}
+     */
+    JOIN_GROUP_BY,
+
+    /**
+     * {@code SELECT u.name, c.count FROM users u CROSS JOIN LATERAL (SELECT count(*) ... WHERE z.user_id = u.id) c}
+     */
+    LATERAL,
+
+    /**
+     * {@code SELECT u.name FROM users u WHERE u.id IN (SELECT z.user_id FROM users_with_roles z)}
+     */
+    IN_SUBQUERY,
+
+    /**
+     * {@code SELECT u.name FROM users u WHERE EXISTS (SELECT 1 FROM users_with_roles z WHERE z.user_id = u.id)}
+     */
+    EXISTS,
+
+    /**
+     * {@code WITH common AS (...) SELECT ... FROM common}
+     * <p>
+     * PostgreSQL before 12 always materializes a CTE (optimization fence), so predicates of the outer query are not
+     * pushed down into it.
+     */
+    MATERIALIZED_CTE,
+
+    /**
+     * The CTE's query as derived table ({@code SELECT ... FROM (...) common}), which the planner is free to inline.
+     * This is what {@code NOT MATERIALIZED} does in PostgreSQL 12+.
+     */
+    INLINED_CTE
+}
@@ -0,0 +1,137 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * {@link Scenarios} passing every call on to other ones, the base of the decorators: they override the scenarios they
+ * change, or {@link #forward(String, Supplier)} to wrap all of them.
+ */
+public abstract class ForwardingScenarios implements Scenarios {
+
+    protected final Scenarios scenarios;
+
+    protected ForwardingScenarios(Scenarios scenarios) {
+        this.scenarios = scenarios;
+    }
+
+    /**
+     * Every call passes through here, unless it's overridden.
+     *
+     * @param scenario the method's name with its parameter types, e.g. "selectWhereEquals(int)"
+     * @return the call's result
+     */
+    protected <T> T forward(String scenario, Supplier<T> call) {
+        return call.get();
+    }
+
+    @Override
+    public List<Role> selectAllOrderedBy() {
+        return forward("selectAllOrderedBy()", () -> scenarios.selectAllOrderedBy());
+    }
+
+    @Override
+    public List<User> selectWhereEquals(int id) {
+        return forward("selectWhereEquals(int)", () -> scenarios.selectWhereEquals(id));
+    }
+
+    @Override
+    public List<String> selectCountWithGroupBy() {
+        return forward("selectCountWithGroupBy()", () -> scenarios.selectCountWithGroupBy());
+    }
+
+    @Override
+    public List<String> selectCountWithGroupByHaving(int count) {
+        return forward("selectCountWithGroupByHaving(int)", () -> scenarios.selectCountWithGroupByHaving(count));
+    }
+
+    @Override
+    public List<String> selectWithExplicitJoin() {
+        return forward("selectWithExplicitJoin()", () -> scenarios.selectWithExplicitJoin());
+    }
+
+    @Override
+    public List<String> selectWithExplicitLeftOuterJoin() {
+        return forward("selectWithExplicitLeftOuterJoin()", () -> scenarios.selectWithExplicitLeftOuterJoin());
+    }
+
+    @Override
+    public List<String> selectWithExplicitJoin(HashJoin<Role> roles) {
+        return forward("selectWithExplicitJoin(HashJoin)", () -> scenarios.selectWithExplicitJoin(roles));
+    }
+
+    @Override
+    public List<String> selectWithExplicitLeftOuterJoin(HashJoin<Role> roles) {
+        return forward("selectWithExplicitLeftOuterJoin(HashJoin)", () -> scenarios.selectWithExplicitLeftOuterJoin(roles));
+    }
+
+    @Override
+    public void selectWithExplicitLeftOuterJoin(ChannelExport export) {
+        forward("selectWithExplicitLeftOuterJoin(ChannelExport)", () -> {
+            scenarios.selectWithExplicitLeftOuterJoin(export);
+            return null;
+        });
+    }
+
+    @Override
+    public int insert(User user) {
+        return forward("insert(User)", () -> scenarios.insert(user));
+    }
+
+    @Override
+    public int delete(int id) {
+        return forward("delete(int)", () -> scenarios.delete(id));
+    }
+
+    @Override
+    public int[] insertRoles(int userId, int... roleIds) {
+        return forward("insertRoles(int, int...)", () -> scenarios.insertRoles(userId, roleIds));
+    }
+
+    @Override
+    public int[] deleteRoles(int userId, int... roleIds) {
+        return forward("deleteRoles(int, int...)", () -> scenarios.deleteRoles(userId, roleIds));
+    }
+
+    @Override
+    public int insert(List<User> users) {
+        return forward("insert(List)", () -> scenarios.insert(users));
+    }
+
+    @Override
+    public int insertRoles(int[] userIds, int[] roleIds) {
+        return forward("insertRoles(int[], int[])", () -> scenarios.insertRoles(userIds, roleIds));
+    }
+
+    @Override
+    public CompletableFuture<List<Role>> selectAllOrderedBy(QueryBatch batch) {
+        return forward("selectAllOrderedBy(QueryBatch)", () -> scenarios.selectAllOrderedBy(batch));
+    }
+
+    @Override
+    public CompletableFuture<List<User>> selectWhereEquals(QueryBatch batch, int id) {
+        return forward("selectWhereEquals(QueryBatch, int)", () -> scenarios.selectWhereEquals(batch, id));
+    }
+
+    @Override
+    public CompletableFuture<List<String>> selectCountWithGroupBy(QueryBatch batch) {
+        return forward("selectCountWithGroupBy(QueryBatch)", () -> scenarios.selectCountWithGroupBy(batch));
+    }
+
+    @Override
+    public List<User> selectAll(Partition partition) {
+        return forward("selectAll(Partition)", () -> scenarios.selectAll(partition));
+    }
+
+    @Override
+    public List<User> selectAllOrderedBy(Partition partition) {
+        return forward("selectAllOrderedBy(Partition)", () -> scenarios.selectAllOrderedBy(partition));
+    }
+
+    @Override
+    public Map<String, Long> selectCountWithGroupBy(Partition partition) {
+        return forward("selectCountWithGroupBy(Partition)", () -> scenarios.selectCountWithGroupBy(partition));
+    }
+}
@@ -0,0 +1,54 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.util.Iterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * A join on the client: a small table, e.g. the roles, is loaded once into an {@link IntMap} by its id (the build
+ * side), the rows of a query are joined against it one by one as they're read (the probe side). The query only has
+ * to return the id instead of the joined columns, which saves the database the join and the network the repeated
+ * values.
+ * <p>
+ * The build side has to fit in memory and to be up to date, it's a cache.
+ */
+public class HashJoin<B> {
+
+    private final IntMap<B> table;
+
+    public HashJoin(Iterable<? extends B> rows, ToIntFunction<? super B> key) {
+        table = new IntMap<>();
+        for (B row : rows)
+            table.put(key.applyAsInt(row), row);
+    }
+
+    /**
+     * Passes on the probe rows that have a matching build row, combined with it.
+     */
+    public <P, O> void innerJoin(Iterator<P> probe, ToIntFunction<? super P> key, BiFunction<? super P, ? super B, O> combine, Consumer<? super O> downstream) {
+        while (probe.hasNext()) {
+            P row = probe.next();
+            B match = table.get(key.applyAsInt(row));
+            if (match != null)
+                downstream.accept(combine.apply(row, match));
+        }
+    }
+
+    /**
+     * Passes on all probe rows, combined with the matching build row or null. Rows without a key, like the ones of an
+     * outer join in the query itself, don't match.
+     */
+    public <P, O> void leftOuterJoin(Iterator<P> probe, Predicate<? super P> hasKey, ToIntFunction<? super P> key, BiFunction<? super P, ? super B, O> combine, Consumer<? super O> downstream) {
+        while (probe.hasNext()) {
+            P row = probe.next();
+            B match = hasKey.test(row) ? table.get(key.applyAsInt(row)) : null;
+            downstream.accept(combine.apply(row, match));
+        }
+    }
+
+    public int size() {
+        return table.size();
+    }
+}
@@ -0,0 +1,87 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+/**
+ * A map from int keys to non-null values, without boxing the keys. Open addressing with linear probing in two
+ * parallel arrays, kept at most half full. Entries can't be removed.
+ */
+public class IntMap<V> {
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+
+    public IntMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize entries the map will hold without growing
+     */
+    public IntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        keys = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * @return the previous value of the key, null if there was none
+     */
+    public V put(int key, V value) {
+        if (value == null)
+            throw new NullPointerException("value");
+
+        int i = indexOf(key);
+        @SuppressWarnings("unchecked")
+        V previous = (V) values[i];
+        keys[i] = key;
+        values[i] = value;
+        if (previous == null && ++size * 2 > keys.length)
+            grow();
+        return previous;
+    }
+
+    /**
+     * @return the value of the key, null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        return (V) values[indexOf(key)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the slot of the key, or the empty one it would go into
+     */
+    private int indexOf(int key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (values[i] != null && keys[i] != key)
+            i = (i + 1) & mask;
+        return i;
+    }
+
+    /**
+     * Spreads consecutive keys, ids mostly, over the whole table.
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int j = indexOf(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A TCP proxy which delays everything it forwards, to make round trips to a database on localhost as expensive as to
+ * one in another network. Point the JDBC URL to {@code localhost:}{@link #getPort()} instead of the database.
+ * <p>
+ * Each chunk of bytes is delivered after the (one-way) latency plus a random jitter, so a round trip costs at least
+ * twice the latency. Chunks never overtake each other. With a bandwidth limit, a chunk additionally occupies the link
+ * for as long as it takes to transfer it. Everything runs on a single thread with a {@link Selector}.
+ */
+public class LatencyProxy implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_QUEUED_BYTES = 4 * 1024 * 1024;
+
+    private final InetSocketAddress target;
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final long bytesPerSecond;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Thread thread;
+
+    private final PriorityQueue<Chunk> scheduled = new PriorityQueue<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Random random = new Random();
+    private long sequence = 0;
+
+    /**
+     * @param bytesPerSecond 0 for no limit
+     */
+    public LatencyProxy(InetSocketAddress target, long latency, long jitter, TimeUnit unit, long bytesPerSecond) throws IOException {
+        if (latency < 0 || jitter < 0 || bytesPerSecond < 0)
+            throw new IllegalArgumentException("latency, jitter and bandwidth must not be negative");
+
+        this.target = target;
+        this.latencyNanos = unit.toNanos(latency);
+        this.jitterNanos = unit.toNanos(jitter);
+        this.bytesPerSecond = bytesPerSecond;
+
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress("localhost", 0));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        thread = new Thread(this::run, "latency-proxy-" + getPort());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        selector.close();
+        serverChannel.close();
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long waitNanos = scheduled.isEmpty() ? Long.MAX_VALUE : scheduled.peek().deliverAt - System.nanoTime();
+                if (waitNanos <= 0) {
+                    selector.selectNow();
+                } else if (waitNanos < TimeUnit.MILLISECONDS.toNanos(1)) {
+                    // select() is only precise to the millisecond
+                    LockSupport.parkNanos(waitNanos);
+                    selector.selectNow();
+                } else {
+                    selector.select(waitNanos == Long.MAX_VALUE ? 0 : TimeUnit.NANOSECONDS.toMillis(waitNanos));
+                }
+
+                for (SelectionKey key : selector.selectedKeys())
+                    handle(key);
+                selector.selectedKeys().clear();
+
+                long now = System.nanoTime();
+                while (!scheduled.isEmpty() && scheduled.peek().deliverAt <= now)
+                    deliver(scheduled.poll());
+            }
+        } catch (ClosedSelectorException e) {
+            // closed
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void handle(SelectionKey key) throws IOException {
+        if (!key.isValid())
+            return;
+
+        if (key.isAcceptable()) {
+            SocketChannel client = serverChannel.accept();
+            if (client == null)
+                return;
+            SocketChannel server = SocketChannel.open();
+            client.configureBlocking(false);
+            server.configureBlocking(false);
+            client.socket().setTcpNoDelay(true);
+            server.socket().setTcpNoDelay(true);
+
+            // the client's first bytes wait in its socket until the server is connected
+            Connection connection = new Connection(client, server);
+            connection.clientKey = client.register(selector, 0, connection);
+            connection.serverKey = server.register(selector, SelectionKey.OP_CONNECT, connection);
+            try {
+                if (server.connect(target))
+                    connection.connected();
+            } catch (IOException e) {
+                connection.close();
+            }
+            return;
+        }
+
+        Connection connection = (Connection) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        Direction from = channel == connection.client ? connection.upstream : connection.downstream;
+        Direction to = channel == connection.client ? connection.downstream : connection.upstream;
+
+        try {
+            if (key.isConnectable()) {
+                if (connection.server.finishConnect())
+                    connection.connected();
+                return;
+            }
+            if (key.isReadable())
+                read(from);
+            if (key.isValid() && key.isWritable())
+                flush(to);
+        } catch (IOException e) {
+            connection.close();
+        }
+    }
+
+    private void read(Direction direction) throws IOException {
+        readBuffer.clear();
+        int read = direction.source.read(readBuffer);
+        if (read == 0)
+            return;
+
+        long now = System.nanoTime();
+        if (read < 0) {
+            schedule(direction, null, now);
+            direction.eof = true;
+            direction.connection.updateInterest();
+            return;
+        }
+
+        readBuffer.flip();
+        ByteBuffer bytes = ByteBuffer.allocate(read);
+        bytes.put(readBuffer);
+        bytes.flip();
+
+        direction.queuedBytes += read;
+        if (bytesPerSecond > 0) {
+            long start = Math.max(now, direction.linkFreeAt);
+            direction.linkFreeAt = start + TimeUnit.SECONDS.toNanos(read) / bytesPerSecond;
+            now = direction.linkFreeAt;
+        }
+        schedule(direction, bytes, now);
+        direction.connection.updateInterest();
+    }
+
+    private void schedule(Direction direction, ByteBuffer bytes, long sentAt) {
+        long jitter = jitterNanos > 0 ? (long) (random.nextDouble() * jitterNanos) : 0;
+        long deliverAt = Math.max(sentAt + latencyNanos + jitter, direction.lastDeliverAt);
+        direction.lastDeliverAt = deliverAt;
+        scheduled.add(new Chunk(direction, bytes, deliverAt, sequence++));
+    }
+
+    private void deliver(Chunk chunk) throws IOException {
+        Direction direction = chunk.direction;
+        if (!direction.connection.open)
+            return;
+
+        direction.outbox.add(chunk);
+        try {
+            flush(direction);
+        } catch (IOException e) {
+            direction.connection.close();
+        }
+    }
+
+    private void flush(Direction direction) throws IOException {
+        while (!direction.outbox.isEmpty()) {
+            Chunk chunk = direction.outbox.peek();
+            if (chunk.bytes == null) {
+                // the source is done sending, the other direction may still have something to say
+                direction.outbox.poll();
+                direction.target.shutdownOutput();
+                direction.shutdown = true;
+                if (direction.connection.upstream.shutdown && direction.connection.downstream.shutdown) {
+                    direction.connection.close();
+                    return;
+                }
+                continue;
+            }
+            direction.target.write(chunk.bytes);
+            if (chunk.bytes.hasRemaining())
+                break;
+            direction.queuedBytes -= chunk.bytes.capacity();
+            direction.outbox.poll();
+        }
+        direction.connection.updateInterest();
+    }
+
+    private class Connection {
+        private final SocketChannel client;
+        private final SocketChannel server;
+        private final Direction upstream;
+        private final Direction downstream;
+        private SelectionKey clientKey;
+        private SelectionKey serverKey;
+        private boolean connected = false;
+        private boolean open = true;
+
+        private Connection(SocketChannel client, SocketChannel server) {
+            this.client = client;
+            this.server = server;
+            this.upstream = new Direction(this, client, server);
+            this.downstream = new Direction(this, server, client);
+        }
+
+        private void connected() {
+            connected = true;
+            updateInterest();
+        }
+
+        private void updateInterest() {
+            if (!open || !connected)
+                return;
+            clientKey.interestOps(upstream.readInterest() | downstream.writeInterest());
+            serverKey.interestOps(downstream.readInterest() | upstream.writeInterest());
+        }
+
+        private void close() throws IOException {
+            if (!open)
+                return;
+            open = false;
+            client.close();
+            server.close();
+        }
+    }
+
+    private static class Direction {
+        private final Connection connection;
+        private final SocketChannel source;
+        private final SocketChannel target;
+        private final ArrayDeque<Chunk> outbox = new ArrayDeque<>();
+        private long queuedBytes = 0;
+        private long linkFreeAt = Long.MIN_VALUE;
+        private long lastDeliverAt = Long.MIN_VALUE;
+        private boolean eof = false;
+        private boolean shutdown = false;
+
+        private Direction(Connection connection, SocketChannel source, SocketChannel target) {
+            this.connection = connection;
+            this.source = source;
+            this.target = target;
+        }
+
+        private int readInterest() {
+            return eof || queuedBytes >= MAX_QUEUED_BYTES ? 0 : SelectionKey.OP_READ;
+        }
+
+        private int writeInterest() {
+            return outbox.isEmpty() ? 0 : SelectionKey.OP_WRITE;
+        }
+    }
+
+    private static class Chunk implements Comparable<Chunk> {
+        private final Direction direction;
+        private final ByteBuffer bytes;
+        private final long deliverAt;
+        private final long sequence;
+
+        private Chunk(Direction direction, ByteBuffer bytes, long deliverAt, long sequence) {
+            this.direction = direction;
+            this.bytes = bytes;
+            this.deliverAt = deliverAt;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Chunk o) {
+            int byDeliverAt = Long.compare(deliverAt, o.deliverAt);
+            return byDeliverAt != 0 ? byDeliverAt : Long.compare(sequence, o.sequence);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A range of ids, from and to inclusive. {@link #byIdRange(int, int, int)} splits all ids into consecutive ranges,
+ * the first and the last one open-ended, so together they cover every id, no matter the bounds.
+ */
+public class Partition {
+
+    public static final Partition ALL = new Partition(Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+    public final int from;
+    public final int to;
+
+    public Partition(int from, int to) {
+        if (from > to)
+            throw new IllegalArgumentException("from " + from + " > to " + to);
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * @param minId lowest id expected, only used to place the boundaries
+     * @param maxId highest id expected, only used to place the boundaries
+     */
+    public static List<Partition> byIdRange(int count, int minId, int maxId) {
+        if (count < 1)
+            throw new IllegalArgumentException("count " + count + " < 1");
+        if (minId > maxId)
+            throw new IllegalArgumentException("minId " + minId + " > maxId " + maxId);
+
+        long size = ((long) maxId - minId + 1 + count - 1) / count;
+        List<Partition> partitions = new ArrayList<>(count);
+        int from = Integer.MIN_VALUE;
+        for (int i = 1; i < count; i++) {
+            int to = (int) Math.min(minId + i * size - 1, Integer.MAX_VALUE - 1);
+            if (to < from)
+                break;
+            partitions.add(new Partition(from, to));
+            from = to + 1;
+        }
+        partitions.add(new Partition(from, Integer.MAX_VALUE));
+        return partitions;
+    }
+
+    @Override
+    public String toString() {
+        return "Partition{" +
+                "from=" + from +
+                ", to=" + to +
+                '}';
+    }
+}
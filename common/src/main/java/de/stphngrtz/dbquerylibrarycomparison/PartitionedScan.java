@@ -0,0 +1,126 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link Scenarios} as one query per {@link Partition}, run in parallel on a {@link ForkJoinPool} with a thread
+ * per partition. The partitions are split in halves until there's one left, its query runs on its own connection, and
+ * the results are merged on the way back up:
+ * <ul>
+ * <li>scans are concatenated, in the order of the partitions</li>
+ * <li>ordered results are merged (pairwise, which makes a k-way merge), keeping the order</li>
+ * <li>partial aggregates are summed up per group</li>
+ * </ul>
+ * The connection pool needs a connection per partition, otherwise queries wait for one another.
+ * <p>
+ * Each thread of the pool gets its own {@link Scenarios} from the given supplier, as with {@link AsyncScenarios}.
+ */
+public class PartitionedScan implements AutoCloseable {
+
+    /**
+     * Same order as the query's {@code ORDER BY u.name DESC}, as long as the database's collation agrees with
+     * {@link String#compareTo(String)} for the names, which it does for the C collation and for the names of the tests
+     * and the benchmarks.
+     */
+    static final Comparator<User> NAME_DESC = Comparator.comparing((User u) -> u.name).reversed();
+
+    private final ThreadLocal<Scenarios> scenarios;
+    private final List<Partition> partitions;
+    private final ForkJoinPool pool;
+
+    public PartitionedScan(Supplier<Scenarios> scenarios, List<Partition> partitions) {
+        if (partitions.isEmpty())
+            throw new IllegalArgumentException("no partitions");
+
+        this.scenarios = ThreadLocal.withInitial(scenarios);
+        this.partitions = new ArrayList<>(partitions);
+        this.pool = new ForkJoinPool(partitions.size());
+    }
+
+    public List<User> selectAll() {
+        return execute(partition -> scenarios.get().selectAll(partition), PartitionedScan::concat);
+    }
+
+    public List<User> selectAllOrderedBy() {
+        return execute(partition -> scenarios.get().selectAllOrderedBy(partition), (left, right) -> merge(left, right, NAME_DESC));
+    }
+
+    public List<String> selectCountWithGroupBy() {
+        return execute(partition -> scenarios.get().selectCountWithGroupBy(partition), PartitionedScan::sum)
+                .entrySet().stream().map(e -> e.getKey() + " mit " + e.getValue() + " User(n)").collect(Collectors.toList());
+    }
+
+    private <T> T execute(Function<Partition, T> query, BinaryOperator<T> merge) {
+        return pool.invoke(new Task<>(query, merge, 0, partitions.size()));
+    }
+
+    private class Task<T> extends RecursiveTask<T> {
+        private final Function<Partition, T> query;
+        private final BinaryOperator<T> merge;
+        private final int from;
+        private final int to;
+
+        private Task(Function<Partition, T> query, BinaryOperator<T> merge, int from, int to) {
+            this.query = query;
+            this.merge = merge;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected T compute() {
+            if (to - from == 1)
+                return query.apply(partitions.get(from));
+
+            int middle = (from + to) >>> 1;
+            Task<T> left = new Task<>(query, merge, from, middle);
+            left.fork();
+            T right = new Task<>(query, merge, middle, to).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+
+    static <T> List<T> concat(List<T> left, List<T> right) {
+        List<T> result = new ArrayList<>(left.size() + right.size());
+        result.addAll(left);
+        result.addAll(right);
+        return result;
+    }
+
+    static <T> List<T> merge(List<T> left, List<T> right, Comparator<? super T> comparator) {
+        List<T> result = new ArrayList<>(left.size() + right.size());
+        int l = 0;
+        int r = 0;
+        while (l < left.size() && r < right.size())
+            result.add(comparator.compare(left.get(l), right.get(r)) <= 0 ? left.get(l++) : right.get(r++));
+        result.addAll(left.subList(l, left.size()));
+        result.addAll(right.subList(r, right.size()));
+        return result;
+    }
+
+    static Map<String, Long> sum(Map<String, Long> left, Map<String, Long> right) {
+        Map<String, Long> result = new HashMap<>(left);
+        right.forEach((group, count) -> result.merge(group, count, Long::sum));
+        return result;
+    }
+
+    /**
+     * Waits for scans in flight to finish.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,169 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Independent SELECTs, executed together. A query is added with its SQL (with ? placeholders), its parameters and a
+ * {@link ResultSetMapper}, its result is available via the returned future once the batch has been executed.
+ * <ul>
+ * <li>{@link #execute(Connection)} sends all queries as one multi-statement and reads the results one after the other
+ * with {@link PreparedStatement#getMoreResults()}, which costs a single round trip</li>
+ * <li>{@link #executeSequentially(Connection)} runs one query after the other, one round trip each</li>
+ * <li>{@link #executeInParallel(DataSource, Executor)} runs each query on its own (pooled) connection</li>
+ * </ul>
+ * A batch can be executed once.
+ */
+public class QueryBatch {
+
+    @FunctionalInterface
+    public interface ResultSetMapper<T> {
+        List<T> map(ResultSet rs) throws SQLException;
+
+        static <T> ResultSetMapper<T> eachRow(RowMapper<T> rowMapper) {
+            return rs -> {
+                List<T> rows = new ArrayList<>();
+                while (rs.next())
+                    rows.add(rowMapper.map(rs));
+                return rows;
+            };
+        }
+    }
+
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private final List<Query<?>> queries = new ArrayList<>();
+    private boolean executed = false;
+
+    public <T> CompletableFuture<List<T>> add(String sql, List<?> parameters, ResultSetMapper<T> mapper) {
+        if (executed)
+            throw new IllegalStateException("batch has already been executed");
+
+        Query<T> query = new Query<>(sql, parameters, mapper);
+        queries.add(query);
+        return query.result;
+    }
+
+    public int size() {
+        return queries.size();
+    }
+
+    /**
+     * All queries in a single round trip.
+     */
+    public void execute(Connection connection) throws SQLException {
+        markExecuted();
+        if (queries.isEmpty())
+            return;
+
+        String sql = queries.stream().map(q -> q.sql).collect(Collectors.joining(";\n"));
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            int i = 1;
+            for (Query<?> query : queries)
+                for (Object parameter : query.parameters)
+                    ps.setObject(i++, parameter);
+
+            boolean isResultSet = ps.execute();
+            for (Query<?> query : queries) {
+                if (!isResultSet)
+                    throw new SQLException("expected a result set for " + query.sql);
+                try (ResultSet rs = ps.getResultSet()) {
+                    query.complete(rs);
+                }
+                isResultSet = ps.getMoreResults();
+            }
+        } catch (SQLException e) {
+            queries.forEach(q -> q.result.completeExceptionally(e));
+            throw e;
+        }
+    }
+
+    /**
+     * One query after the other, each in its own round trip.
+     */
+    public void executeSequentially(Connection connection) throws SQLException {
+        markExecuted();
+        for (Query<?> query : queries) {
+            try {
+                query.execute(connection);
+            } catch (SQLException e) {
+                queries.forEach(q -> q.result.completeExceptionally(e));
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Each query on its own connection, returns as soon as all queries are completed.
+     */
+    public void executeInParallel(DataSource dataSource, Executor executor) throws SQLException {
+        markExecuted();
+        CompletableFuture<?>[] executions = queries.stream()
+                .map(query -> CompletableFuture.runAsync(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        query.execute(connection);
+                    } catch (SQLException e) {
+                        query.result.completeExceptionally(e);
+                    }
+                }, executor))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(executions).join();
+            CompletableFuture.allOf(queries.stream().map(q -> q.result).toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException)
+                throw (SQLException) e.getCause();
+            throw e;
+        }
+    }
+
+    private void markExecuted() {
+        if (executed)
+            throw new IllegalStateException("batch has already been executed");
+        executed = true;
+    }
+
+    private static class Query<T> {
+        private final String sql;
+        private final List<?> parameters;
+        private final ResultSetMapper<T> mapper;
+        private final CompletableFuture<List<T>> result = new CompletableFuture<>();
+
+        private Query(String sql, List<?> parameters, ResultSetMapper<T> mapper) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.mapper = mapper;
+        }
+
+        private void execute(Connection connection) throws SQLException {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                int i = 1;
+                for (Object parameter : parameters)
+                    ps.setObject(i++, parameter);
+                try (ResultSet rs = ps.executeQuery()) {
+                    complete(rs);
+                }
+            }
+        }
+
+        private void complete(ResultSet rs) {
+            try {
+                result.complete(mapper.map(rs));
+            } catch (SQLException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
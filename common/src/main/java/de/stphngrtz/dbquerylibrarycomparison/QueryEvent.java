@@ -0,0 +1,37 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A phase of a query, as reported by a library's hook via {@link QueryEvents}. Needs a JDK with JFR (8u262 or later),
+ * the events are recorded with e.g. {@code -XX:StartFlightRecording} or {@code jcmd <pid> JFR.start}.
+ */
+@Name("de.stphngrtz.dbquerylibrarycomparison.Query")
+@Label("Query Phase")
+@Category({"Database", "Query Libraries"})
+@Description("Render, execute or fetch of a query, or the mapping of its result until the scenario returns")
+@StackTrace(false)
+public class QueryEvent extends Event {
+
+    @Label("Library")
+    String library;
+
+    @Label("Scenario")
+    String scenario;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("SQL Hash")
+    @Description("String#hashCode of the SQL, 0 if unknown")
+    int sqlHash;
+
+    @Label("Rows")
+    @Description("Fetched or updated, 0 if the library doesn't tell")
+    long rows;
+}
@@ -0,0 +1,19 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.util.function.Supplier;
+
+/**
+ * The {@link Scenarios} with their names on the {@link QueryEvent}s of their queries, the library's hook has to be in
+ * place (see {@link QueryEvents}). A variant with a {@link QueryBatch} only covers the adding to the batch.
+ */
+public class QueryEventScenarios extends ForwardingScenarios {
+
+    public QueryEventScenarios(Scenarios scenarios) {
+        super(scenarios);
+    }
+
+    @Override
+    protected <T> T forward(String scenario, Supplier<T> call) {
+        return QueryEvents.scenario(scenario, call);
+    }
+}
@@ -0,0 +1,141 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.util.function.Supplier;
+
+/**
+ * Turns the callbacks of the libraries' hooks into {@link QueryEvent}s. A thread runs one query at a time, it goes
+ * through the phases in order, each one ending with the beginning of the next. Hooks report what their library tells:
+ * not every library has a render phase to observe, nor a row count.
+ * <p>
+ * A query ends with {@link #end()}, within a {@link #scenario(String, Supplier)} the mapping phase starts there and
+ * lasts until the scenario returns, or until its next query starts. Outside of one there is no mapping phase, and no
+ * scenario name.
+ * <p>
+ * Without a recording of the event every call returns after a single check, the thread's state isn't touched.
+ */
+public final class QueryEvents {
+
+    public enum Phase {
+        RENDER,
+        EXECUTE,
+        FETCH,
+        MAP
+    }
+
+    /**
+     * {@link QueryEvent#isEnabled()} tells for all of them.
+     */
+    private static final QueryEvent PROBE = new QueryEvent();
+
+    private static final ThreadLocal<Context> CONTEXT = ThreadLocal.withInitial(Context::new);
+
+    private QueryEvents() {
+    }
+
+    public static boolean enabled() {
+        return PROBE.isEnabled();
+    }
+
+    /**
+     * Ends the current phase of the thread's query, if there is one.
+     */
+    public static void begin(String library, Phase phase) {
+        if (!PROBE.isEnabled())
+            return;
+        Context context = CONTEXT.get();
+        context.commit();
+        context.begin(library, phase);
+    }
+
+    /**
+     * The SQL of the thread's query, as soon as it's known. Outside of a render phase it's the next query's, the
+     * current phase is still the previous one's.
+     */
+    public static void sql(String sql) {
+        if (!PROBE.isEnabled() || sql == null)
+            return;
+        Context context = CONTEXT.get();
+        context.sqlHash = sql.hashCode();
+        if (context.event != null && context.phase == Phase.RENDER)
+            context.event.sqlHash = context.sqlHash;
+    }
+
+    /**
+     * Adds to the rows of the current phase.
+     */
+    public static void rows(long rows) {
+        if (!PROBE.isEnabled())
+            return;
+        Context context = CONTEXT.get();
+        if (context.event != null)
+            context.event.rows += rows;
+    }
+
+    /**
+     * Ends the thread's query, normally or not. Calling it again doesn't end the mapping.
+     */
+    public static void end() {
+        if (!PROBE.isEnabled())
+            return;
+        Context context = CONTEXT.get();
+        if (context.phase == Phase.MAP)
+            return;
+        String library = context.event != null ? context.event.library : null;
+        context.commit();
+        if (library != null && context.scenario != null)
+            context.begin(library, Phase.MAP);
+    }
+
+    /**
+     * Names the queries of the call after the scenario. Nested calls keep the outer name.
+     */
+    public static <T> T scenario(String name, Supplier<T> call) {
+        if (!PROBE.isEnabled())
+            return call.get();
+        Context context = CONTEXT.get();
+        if (context.scenario != null)
+            return call.get();
+        context.scenario = name;
+        try {
+            return call.get();
+        } finally {
+            context.commit();
+            context.scenario = null;
+        }
+    }
+
+    public static void scenario(String name, Runnable call) {
+        scenario(name, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private static class Context {
+
+        private String scenario;
+        private int sqlHash;
+        private QueryEvent event;
+        private Phase phase;
+
+        void begin(String library, Phase phase) {
+            if (phase == Phase.RENDER)
+                sqlHash = 0;
+            this.phase = phase;
+            event = new QueryEvent();
+            event.library = library;
+            event.scenario = scenario;
+            event.phase = phase.name();
+            event.sqlHash = sqlHash;
+            event.begin();
+        }
+
+        void commit() {
+            if (event == null)
+                return;
+            if (event.shouldCommit())
+                event.commit();
+            event = null;
+        }
+    }
+}
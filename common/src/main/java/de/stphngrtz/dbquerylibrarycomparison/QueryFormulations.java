@@ -0,0 +1,31 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.util.List;
+
+/**
+ * Some of the scenarios, each written in several equivalent {@link Formulation}s. All formulations of a scenario return
+ * the same result (in any order), unsupported ones throw an {@link UnsupportedOperationException}.
+ */
+public interface QueryFormulations {
+
+    /**
+     * Users with their number of roles, e.g. "Stephan (2)".
+     * <p>
+     * {@link Formulation#CORRELATED_SUBQUERY}, {@link Formulation#JOIN_GROUP_BY}, {@link Formulation#LATERAL}
+     */
+    List<String> selectWithSubselectInSelectBlock(Formulation formulation);
+
+    /**
+     * Names of users with at least one role.
+     * <p>
+     * {@link Formulation#IN_SUBQUERY}, {@link Formulation#EXISTS}, {@link Formulation#JOIN_GROUP_BY}, {@link Formulation#LATERAL}
+     */
+    List<String> selectWithSubselectInWhereBlock(Formulation formulation);
+
+    /**
+     * Users (starting with "S") with their roles, e.g. "Stephan ist Admin".
+     * <p>
+     * {@link Formulation#MATERIALIZED_CTE}, {@link Formulation#INLINED_CTE}
+     */
+    List<String> selectFromMoreComplexCommonTable(Formulation formulation);
+}
@@ -0,0 +1,118 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link Scenarios} with the number of users per role kept in memory. The counts are read from the database once,
+ * then every role assignment inserted or deleted through this view updates them, so
+ * {@link #selectCountWithGroupBy()} and {@link #selectCountWithGroupByHaving(int)} take O(roles) without a query.
+ * Everything else is passed through.
+ * <p>
+ * The counters are atomic and updated after the statements succeeded, calls don't block one another. Readers see
+ * each counter up to date, but not necessarily all of them at the same point in time.
+ * <p>
+ * The counts stay correct as long as every role assignment is changed through this view and the roles stay the same.
+ * Assignments changed any other way (another client, a cascade, a transaction rolled back by the caller) aren't seen,
+ * {@link #isConsistent()} compares the counts with the database's.
+ */
+public class RoleCountView extends ForwardingScenarios {
+
+    /**
+     * per role name, like the queries group by name
+     */
+    private final Map<String, AtomicLong> countsByName = new HashMap<>();
+
+    /**
+     * the same counters, per role id
+     */
+    private final IntMap<AtomicLong> countsByRoleId = new IntMap<>();
+
+    /**
+     * Reads the roles and their counts. Role assignments shouldn't change meanwhile.
+     */
+    public RoleCountView(Scenarios scenarios) {
+        super(scenarios);
+
+        for (Role role : scenarios.selectAllOrderedBy())
+            countsByRoleId.put(role.id, countsByName.computeIfAbsent(role.name, name -> new AtomicLong()));
+        scenarios.selectCountWithGroupBy(Partition.ALL).forEach((name, count) -> countsByName.get(name).set(count));
+    }
+
+    @Override
+    public List<String> selectCountWithGroupBy() {
+        return selectCountWithGroupByHaving(0);
+    }
+
+    @Override
+    public List<String> selectCountWithGroupByHaving(int count) {
+        List<String> result = new ArrayList<>();
+        countsByName.forEach((name, counter) -> {
+            long users = counter.get();
+            if (users > count)
+                result.add(name + " mit " + users + " User(n)");
+        });
+        return result;
+    }
+
+    @Override
+    public int[] insertRoles(int userId, int... roleIds) {
+        List<AtomicLong> counters = counters(roleIds);
+        int[] inserted = scenarios.insertRoles(userId, roleIds);
+        for (int i = 0; i < inserted.length; i++)
+            counters.get(i).addAndGet(inserted[i]);
+        return inserted;
+    }
+
+    @Override
+    public int[] deleteRoles(int userId, int... roleIds) {
+        List<AtomicLong> counters = counters(roleIds);
+        int[] deleted = scenarios.deleteRoles(userId, roleIds);
+        for (int i = 0; i < deleted.length; i++)
+            counters.get(i).addAndGet(-deleted[i]);
+        return deleted;
+    }
+
+    /**
+     * All of the assignments are inserted or none, each counts.
+     */
+    @Override
+    public int insertRoles(int[] userIds, int[] roleIds) {
+        List<AtomicLong> counters = counters(roleIds);
+        int inserted = scenarios.insertRoles(userIds, roleIds);
+        for (AtomicLong counter : counters)
+            counter.incrementAndGet();
+        return inserted;
+    }
+
+    /**
+     * Checked before the statements run, an unknown role would leave the view behind.
+     */
+    private List<AtomicLong> counters(int... roleIds) {
+        List<AtomicLong> counters = new ArrayList<>(roleIds.length);
+        for (int roleId : roleIds) {
+            AtomicLong counter = countsByRoleId.get(roleId);
+            if (counter == null)
+                throw new IllegalArgumentException("role " + roleId + " is unknown to the view, it knows the roles at the time it was created");
+            counters.add(counter);
+        }
+        return counters;
+    }
+
+    /**
+     * @return whether the counts are the same as the database's, which they should be while nobody changes role
+     * assignments
+     */
+    public boolean isConsistent() {
+        Map<String, Long> expected = scenarios.selectCountWithGroupBy(Partition.ALL);
+        Map<String, Long> actual = new HashMap<>();
+        countsByName.forEach((name, counter) -> {
+            if (counter.get() != 0)
+                actual.put(name, counter.get());
+        });
+        return actual.equals(expected);
+    }
+}
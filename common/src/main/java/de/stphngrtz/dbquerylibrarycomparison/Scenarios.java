@@ -0,0 +1,108 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The scenarios of the tests as an API, implemented once per library. Results are the same as in the tests.
+ * <p>
+ * The variants with a {@link QueryBatch} don't execute anything, they add the query to the batch. The variants with a
+ * {@link Partition} only read the rows of the partition's ids, to be run in parallel and merged by
+ * {@link PartitionedScan}.
+ */
+public interface Scenarios {
+
+    List<Role> selectAllOrderedBy();
+
+    List<User> selectWhereEquals(int id);
+
+    List<String> selectCountWithGroupBy();
+
+    /**
+     * @return roles with more than the given number of users
+     */
+    List<String> selectCountWithGroupByHaving(int count);
+
+    List<String> selectWithExplicitJoin();
+
+    List<String> selectWithExplicitLeftOuterJoin();
+
+    /**
+     * The same join, with the roles joined on the client.
+     */
+    List<String> selectWithExplicitJoin(HashJoin<Role> roles);
+
+    /**
+     * The same join, with the roles joined on the client.
+     */
+    List<String> selectWithExplicitLeftOuterJoin(HashJoin<Role> roles);
+
+    /**
+     * The same join, each user's id, name and email with the role's name written to the export as it's read, ordered
+     * by user and role id. Reads within a transaction, the PostgreSQL driver fetches in chunks of its default fetch size
+     * (e.g. {@code PGPoolingDataSource#setDefaultRowFetchSize}) only then.
+     */
+    void selectWithExplicitLeftOuterJoin(ChannelExport export);
+
+    /**
+     * @return rows inserted
+     */
+    int insert(User user);
+
+    /**
+     * Fails as long as the user has roles.
+     *
+     * @return rows deleted
+     */
+    int delete(int id);
+
+    /**
+     * Assigns the roles to the user, as a batch.
+     *
+     * @return rows inserted, per role
+     */
+    int[] insertRoles(int userId, int... roleIds);
+
+    /**
+     * Takes the roles from the user, as a batch.
+     *
+     * @return rows deleted, per role (0 if the user didn't have it)
+     */
+    int[] deleteRoles(int userId, int... roleIds);
+
+    /**
+     * Inserts the users as a batch, in a single transaction: all of them or none.
+     *
+     * @return rows inserted
+     */
+    int insert(List<User> users);
+
+    /**
+     * Assigns each user the role at the same index, as a batch in a single transaction: all of them or none.
+     *
+     * @return rows inserted
+     */
+    int insertRoles(int[] userIds, int[] roleIds);
+
+    CompletableFuture<List<Role>> selectAllOrderedBy(QueryBatch batch);
+
+    CompletableFuture<List<User>> selectWhereEquals(QueryBatch batch, int id);
+
+    CompletableFuture<List<String>> selectCountWithGroupBy(QueryBatch batch);
+
+    List<User> selectAll(Partition partition);
+
+    /**
+     * Unlike {@link #selectAllOrderedBy()} a scan of the users, the partitions are id ranges of users, the three roles
+     * would all end up in the first one.
+     *
+     * @return the users of the partition's ids, ordered by name (descending)
+     */
+    List<User> selectAllOrderedBy(Partition partition);
+
+    /**
+     * @return number of users per role name, counting the users of the partition's ids only
+     */
+    Map<String, Long> selectCountWithGroupBy(Partition partition);
+}
@@ -0,0 +1,268 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link Scenarios} on users spread over several databases, the shards, one {@link Scenarios} each. A user and
+ * its role assignments live on the shard of the user's id ({@link #shard(int)}), the roles are on every shard, the
+ * same on each (replicated, e.g. by running db/init.sql on every shard).
+ * <ul>
+ * <li>calls with a user id (lookups, inserts, deletes) go to that user's shard only</li>
+ * <li>reads of roles only go to one shard, picked at random</li>
+ * <li>scans and joins of users and their roles go to all shards, each joins its own users with its own copy of the
+ * roles, and the results are concatenated (in no particular order, like the queries' results)</li>
+ * <li>ordered scans of users go to all shards, the shards' results are merged, keeping the order</li>
+ * <li>counts per role go to all shards as partial counts per group ({@link #selectCountWithGroupBy(Partition)}),
+ * summed up here, {@code HAVING} is applied to the sums</li>
+ * <li>batches of users or role assignments are split by shard, a shard's part is inserted in a transaction of its
+ * own: all or none per shard, not across shards</li>
+ * </ul>
+ * The shards are queried in parallel, one on the calling thread, the others on threads of a pool that grows as needed.
+ * The shards' Scenarios have to be thread-safe, e.g. on top of a connection pool, with a connection per concurrent
+ * caller.
+ */
+public class ShardedScenarios implements Scenarios, AutoCloseable {
+
+    private final List<Scenarios> shards;
+    private final ExecutorService executor;
+
+    public ShardedScenarios(List<Scenarios> shards) {
+        if (shards.isEmpty())
+            throw new IllegalArgumentException("no shards");
+
+        this.shards = new ArrayList<>(shards);
+
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "sharded-scenarios-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The shard of a user, by a hash of its id: consecutive ids are spread over all shards, and so is any range of ids.
+     */
+    public int shard(int userId) {
+        int h = userId;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return Math.floorMod(h, shards.size());
+    }
+
+    public int shards() {
+        return shards.size();
+    }
+
+    @Override
+    public List<Role> selectAllOrderedBy() {
+        return replica().selectAllOrderedBy();
+    }
+
+    @Override
+    public List<User> selectWhereEquals(int id) {
+        return shards.get(shard(id)).selectWhereEquals(id);
+    }
+
+    @Override
+    public List<String> selectCountWithGroupBy() {
+        return roleCounts(selectCountWithGroupBy(Partition.ALL), count -> true);
+    }
+
+    @Override
+    public List<String> selectCountWithGroupByHaving(int count) {
+        return roleCounts(selectCountWithGroupBy(Partition.ALL), c -> c > count);
+    }
+
+    @Override
+    public List<String> selectWithExplicitJoin() {
+        return concat(scatter(shard -> shards.get(shard).selectWithExplicitJoin()));
+    }
+
+    @Override
+    public List<String> selectWithExplicitLeftOuterJoin() {
+        return concat(scatter(shard -> shards.get(shard).selectWithExplicitLeftOuterJoin()));
+    }
+
+    @Override
+    public List<String> selectWithExplicitJoin(HashJoin<Role> roles) {
+        return concat(scatter(shard -> shards.get(shard).selectWithExplicitJoin(roles)));
+    }
+
+    @Override
+    public List<String> selectWithExplicitLeftOuterJoin(HashJoin<Role> roles) {
+        return concat(scatter(shard -> shards.get(shard).selectWithExplicitLeftOuterJoin(roles)));
+    }
+
+    /**
+     * Ordered by user across shards, the shards' streams would have to be merged as they're read.
+     */
+    @Override
+    public void selectWithExplicitLeftOuterJoin(ChannelExport export) {
+        throw new UnsupportedOperationException("ShardedScenarios don't support an export ordered across shards");
+    }
+
+    @Override
+    public int insert(User user) {
+        return shards.get(shard(user.id)).insert(user);
+    }
+
+    @Override
+    public int delete(int id) {
+        return shards.get(shard(id)).delete(id);
+    }
+
+    @Override
+    public int[] insertRoles(int userId, int... roleIds) {
+        return shards.get(shard(userId)).insertRoles(userId, roleIds);
+    }
+
+    @Override
+    public int[] deleteRoles(int userId, int... roleIds) {
+        return shards.get(shard(userId)).deleteRoles(userId, roleIds);
+    }
+
+    @Override
+    public int insert(List<User> users) {
+        List<List<User>> perShard = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++)
+            perShard.add(new ArrayList<>());
+        for (User user : users)
+            perShard.get(shard(user.id)).add(user);
+        return sum(scatter(shard -> perShard.get(shard).isEmpty() ? 0 : shards.get(shard).insert(perShard.get(shard))));
+    }
+
+    @Override
+    public int insertRoles(int[] userIds, int[] roleIds) {
+        int[] shardOf = new int[userIds.length];
+        int[] counts = new int[shards.size()];
+        for (int i = 0; i < userIds.length; i++)
+            counts[shardOf[i] = shard(userIds[i])]++;
+
+        int[][] userIdsPerShard = new int[shards.size()][];
+        int[][] roleIdsPerShard = new int[shards.size()][];
+        for (int shard = 0; shard < shards.size(); shard++) {
+            userIdsPerShard[shard] = new int[counts[shard]];
+            roleIdsPerShard[shard] = new int[counts[shard]];
+            counts[shard] = 0;
+        }
+        for (int i = 0; i < userIds.length; i++) {
+            int shard = shardOf[i];
+            userIdsPerShard[shard][counts[shard]] = userIds[i];
+            roleIdsPerShard[shard][counts[shard]++] = roleIds[i];
+        }
+        return sum(scatter(shard -> userIdsPerShard[shard].length == 0 ? 0 : shards.get(shard).insertRoles(userIdsPerShard[shard], roleIdsPerShard[shard])));
+    }
+
+    /**
+     * The roles are the same on every shard, whichever the batch runs on.
+     */
+    @Override
+    public CompletableFuture<List<Role>> selectAllOrderedBy(QueryBatch batch) {
+        return replica().selectAllOrderedBy(batch);
+    }
+
+    /**
+     * A batch runs on a single connection, to a shard the caller picked.
+     */
+    @Override
+    public CompletableFuture<List<User>> selectWhereEquals(QueryBatch batch, int id) {
+        throw new UnsupportedOperationException("ShardedScenarios don't support batches of user queries");
+    }
+
+    /**
+     * A batch runs on a single connection, to a shard the caller picked.
+     */
+    @Override
+    public CompletableFuture<List<String>> selectCountWithGroupBy(QueryBatch batch) {
+        throw new UnsupportedOperationException("ShardedScenarios don't support batches of user queries");
+    }
+
+    @Override
+    public List<User> selectAll(Partition partition) {
+        return concat(scatter(shard -> shards.get(shard).selectAll(partition)));
+    }
+
+    @Override
+    public List<User> selectAllOrderedBy(Partition partition) {
+        return scatter(shard -> shards.get(shard).selectAllOrderedBy(partition)).stream()
+                .reduce((left, right) -> PartitionedScan.merge(left, right, PartitionedScan.NAME_DESC))
+                .get();
+    }
+
+    @Override
+    public Map<String, Long> selectCountWithGroupBy(Partition partition) {
+        return scatter(shard -> shards.get(shard).selectCountWithGroupBy(partition)).stream()
+                .reduce(PartitionedScan::sum)
+                .get();
+    }
+
+    private Scenarios replica() {
+        return shards.get(ThreadLocalRandom.current().nextInt(shards.size()));
+    }
+
+    /**
+     * Runs the query on every shard, the last one on the calling thread.
+     *
+     * @return the results, in the order of the shards
+     */
+    private <T> List<T> scatter(IntFunction<T> query) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size() - 1);
+        for (int shard = 0; shard < shards.size() - 1; shard++) {
+            int s = shard;
+            futures.add(CompletableFuture.supplyAsync(() -> query.apply(s), executor));
+        }
+        T last = query.apply(shards.size() - 1);
+
+        List<T> results = new ArrayList<>(shards.size());
+        try {
+            for (CompletableFuture<T> future : futures)
+                results.add(future.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+        results.add(last);
+        return results;
+    }
+
+    private static <T> List<T> concat(List<List<T>> results) {
+        return results.stream().reduce(PartitionedScan::concat).get();
+    }
+
+    private static int sum(List<Integer> results) {
+        return results.stream().mapToInt(Integer::intValue).sum();
+    }
+
+    private static List<String> roleCounts(Map<String, Long> counts, Predicate<Long> having) {
+        return counts.entrySet().stream()
+                .filter(e -> having.test(e.getValue()))
+                .map(e -> e.getKey() + " mit " + e.getValue() + " User(n)")
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Waits for queries in flight to finish.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+}
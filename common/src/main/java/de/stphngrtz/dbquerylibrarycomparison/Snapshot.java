@@ -0,0 +1,327 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The roles and the role assignments (links of users and roles) in a file, mapped into memory. Looking up the roles of
+ * a user reads the mapped file, nothing is copied onto the heap but the roles themselves, so a process is ready as
+ * soon as the file is mapped, with the page cache as warm as it is.
+ * <p>
+ * The links are sorted by user and role id and grouped into blocks of consecutive user ids, each with a checksum.
+ * {@link #refresh(Path, Source, int)} compares them with the database's and only reads the blocks that changed, the
+ * others are copied over from the previous file. A marker of the database's state (e.g. a transaction id) skips the
+ * comparison altogether as long as nothing was written.
+ * <p>
+ * Format (big-endian): header, roles (id, length of the UTF-8 name, name), padding to 4 bytes, block index (block,
+ * first link, links, checksum), links (user id, role id). Up to 2 GB, that's a mapped buffer's limit. User ids are
+ * expected to be non-negative.
+ */
+public class Snapshot {
+
+    /**
+     * Never equal to a marker, the state is unknown.
+     */
+    public static final long UNKNOWN = -1;
+
+    private static final int MAGIC = 0x534E4150; // "SNAP"
+    private static final int FORMAT = 1;
+    private static final int INDEX_ENTRY_BYTES = 20;
+    private static final long CHECKSUM_MODULUS = 2147483647;
+
+    /**
+     * Where the data comes from. A refresh reads everything from the same source, which has to return one consistent
+     * state throughout, e.g. one transaction with repeatable read.
+     */
+    public interface Source {
+
+        /**
+         * @return the state of the data, has to change whenever the links or roles do, or {@link #UNKNOWN}
+         */
+        long marker();
+
+        List<Role> roles();
+
+        /**
+         * @return the blocks with at least one link, ordered by block, see {@link #checksum(int, int)}
+         */
+        List<Block> blocks(int blockSize);
+
+        /**
+         * @param users the user ids of a block
+         */
+        void links(Partition users, Links links);
+    }
+
+    public interface Links {
+        void accept(int userId, int roleId);
+    }
+
+    /**
+     * The links of the user ids {@code block * blockSize} to {@code (block + 1) * blockSize - 1}.
+     */
+    public static class Block {
+
+        public final int block;
+        public final int links;
+        public final long checksum;
+
+        public Block(int block, int links, long checksum) {
+            this.block = block;
+            this.links = links;
+            this.checksum = checksum;
+        }
+    }
+
+    private final long marker;
+    private final int blockSize;
+    private final List<Role> roles;
+    private final IntMap<Role> rolesById;
+    private final ByteBuffer index;
+    private final ByteBuffer linkBytes;
+    private final IntBuffer links;
+
+    private Snapshot(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT)
+            throw new IOException("not a snapshot of format " + FORMAT);
+
+        marker = buffer.getLong();
+        blockSize = buffer.getInt();
+        int roleCount = buffer.getInt();
+        int blockCount = buffer.getInt();
+        int linkCount = buffer.getInt();
+
+        List<Role> roles = new ArrayList<>(roleCount);
+        rolesById = new IntMap<>(roleCount);
+        for (int i = 0; i < roleCount; i++) {
+            int id = buffer.getInt();
+            byte[] name = new byte[buffer.getShort()];
+            buffer.get(name);
+            Role role = new Role(id, new String(name, StandardCharsets.UTF_8));
+            roles.add(role);
+            rolesById.put(id, role);
+        }
+        this.roles = Collections.unmodifiableList(roles);
+
+        buffer.position(align(buffer.position()));
+        index = slice(buffer, blockCount * INDEX_ENTRY_BYTES);
+        linkBytes = slice(buffer, linkCount * 8);
+        links = linkBytes.asIntBuffer();
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int bytes) {
+        ByteBuffer slice = buffer.slice();
+        slice.limit(bytes);
+        buffer.position(buffer.position() + bytes);
+        return slice;
+    }
+
+    private static int align(int position) {
+        return (position + 3) & ~3;
+    }
+
+    public static Snapshot map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new Snapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Maps the snapshot at the given path after bringing it up to date with the source, writing it anew if there is
+     * none (or none with the given block size). The file is replaced atomically, Snapshots mapped before keep their
+     * state.
+     */
+    public static Snapshot refresh(Path path, Source source, int blockSize) throws IOException {
+        Snapshot previous = null;
+        if (Files.exists(path)) {
+            previous = map(path);
+            if (previous.blockSize != blockSize)
+                previous = null;
+        }
+
+        long marker = source.marker();
+        if (previous != null && marker != UNKNOWN && marker == previous.marker)
+            return previous;
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        write(temp, marker, blockSize, source, previous);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return map(path);
+    }
+
+    private static void write(Path path, long marker, int blockSize, Source source, Snapshot previous) throws IOException {
+        List<Role> roles = source.roles();
+        List<Block> blocks = source.blocks(blockSize);
+        int linkCount = 0;
+        for (Block block : blocks)
+            linkCount += block.links;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(marker);
+            out.writeInt(blockSize);
+            out.writeInt(roles.size());
+            out.writeInt(blocks.size());
+            out.writeInt(linkCount);
+
+            for (Role role : roles) {
+                byte[] name = role.name.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(role.id);
+                out.writeShort(name.length);
+                out.write(name);
+            }
+            while (out.size() != align(out.size()))
+                out.writeByte(0);
+
+            int firstLink = 0;
+            for (Block block : blocks) {
+                out.writeInt(block.block);
+                out.writeInt(firstLink);
+                out.writeInt(block.links);
+                out.writeLong(block.checksum);
+                firstLink += block.links;
+            }
+
+            byte[] copy = new byte[1 << 16];
+            for (Block block : blocks) {
+                int previousBlock = previous != null ? previous.indexOf(block.block) : -1;
+                if (previousBlock >= 0 && previous.checksumAt(previousBlock) == block.checksum && previous.linksAt(previousBlock) == block.links) {
+                    ByteBuffer bytes = previous.linkBytes(previousBlock);
+                    while (bytes.hasRemaining()) {
+                        int length = Math.min(copy.length, bytes.remaining());
+                        bytes.get(copy, 0, length);
+                        out.write(copy, 0, length);
+                    }
+                } else {
+                    int[] written = {0};
+                    source.links(users(block.block, blockSize), (userId, roleId) -> {
+                        try {
+                            out.writeInt(userId);
+                            out.writeInt(roleId);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        written[0]++;
+                    });
+                    if (written[0] != block.links)
+                        throw new IllegalStateException("block " + block.block + " has " + written[0] + " links instead of " + block.links + ", the source changed while it was read");
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Partition users(int block, int blockSize) {
+        long from = (long) block * blockSize;
+        return new Partition((int) from, (int) Math.min(from + blockSize - 1, Integer.MAX_VALUE));
+    }
+
+    /**
+     * The checksum of a block is the sum of its links' checksums, modulo {@code 2^31 - 1}. A source computing it in
+     * SQL: {@code sum((x * x % 2147483647)::int) % 2147483647} with {@code x = (user_id::bigint * 40503 + role_id) % 2147483647}.
+     */
+    public static long checksum(int userId, int roleId) {
+        long x = ((long) userId * 40503 + roleId) % CHECKSUM_MODULUS;
+        return x * x % CHECKSUM_MODULUS;
+    }
+
+    public static long checksum(long blockChecksum, int userId, int roleId) {
+        return (blockChecksum + checksum(userId, roleId)) % CHECKSUM_MODULUS;
+    }
+
+    public long marker() {
+        return marker;
+    }
+
+    public List<Role> roles() {
+        return roles;
+    }
+
+    public Role role(int id) {
+        return rolesById.get(id);
+    }
+
+    public int links() {
+        return links.limit() / 2;
+    }
+
+    /**
+     * @return the ids of the user's roles, ascending
+     */
+    public int[] rolesOf(int userId) {
+        int block = indexOf(userId / blockSize);
+        if (block < 0)
+            return new int[0];
+
+        int from = firstLinkAt(block);
+        int to = from + linksAt(block);
+        int low = from, high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (links.get(middle * 2) < userId)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        int end = low;
+        while (end < to && links.get(end * 2) == userId)
+            end++;
+
+        int[] roleIds = new int[end - low];
+        for (int i = low; i < end; i++)
+            roleIds[i - low] = links.get(i * 2 + 1);
+        return roleIds;
+    }
+
+    /**
+     * @return the position of the block in the index, or -1
+     */
+    private int indexOf(int block) {
+        int low = 0, high = index.limit() / INDEX_ENTRY_BYTES - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int current = index.getInt(middle * INDEX_ENTRY_BYTES);
+            if (current < block)
+                low = middle + 1;
+            else if (current > block)
+                high = middle - 1;
+            else
+                return middle;
+        }
+        return -1;
+    }
+
+    private int firstLinkAt(int position) {
+        return index.getInt(position * INDEX_ENTRY_BYTES + 4);
+    }
+
+    private int linksAt(int position) {
+        return index.getInt(position * INDEX_ENTRY_BYTES + 8);
+    }
+
+    private long checksumAt(int position) {
+        return index.getLong(position * INDEX_ENTRY_BYTES + 12);
+    }
+
+    private ByteBuffer linkBytes(int position) {
+        ByteBuffer bytes = linkBytes.duplicate();
+        bytes.limit((firstLinkAt(position) + linksAt(position)) * 8);
+        bytes.position(firstLinkAt(position) * 8);
+        return bytes;
+    }
+}
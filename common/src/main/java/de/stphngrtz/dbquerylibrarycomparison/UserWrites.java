@@ -0,0 +1,20 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.util.List;
+
+/**
+ * Writes of single users, one at a time or as a group, the backend of a {@link WriteBehindBuffer}.
+ */
+public interface UserWrites {
+
+    /**
+     * Sets the user's name and email ({@code UPDATE users SET name = ?, email = ? WHERE id = ?}), committed on its own.
+     */
+    void update(User user);
+
+    /**
+     * Deletes, inserts and updates (as in {@link #update(User)}) users, in this order, a batch each, in one
+     * transaction: all or nothing. The users have to be distinct, their order doesn't matter then.
+     */
+    void write(int[] deletes, List<User> inserts, List<User> updates);
+}
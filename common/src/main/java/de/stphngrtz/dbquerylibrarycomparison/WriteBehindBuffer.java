@@ -0,0 +1,201 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffers writes of users and writes them as a group ({@link UserWrites#write}), a single transaction, once
+ * {@code maxBatch} users are pending or {@code maxDelay} after the first one, whichever comes first. A write's future
+ * completes once its group is committed, exceptionally if the group failed: until then it isn't durable, it's lost
+ * with the process. A group is committed all or nothing, the writes of a failed one are all lost.
+ * <p>
+ * Writes of the same user are coalesced while they're pending, into the write with the same effect: an update replaces
+ * a pending insert's or update's values, a delete replaces a pending update. Other combinations (e.g. an insert after
+ * a delete) can't be applied in any order, the pending writes are handed on as a group first. Groups are written one
+ * after the other, by a thread of their own, in order.
+ * <p>
+ * There's no back-pressure: groups wait for their turn without bound, callers can wait for their futures.
+ */
+public class WriteBehindBuffer implements AutoCloseable {
+
+    private enum Kind {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    private static class Write {
+
+        private Kind kind;
+        private final int id;
+        private User user;
+        private final List<CompletableFuture<Void>> futures = new ArrayList<>(1);
+
+        private Write(Kind kind, int id, User user) {
+            this.kind = kind;
+            this.id = id;
+            this.user = user;
+        }
+    }
+
+    private final UserWrites writes;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final ScheduledThreadPoolExecutor executor;
+
+    private final LongAdder groups = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    private Map<Integer, Write> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> timer;
+    private boolean closed;
+
+    public WriteBehindBuffer(UserWrites writes, int maxBatch, long maxDelay, TimeUnit unit) {
+        this.writes = writes;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    public CompletableFuture<Void> insert(User user) {
+        return add(Kind.INSERT, user.id, user);
+    }
+
+    public CompletableFuture<Void> update(User user) {
+        return add(Kind.UPDATE, user.id, user);
+    }
+
+    public CompletableFuture<Void> delete(int id) {
+        return add(Kind.DELETE, id, null);
+    }
+
+    /**
+     * Hands on the pending writes without waiting for a threshold.
+     *
+     * @return completes once all writes so far are done, whether they succeeded or not, exceptionally once closed
+     */
+    public synchronized CompletableFuture<Void> flush() {
+        if (closed) {
+            CompletableFuture<Void> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new IllegalStateException("WriteBehindBuffer is closed"));
+            return rejected;
+        }
+        submit();
+        return CompletableFuture.runAsync(() -> {
+        }, executor);
+    }
+
+    /**
+     * @return the groups written so far
+     */
+    public long groups() {
+        return groups.sum();
+    }
+
+    /**
+     * @return the writes coalesced into a pending one so far
+     */
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    private synchronized CompletableFuture<Void> add(Kind kind, int id, User user) {
+        if (closed)
+            throw new IllegalStateException("WriteBehindBuffer is closed");
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Write write = pending.get(id);
+        if (write != null && coalesce(write, kind, user)) {
+            coalesced.increment();
+        } else {
+            if (write != null)
+                submit();
+            write = new Write(kind, id, user);
+            pending.put(id, write);
+            if (pending.size() == 1)
+                timer = executor.schedule(() -> {
+                    synchronized (this) {
+                        submit();
+                    }
+                }, maxDelayNanos, TimeUnit.NANOSECONDS);
+        }
+        write.futures.add(future);
+
+        if (pending.size() >= maxBatch)
+            submit();
+        return future;
+    }
+
+    private static boolean coalesce(Write write, Kind kind, User user) {
+        if (kind == Kind.UPDATE && write.kind != Kind.DELETE) {
+            write.user = user;
+            return true;
+        }
+        if (kind == Kind.DELETE && write.kind == Kind.UPDATE) {
+            write.kind = Kind.DELETE;
+            write.user = null;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Called with the lock held. The timer of the group is cancelled, it would hand on the next one too early, and
+     * shutting down waits for the groups queued, not for the timers.
+     */
+    private void submit() {
+        if (pending.isEmpty())
+            return;
+        Collection<Write> group = pending.values();
+        pending = new LinkedHashMap<>();
+        timer.cancel(false);
+        executor.execute(() -> write(group));
+    }
+
+    private void write(Collection<Write> group) {
+        int[] deletes = group.stream().filter(w -> w.kind == Kind.DELETE).mapToInt(w -> w.id).toArray();
+        List<User> inserts = new ArrayList<>();
+        List<User> updates = new ArrayList<>();
+        for (Write write : group) {
+            if (write.kind == Kind.INSERT)
+                inserts.add(write.user);
+            else if (write.kind == Kind.UPDATE)
+                updates.add(write.user);
+        }
+
+        try {
+            writes.write(deletes, inserts, updates);
+        } catch (Throwable e) { // an Error too, or the callers would wait forever
+            group.forEach(w -> w.futures.forEach(f -> f.completeExceptionally(e)));
+            return;
+        }
+        groups.increment();
+        group.forEach(w -> w.futures.forEach(f -> f.complete(null)));
+    }
+
+    /**
+     * Writes what's pending and waits for it.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        synchronized (this) {
+            closed = true;
+            submit();
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,114 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class AsyncScenariosTest {
+
+    private CountDownLatch running;
+    private CountDownLatch proceed;
+    private AtomicInteger closed;
+    private AsyncScenarios scenarios;
+
+    @Before
+    public void setUp() throws Exception {
+        running = new CountDownLatch(2);
+        proceed = new CountDownLatch(1);
+        closed = new AtomicInteger();
+        scenarios = new AsyncScenarios(BlockingScenarios::new, 2, 1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        proceed.countDown();
+        scenarios.close();
+    }
+
+    @Test
+    public void results() throws Exception {
+        proceed.countDown();
+        assertThat(scenarios.selectWhereEquals(1).get(), contains(new User(1, "Stephan", null)));
+        assertThat(scenarios.selectAllOrderedBy().get(), contains(new Role(1, "Admin")));
+        assertThat(scenarios.selectCountWithGroupBy().get(), contains("Admin mit 1 User(n)"));
+    }
+
+    @Test
+    public void rejectedOncePoolAndQueueAreFull() throws Exception {
+        CompletableFuture<List<User>> first = scenarios.selectWhereEquals(1);
+        CompletableFuture<List<User>> second = scenarios.selectWhereEquals(2);
+        running.await(10, TimeUnit.SECONDS);
+        CompletableFuture<List<User>> queued = scenarios.selectWhereEquals(3);
+        assertThat(scenarios.inFlight(), equalTo(3));
+
+        CompletableFuture<List<User>> rejected = scenarios.selectWhereEquals(4);
+        assertThat(rejected.isCompletedExceptionally(), equalTo(true));
+        assertThat(rejected.handle((users, e) -> e).get(), instanceOf(RejectedExecutionException.class));
+
+        proceed.countDown();
+        assertThat(queued.get(), contains(new User(3, "Stephan", null)));
+        assertThat(first.get().size() + second.get().size(), equalTo(2));
+    }
+
+    @Test
+    public void closesTheScenariosOfEachThread() throws Exception {
+        CompletableFuture<List<User>> first = scenarios.selectWhereEquals(1);
+        CompletableFuture<List<User>> second = scenarios.selectWhereEquals(2);
+        running.await(10, TimeUnit.SECONDS);
+        proceed.countDown();
+        first.get();
+        second.get();
+
+        scenarios.close();
+        assertThat(closed.get(), equalTo(2));
+    }
+
+    /**
+     * Every call waits for the test to proceed.
+     */
+    private class BlockingScenarios extends UnsupportedScenarios implements AutoCloseable {
+
+        private <T> T await(T result) {
+            running.countDown();
+            try {
+                proceed.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return result;
+        }
+
+        @Override
+        public List<Role> selectAllOrderedBy() {
+            return await(Collections.singletonList(new Role(1, "Admin")));
+        }
+
+        @Override
+        public List<User> selectWhereEquals(int id) {
+            return await(Collections.singletonList(new User(id, "Stephan", null)));
+        }
+
+        @Override
+        public List<String> selectCountWithGroupBy() {
+            return await(Collections.singletonList("Admin mit 1 User(n)"));
+        }
+
+        @Override
+        public void close() {
+            closed.incrementAndGet();
+        }
+    }
+}
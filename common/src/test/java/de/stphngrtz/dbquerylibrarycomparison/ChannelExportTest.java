@@ -0,0 +1,82 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ChannelExportTest {
+
+    private final DirectBufferPool buffers = new DirectBufferPool(64);
+
+    @Test
+    public void csv() throws Exception {
+        assertThat(export(ChannelExport.Format.CSV, new Object[][]{
+                        {1, "Stephan", "stephan.goertz@gmail.com", "Admin"},
+                        {3, "Willi", "willi@web.de", null},
+                        {-2147483648, "", "a,b", "\"x\"\ny"}
+                }),
+                equalTo("" +
+                        "1,Stephan,stephan.goertz@gmail.com,Admin\n" +
+                        "3,Willi,willi@web.de,\n" +
+                        "-2147483648,\"\",\"a,b\",\"\"\"x\"\"\ny\"\n"));
+    }
+
+    @Test
+    public void json() throws Exception {
+        assertThat(export(ChannelExport.Format.JSON, new Object[][]{
+                        {1, "Stephan", "stephan.goertz@gmail.com", "Admin"},
+                        {3, "Willi", "willi@web.de", null},
+                        {4, "\"\\/", "\b\f\n\r\t\u0001", ""}
+                }),
+                equalTo("" +
+                        "{\"id\":1,\"name\":\"Stephan\",\"email\":\"stephan.goertz@gmail.com\",\"role\":\"Admin\"}\n" +
+                        "{\"id\":3,\"name\":\"Willi\",\"email\":\"willi@web.de\",\"role\":null}\n" +
+                        "{\"id\":4,\"name\":\"\\\"\\\\/\",\"email\":\"\\b\\f\\n\\r\\t\\u0001\",\"role\":\"\"}\n"));
+    }
+
+    @Test
+    public void utf8() throws Exception {
+        String name = "J\u00FCrgen \u03A9mega \u6F22\u5B57 \uD83D\uDE00";
+        assertThat(export(ChannelExport.Format.CSV, new Object[][]{{1, name, "\uD83D", null}}),
+                equalTo("1," + name + ",?,\n"));
+    }
+
+    @Test
+    public void rowsLargerThanTheBuffer() throws Exception {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 100; i++)
+            name.append("\u00E4").append(i);
+
+        assertThat(export(ChannelExport.Format.JSON, new Object[][]{{1, name.toString(), "x", null}, {2, "y", name.toString(), "z"}}),
+                equalTo("" +
+                        "{\"id\":1,\"name\":\"" + name + "\",\"email\":\"x\",\"role\":null}\n" +
+                        "{\"id\":2,\"name\":\"y\",\"email\":\"" + name + "\",\"role\":\"z\"}\n"));
+    }
+
+    @Test
+    public void rowsAndBytes() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ChannelExport export = new ChannelExport(Channels.newChannel(out), ChannelExport.Format.CSV, buffers);
+        export.row(1, "a", "b", "c");
+        assertThat(export.bytes(), equalTo(0L));
+
+        export.close();
+        assertThat(export.rows(), equalTo(1L));
+        assertThat(export.bytes(), equalTo(8L));
+        assertThat(out.size(), equalTo(8));
+    }
+
+    private String export(ChannelExport.Format format, Object[][] rows) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ChannelExport export = new ChannelExport(Channels.newChannel(out), format, buffers)) {
+            for (Object[] row : rows)
+                export.row((Integer) row[0], (String) row[1], (String) row[2], (String) row[3]);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,180 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.fail;
+
+public class ConcurrencyLimiterTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void rejectsAboveTheLimit() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(dataSource(), 2, 2, 0, 1, TimeUnit.SECONDS);
+        DataSource dataSource = limiter.dataSource();
+
+        Connection first = dataSource.getConnection();
+        dataSource.getConnection();
+        try {
+            dataSource.getConnection();
+            fail("limit reached");
+        } catch (ConcurrencyLimitExceededException e) {
+            assertThat(ConcurrencyLimiter.rejection(new IllegalStateException(e)), equalTo(true));
+        }
+        assertThat(limiter.rejected(), equalTo(1L));
+
+        first.close();
+        dataSource.getConnection();
+        assertThat(limiter.inFlight(), equalTo(2));
+    }
+
+    @Test
+    public void waitsForARelease() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(dataSource(), 1, 1, 1, 10, TimeUnit.SECONDS);
+        DataSource dataSource = limiter.dataSource();
+
+        Connection first = dataSource.getConnection();
+        CompletableFuture<Connection> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (limiter.waiting() == 0)
+            Thread.sleep(1);
+
+        try {
+            dataSource.getConnection();
+            fail("queue full");
+        } catch (ConcurrencyLimitExceededException e) {
+            // expected
+        }
+
+        first.close();
+        second.get(10, TimeUnit.SECONDS);
+        assertThat(limiter.inFlight(), equalTo(1));
+        assertThat(limiter.waiting(), equalTo(0));
+    }
+
+    @Test
+    public void rejectsAfterMaxWait() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(dataSource(), 1, 1, 1, 50, TimeUnit.MILLISECONDS);
+        DataSource dataSource = limiter.dataSource();
+
+        dataSource.getConnection();
+        long start = System.nanoTime();
+        try {
+            dataSource.getConnection();
+            fail("waited too long");
+        } catch (ConcurrencyLimitExceededException e) {
+            assertThat(System.nanoTime() - start, greaterThanOrEqualTo(50 * MILLI));
+        }
+    }
+
+    @Test
+    public void waitsUntilTheDeadline() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(dataSource(), 1, 1, 1, 10, TimeUnit.SECONDS);
+        DataSource dataSource = limiter.dataSource();
+
+        dataSource.getConnection();
+        long start = System.nanoTime();
+        try {
+            Deadline.call(Deadline.after(50, TimeUnit.MILLISECONDS), () -> {
+                try {
+                    return dataSource.getConnection();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            fail("deadline passed");
+        } catch (DeadlineExceededException e) {
+            assertThat(ConcurrencyLimiter.rejection(e), equalTo(true));
+            assertThat(System.nanoTime() - start, lessThan(TimeUnit.SECONDS.toNanos(5)));
+        }
+    }
+
+    @Test
+    public void closedTwiceReleasedOnce() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(dataSource(), 2, 2, 0, 1, TimeUnit.SECONDS);
+        DataSource dataSource = limiter.dataSource();
+
+        Connection connection = dataSource.getConnection();
+        dataSource.getConnection();
+        connection.close();
+        connection.close();
+        assertThat(limiter.inFlight(), equalTo(1));
+    }
+
+    /**
+     * With 10 times the lowest latency the limit settles where halving it is made up by its square root, 4. From there
+     * it only grows as long as at least half of it is used: up to 8 with 3 connections taken.
+     */
+    @Test
+    public void limitFollowsLatency() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(dataSource(), 20, 20, 0, 1, TimeUnit.SECONDS);
+        for (int i = 0; i < 100; i++)
+            limiter.update(MILLI);
+        assertThat(limiter.limit(), equalTo(20));
+
+        for (int i = 0; i < 100; i++)
+            limiter.update(10 * MILLI);
+        assertThat(limiter.limit(), equalTo(4));
+
+        for (int i = 0; i < 100; i++)
+            limiter.update(MILLI);
+        assertThat(limiter.limit(), equalTo(4));
+
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            connections.add(limiter.dataSource().getConnection());
+        for (int i = 0; i < 100; i++)
+            limiter.update(MILLI);
+        assertThat(limiter.limit(), equalTo(8));
+    }
+
+    /**
+     * Started below the maximum, the limit grows as long as at least half of it is used: up to 6 with 2 connections
+     * taken, up to the maximum with 4.
+     */
+    @Test
+    public void limitProbesUpwardFromTheInitialLimit() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(dataSource(), 2, 8, 0, 1, TimeUnit.SECONDS);
+        for (int i = 0; i < 100; i++)
+            limiter.update(MILLI);
+        assertThat(limiter.limit(), equalTo(2));
+
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < 2; i++)
+            connections.add(limiter.dataSource().getConnection());
+        for (int i = 0; i < 100; i++)
+            limiter.update(MILLI);
+        assertThat(limiter.limit(), equalTo(6));
+
+        for (int i = 0; i < 2; i++)
+            connections.add(limiter.dataSource().getConnection());
+        for (int i = 0; i < 100; i++)
+            limiter.update(MILLI);
+        assertThat(limiter.limit(), equalTo(8));
+    }
+
+    private static DataSource dataSource() {
+        return (DataSource) Proxy.newProxyInstance(ConcurrencyLimiterTest.class.getClassLoader(), new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+            if (!method.getName().equals("getConnection"))
+                throw new UnsupportedOperationException(method.getName());
+            return Proxy.newProxyInstance(ConcurrencyLimiterTest.class.getClassLoader(), new Class<?>[]{Connection.class}, (p, m, a) -> null);
+        });
+    }
+}
@@ -0,0 +1,133 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class CsvImportTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ConcurrentLinkedQueue<String> loaded = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Integer> batchSizes = new ConcurrentLinkedQueue<>();
+    private Path quarantine;
+
+    /**
+     * Fails the batches with a user named "bad".
+     */
+    private final CsvImport.Loader loader = (table, rows, count) -> {
+        List<String[]> records = CsvImport.parse(rows, table.columns.size());
+        assertThat(records.size(), equalTo(count));
+        for (String[] record : records)
+            if ("bad".equals(record[1]))
+                throw new IllegalArgumentException("bad user " + record[0] + "\nsecond line");
+        for (String[] record : records)
+            loaded.add(String.join("|", record));
+        batchSizes.add(count);
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        quarantine = folder.getRoot().toPath().resolve("quarantine");
+    }
+
+    @Test
+    public void parse() throws Exception {
+        List<String[]> records = CsvImport.parse(ByteBuffer.wrap("1,a,\"b,\"\"c\"\"\nd\"\r\n2,,\"\"\n3,\u00E4".getBytes(StandardCharsets.UTF_8)), 3);
+
+        assertThat(records.size(), equalTo(3));
+        assertThat(records.get(0), equalTo(new String[]{"1", "a", "b,\"c\"\nd"}));
+        assertThat(records.get(1), equalTo(new String[]{"2", null, ""}));
+        assertThat(records.get(2), equalTo(new String[]{"3", "\u00E4", null}));
+    }
+
+    @Test
+    public void batches() throws Exception {
+        Path file = write("users.csv", 10, Collections.emptyList());
+
+        CsvImport.Result result = new CsvImport(loader, 2, 3, quarantine).run(CsvImport.Table.USERS, file);
+
+        assertThat(result.rows, equalTo(10L));
+        assertThat(result.rejected, equalTo(0L));
+        assertThat(batchSizes, containsInAnyOrder(3, 3, 3, 1));
+        assertThat(loaded, containsInAnyOrder(expected(10, Collections.emptyList()).toArray()));
+        assertThat(Files.exists(quarantine), equalTo(false));
+    }
+
+    @Test
+    public void regions() throws Exception {
+        Path file = write("users.csv", 100, Collections.emptyList());
+
+        CsvImport.Result result = new CsvImport(loader, 2, 7, quarantine, 50).run(CsvImport.Table.USERS, file);
+
+        assertThat(result.rows, equalTo(100L));
+        assertThat(loaded, containsInAnyOrder(expected(100, Collections.emptyList()).toArray()));
+    }
+
+    @Test
+    public void quarantine() throws Exception {
+        List<Integer> bad = Arrays.asList(4, 17);
+        Path file = write("users.csv", 20, bad);
+
+        CsvImport.Result result = new CsvImport(loader, 2, 8, quarantine).run(CsvImport.Table.USERS, file);
+
+        assertThat(result.rows, equalTo(18L));
+        assertThat(result.rejected, equalTo(2L));
+        assertThat(loaded, containsInAnyOrder(expected(20, bad).toArray()));
+        assertThat(batchSizes, everyItem(lessThanOrEqualTo(8)));
+        List<String> rejected = new ArrayList<>();
+        for (String[] record : CsvImport.parse(ByteBuffer.wrap(Files.readAllBytes(quarantine.resolve("users.csv"))), 3))
+            rejected.add(String.join("|", record));
+        assertThat(rejected, containsInAnyOrder("4|bad|user4@mail.de\n(second line)", "17|bad|user17@mail.de\n(second line)"));
+        assertThat(Files.readAllLines(quarantine.resolve("users.log")), containsInAnyOrder("IllegalArgumentException: bad user 4", "IllegalArgumentException: bad user 17"));
+    }
+
+    @Test
+    public void lastRowWithoutLineBreak() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("users_with_roles.csv");
+        Files.write(file, "1,2\n3,4".getBytes(StandardCharsets.UTF_8));
+
+        new CsvImport(loader, 1, 10, quarantine).run(CsvImport.Table.USERS_WITH_ROLES, file);
+
+        assertThat(loaded, contains("1|2", "3|4"));
+    }
+
+    /**
+     * Every email has a quoted line break, the rows mustn't be split there.
+     */
+    private Path write(String name, int users, List<Integer> bad) throws Exception {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 1; i <= users; i++)
+            csv.append(i).append(',').append(bad.contains(i) ? "bad" : "User " + i).append(",\"user").append(i).append("@mail.de\n(second line)\"\n");
+        Path file = folder.getRoot().toPath().resolve(name);
+        Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private List<String> expected(int users, List<Integer> bad) {
+        List<String> expected = new ArrayList<>();
+        for (int i = 1; i <= users; i++)
+            if (!bad.contains(i))
+                expected.add(i + "|User " + i + "|user" + i + "@mail.de\n(second line)");
+        return expected;
+    }
+}
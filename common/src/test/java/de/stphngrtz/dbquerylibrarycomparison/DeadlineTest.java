@@ -0,0 +1,125 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+
+public class DeadlineTest {
+
+    @Test
+    public void earlierDeadlineApplies() throws Exception {
+        Deadline outer = Deadline.after(1, TimeUnit.MINUTES);
+        Deadline.call(outer, () -> {
+            Deadline.call(Deadline.after(10, TimeUnit.MINUTES), () -> {
+                assertThat(Deadline.current(), sameInstance(outer));
+                return null;
+            });
+            Deadline.call(Deadline.after(1, TimeUnit.SECONDS), () -> {
+                assertThat(Deadline.current().remaining(TimeUnit.MILLISECONDS), lessThanOrEqualTo(1000L));
+                return null;
+            });
+            assertThat(Deadline.current(), sameInstance(outer));
+            return null;
+        });
+        assertThat(Deadline.current(), nullValue());
+    }
+
+    @Test
+    public void expiredBeforeTheCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            Deadline.call(Deadline.after(0, TimeUnit.MILLISECONDS), calls::incrementAndGet);
+            fail("deadline passed");
+        } catch (DeadlineExceededException e) {
+            assertThat(calls.get(), equalTo(0));
+        }
+        assertThat(Deadline.current(), nullValue());
+    }
+
+    @Test
+    public void failureAfterTheDeadline() throws Exception {
+        IllegalStateException failure = new IllegalStateException();
+        try {
+            Deadline.call(Deadline.after(10, TimeUnit.MILLISECONDS), () -> {
+                sleep(20);
+                throw failure;
+            });
+            fail("deadline passed");
+        } catch (DeadlineExceededException e) {
+            assertThat(e.getCause(), sameInstance(failure));
+        }
+    }
+
+    @Test
+    public void failureBeforeTheDeadline() throws Exception {
+        IllegalStateException failure = new IllegalStateException();
+        try {
+            Deadline.call(Deadline.after(1, TimeUnit.MINUTES), () -> {
+                throw failure;
+            });
+            fail("failure");
+        } catch (IllegalStateException e) {
+            assertThat(e, sameInstance(failure));
+        }
+    }
+
+    @Test
+    public void cancellationOfAStatement() throws Exception {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        Statement statement = statement(cancelled);
+        Deadline.call(Deadline.after(50, TimeUnit.MILLISECONDS), () -> {
+            Deadline.cancelAt(statement);
+            sleep(100);
+            return null;
+        });
+        assertThat(cancelled.await(1, TimeUnit.SECONDS), equalTo(true));
+    }
+
+    @Test
+    public void noCancellationOnceDone() throws Exception {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        Statement statement = statement(cancelled);
+        Deadline.call(Deadline.after(50, TimeUnit.MILLISECONDS), () -> {
+            Deadline.cancelAt(statement).close();
+            return null;
+        });
+        assertThat(cancelled.await(100, TimeUnit.MILLISECONDS), equalTo(false));
+    }
+
+    @Test
+    public void remainingSecondsRoundedUp() throws Exception {
+        assertThat(Deadline.after(200, TimeUnit.MILLISECONDS).remainingSecondsRoundedUp(), equalTo(1L));
+        assertThat(Deadline.after(1500, TimeUnit.MILLISECONDS).remainingSecondsRoundedUp(), equalTo(2L));
+        assertThat(Deadline.after(0, TimeUnit.MILLISECONDS).remainingSecondsRoundedUp(), greaterThan(0L));
+    }
+
+    private static Statement statement(CountDownLatch cancelled) {
+        return (Statement) Proxy.newProxyInstance(DeadlineTest.class.getClassLoader(), new Class<?>[]{Statement.class}, (proxy, method, args) -> {
+            if (!method.getName().equals("cancel"))
+                throw new SQLException(method.getName());
+            cancelled.countDown();
+            return null;
+        });
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class HashJoinTest {
+
+    private static final List<Role> ROLES = Arrays.asList(
+            new Role(1, "Admin"),
+            new Role(2, "Developer"),
+            new Role(3, "Designer")
+    );
+
+    /**
+     * user name and role id, like the rows of users joined with users_with_roles
+     */
+    private static final List<Object[]> USERS_WITH_ROLES = Arrays.asList(
+            new Object[]{"Stephan", 1},
+            new Object[]{"Stephan", 2},
+            new Object[]{"Steffi", 3},
+            new Object[]{"Willi", null},
+            new Object[]{"Franz", 2},
+            new Object[]{"Hans", 42}
+    );
+
+    @Test
+    public void innerJoin() throws Exception {
+        HashJoin<Role> roles = new HashJoin<>(ROLES, r -> r.id);
+        List<String> result = new ArrayList<>();
+        roles.innerJoin(USERS_WITH_ROLES.stream().filter(row -> row[1] != null).iterator(), row -> (Integer) row[1], (row, role) -> row[0] + " ist " + role.name, result::add);
+        assertThat(result, contains("Stephan ist Admin", "Stephan ist Developer", "Steffi ist Designer", "Franz ist Developer"));
+    }
+
+    @Test
+    public void leftOuterJoin() throws Exception {
+        HashJoin<Role> roles = new HashJoin<>(ROLES, r -> r.id);
+        List<String> result = new ArrayList<>();
+        roles.leftOuterJoin(USERS_WITH_ROLES.iterator(), row -> row[1] != null, row -> (Integer) row[1], (row, role) -> row[0] + " ist " + (role != null ? role.name : null), result::add);
+        assertThat(result, contains("Stephan ist Admin", "Stephan ist Developer", "Steffi ist Designer", "Willi ist null", "Franz ist Developer", "Hans ist null"));
+    }
+
+    @Test
+    public void intMap() throws Exception {
+        IntMap<String> map = new IntMap<>(2);
+        for (int i = -1000; i < 1000; i++)
+            assertThat(map.put(i * 1024, "v" + i), nullValue());
+        assertThat(map.put(0, "zero"), equalTo("v0"));
+
+        assertThat(map.size(), equalTo(2000));
+        assertThat(map.get(0), equalTo("zero"));
+        assertThat(map.get(-1000 * 1024), equalTo("v-1000"));
+        assertThat(map.get(999 * 1024), equalTo("v999"));
+        assertThat(map.get(1), nullValue());
+    }
+}
@@ -0,0 +1,127 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class LatencyProxyTest {
+
+    private ServerSocket echoServer;
+    private Thread echoThread;
+
+    @Before
+    public void setUp() throws Exception {
+        echoServer = new ServerSocket(0);
+        echoThread = new Thread(() -> {
+            while (!echoServer.isClosed()) {
+                try (Socket socket = echoServer.accept()) {
+                    InputStream in = socket.getInputStream();
+                    OutputStream out = socket.getOutputStream();
+                    byte[] buffer = new byte[8192];
+                    int read;
+                    while ((read = in.read(buffer)) >= 0)
+                        out.write(buffer, 0, read);
+                } catch (IOException e) {
+                    // closed
+                }
+            }
+        });
+        echoThread.setDaemon(true);
+        echoThread.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        echoServer.close();
+    }
+
+    @Test
+    public void roundTripTakesTwiceTheLatency() throws Exception {
+        try (LatencyProxy proxy = proxy(20, 0, 0);
+             Socket socket = new Socket("localhost", proxy.getPort())) {
+
+            long start = System.nanoTime();
+            socket.getOutputStream().write(42);
+            assertThat(socket.getInputStream().read(), equalTo(42));
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertThat(millis, greaterThanOrEqualTo(40L));
+            assertThat(millis, lessThan(1000L));
+        }
+    }
+
+    @Test
+    public void bytesArriveInOrderDespiteJitter() throws Exception {
+        byte[] sent = new byte[1024 * 1024];
+        new Random(0).nextBytes(sent);
+
+        try (LatencyProxy proxy = proxy(1, 1, 0);
+             Socket socket = new Socket("localhost", proxy.getPort())) {
+
+            Thread writer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < sent.length; i += 1000)
+                        socket.getOutputStream().write(sent, i, Math.min(1000, sent.length - i));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            writer.start();
+
+            byte[] received = new byte[sent.length];
+            new DataInputStream(socket.getInputStream()).readFully(received);
+            writer.join();
+
+            assertThat(received, equalTo(sent));
+        }
+    }
+
+    @Test
+    public void responseArrivesAfterTheClientIsDoneSending() throws Exception {
+        try (LatencyProxy proxy = proxy(20, 0, 0);
+             Socket socket = new Socket("localhost", proxy.getPort())) {
+
+            socket.getOutputStream().write(42);
+            socket.shutdownOutput();
+
+            assertThat(socket.getInputStream().read(), equalTo(42));
+            assertThat(socket.getInputStream().read(), equalTo(-1));
+        }
+    }
+
+    @Test
+    public void bandwidthIsLimited() throws Exception {
+        byte[] sent = new byte[100 * 1024];
+
+        try (LatencyProxy proxy = proxy(0, 0, 1024 * 1024);
+             Socket socket = new Socket("localhost", proxy.getPort())) {
+
+            long start = System.nanoTime();
+            socket.getOutputStream().write(sent);
+            new DataInputStream(socket.getInputStream()).readFully(new byte[sent.length]);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // 100 KiB at 1 MiB/s, echoing overlaps with sending
+            assertThat(millis, greaterThanOrEqualTo(95L));
+        }
+    }
+
+    private LatencyProxy proxy(long latency, long jitter, long bytesPerSecond) throws IOException {
+        return new LatencyProxy(new InetSocketAddress("localhost", echoServer.getLocalPort()), latency, jitter, TimeUnit.MILLISECONDS, bytesPerSecond);
+    }
+}
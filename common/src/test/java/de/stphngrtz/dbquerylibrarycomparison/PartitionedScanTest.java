@@ -0,0 +1,132 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class PartitionedScanTest {
+
+    private static final List<User> USERS = Arrays.asList(
+            new User(1, "Stephan", null),
+            new User(2, "Steffi", null),
+            new User(3, "Willi", null),
+            new User(4, "Franz", null)
+    );
+
+    private static final List<Role> ROLES = Arrays.asList(
+            new Role(1, "Admin"),
+            new Role(2, "Developer"),
+            new Role(3, "Designer"),
+            new Role(4, "Tester")
+    );
+
+    private static final Map<Integer, List<String>> ROLES_OF_USER = new HashMap<>();
+
+    static {
+        ROLES_OF_USER.put(1, Arrays.asList("Admin", "Developer"));
+        ROLES_OF_USER.put(2, Collections.singletonList("Designer"));
+        ROLES_OF_USER.put(3, Collections.emptyList());
+        ROLES_OF_USER.put(4, Collections.singletonList("Developer"));
+    }
+
+    private final Set<String> threads = ConcurrentHashMap.newKeySet();
+    private PartitionedScan scan;
+
+    @Before
+    public void setUp() throws Exception {
+        scan = new PartitionedScan(InMemoryScenarios::new, Partition.byIdRange(3, 1, 4));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        scan.close();
+    }
+
+    @Test
+    public void partitions() throws Exception {
+        assertThat(Partition.byIdRange(3, 1, 4).stream().map(p -> p.from + ".." + p.to).collect(Collectors.toList()),
+                contains(Integer.MIN_VALUE + "..2", "3..4", "5.." + Integer.MAX_VALUE));
+        assertThat(Partition.byIdRange(1, 1, 4).stream().map(p -> p.from + ".." + p.to).collect(Collectors.toList()),
+                contains(Integer.MIN_VALUE + ".." + Integer.MAX_VALUE));
+        assertThat(Partition.byIdRange(8, Integer.MAX_VALUE - 1, Integer.MAX_VALUE).size(), equalTo(2));
+    }
+
+    @Test
+    public void selectAll() throws Exception {
+        assertThat(scan.selectAll(), contains(USERS.toArray()));
+        assertThat(threads.size(), greaterThan(1));
+    }
+
+    @Test
+    public void selectAllOrderedBy() throws Exception {
+        assertThat(scan.selectAllOrderedBy(),
+                contains(
+                        new User(3, "Willi", null),
+                        new User(1, "Stephan", null),
+                        new User(2, "Steffi", null),
+                        new User(4, "Franz", null)
+                )
+        );
+    }
+
+    @Test
+    public void selectCountWithGroupBy() throws Exception {
+        assertThat(scan.selectCountWithGroupBy(),
+                containsInAnyOrder(
+                        "Admin mit 1 User(n)",
+                        "Developer mit 2 User(n)",
+                        "Designer mit 1 User(n)"
+                )
+        );
+    }
+
+    /**
+     * The rows of db/init.sql plus an extra role, filtered in memory. Each call takes a moment, like a query would, so
+     * the partitions run on more than one thread.
+     */
+    private class InMemoryScenarios extends UnsupportedScenarios {
+
+        private <T> List<T> inPartition(List<T> rows, Function<T, Integer> id, Partition partition) {
+            threads.add(Thread.currentThread().getName());
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return rows.stream().filter(row -> id.apply(row) >= partition.from && id.apply(row) <= partition.to).collect(Collectors.toList());
+        }
+
+        @Override
+        public List<User> selectAll(Partition partition) {
+            return inPartition(USERS, u -> u.id, partition);
+        }
+
+        @Override
+        public List<User> selectAllOrderedBy(Partition partition) {
+            return inPartition(USERS, u -> u.id, partition).stream().sorted((a, b) -> b.name.compareTo(a.name)).collect(Collectors.toList());
+        }
+
+        @Override
+        public Map<String, Long> selectCountWithGroupBy(Partition partition) {
+            return inPartition(USERS, u -> u.id, partition).stream()
+                    .flatMap(u -> ROLES_OF_USER.get(u.id).stream())
+                    .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+public class QueryEventsTest {
+
+    private static final String SQL = "SELECT 1";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void phases() throws Exception {
+        List<RecordedEvent> events = record(() -> QueryEvents.scenario("scenario", this::query));
+
+        assertThat(events.stream().map(e -> e.getString("phase")).collect(Collectors.toList()), contains("RENDER", "EXECUTE", "FETCH", "MAP"));
+        for (RecordedEvent event : events) {
+            assertThat(event.getString("library"), equalTo("library"));
+            assertThat(event.getString("scenario"), equalTo("scenario"));
+            assertThat(event.getInt("sqlHash"), equalTo(SQL.hashCode()));
+        }
+        assertThat(events.get(2).getLong("rows"), equalTo(2L));
+    }
+
+    @Test
+    public void withoutScenario() throws Exception {
+        List<RecordedEvent> events = record(this::query);
+
+        assertThat(events.stream().map(e -> e.getString("phase")).collect(Collectors.toList()), contains("RENDER", "EXECUTE", "FETCH"));
+        assertThat(events.get(0).getString("scenario"), equalTo(null));
+    }
+
+    @Test
+    public void mapEndsWithTheNextQuery() throws Exception {
+        List<RecordedEvent> events = record(() -> QueryEvents.scenario("scenario", () -> {
+            query();
+            QueryEvents.scenario("nested", () -> {
+                QueryEvents.sql("SELECT 2");
+                QueryEvents.begin("library", QueryEvents.Phase.EXECUTE);
+                QueryEvents.end();
+            });
+        }));
+
+        assertThat(events.stream().map(e -> e.getString("phase")).collect(Collectors.toList()), contains("RENDER", "EXECUTE", "FETCH", "MAP", "EXECUTE", "MAP"));
+        assertThat(events.get(3).getInt("sqlHash"), equalTo(SQL.hashCode()));
+        assertThat(events.get(4).getInt("sqlHash"), equalTo("SELECT 2".hashCode()));
+        assertThat(events.get(4).getString("scenario"), equalTo("scenario"));
+    }
+
+    @Test
+    public void withoutRender() throws Exception {
+        List<RecordedEvent> events = record(() -> QueryEvents.scenario("scenario", () -> {
+            QueryEvents.sql(SQL);
+            QueryEvents.begin("library", QueryEvents.Phase.EXECUTE);
+            QueryEvents.begin("library", QueryEvents.Phase.FETCH);
+            QueryEvents.sql("SELECT 2");
+            QueryEvents.begin("library", QueryEvents.Phase.EXECUTE);
+            QueryEvents.end();
+            QueryEvents.end();
+        }));
+
+        assertThat(events.stream().map(e -> e.getString("phase")).collect(Collectors.toList()), contains("EXECUTE", "FETCH", "EXECUTE", "MAP"));
+        assertThat(events.get(1).getInt("sqlHash"), equalTo(SQL.hashCode()));
+        assertThat(events.get(2).getInt("sqlHash"), equalTo("SELECT 2".hashCode()));
+    }
+
+    @Test
+    public void disabled() throws Exception {
+        assertThat(QueryEvents.enabled(), equalTo(false));
+        query();
+        assertThat(record(() -> QueryEvents.end()), empty());
+    }
+
+    private void query() {
+        QueryEvents.begin("library", QueryEvents.Phase.RENDER);
+        QueryEvents.sql(SQL);
+        QueryEvents.begin("library", QueryEvents.Phase.EXECUTE);
+        QueryEvents.begin("library", QueryEvents.Phase.FETCH);
+        QueryEvents.rows(1);
+        QueryEvents.rows(1);
+        QueryEvents.end();
+    }
+
+    private List<RecordedEvent> record(Runnable runnable) throws Exception {
+        Path file = folder.newFile("query.jfr").toPath();
+        try (Recording recording = new Recording()) {
+            recording.enable(QueryEvent.class);
+            recording.start();
+            runnable.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals(QueryEvent.class.getAnnotation(jdk.jfr.Name.class).value()))
+                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                .collect(Collectors.toList());
+    }
+}
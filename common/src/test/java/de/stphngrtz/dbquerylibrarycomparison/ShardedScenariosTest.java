@@ -0,0 +1,240 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+public class ShardedScenariosTest {
+
+    private static final List<Role> ROLES = Arrays.asList(
+            new Role(1, "Admin"),
+            new Role(2, "Developer"),
+            new Role(3, "Designer")
+    );
+
+    private final List<InMemoryScenarios> shards = new ArrayList<>();
+    private ShardedScenarios scenarios;
+
+    /**
+     * The rows of db/init.sql, inserted through the ShardedScenarios.
+     */
+    @Before
+    public void setUp() throws Exception {
+        for (int i = 0; i < 3; i++)
+            shards.add(new InMemoryScenarios());
+        scenarios = new ShardedScenarios(new ArrayList<>(shards));
+
+        scenarios.insert(Arrays.asList(
+                new User(1, "Stephan", "stephan.goertz@gmail.com"),
+                new User(2, "Steffi", "steffi05.04@freenet.de"),
+                new User(3, "Willi", "willi@web.de"),
+                new User(4, "Franz", "franz@web.de")
+        ));
+        scenarios.insertRoles(new int[]{1, 1, 2, 4}, new int[]{1, 2, 3, 2});
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        scenarios.close();
+    }
+
+    @Test
+    public void shard() throws Exception {
+        int[] users = new int[scenarios.shards()];
+        IntStream.range(0, 3000).forEach(id -> users[scenarios.shard(id)]++);
+        assertThat(Arrays.stream(users).boxed().collect(Collectors.toList()), everyItem(greaterThan(900)));
+        assertThat(Arrays.stream(users).boxed().collect(Collectors.toList()), everyItem(lessThan(1100)));
+    }
+
+    @Test
+    public void usersLiveOnTheirShard() throws Exception {
+        for (int shard = 0; shard < shards.size(); shard++)
+            for (User user : shards.get(shard).users.values())
+                assertThat(scenarios.shard(user.id), equalTo(shard));
+        assertThat(shards.stream().mapToInt(s -> s.users.size()).sum(), equalTo(4));
+        assertThat(shards.stream().mapToInt(s -> s.roles.values().stream().mapToInt(List::size).sum()).sum(), equalTo(4));
+    }
+
+    @Test
+    public void selectWhereEquals() throws Exception {
+        assertThat(scenarios.selectWhereEquals(1),
+                contains(
+                        new User(1, "Stephan", "stephan.goertz@gmail.com")
+                )
+        );
+        assertThat(shards.stream().mapToInt(s -> s.calls).sum(), equalTo(1));
+    }
+
+    @Test
+    public void selectAll() throws Exception {
+        assertThat(scenarios.selectAll(new Partition(2, 4)).stream().map(u -> u.name).collect(Collectors.toList()),
+                containsInAnyOrder("Steffi", "Willi", "Franz"));
+    }
+
+    @Test
+    public void selectAllOrderedByInPartition() throws Exception {
+        assertThat(scenarios.selectAllOrderedBy(new Partition(1, 4)).stream().map(u -> u.name).collect(Collectors.toList()),
+                contains("Willi", "Stephan", "Steffi", "Franz"));
+        assertThat(scenarios.selectAllOrderedBy(new Partition(2, 3)).stream().map(u -> u.name).collect(Collectors.toList()),
+                contains("Willi", "Steffi"));
+    }
+
+    @Test
+    public void selectWithExplicitJoin() throws Exception {
+        assertThat(scenarios.selectWithExplicitJoin(),
+                containsInAnyOrder(
+                        "Stephan ist Admin",
+                        "Stephan ist Developer",
+                        "Steffi ist Designer",
+                        "Franz ist Developer"
+                )
+        );
+    }
+
+    @Test
+    public void selectCountWithGroupBy() throws Exception {
+        assertThat(scenarios.selectCountWithGroupBy(),
+                containsInAnyOrder(
+                        "Admin mit 1 User(n)",
+                        "Developer mit 2 User(n)",
+                        "Designer mit 1 User(n)"
+                )
+        );
+    }
+
+    @Test
+    public void selectCountWithGroupByHaving() throws Exception {
+        assertThat(scenarios.selectCountWithGroupByHaving(1), contains("Developer mit 2 User(n)"));
+        assertThat(scenarios.selectCountWithGroupByHaving(2), empty());
+    }
+
+    @Test
+    public void selectAllOrderedBy() throws Exception {
+        assertThat(scenarios.selectAllOrderedBy(),
+                contains(
+                        new Role(2, "Developer"),
+                        new Role(3, "Designer"),
+                        new Role(1, "Admin")
+                )
+        );
+        assertThat(shards.stream().mapToInt(s -> s.calls).sum(), equalTo(1));
+    }
+
+    @Test
+    public void insertAndDelete() throws Exception {
+        assertThat(scenarios.insert(new User(5, "Gustav", "gustav@web.de")), equalTo(1));
+        assertThat(scenarios.insertRoles(5, 1, 3), equalTo(new int[]{1, 1}));
+        assertThat(shards.get(scenarios.shard(5)).roles.get(5), contains(1, 3));
+
+        assertThat(scenarios.deleteRoles(5, 1, 3), equalTo(new int[]{1, 1}));
+        assertThat(scenarios.delete(5), equalTo(1));
+        assertThat(scenarios.selectWhereEquals(5), empty());
+    }
+
+    /**
+     * A shard's users and their role assignments in memory, the roles of db/init.sql.
+     */
+    private class InMemoryScenarios extends UnsupportedScenarios {
+
+        private final Map<Integer, User> users = new ConcurrentHashMap<>();
+        private final Map<Integer, List<Integer>> roles = new ConcurrentHashMap<>();
+        private volatile int calls;
+
+        private String roleName(int roleId) {
+            return ROLES.stream().filter(r -> r.id == roleId).findFirst().get().name;
+        }
+
+        @Override
+        public List<Role> selectAllOrderedBy() {
+            calls++;
+            return ROLES.stream().sorted((a, b) -> b.name.compareTo(a.name)).collect(Collectors.toList());
+        }
+
+        @Override
+        public List<User> selectWhereEquals(int id) {
+            calls++;
+            User user = users.get(id);
+            return user == null ? Collections.emptyList() : Collections.singletonList(user);
+        }
+
+        @Override
+        public List<String> selectWithExplicitJoin() {
+            return users.values().stream()
+                    .flatMap(u -> roles.getOrDefault(u.id, Collections.emptyList()).stream().map(r -> u.name + " ist " + roleName(r)))
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public int insert(User user) {
+            users.put(user.id, user);
+            return 1;
+        }
+
+        @Override
+        public int delete(int id) {
+            return users.remove(id) == null ? 0 : 1;
+        }
+
+        @Override
+        public int[] insertRoles(int userId, int... roleIds) {
+            for (int roleId : roleIds)
+                roles.computeIfAbsent(userId, id -> new ArrayList<>()).add(roleId);
+            return IntStream.of(roleIds).map(r -> 1).toArray();
+        }
+
+        @Override
+        public int[] deleteRoles(int userId, int... roleIds) {
+            List<Integer> assigned = roles.getOrDefault(userId, new ArrayList<>());
+            return IntStream.of(roleIds).map(r -> assigned.remove(Integer.valueOf(r)) ? 1 : 0).toArray();
+        }
+
+        @Override
+        public int insert(List<User> users) {
+            users.forEach(this::insert);
+            return users.size();
+        }
+
+        @Override
+        public int insertRoles(int[] userIds, int[] roleIds) {
+            for (int i = 0; i < userIds.length; i++)
+                insertRoles(userIds[i], roleIds[i]);
+            return userIds.length;
+        }
+
+        @Override
+        public List<User> selectAll(Partition partition) {
+            return users.values().stream().filter(u -> u.id >= partition.from && u.id <= partition.to).collect(Collectors.toList());
+        }
+
+        @Override
+        public List<User> selectAllOrderedBy(Partition partition) {
+            return selectAll(partition).stream().sorted((a, b) -> b.name.compareTo(a.name)).collect(Collectors.toList());
+        }
+
+        @Override
+        public Map<String, Long> selectCountWithGroupBy(Partition partition) {
+            return selectAll(partition).stream()
+                    .flatMap(u -> roles.getOrDefault(u.id, Collections.emptyList()).stream().map(this::roleName))
+                    .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        }
+    }
+}
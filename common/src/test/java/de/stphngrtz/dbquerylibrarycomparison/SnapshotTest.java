@@ -0,0 +1,146 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+public class SnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private InMemorySource source;
+    private Path path;
+
+    @Before
+    public void setUp() throws Exception {
+        source = new InMemorySource();
+        source.link(1, 1);
+        source.link(1, 2);
+        source.link(2, 3);
+        source.link(4, 2);
+        source.link(1000, 1);
+        path = folder.getRoot().toPath().resolve("roles.snapshot");
+    }
+
+    @Test
+    public void rolesOf() throws Exception {
+        Snapshot snapshot = Snapshot.refresh(path, source, 100);
+
+        assertThat(snapshot.links(), equalTo(5));
+        assertThat(snapshot.roles(), contains(new Role(1, "Admin"), new Role(2, "Developer"), new Role(3, "Designer")));
+        assertThat(snapshot.role(3), equalTo(new Role(3, "Designer")));
+        assertThat(snapshot.rolesOf(1), equalTo(new int[]{1, 2}));
+        assertThat(snapshot.rolesOf(2), equalTo(new int[]{3}));
+        assertThat(snapshot.rolesOf(3), equalTo(new int[0]));
+        assertThat(snapshot.rolesOf(4), equalTo(new int[]{2}));
+        assertThat(snapshot.rolesOf(1000), equalTo(new int[]{1}));
+        assertThat(snapshot.rolesOf(5000), equalTo(new int[0]));
+    }
+
+    @Test
+    public void mappedAgain() throws Exception {
+        Snapshot.refresh(path, source, 100);
+
+        Snapshot snapshot = Snapshot.map(path);
+        assertThat(snapshot.marker(), equalTo(5L));
+        assertThat(snapshot.rolesOf(1), equalTo(new int[]{1, 2}));
+    }
+
+    @Test
+    public void unchangedMarker() throws Exception {
+        Snapshot.refresh(path, source, 100);
+        source.blocksRead.clear();
+
+        Snapshot.refresh(path, source, 100);
+        assertThat(source.blocksRead.isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void changedBlocksOnly() throws Exception {
+        Snapshot.refresh(path, source, 100);
+        source.blocksRead.clear();
+
+        source.link(2, 1);
+        source.unlink(1000, 1);
+        source.link(1001, 3);
+        source.link(2000, 2);
+        Snapshot snapshot = Snapshot.refresh(path, source, 100);
+
+        assertThat(source.blocksRead, contains(0, 10, 20));
+        assertThat(snapshot.marker(), equalTo(9L));
+        assertThat(snapshot.rolesOf(1), equalTo(new int[]{1, 2}));
+        assertThat(snapshot.rolesOf(2), equalTo(new int[]{1, 3}));
+        assertThat(snapshot.rolesOf(1000), equalTo(new int[0]));
+        assertThat(snapshot.rolesOf(1001), equalTo(new int[]{3}));
+        assertThat(snapshot.rolesOf(2000), equalTo(new int[]{2}));
+    }
+
+    @Test
+    public void otherBlockSize() throws Exception {
+        Snapshot.refresh(path, source, 100);
+
+        Snapshot snapshot = Snapshot.refresh(path, source, 10);
+        assertThat(snapshot.rolesOf(1000), equalTo(new int[]{1}));
+    }
+
+    private static class InMemorySource implements Snapshot.Source {
+
+        private final TreeMap<Integer, TreeSet<Integer>> links = new TreeMap<>();
+        private final List<Integer> blocksRead = new ArrayList<>();
+        private long marker;
+
+        void link(int userId, int roleId) {
+            links.computeIfAbsent(userId, id -> new TreeSet<>()).add(roleId);
+            marker++;
+        }
+
+        void unlink(int userId, int roleId) {
+            links.get(userId).remove(roleId);
+            if (links.get(userId).isEmpty())
+                links.remove(userId);
+            marker++;
+        }
+
+        @Override
+        public long marker() {
+            return marker;
+        }
+
+        @Override
+        public List<Role> roles() {
+            return Arrays.asList(new Role(1, "Admin"), new Role(2, "Developer"), new Role(3, "Designer"));
+        }
+
+        @Override
+        public List<Snapshot.Block> blocks(int blockSize) {
+            TreeMap<Integer, long[]> blocks = new TreeMap<>();
+            links.forEach((userId, roleIds) -> roleIds.forEach(roleId -> {
+                long[] block = blocks.computeIfAbsent(userId / blockSize, b -> new long[2]);
+                block[0]++;
+                block[1] = Snapshot.checksum(block[1], userId, roleId);
+            }));
+            List<Snapshot.Block> result = new ArrayList<>();
+            blocks.forEach((block, values) -> result.add(new Snapshot.Block(block, (int) values[0], values[1])));
+            return result;
+        }
+
+        @Override
+        public void links(Partition users, Snapshot.Links links) {
+            blocksRead.add(users.from / 100);
+            this.links.subMap(users.from, true, users.to, true).forEach((userId, roleIds) -> roleIds.forEach(roleId -> links.accept(userId, roleId)));
+        }
+    }
+}
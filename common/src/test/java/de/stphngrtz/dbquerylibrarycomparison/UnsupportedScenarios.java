@@ -0,0 +1,116 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A fake to start from, every scenario throws an {@link UnsupportedOperationException} until it's overridden.
+ */
+abstract class UnsupportedScenarios implements Scenarios {
+
+    @Override
+    public List<Role> selectAllOrderedBy() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<User> selectWhereEquals(int id) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<String> selectCountWithGroupBy() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<String> selectCountWithGroupByHaving(int count) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<String> selectWithExplicitJoin() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<String> selectWithExplicitLeftOuterJoin() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<String> selectWithExplicitJoin(HashJoin<Role> roles) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<String> selectWithExplicitLeftOuterJoin(HashJoin<Role> roles) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void selectWithExplicitLeftOuterJoin(ChannelExport export) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int insert(User user) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int delete(int id) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int[] insertRoles(int userId, int... roleIds) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int[] deleteRoles(int userId, int... roleIds) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int insert(List<User> users) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int insertRoles(int[] userIds, int[] roleIds) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<List<Role>> selectAllOrderedBy(QueryBatch batch) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<List<User>> selectWhereEquals(QueryBatch batch, int id) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<List<String>> selectCountWithGroupBy(QueryBatch batch) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<User> selectAll(Partition partition) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<User> selectAllOrderedBy(Partition partition) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Map<String, Long> selectCountWithGroupBy(Partition partition) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,167 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.fail;
+
+public class WriteBehindBufferTest {
+
+    private final RecordingUserWrites writes = new RecordingUserWrites();
+
+    @Test
+    public void coalesced() throws Exception {
+        try (WriteBehindBuffer buffer = new WriteBehindBuffer(writes, 100, 1, TimeUnit.MINUTES)) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            futures.add(buffer.update(new User(1, "Stephan", "a@web.de")));
+            futures.add(buffer.update(new User(1, "Stephan", "b@web.de")));
+            futures.add(buffer.insert(new User(5, "Gustav", "a@web.de")));
+            futures.add(buffer.update(new User(5, "Gustav", "b@web.de")));
+            futures.add(buffer.update(new User(3, "Willi", "a@web.de")));
+            futures.add(buffer.delete(3));
+            buffer.flush().get(1, TimeUnit.SECONDS);
+
+            assertThat(writes.groups, contains("delete [3], insert [5:b@web.de], update [1:b@web.de]"));
+            assertThat(buffer.coalesced(), equalTo(3L));
+            for (CompletableFuture<Void> future : futures)
+                assertThat(future.isDone() && !future.isCompletedExceptionally(), equalTo(true));
+        }
+    }
+
+    @Test
+    public void notCoalesced() throws Exception {
+        try (WriteBehindBuffer buffer = new WriteBehindBuffer(writes, 100, 1, TimeUnit.MINUTES)) {
+            buffer.delete(1);
+            buffer.update(new User(2, "Steffi", "a@web.de"));
+            buffer.insert(new User(1, "Stephan", "a@web.de"));
+            buffer.flush().get(1, TimeUnit.SECONDS);
+
+            assertThat(writes.groups, contains(
+                    "delete [1], insert [], update [2:a@web.de]",
+                    "delete [], insert [1:a@web.de], update []"
+            ));
+        }
+    }
+
+    @Test
+    public void writtenAtMaxBatch() throws Exception {
+        try (WriteBehindBuffer buffer = new WriteBehindBuffer(writes, 3, 1, TimeUnit.MINUTES)) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            IntStream.rangeClosed(1, 3).forEach(id -> futures.add(buffer.update(new User(id, "User", "a@web.de"))));
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(1, TimeUnit.SECONDS);
+            assertThat(buffer.groups(), equalTo(1L));
+        }
+    }
+
+    @Test
+    public void writtenAfterMaxDelay() throws Exception {
+        try (WriteBehindBuffer buffer = new WriteBehindBuffer(writes, 100, 50, TimeUnit.MILLISECONDS)) {
+            CompletableFuture<Void> future = buffer.update(new User(1, "Stephan", "a@web.de"));
+            Thread.sleep(10);
+            assertThat(future.isDone(), equalTo(false));
+            future.get(1, TimeUnit.SECONDS);
+            assertThat(buffer.groups(), equalTo(1L));
+        }
+    }
+
+    /**
+     * Until then, the writes would be lost with the process, their futures tell.
+     */
+    @Test
+    public void notWrittenBeforeAThreshold() throws Exception {
+        try (WriteBehindBuffer buffer = new WriteBehindBuffer(writes, 100, 1, TimeUnit.MINUTES)) {
+            CompletableFuture<Void> future = buffer.update(new User(1, "Stephan", "a@web.de"));
+            Thread.sleep(50);
+            assertThat(future.isDone(), equalTo(false));
+            assertThat(writes.groups, empty());
+        }
+        assertThat(writes.groups, contains("delete [], insert [], update [1:a@web.de]"));
+    }
+
+    @Test
+    public void failedGroup() throws Exception {
+        try (WriteBehindBuffer buffer = new WriteBehindBuffer(writes, 100, 1, TimeUnit.MINUTES)) {
+            writes.failing = true;
+            CompletableFuture<Void> first = buffer.update(new User(1, "Stephan", "a@web.de"));
+            CompletableFuture<Void> second = buffer.delete(2);
+            buffer.flush().get(1, TimeUnit.SECONDS);
+            for (CompletableFuture<Void> future : Arrays.asList(first, second)) {
+                try {
+                    future.get();
+                    fail("group failed");
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+                }
+            }
+
+            writes.failing = false;
+            CompletableFuture<Void> retried = buffer.update(new User(1, "Stephan", "b@web.de"));
+            buffer.flush();
+            retried.get(1, TimeUnit.SECONDS);
+            assertThat(buffer.groups(), equalTo(1L));
+        }
+    }
+
+    @Test
+    public void groupFailedWithAnError() throws Exception {
+        try (WriteBehindBuffer buffer = new WriteBehindBuffer(writes, 100, 1, TimeUnit.MINUTES)) {
+            writes.error = new OutOfMemoryError("Java heap space");
+            CompletableFuture<Void> future = buffer.update(new User(1, "Stephan", "a@web.de"));
+            buffer.flush().get(1, TimeUnit.SECONDS);
+            try {
+                future.get(1, TimeUnit.SECONDS);
+                fail("group failed");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(OutOfMemoryError.class));
+            }
+        }
+    }
+
+    @Test
+    public void flushAfterClose() throws Exception {
+        WriteBehindBuffer buffer = new WriteBehindBuffer(writes, 100, 1, TimeUnit.MINUTES);
+        buffer.close();
+        CompletableFuture<Void> flushed = buffer.flush();
+        assertThat(flushed.isCompletedExceptionally(), equalTo(true));
+        assertThat(flushed.handle((nothing, e) -> e).get(), instanceOf(IllegalStateException.class));
+    }
+
+    private static class RecordingUserWrites implements UserWrites {
+
+        private final List<String> groups = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean failing;
+        private volatile Error error;
+
+        @Override
+        public void update(User user) {
+            write(new int[0], Collections.emptyList(), Collections.singletonList(user));
+        }
+
+        @Override
+        public void write(int[] deletes, List<User> inserts, List<User> updates) {
+            if (failing)
+                throw new IllegalStateException("rolled back");
+            if (error != null)
+                throw error;
+            groups.add("delete " + Arrays.toString(deletes) + ", insert " + users(inserts) + ", update " + users(updates));
+        }
+
+        private static String users(List<User> users) {
+            return users.stream().map(u -> u.id + ":" + u.email).collect(Collectors.toList()).toString();
+        }
+    }
+}
@@ -2,6 +2,7 @@ create table "users" (
   "id" integer not null,
   "name" character varying(50) not null,
   "email" character varying(50) not null,
+  "version" integer not null default 0,
   constraint "users_pk" primary key ("id")
 );
 
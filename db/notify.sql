@@ -0,0 +1,28 @@
+-- Optional: notifies the keys of changed rows on channel "changes", as "<table>:<key>", for caches to invalidate
+-- (see ChangeListener). Notifications are sent on commit, identical ones of a transaction only once. TRUNCATE isn't
+-- covered.
+--
+-- Not part of the image, ChangeTriggers installs and drops it. PostgreSQL before 13 looks for identical notifications
+-- in a list, a transaction with n of them takes O(n^2): bulk loads better run without the triggers.
+
+create or replace function "notify_change"() returns trigger as $$
+begin
+  if TG_OP in ('UPDATE', 'DELETE') then
+    perform pg_notify('changes', TG_TABLE_NAME || ':' || (to_json(OLD) ->> TG_ARGV[0]));
+  end if;
+  if TG_OP in ('INSERT', 'UPDATE') then
+    perform pg_notify('changes', TG_TABLE_NAME || ':' || (to_json(NEW) ->> TG_ARGV[0]));
+  end if;
+  return null;
+end;
+$$ language plpgsql;
+
+create trigger "users_notify_change" after insert or update or delete on "users"
+  for each row execute procedure "notify_change"('id');
+
+create trigger "roles_notify_change" after insert or update or delete on "roles"
+  for each row execute procedure "notify_change"('id');
+
+-- a change of the join table is one of the user's roles
+create trigger "users_with_roles_notify_change" after insert or update or delete on "users_with_roles"
+  for each row execute procedure "notify_change"('user_id');
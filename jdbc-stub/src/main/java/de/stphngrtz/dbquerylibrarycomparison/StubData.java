@@ -0,0 +1,42 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pre-generated rows in the shape of the tables of db/init.sql.
+ */
+public class StubData {
+
+    public static StubResult roles(int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++)
+            rows.add(new Object[]{i, "Role " + i});
+        return new StubResult(Arrays.asList("id", "name"), rows);
+    }
+
+    public static StubResult users(int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++)
+            rows.add(new Object[]{i, "User " + i, "user" + i + "@example.com", 0});
+        return new StubResult(Arrays.asList("id", "name", "email", "version"), rows);
+    }
+
+    public static StubResult usersWithRoles(int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++)
+            rows.add(new Object[]{i, i % 3 + 1});
+        return new StubResult(Arrays.asList("user_id", "role_id"), rows);
+    }
+
+    /**
+     * Rows of {@code SELECT r.name, count(z.*) FROM roles r JOIN users_with_roles z ... GROUP BY r.name}
+     */
+    public static StubResult roleCounts(int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++)
+            rows.add(new Object[]{"Role " + i, (long) i});
+        return new StubResult(Arrays.asList("name", "count"), rows);
+    }
+}
@@ -0,0 +1,85 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * A DataSource without a database. Every query gets the canned rows its SQL is mapped to, at next to no cost, so
+ * whatever time is spent is spent in the library: building the query, rendering the SQL, binding parameters and
+ * mapping rows. Updates change nothing.
+ * <p>
+ * Connections are neither pooled nor limited, opening one is as cheap as borrowing it from a pool.
+ */
+public class StubDataSource implements DataSource {
+
+    private final Function<String, StubResult> results;
+    private final ConcurrentMap<String, StubQuery> queries = new ConcurrentHashMap<>();
+
+    /**
+     * @param results canned rows per SQL, asked once per distinct SQL
+     */
+    public StubDataSource(Function<String, StubResult> results) {
+        this.results = results;
+    }
+
+    StubQuery query(String sql) {
+        StubQuery query = queries.get(sql);
+        if (query == null) {
+            query = StubQuery.of(sql, results.apply(sql));
+            queries.putIfAbsent(sql, query);
+        }
+        return query;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return new StubConnection(this);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this))
+            return iface.cast(this);
+        throw new SQLException("not a wrapper for " + iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this);
+    }
+}
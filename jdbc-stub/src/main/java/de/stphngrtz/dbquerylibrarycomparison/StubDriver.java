@@ -0,0 +1,83 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Opens connections of registered {@link StubDataSource}s, for libraries which want a JDBC URL rather than a
+ * DataSource: {@code jdbc:stub:<name>}.
+ */
+public class StubDriver implements Driver {
+
+    private static final String PREFIX = "jdbc:stub:";
+    private static final Map<String, StubDataSource> dataSources = new ConcurrentHashMap<>();
+
+    static {
+        try {
+            DriverManager.registerDriver(new StubDriver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * @return the JDBC URL of the DataSource
+     */
+    public static String register(String name, StubDataSource dataSource) {
+        dataSources.put(name, dataSource);
+        return PREFIX + name;
+    }
+
+    public static void unregister(String name) {
+        dataSources.remove(name);
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url))
+            return null;
+
+        StubDataSource dataSource = dataSources.get(url.substring(PREFIX.length()));
+        if (dataSource == null)
+            throw new SQLException("No StubDataSource registered for " + url);
+        return dataSource.getConnection();
+    }
+
+    @Override
+    public boolean acceptsURL(String url) throws SQLException {
+        return url != null && url.startsWith(PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
@@ -0,0 +1,120 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The columns of a query's result set, taken from the select list of its SQL and matched to the columns of its
+ * {@link StubResult} by name. Select items which aren't a plain column (e.g. {@code count(*)}) are matched by
+ * position, {@code *} means all columns.
+ */
+class StubQuery {
+
+    private static final Pattern ALIAS = Pattern.compile("(?is)(.*?)\\s+as\\s+\"?(\\w+)\"?");
+    private static final Pattern COLUMN = Pattern.compile("(?s)(?:\"?\\w+\"?\\.)*\"?(\\w+)\"?");
+
+    final StubResult result;
+    final int[] columns;
+    final String[] labels;
+    final int[] types;
+
+    private StubQuery(StubResult result, int[] columns, String[] labels) {
+        this.result = result;
+        this.columns = columns;
+        this.labels = labels;
+        this.types = new int[columns.length];
+        for (int i = 0; i < columns.length; i++)
+            types[i] = type(result, columns[i]);
+    }
+
+    static StubQuery of(String sql, StubResult result) {
+        List<String> items = selectList(sql);
+        if (items.isEmpty() || items.size() == 1 && items.get(0).endsWith("*")) {
+            int[] columns = new int[result.getColumns().size()];
+            for (int i = 0; i < columns.length; i++)
+                columns[i] = i;
+            return new StubQuery(result, columns, result.getColumns().toArray(new String[columns.length]));
+        }
+
+        int[] columns = new int[items.size()];
+        String[] labels = new String[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            String expression = items.get(i);
+            String alias = null;
+            Matcher aliasMatcher = ALIAS.matcher(expression);
+            if (aliasMatcher.matches()) {
+                expression = aliasMatcher.group(1).trim();
+                alias = aliasMatcher.group(2);
+            }
+
+            Matcher columnMatcher = COLUMN.matcher(expression);
+            String column = columnMatcher.matches() ? columnMatcher.group(1) : null;
+            int index = column != null ? indexOf(result, column) : -1;
+
+            columns[i] = index >= 0 ? index : Math.min(i, result.getColumns().size() - 1);
+            labels[i] = alias != null ? alias : column != null ? column : result.getColumns().get(columns[i]);
+        }
+        return new StubQuery(result, columns, labels);
+    }
+
+    /**
+     * @return the items between the first SELECT and its FROM, split at top level commas
+     */
+    private static List<String> selectList(String sql) {
+        List<String> items = new ArrayList<>();
+        String lower = sql.toLowerCase();
+        int start = lower.indexOf("select");
+        if (start < 0)
+            return items;
+        start += "select".length();
+        if (lower.startsWith(" distinct", start))
+            start += " distinct".length();
+
+        int depth = 0;
+        boolean quoted = false;
+        int itemStart = start;
+        for (int i = start; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'')
+                quoted = !quoted;
+            if (quoted)
+                continue;
+            if (c == '(')
+                depth++;
+            else if (c == ')')
+                depth--;
+            else if (depth == 0 && c == ',') {
+                items.add(sql.substring(itemStart, i).trim());
+                itemStart = i + 1;
+            } else if (depth == 0 && Character.isWhitespace(c) && lower.startsWith("from", i + 1) && (i + 5 >= sql.length() || !Character.isLetterOrDigit(sql.charAt(i + 5)))) {
+                items.add(sql.substring(itemStart, i).trim());
+                return items;
+            }
+        }
+        items.add(sql.substring(itemStart).trim());
+        return items;
+    }
+
+    private static int indexOf(StubResult result, String column) {
+        for (int i = 0; i < result.getColumns().size(); i++)
+            if (result.getColumns().get(i).equalsIgnoreCase(column))
+                return i;
+        return -1;
+    }
+
+    private static int type(StubResult result, int column) {
+        for (Object[] row : result.getRows()) {
+            Object value = row[column];
+            if (value instanceof Integer)
+                return Types.INTEGER;
+            if (value instanceof Long)
+                return Types.BIGINT;
+            if (value != null)
+                return Types.VARCHAR;
+        }
+        return Types.VARCHAR;
+    }
+}
@@ -0,0 +1,26 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Canned rows of a query and the names of their columns, see {@link StubDataSource}.
+ */
+public class StubResult {
+
+    private final List<String> columns;
+    private final List<Object[]> rows;
+
+    public StubResult(List<String> columns, List<Object[]> rows) {
+        this.columns = Collections.unmodifiableList(columns);
+        this.rows = Collections.unmodifiableList(rows);
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public List<Object[]> getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,146 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+class StubResultSetMetaData implements ResultSetMetaData {
+
+    private final StubQuery query;
+
+    StubResultSetMetaData(StubQuery query) {
+        this.query = query;
+    }
+
+    @Override
+    public int getColumnCount() throws SQLException {
+        return query.columns.length;
+    }
+
+    @Override
+    public String getColumnLabel(int column) throws SQLException {
+        return query.labels[column - 1];
+    }
+
+    @Override
+    public String getColumnName(int column) throws SQLException {
+        return query.labels[column - 1];
+    }
+
+    @Override
+    public int getColumnType(int column) throws SQLException {
+        return query.types[column - 1];
+    }
+
+    @Override
+    public String getColumnTypeName(int column) throws SQLException {
+        switch (getColumnType(column)) {
+            case Types.INTEGER:
+                return "int4";
+            case Types.BIGINT:
+                return "int8";
+            default:
+                return "varchar";
+        }
+    }
+
+    @Override
+    public String getColumnClassName(int column) throws SQLException {
+        switch (getColumnType(column)) {
+            case Types.INTEGER:
+                return Integer.class.getName();
+            case Types.BIGINT:
+                return Long.class.getName();
+            default:
+                return String.class.getName();
+        }
+    }
+
+    @Override
+    public int getColumnDisplaySize(int column) throws SQLException {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int getPrecision(int column) throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public int getScale(int column) throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public String getTableName(int column) throws SQLException {
+        return "";
+    }
+
+    @Override
+    public String getSchemaName(int column) throws SQLException {
+        return "";
+    }
+
+    @Override
+    public String getCatalogName(int column) throws SQLException {
+        return "";
+    }
+
+    @Override
+    public boolean isAutoIncrement(int column) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean isCaseSensitive(int column) throws SQLException {
+        return getColumnType(column) == Types.VARCHAR;
+    }
+
+    @Override
+    public boolean isSearchable(int column) throws SQLException {
+        return true;
+    }
+
+    @Override
+    public boolean isCurrency(int column) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public int isNullable(int column) throws SQLException {
+        return columnNullableUnknown;
+    }
+
+    @Override
+    public boolean isSigned(int column) throws SQLException {
+        return getColumnType(column) != Types.VARCHAR;
+    }
+
+    @Override
+    public boolean isReadOnly(int column) throws SQLException {
+        return true;
+    }
+
+    @Override
+    public boolean isWritable(int column) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean isDefinitelyWritable(int column) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this))
+            return iface.cast(this);
+        throw new SQLException("not a wrapper for " + iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this);
+    }
+
+}
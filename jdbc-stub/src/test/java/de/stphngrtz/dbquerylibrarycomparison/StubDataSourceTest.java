@@ -0,0 +1,93 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+public class StubDataSourceTest {
+
+    @Test
+    public void selectAll() throws Exception {
+        StubDataSource dataSource = new StubDataSource(sql -> StubData.roles(2));
+        try (Connection c = dataSource.getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT * FROM roles r ORDER BY r.name DESC");
+             ResultSet rs = ps.executeQuery()) {
+
+            assertThat(labels(rs.getMetaData()), contains("id", "name"));
+            assertThat(rows(rs), contains("1 Role 1", "2 Role 2"));
+        }
+    }
+
+    @Test
+    public void selectColumnsByName() throws Exception {
+        StubDataSource dataSource = new StubDataSource(sql -> StubData.users(1));
+        try (Connection c = dataSource.getConnection();
+             PreparedStatement ps = c.prepareStatement("select userjpa0_.id as id1_1_, userjpa0_.email as email2_1_, userjpa0_.name as name3_1_ from users userjpa0_ where userjpa0_.id=?")) {
+            ps.setInt(1, 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertThat(labels(rs.getMetaData()), contains("id1_1_", "email2_1_", "name3_1_"));
+                assertThat(rs.next(), equalTo(true));
+                assertThat(rs.getInt("id1_1_"), equalTo(1));
+                assertThat(rs.getString("email2_1_"), equalTo("user1@example.com"));
+                assertThat(rs.getString(3), equalTo("User 1"));
+                assertThat(rs.next(), equalTo(false));
+            }
+        }
+    }
+
+    @Test
+    public void selectExpressionsByPosition() throws Exception {
+        StubDataSource dataSource = new StubDataSource(sql -> StubData.roleCounts(2));
+        try (Connection c = dataSource.getConnection();
+             PreparedStatement ps = c.prepareStatement("select \"public\".\"roles\".\"name\", count(*) from \"public\".\"roles\" join \"public\".\"users_with_roles\" on \"public\".\"users_with_roles\".\"role_id\" = \"public\".\"roles\".\"id\" group by \"public\".\"roles\".\"name\"");
+             ResultSet rs = ps.executeQuery()) {
+
+            assertThat(labels(rs.getMetaData()), contains("name", "count"));
+            assertThat(rows(rs), contains("Role 1 1", "Role 2 2"));
+        }
+    }
+
+    @Test
+    public void driver() throws Exception {
+        String url = StubDriver.register("test", new StubDataSource(sql -> StubData.usersWithRoles(1)));
+        try (Connection c = DriverManager.getConnection(url);
+             ResultSet rs = c.createStatement().executeQuery("SELECT user_id, role_id FROM users_with_roles")) {
+
+            assertThat(rows(rs), contains("1 2"));
+        } finally {
+            StubDriver.unregister("test");
+        }
+    }
+
+    @Test(expected = SQLException.class)
+    public void closedConnection() throws Exception {
+        Connection c = new StubDataSource(sql -> StubData.roles(1)).getConnection();
+        c.close();
+        c.prepareStatement("SELECT * FROM roles");
+    }
+
+    private static List<String> labels(ResultSetMetaData metaData) throws SQLException {
+        List<String> labels = new ArrayList<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++)
+            labels.add(metaData.getColumnLabel(i));
+        return labels;
+    }
+
+    private static List<String> rows(ResultSet rs) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        while (rs.next())
+            rows.add(rs.getString(1) + " " + rs.getString(2));
+        return rows;
+    }
+}
@@ -0,0 +1,87 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.jooq.Configuration;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+
+import static de.stphngrtz.dbquerylibrarycomparison.tables.Users.USERS;
+import static de.stphngrtz.dbquerylibrarycomparison.tables.UsersWithRoles.USERS_WITH_ROLES;
+
+public class JooqContentionScenarios implements ContentionScenarios {
+
+    private final Configuration configuration;
+
+    public JooqContentionScenarios(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public void updatePessimistic(int userId, String name, int roleId) {
+        DSL.using(configuration).transaction(transaction -> {
+            DSLContext dsl = DSL.using(transaction);
+            dsl.select(USERS.ID)
+                    .from(USERS)
+                    .where(USERS.ID.eq(userId))
+                    .forUpdate()
+                    .fetch();
+            update(dsl, userId, name, roleId);
+        });
+    }
+
+    @Override
+    public boolean updateOptimistic(int userId, String name, int roleId) {
+        return DSL.using(configuration).transactionResult(transaction -> {
+            DSLContext dsl = DSL.using(transaction);
+            Integer version = dsl.select(USERS.VERSION)
+                    .from(USERS)
+                    .where(USERS.ID.eq(userId))
+                    .fetchOne(USERS.VERSION);
+            if (dsl.update(USERS)
+                    .set(USERS.NAME, name)
+                    .set(USERS.VERSION, USERS.VERSION.add(1))
+                    .where(USERS.ID.eq(userId), USERS.VERSION.eq(version))
+                    .execute() == 0)
+                return false;
+            toggleRole(dsl, userId, roleId);
+            return true;
+        });
+    }
+
+    @Override
+    public int updateSkipLocked(int fromUserId, int toUserId, String name, int roleId) {
+        return DSL.using(configuration).transactionResult(transaction -> {
+            DSLContext dsl = DSL.using(transaction);
+            Integer userId = dsl.select(USERS.ID)
+                    .from(USERS)
+                    .where(USERS.ID.between(fromUserId, toUserId))
+                    .orderBy(USERS.ID)
+                    .limit(1)
+                    .forUpdate()
+                    .skipLocked()
+                    .fetchOne(USERS.ID);
+            if (userId == null)
+                return -1;
+            update(dsl, userId, name, roleId);
+            return userId;
+        });
+    }
+
+    private static void update(DSLContext dsl, int userId, String name, int roleId) {
+        dsl.update(USERS)
+                .set(USERS.NAME, name)
+                .set(USERS.VERSION, USERS.VERSION.add(1))
+                .where(USERS.ID.eq(userId))
+                .execute();
+        toggleRole(dsl, userId, roleId);
+    }
+
+    private static void toggleRole(DSLContext dsl, int userId, int roleId) {
+        if (dsl.delete(USERS_WITH_ROLES)
+                .where(USERS_WITH_ROLES.USER_ID.eq(userId), USERS_WITH_ROLES.ROLE_ID.eq(roleId))
+                .execute() == 0)
+            dsl.insertInto(USERS_WITH_ROLES)
+                    .columns(USERS_WITH_ROLES.USER_ID, USERS_WITH_ROLES.ROLE_ID)
+                    .values(userId, roleId)
+                    .execute();
+    }
+}
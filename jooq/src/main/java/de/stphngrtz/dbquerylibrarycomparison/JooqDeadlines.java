@@ -0,0 +1,38 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.jooq.ExecuteContext;
+import org.jooq.impl.DefaultExecuteListener;
+
+/**
+ * Cancels jOOQ's statements at the current {@link Deadline}, as far as they're executed by then. Stateless, one
+ * instance serves all threads, e.g. via
+ * {@code configuration.set(new DefaultExecuteListenerProvider(new JooqDeadlines()))}.
+ * <p>
+ * jOOQ's own {@code queryTimeout} is a {@link java.sql.Statement#setQueryTimeout(int)}, in whole seconds, and it's
+ * fixed per query, not per call.
+ */
+public class JooqDeadlines extends DefaultExecuteListener {
+
+    private static final String CANCELLATION = JooqDeadlines.class.getName();
+
+    @Override
+    public void executeStart(ExecuteContext ctx) {
+        ctx.data(CANCELLATION, Deadline.cancelAt(ctx.statement()));
+    }
+
+    @Override
+    public void executeEnd(ExecuteContext ctx) {
+        done(ctx);
+    }
+
+    @Override
+    public void exception(ExecuteContext ctx) {
+        done(ctx);
+    }
+
+    private static void done(ExecuteContext ctx) {
+        Deadline.Cancellation cancellation = (Deadline.Cancellation) ctx.data(CANCELLATION);
+        if (cancellation != null)
+            cancellation.close();
+    }
+}
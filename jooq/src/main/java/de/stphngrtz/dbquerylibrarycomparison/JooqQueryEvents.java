@@ -0,0 +1,62 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.jooq.ExecuteContext;
+import org.jooq.impl.DefaultExecuteListener;
+
+import java.util.stream.IntStream;
+
+/**
+ * Reports the phases of jOOQ's queries as {@link QueryEvent}s: render, execute, fetch (into records, counting them)
+ * and, within a scenario, map. Stateless, one instance serves all threads, e.g. via
+ * {@code configuration.set(new DefaultExecuteListenerProvider(new JooqQueryEvents()))}.
+ */
+public class JooqQueryEvents extends DefaultExecuteListener {
+
+    private static final String LIBRARY = "jOOQ";
+
+    @Override
+    public void renderStart(ExecuteContext ctx) {
+        QueryEvents.begin(LIBRARY, QueryEvents.Phase.RENDER);
+    }
+
+    @Override
+    public void renderEnd(ExecuteContext ctx) {
+        QueryEvents.sql(ctx.sql());
+    }
+
+    @Override
+    public void executeStart(ExecuteContext ctx) {
+        QueryEvents.begin(LIBRARY, QueryEvents.Phase.EXECUTE);
+    }
+
+    /**
+     * A query with a result is fetched next, DML is done. A batch has a row count per query.
+     */
+    @Override
+    public void executeEnd(ExecuteContext ctx) {
+        if (ctx.resultSet() != null)
+            return;
+        QueryEvents.rows(ctx.batchRows().length > 1 ? IntStream.of(ctx.batchRows()).filter(r -> r > 0).sum() : Math.max(ctx.rows(), 0));
+        QueryEvents.end();
+    }
+
+    @Override
+    public void fetchStart(ExecuteContext ctx) {
+        QueryEvents.begin(LIBRARY, QueryEvents.Phase.FETCH);
+    }
+
+    @Override
+    public void recordEnd(ExecuteContext ctx) {
+        QueryEvents.rows(1);
+    }
+
+    @Override
+    public void fetchEnd(ExecuteContext ctx) {
+        QueryEvents.end();
+    }
+
+    @Override
+    public void exception(ExecuteContext ctx) {
+        QueryEvents.end();
+    }
+}
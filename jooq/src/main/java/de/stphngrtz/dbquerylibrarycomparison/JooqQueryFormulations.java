@@ -0,0 +1,132 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.jooq.CommonTableExpression;
+import org.jooq.Configuration;
+import org.jooq.Field;
+import org.jooq.Record1;
+import org.jooq.Record2;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+
+import java.util.List;
+
+import static de.stphngrtz.dbquerylibrarycomparison.tables.Roles.ROLES;
+import static de.stphngrtz.dbquerylibrarycomparison.tables.Users.USERS;
+import static de.stphngrtz.dbquerylibrarycomparison.tables.UsersWithRoles.USERS_WITH_ROLES;
+
+public class JooqQueryFormulations implements QueryFormulations {
+
+    private final Configuration configuration;
+
+    public JooqQueryFormulations(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public List<String> selectWithSubselectInSelectBlock(Formulation formulation) {
+        switch (formulation) {
+            case CORRELATED_SUBQUERY:
+                return DSL.using(configuration)
+                        .select(USERS.NAME, DSL.select(DSL.count()).from(USERS_WITH_ROLES).where(USERS_WITH_ROLES.USER_ID.eq(USERS.ID)).asField())
+                        .from(USERS)
+                        .fetch()
+                        .map(t -> t.getValue(USERS.NAME) + " (" + t.getValue(1, Integer.class) + ")");
+            case JOIN_GROUP_BY:
+                return DSL.using(configuration)
+                        .select(USERS.NAME, DSL.count(USERS_WITH_ROLES.USER_ID))
+                        .from(USERS)
+                        .leftJoin(USERS_WITH_ROLES).on(USERS_WITH_ROLES.USER_ID.eq(USERS.ID))
+                        .groupBy(USERS.ID, USERS.NAME)
+                        .fetch()
+                        .map(t -> t.getValue(USERS.NAME) + " (" + t.getValue(1, Integer.class) + ")");
+            case LATERAL:
+                Table<Record1<Integer>> roleCount = DSL.lateral(DSL.select(DSL.count().as("count")).from(USERS_WITH_ROLES).where(USERS_WITH_ROLES.USER_ID.eq(USERS.ID))).as("role_count");
+                return DSL.using(configuration)
+                        .select(USERS.NAME, roleCount.field("count"))
+                        .from(USERS)
+                        .crossJoin(roleCount)
+                        .fetch()
+                        .map(t -> t.getValue(USERS.NAME) + " (" + t.getValue(1, Integer.class) + ")");
+            default:
+                throw new UnsupportedOperationException(formulation + " doesn't make sense for this scenario");
+        }
+    }
+
+    @Override
+    public List<String> selectWithSubselectInWhereBlock(Formulation formulation) {
+        switch (formulation) {
+            case IN_SUBQUERY:
+                return DSL.using(configuration)
+                        .select(USERS.NAME)
+                        .from(USERS)
+                        .where(USERS.ID.in(DSL.select(USERS_WITH_ROLES.USER_ID).from(USERS_WITH_ROLES)))
+                        .fetch()
+                        .map(r -> r.getValue(USERS.NAME));
+            case EXISTS:
+                return DSL.using(configuration)
+                        .select(USERS.NAME)
+                        .from(USERS)
+                        .whereExists(DSL.selectOne().from(USERS_WITH_ROLES).where(USERS_WITH_ROLES.USER_ID.eq(USERS.ID)))
+                        .fetch()
+                        .map(r -> r.getValue(USERS.NAME));
+            case JOIN_GROUP_BY:
+                return DSL.using(configuration)
+                        .select(USERS.NAME)
+                        .from(USERS)
+                        .join(USERS_WITH_ROLES).on(USERS_WITH_ROLES.USER_ID.eq(USERS.ID))
+                        .groupBy(USERS.ID, USERS.NAME)
+                        .fetch()
+                        .map(r -> r.getValue(USERS.NAME));
+            case LATERAL:
+                Table<Record1<Integer>> anyRole = DSL.lateral(DSL.selectOne().from(USERS_WITH_ROLES).where(USERS_WITH_ROLES.USER_ID.eq(USERS.ID)).limit(1)).as("any_role");
+                return DSL.using(configuration)
+                        .select(USERS.NAME)
+                        .from(USERS)
+                        .crossJoin(anyRole)
+                        .fetch()
+                        .map(r -> r.getValue(USERS.NAME));
+            default:
+                throw new UnsupportedOperationException(formulation + " doesn't make sense for this scenario");
+        }
+    }
+
+    @Override
+    public List<String> selectFromMoreComplexCommonTable(Formulation formulation) {
+        switch (formulation) {
+            case MATERIALIZED_CTE:
+                CommonTableExpression<Record2<String, String>> common = DSL
+                        .name("common")
+                        .fields("userName", "roleName")
+                        .as(DSL
+                                .select(USERS.NAME.as("userName"), ROLES.NAME.as("roleName"))
+                                .from(USERS)
+                                .leftJoin(USERS_WITH_ROLES).on(USERS_WITH_ROLES.USER_ID.eq(USERS.ID))
+                                .leftJoin(ROLES).on(ROLES.ID.eq(USERS_WITH_ROLES.ROLE_ID))
+                        );
+                return DSL.using(configuration)
+                        .with(common)
+                        .select()
+                        .from(common)
+                        .where(common.field("userName", String.class).startsWith("S"))
+                        .fetch()
+                        .map(t -> t.getValue(common.field("userName", String.class)) + " ist " + t.getValue(common.field("roleName", String.class)));
+            case INLINED_CTE:
+                Table<Record2<String, String>> inlined = DSL
+                        .select(USERS.NAME.as("userName"), ROLES.NAME.as("roleName"))
+                        .from(USERS)
+                        .leftJoin(USERS_WITH_ROLES).on(USERS_WITH_ROLES.USER_ID.eq(USERS.ID))
+                        .leftJoin(ROLES).on(ROLES.ID.eq(USERS_WITH_ROLES.ROLE_ID))
+                        .asTable("common");
+                Field<String> userName = inlined.field("userName", String.class);
+                Field<String> roleName = inlined.field("roleName", String.class);
+                return DSL.using(configuration)
+                        .select(userName, roleName)
+                        .from(inlined)
+                        .where(userName.startsWith("S"))
+                        .fetch()
+                        .map(t -> t.getValue(userName) + " ist " + t.getValue(roleName));
+            default:
+                throw new UnsupportedOperationException(formulation + " doesn't make sense for this scenario");
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.jooq.BatchBindStep;
+import org.jooq.Configuration;
+import org.jooq.Cursor;
+import org.jooq.Record;
+import org.jooq.Record2;
+import org.jooq.Record4;
+import org.jooq.RecordMapper;
+import org.jooq.ResultQuery;
+import org.jooq.SelectHavingStep;
+import org.jooq.impl.DSL;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static de.stphngrtz.dbquerylibrarycomparison.tables.Roles.ROLES;
+import static de.stphngrtz.dbquerylibrarycomparison.tables.Users.USERS;
+import static de.stphngrtz.dbquerylibrarycomparison.tables.UsersWithRoles.USERS_WITH_ROLES;
+
+public class JooqScenarios implements Scenarios {
+
+    private final Configuration configuration;
+
+    public JooqScenarios(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public List<Role> selectAllOrderedBy() {
+        return selectAllOrderedByQuery().fetch().map(JooqScenarios::toRole);
+    }
+
+    @Override
+    public List<User> selectWhereEquals(int id) {
+        return selectWhereEqualsQuery(id).fetch().map(JooqScenarios::toUser);
+    }
+
+    @Override
+    public List<String> selectCountWithGroupBy() {
+        return selectCountWithGroupByQuery().fetch().map(JooqScenarios::toRoleCount);
+    }
+
+    @Override
+    public List<String> selectCountWithGroupByHaving(int count) {
+        return selectCountWithGroupByQuery()
+                .having(DSL.count(USERS_WITH_ROLES).gt(count))
+                .fetch()
+                .map(JooqScenarios::toRoleCount);
+    }
+
+    @Override
+    public List<String> selectWithExplicitJoin() {
+        return DSL.using(configuration)
+                .select(USERS.NAME, ROLES.NAME)
+                .from(USERS)
+                .join(USERS_WITH_ROLES).on(USERS_WITH_ROLES.USER_ID.eq(USERS.ID))
+                .join(ROLES).on(ROLES.ID.eq(USERS_WITH_ROLES.ROLE_ID))
+                .fetch()
+                .map(r -> r.value1() + " ist " + r.value2());
+    }
+
+    @Override
+    public List<String> selectWithExplicitLeftOuterJoin() {
+        return DSL.using(configuration)
+                .select(USERS.NAME, ROLES.NAME)
+                .from(USERS)
+                .leftJoin(USERS_WITH_ROLES).on(USERS_WITH_ROLES.USER_ID.eq(USERS.ID))
+                .leftJoin(ROLES).on(ROLES.ID.eq(USERS_WITH_ROLES.ROLE_ID))
+                .fetch()
+                .map(r -> r.value1() + " ist " + r.value2());
+    }
+
+    @Override
+    public List<String> selectWithExplicitJoin(HashJoin<Role> roles) {
+        List<String> result = new ArrayList<>();
+        try (Cursor<Record2<String, Integer>> cursor = DSL.using(configuration)
+                .select(USERS.NAME, USERS_WITH_ROLES.ROLE_ID)
+                .from(USERS)
+                .join(USERS_WITH_ROLES).on(USERS_WITH_ROLES.USER_ID.eq(USERS.ID))
+                .fetchLazy()) {
+            roles.innerJoin(cursor.iterator(), Record2::value2, (r, role) -> r.value1() + " ist " + role.name, result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public List<String> selectWithExplicitLeftOuterJoin(HashJoin<Role> roles) {
+        List<String> result = new ArrayList<>();
+        try (Cursor<Record2<String, Integer>> cursor = DSL.using(configuration)
+                .select(USERS.NAME, USERS_WITH_ROLES.ROLE_ID)
+                .from(USERS)
+                .leftJoin(USERS_WITH_ROLES).on(USERS_WITH_ROLES.USER_ID.eq(USERS.ID))
+                .fetchLazy()) {
+            roles.leftOuterJoin(cursor.iterator(), r -> r.value2() != null, Record2::value2, (r, role) -> r.value1() + " ist " + (role != null ? role.name : null), result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public void selectWithExplicitLeftOuterJoin(ChannelExport export) {
+        DSL.using(configuration).transaction(transaction -> {
+            try (Cursor<Record4<Integer, String, String, String>> cursor = DSL.using(transaction)
+                    .select(USERS.ID, USERS.NAME, USERS.EMAIL, ROLES.NAME)
+                    .from(USERS)
+                    .leftJoin(USERS_WITH_ROLES).on(USERS_WITH_ROLES.USER_ID.eq(USERS.ID))
+                    .leftJoin(ROLES).on(ROLES.ID.eq(USERS_WITH_ROLES.ROLE_ID))
+                    .orderBy(USERS.ID, USERS_WITH_ROLES.ROLE_ID)
+                    .fetchLazy()) {
+                for (Record4<Integer, String, String, String> r : cursor)
+                    export.row(r.value1(), r.value2(), r.value3(), r.value4());
+            }
+        });
+    }
+
+    @Override
+    public int insert(User user) {
+        return DSL.using(configuration)
+                .insertInto(USERS)
+                .columns(USERS.ID, USERS.NAME, USERS.EMAIL)
+                .values(user.id, user.name, user.email)
+                .execute();
+    }
+
+    @Override
+    public int delete(int id) {
+        return DSL.using(configuration)
+                .delete(USERS)
+                .where(USERS.ID.eq(id))
+                .execute();
+    }
+
+    @Override
+    public int[] insertRoles(int userId, int... roleIds) {
+        if (roleIds.length == 0)
+            return new int[0];
+
+        BatchBindStep batch = DSL.using(configuration)
+                .batch(DSL.using(configuration).insertInto(USERS_WITH_ROLES).columns(USERS_WITH_ROLES.USER_ID, USERS_WITH_ROLES.ROLE_ID).values((Integer) null, null));
+        for (int roleId : roleIds)
+            batch = batch.bind(userId, roleId);
+        return batch.execute();
+    }
+
+    @Override
+    public int[] deleteRoles(int userId, int... roleIds) {
+        if (roleIds.length == 0)
+            return new int[0];
+
+        BatchBindStep batch = DSL.using(configuration)
+                .batch(DSL.using(configuration).delete(USERS_WITH_ROLES).where(USERS_WITH_ROLES.USER_ID.eq((Integer) null), USERS_WITH_ROLES.ROLE_ID.eq((Integer) null)));
+        for (int roleId : roleIds)
+            batch = batch.bind(userId, roleId);
+        return batch.execute();
+    }
+
+    @Override
+    public int insert(List<User> users) {
+        if (users.isEmpty())
+            return 0;
+
+        return DSL.using(configuration).transactionResult(transaction -> {
+            BatchBindStep batch = DSL.using(transaction)
+                    .batch(DSL.using(transaction).insertInto(USERS).columns(USERS.ID, USERS.NAME, USERS.EMAIL).values((Integer) null, null, null));
+            for (User user : users)
+                batch = batch.bind(user.id, user.name, user.email);
+            return IntStream.of(batch.execute()).sum();
+        });
+    }
+
+    @Override
+    public int insertRoles(int[] userIds, int[] roleIds) {
+        if (userIds.length == 0)
+            return 0;
+
+        return DSL.using(configuration).transactionResult(transaction -> {
+            BatchBindStep batch = DSL.using(transaction)
+                    .batch(DSL.using(transaction).insertInto(USERS_WITH_ROLES).columns(USERS_WITH_ROLES.USER_ID, USERS_WITH_ROLES.ROLE_ID).values((Integer) null, null));
+            for (int i = 0; i < userIds.length; i++)
+                batch = batch.bind(userIds[i], roleIds[i]);
+            return IntStream.of(batch.execute()).sum();
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<Role>> selectAllOrderedBy(QueryBatch batch) {
+        return add(batch, selectAllOrderedByQuery(), JooqScenarios::toRole);
+    }
+
+    @Override
+    public CompletableFuture<List<User>> selectWhereEquals(QueryBatch batch, int id) {
+        return add(batch, selectWhereEqualsQuery(id), JooqScenarios::toUser);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> selectCountWithGroupBy(QueryBatch batch) {
+        return add(batch, selectCountWithGroupByQuery(), JooqScenarios::toRoleCount);
+    }
+
+    @Override
+    public List<User> selectAll(Partition partition) {
+        return DSL.using(configuration)
+                .select()
+                .from(USERS)
+                .where(USERS.ID.between(partition.from, partition.to))
+                .fetch()
+                .map(JooqScenarios::toUser);
+    }
+
+    @Override
+    public List<User> selectAllOrderedBy(Partition partition) {
+        return DSL.using(configuration)
+                .select()
+                .from(USERS)
+                .where(USERS.ID.between(partition.from, partition.to))
+                .orderBy(USERS.NAME.desc())
+                .fetch()
+                .map(JooqScenarios::toUser);
+    }
+
+    @Override
+    public Map<String, Long> selectCountWithGroupBy(Partition partition) {
+        return DSL.using(configuration)
+                .select(ROLES.NAME, DSL.count(USERS_WITH_ROLES))
+                .from(ROLES)
+                .join(USERS_WITH_ROLES).on(USERS_WITH_ROLES.ROLE_ID.eq(ROLES.ID))
+                .where(USERS_WITH_ROLES.USER_ID.between(partition.from, partition.to))
+                .groupBy(ROLES.NAME)
+                .fetch()
+                .stream().collect(Collectors.toMap(Record2::value1, r -> r.value2().longValue()));
+    }
+
+    private ResultQuery<Record> selectAllOrderedByQuery() {
+        return DSL.using(configuration)
+                .select()
+                .from(ROLES)
+                .orderBy(ROLES.NAME.desc());
+    }
+
+    private ResultQuery<Record> selectWhereEqualsQuery(int id) {
+        return DSL.using(configuration)
+                .select()
+                .from(USERS)
+                .where(USERS.ID.eq(id));
+    }
+
+    private SelectHavingStep<Record2<String, Integer>> selectCountWithGroupByQuery() {
+        return DSL.using(configuration)
+                .select(ROLES.NAME, DSL.count(USERS_WITH_ROLES))
+                .from(ROLES)
+                .join(USERS_WITH_ROLES).on(USERS_WITH_ROLES.ROLE_ID.eq(ROLES.ID))
+                .groupBy(ROLES.NAME);
+    }
+
+    /**
+     * The query is rendered with its bind values, its result is read back into jOOQ records via
+     * {@link org.jooq.DSLContext#fetch(java.sql.ResultSet)}. Records read that way know their fields by name only.
+     */
+    private <T> CompletableFuture<List<T>> add(QueryBatch batch, ResultQuery<?> query, RecordMapper<Record, T> mapper) {
+        return batch.add(query.getSQL(), query.getBindValues(), rs -> DSL.using(configuration).fetch(rs).map(mapper));
+    }
+
+    private static Role toRole(Record r) {
+        return new Role(r.getValue(ROLES.ID), r.getValue(ROLES.NAME));
+    }
+
+    private static User toUser(Record r) {
+        return new User(r.getValue(USERS.ID), r.getValue(USERS.NAME), r.getValue(USERS.EMAIL));
+    }
+
+    private static String toRoleCount(Record r) {
+        return r.getValue(0, String.class) + " mit " + r.getValue(1, Integer.class) + " User(n)";
+    }
+}
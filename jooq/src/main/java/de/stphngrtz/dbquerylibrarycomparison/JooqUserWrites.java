@@ -0,0 +1,54 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.jooq.BatchBindStep;
+import org.jooq.Configuration;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+
+import java.util.List;
+
+import static de.stphngrtz.dbquerylibrarycomparison.tables.Users.USERS;
+
+public class JooqUserWrites implements UserWrites {
+
+    private final Configuration configuration;
+
+    public JooqUserWrites(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public void update(User user) {
+        DSL.using(configuration)
+                .update(USERS)
+                .set(USERS.NAME, user.name)
+                .set(USERS.EMAIL, user.email)
+                .where(USERS.ID.eq(user.id))
+                .execute();
+    }
+
+    @Override
+    public void write(int[] deletes, List<User> inserts, List<User> updates) {
+        DSL.using(configuration).transaction(transaction -> {
+            DSLContext dsl = DSL.using(transaction);
+            if (deletes.length > 0) {
+                BatchBindStep batch = dsl.batch(dsl.delete(USERS).where(USERS.ID.eq((Integer) null)));
+                for (int id : deletes)
+                    batch = batch.bind(id);
+                batch.execute();
+            }
+            if (!inserts.isEmpty()) {
+                BatchBindStep batch = dsl.batch(dsl.insertInto(USERS).columns(USERS.ID, USERS.NAME, USERS.EMAIL).values((Integer) null, null, null));
+                for (User user : inserts)
+                    batch = batch.bind(user.id, user.name, user.email);
+                batch.execute();
+            }
+            if (!updates.isEmpty()) {
+                BatchBindStep batch = dsl.batch(dsl.update(USERS).set(USERS.NAME, (String) null).set(USERS.EMAIL, (String) null).where(USERS.ID.eq((Integer) null)));
+                for (User user : updates)
+                    batch = batch.bind(user.name, user.email, user.id);
+                batch.execute();
+            }
+        });
+    }
+}
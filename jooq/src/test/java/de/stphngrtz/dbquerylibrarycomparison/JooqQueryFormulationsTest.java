@@ -0,0 +1,85 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.jooq.SQLDialect;
+import org.jooq.impl.DefaultConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.EnumSet;
+
+import static de.stphngrtz.dbquerylibrarycomparison.Formulation.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+
+public class JooqQueryFormulationsTest {
+
+    private static final String db_url = "192.168.99.100";
+    private static final String db_port = "5432";
+    private static final String db_username = "stephan";
+    private static final String db_password = "mysecretpassword";
+    private static final String db_database = db_username;
+
+    private Connection connection;
+    private QueryFormulations queryFormulations;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:postgresql://" + db_url + ":" + db_port + "/" + db_database, db_username, db_password);
+        queryFormulations = new JooqQueryFormulations(new DefaultConfiguration()
+                .set(connection)
+                .set(SQLDialect.POSTGRES));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void selectWithSubselectInSelectBlock() throws Exception {
+        for (Formulation formulation : EnumSet.of(CORRELATED_SUBQUERY, JOIN_GROUP_BY, LATERAL)) {
+            assertThat(formulation.name(), queryFormulations.selectWithSubselectInSelectBlock(formulation),
+                    containsInAnyOrder(
+                            "Stephan (2)",
+                            "Steffi (1)",
+                            "Willi (0)",
+                            "Franz (1)"
+                    )
+            );
+        }
+    }
+
+    @Test
+    public void selectWithSubselectInWhereBlock() throws Exception {
+        for (Formulation formulation : EnumSet.of(IN_SUBQUERY, EXISTS, JOIN_GROUP_BY, LATERAL)) {
+            assertThat(formulation.name(), queryFormulations.selectWithSubselectInWhereBlock(formulation),
+                    containsInAnyOrder(
+                            "Stephan",
+                            "Steffi",
+                            "Franz"
+                    )
+            );
+        }
+    }
+
+    @Test
+    public void selectFromMoreComplexCommonTable() throws Exception {
+        for (Formulation formulation : EnumSet.of(MATERIALIZED_CTE, INLINED_CTE)) {
+            assertThat(formulation.name(), queryFormulations.selectFromMoreComplexCommonTable(formulation),
+                    containsInAnyOrder(
+                            "Stephan ist Admin",
+                            "Stephan ist Developer",
+                            "Steffi ist Designer"
+                    )
+            );
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void selectWithSubselectInSelectBlockAsCommonTable() throws Exception {
+        queryFormulations.selectWithSubselectInSelectBlock(MATERIALIZED_CTE);
+    }
+}
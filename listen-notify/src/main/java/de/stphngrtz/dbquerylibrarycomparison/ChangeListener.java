@@ -0,0 +1,152 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Listens for the notifications of db/notify.sql on a connection of its own and passes the changed keys on, e.g. to
+ * {@link CachingScenarios#invalidate(String, int)}. Every JVM running against the database gets all changes, its own
+ * included.
+ * <p>
+ * The driver only reads notifications along with the results of a query, there's no blocking wait for them. The
+ * listener polls: a {@code SELECT 1} every poll interval, then the notifications that came with it make a batch. Within
+ * a batch each key is passed on once, no matter how often it changed, so the poll interval trades invalidation lag for
+ * coalescing.
+ * <p>
+ * Changes made while the listener isn't listening get lost, so it invalidates everything whenever it (re)connects and
+ * when the connection fails.
+ */
+public class ChangeListener implements AutoCloseable {
+
+    public static final String CHANNEL = "changes";
+
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final DataSource dataSource;
+    private final long pollIntervalNanos;
+    private final ObjIntConsumer<String> invalidate;
+    private final Runnable invalidateAll;
+    private final Thread thread;
+    private final CountDownLatch listening = new CountDownLatch(1);
+
+    private final LongAdder notifications = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private volatile boolean running = true;
+
+    /**
+     * @param invalidate    gets a changed table and key, see db/notify.sql
+     * @param invalidateAll for changes that may have been missed
+     */
+    public ChangeListener(DataSource dataSource, long pollInterval, TimeUnit unit, ObjIntConsumer<String> invalidate, Runnable invalidateAll) {
+        this.dataSource = dataSource;
+        this.pollIntervalNanos = unit.toNanos(pollInterval);
+        this.invalidate = invalidate;
+        this.invalidateAll = invalidateAll;
+
+        thread = new Thread(this::run, "change-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public ChangeListener(DataSource dataSource, long pollInterval, TimeUnit unit, CachingScenarios cache) {
+        this(dataSource, pollInterval, unit, cache::invalidate, cache::invalidateAll);
+    }
+
+    /**
+     * @return whether the listener is listening, changes committed from now on will be passed on
+     */
+    public boolean awaitListening(long timeout, TimeUnit unit) throws InterruptedException {
+        return listening.await(timeout, unit);
+    }
+
+    /**
+     * @return the number of notifications received
+     */
+    public long notifications() {
+        return notifications.sum();
+    }
+
+    /**
+     * @return the number of keys passed on, less than {@link #notifications()} by the number of coalesced ones
+     */
+    public long invalidations() {
+        return invalidations.sum();
+    }
+
+    public long batches() {
+        return batches.sum();
+    }
+
+    /**
+     * @return the number of times the connection failed (or an invalidation threw)
+     */
+    public long failures() {
+        return failures.sum();
+    }
+
+    private void run() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                statement.execute("LISTEN " + CHANNEL);
+                invalidateAll.run();
+                listening.countDown();
+
+                while (running) {
+                    statement.execute("SELECT 1");
+                    dispatch(pgConnection.getNotifications());
+                    TimeUnit.NANOSECONDS.sleep(pollIntervalNanos);
+                }
+            } catch (SQLException | RuntimeException e) {
+                failures.increment();
+                invalidateAll.run();
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void dispatch(PGNotification[] batch) {
+        if (batch == null || batch.length == 0)
+            return;
+
+        Set<String> keys = new LinkedHashSet<>();
+        for (PGNotification notification : batch)
+            keys.add(notification.getParameter());
+
+        for (String key : keys) {
+            int separator = key.lastIndexOf(':');
+            invalidate.accept(key.substring(0, separator), Integer.parseInt(key.substring(separator + 1)));
+        }
+
+        notifications.add(batch.length);
+        invalidations.add(keys.size());
+        batches.increment();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        thread.interrupt();
+        thread.join();
+    }
+}
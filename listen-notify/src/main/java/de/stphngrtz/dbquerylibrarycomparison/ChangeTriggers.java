@@ -0,0 +1,47 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.stream.Collectors;
+
+/**
+ * Installs and drops the triggers of db/notify.sql (on the classpath). They aren't part of the schema, whoever needs
+ * them installs them and drops them afterwards. Other sessions' changes notify as long as they're installed.
+ */
+public class ChangeTriggers {
+
+    private static final String[] TABLES = {"users", "roles", "users_with_roles"};
+
+    /**
+     * Drops leftovers of an aborted run first.
+     */
+    public static void install(DataSource dataSource) throws SQLException {
+        drop(dataSource);
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            s.execute(script());
+        }
+    }
+
+    public static void drop(DataSource dataSource) throws SQLException {
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            for (String table : TABLES)
+                s.execute("DROP TRIGGER IF EXISTS " + table + "_notify_change ON " + table);
+            s.execute("DROP FUNCTION IF EXISTS notify_change()");
+        }
+    }
+
+    private static String script() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ChangeTriggers.class.getResourceAsStream("/notify.sql"), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.joining("\n"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.sql2o.Sql2o;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Installs the triggers of db/notify.sql for each test.
+ */
+public class ChangeListenerTest {
+
+    private static final String db_url = "192.168.99.100";
+    private static final String db_port = "5432";
+    private static final String db_username = "stephan";
+    private static final String db_password = "mysecretpassword";
+    private static final String db_database = db_username;
+
+    private PGSimpleDataSource dataSource;
+    private Scenarios scenarios;
+
+    @Before
+    public void setUp() throws Exception {
+        dataSource = new PGSimpleDataSource();
+        dataSource.setServerName(db_url);
+        dataSource.setPortNumber(Integer.valueOf(db_port));
+        dataSource.setDatabaseName(db_database);
+        dataSource.setUser(db_username);
+        dataSource.setPassword(db_password);
+        scenarios = new Sql2oScenarios(new Sql2o(dataSource));
+        ChangeTriggers.install(dataSource);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        ChangeTriggers.drop(dataSource);
+    }
+
+    @Test
+    public void invalidatesCachedResults() throws Exception {
+        CachingScenarios cache = new CachingScenarios(scenarios);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        try (ChangeListener listener = new ChangeListener(dataSource, 10, TimeUnit.MILLISECONDS, (table, id) -> {
+            cache.invalidate(table, id);
+            if (table.equals("users_with_roles") && id == 4)
+                invalidated.countDown();
+        }, cache::invalidateAll)) {
+            assertThat(listener.awaitListening(5, TimeUnit.SECONDS), equalTo(true));
+            assertThat(cache.selectCountWithGroupBy(), hasItem("Admin mit 1 User(n)"));
+
+            scenarios.insertRoles(4, 1); // by another client, the cache doesn't see it
+            try {
+                assertThat(invalidated.await(5, TimeUnit.SECONDS), equalTo(true));
+                assertThat(cache.selectCountWithGroupBy(), hasItem("Admin mit 2 User(n)"));
+            } finally {
+                scenarios.deleteRoles(4, 1);
+            }
+        }
+    }
+
+    @Test
+    public void coalescesChangesOfABatch() throws Exception {
+        CachingScenarios cache = new CachingScenarios(scenarios);
+        try (ChangeListener listener = new ChangeListener(dataSource, 1, TimeUnit.SECONDS, cache)) {
+            assertThat(listener.awaitListening(5, TimeUnit.SECONDS), equalTo(true));
+
+            for (int i = 0; i < 3; i++) {
+                scenarios.insertRoles(4, 1);
+                scenarios.deleteRoles(4, 1);
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (listener.notifications() < 6 && System.nanoTime() < deadline)
+                Thread.sleep(10);
+
+            assertThat(listener.notifications(), equalTo(6L));
+            assertThat(listener.invalidations(), lessThan(listener.notifications()));
+        }
+    }
+}
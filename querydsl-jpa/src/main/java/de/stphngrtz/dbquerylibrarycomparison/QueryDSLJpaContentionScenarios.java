@@ -0,0 +1,99 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.LockModeType;
+import javax.persistence.OptimisticLockException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The version is {@link UserJPA#getVersion()}, Hibernate checks and increments it when it flushes a changed user.
+ * Every call gets its own EntityManager, like {@link QueryDSLJpaScenarios}.
+ */
+public class QueryDSLJpaContentionScenarios implements ContentionScenarios {
+
+    private static final String SELECT_FOR_UPDATE_SKIP_LOCKED = "" +
+            "SELECT u.id" +
+            "  FROM users u" +
+            " WHERE u.id BETWEEN ?1 AND ?2" +
+            " ORDER BY u.id" +
+            " LIMIT 1" +
+            "   FOR UPDATE SKIP LOCKED";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public QueryDSLJpaContentionScenarios(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void updatePessimistic(int userId, String name, int roleId) {
+        inTransaction(entityManager -> {
+            update(entityManager, entityManager.find(UserJPA.class, userId, LockModeType.PESSIMISTIC_WRITE), name, roleId);
+            return null;
+        });
+    }
+
+    /**
+     * Flushes within the transaction, to tell an aborted unit of work from other failures of the commit. With JDBC
+     * batching Hibernate logs every aborted unit of work as a failed batch (HHH000315).
+     */
+    @Override
+    public boolean updateOptimistic(int userId, String name, int roleId) {
+        return inTransaction(entityManager -> {
+            update(entityManager, entityManager.find(UserJPA.class, userId), name, roleId);
+            try {
+                entityManager.flush();
+                return true;
+            } catch (OptimisticLockException e) {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Neither JPA nor Hibernate (5.0, its PostgreSQL dialects) know {@code SKIP LOCKED}, the user is taken with a
+     * native query.
+     */
+    @Override
+    public int updateSkipLocked(int fromUserId, int toUserId, String name, int roleId) {
+        return inTransaction(entityManager -> {
+            List<?> ids = entityManager.createNativeQuery(SELECT_FOR_UPDATE_SKIP_LOCKED)
+                    .setParameter(1, fromUserId)
+                    .setParameter(2, toUserId)
+                    .getResultList();
+            if (ids.isEmpty())
+                return -1;
+            int userId = ((Number) ids.get(0)).intValue();
+            update(entityManager, entityManager.find(UserJPA.class, userId), name, roleId);
+            return userId;
+        });
+    }
+
+    private static void update(EntityManager entityManager, UserJPA user, String name, int roleId) {
+        user.setName(name);
+        List<RoleJPA> roles = user.getRoles();
+        if (!roles.removeIf(r -> r.getId() == roleId))
+            roles.add(entityManager.getReference(RoleJPA.class, roleId));
+    }
+
+    private <T> T inTransaction(Function<EntityManager, T> work) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        EntityTransaction transaction = entityManager.getTransaction();
+        transaction.begin();
+        try {
+            T result = work.apply(entityManager);
+            if (transaction.getRollbackOnly())
+                transaction.rollback();
+            else
+                transaction.commit();
+            return result;
+        } finally {
+            if (transaction.isActive())
+                transaction.rollback();
+            entityManager.close();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reports the phases of Hibernate's statements as {@link QueryEvent}s: execute, fetch and, within a scenario, map.
+ * Hibernate renders (HQL to SQL) before the statement inspector sees the SQL and doesn't tell when it's done with a
+ * result set, so there's no render phase, the fetch lasts until the next statement or the end of the session (turning
+ * results into entities included), and there's no row count.
+ * <p>
+ * Registered by class name, see {@link #properties()}: Hibernate creates a session event listener for every session
+ * and a statement inspector for the EntityManagerFactory.
+ */
+public class QueryDSLJpaQueryEvents extends BaseSessionEventListener implements StatementInspector {
+
+    private static final String LIBRARY = "QueryDSL-JPA";
+
+    /**
+     * For {@code Persistence.createEntityManagerFactory}.
+     */
+    public static Map<String, Object> properties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.session_factory.statement_inspector", QueryDSLJpaQueryEvents.class.getName());
+        properties.put("hibernate.session.events.auto", QueryDSLJpaQueryEvents.class.getName());
+        return properties;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        QueryEvents.sql(sql);
+        return sql;
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        QueryEvents.begin(LIBRARY, QueryEvents.Phase.EXECUTE);
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        QueryEvents.begin(LIBRARY, QueryEvents.Phase.FETCH);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        QueryEvents.begin(LIBRARY, QueryEvents.Phase.EXECUTE);
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        QueryEvents.end();
+    }
+
+    @Override
+    public void end() {
+        QueryEvents.end();
+    }
+}
@@ -0,0 +1,85 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class QueryDSLJpaQueryFormulations implements QueryFormulations {
+
+    private final JPAQueryFactory queryFactory;
+
+    public QueryDSLJpaQueryFormulations(JPAQueryFactory queryFactory) {
+        this.queryFactory = queryFactory;
+    }
+
+    @Override
+    public List<String> selectWithSubselectInSelectBlock(Formulation formulation) {
+        QUserJPA qUserJPA = QUserJPA.userJPA;
+        QRoleJPA qRoleJPA = QRoleJPA.roleJPA;
+        switch (formulation) {
+            case CORRELATED_SUBQUERY:
+                return queryFactory
+                        .select(qUserJPA.name, JPAExpressions.select(qRoleJPA.count()).from(qRoleJPA).where(qRoleJPA.user.contains(qUserJPA)))
+                        .from(qUserJPA)
+                        .fetch()
+                        .stream().map(t -> t.get(qUserJPA.name) + " (" + t.get(1, Long.class) + ")").collect(Collectors.toList());
+            case JOIN_GROUP_BY:
+                return queryFactory
+                        .select(qUserJPA.name, qRoleJPA.count())
+                        .from(qUserJPA)
+                        .leftJoin(qUserJPA.roles, qRoleJPA)
+                        .groupBy(qUserJPA.id, qUserJPA.name)
+                        .fetch()
+                        .stream().map(t -> t.get(qUserJPA.name) + " (" + t.get(qRoleJPA.count()) + ")").collect(Collectors.toList());
+            case LATERAL:
+                throw new UnsupportedOperationException("QueryDSL-JPA doesn't support LATERAL (afaik)");
+            default:
+                throw new UnsupportedOperationException(formulation + " doesn't make sense for this scenario");
+        }
+    }
+
+    @Override
+    public List<String> selectWithSubselectInWhereBlock(Formulation formulation) {
+        QUserJPA qUserJPA = QUserJPA.userJPA;
+        QRoleJPA qRoleJPA = QRoleJPA.roleJPA;
+        switch (formulation) {
+            case IN_SUBQUERY:
+                QUserJPA qUserJPA2 = new QUserJPA("users2");
+                return queryFactory
+                        .select(qUserJPA.name)
+                        .from(qUserJPA)
+                        .where(qUserJPA.in(JPAExpressions.select(qUserJPA2).from(qUserJPA2).where(qUserJPA2.roles.isNotEmpty())))
+                        .fetch();
+            case EXISTS:
+                return queryFactory
+                        .select(qUserJPA.name)
+                        .from(qUserJPA)
+                        .where(JPAExpressions.selectOne().from(qRoleJPA).where(qRoleJPA.user.contains(qUserJPA)).exists())
+                        .fetch();
+            case JOIN_GROUP_BY:
+                return queryFactory
+                        .select(qUserJPA.name)
+                        .from(qUserJPA)
+                        .join(qUserJPA.roles, qRoleJPA)
+                        .groupBy(qUserJPA.id, qUserJPA.name)
+                        .fetch();
+            case LATERAL:
+                throw new UnsupportedOperationException("QueryDSL-JPA doesn't support LATERAL (afaik)");
+            default:
+                throw new UnsupportedOperationException(formulation + " doesn't make sense for this scenario");
+        }
+    }
+
+    @Override
+    public List<String> selectFromMoreComplexCommonTable(Formulation formulation) {
+        switch (formulation) {
+            case MATERIALIZED_CTE:
+            case INLINED_CTE:
+                throw new UnsupportedOperationException("QueryDSL-JPA doesn't support WITH (afaik)");
+            default:
+                throw new UnsupportedOperationException(formulation + " doesn't make sense for this scenario");
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.hibernate.HibernateQuery;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.jpa.QueryHints;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Query;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class QueryDSLJpaScenarios implements Scenarios {
+
+    /**
+     * the benchmarks' hibernate.jdbc.batch_size
+     */
+    private static final int FLUSH_EVERY = 100;
+
+    private static final String INSERT_ROLE = "" +
+            "INSERT INTO users_with_roles (user_id, role_id)" +
+            "     VALUES (?, ?)";
+
+    private static final String SELECT_WITH_EXPLICIT_JOIN_OF_ROLE_IDS = "" +
+            "SELECT u.name, z.role_id" +
+            "  FROM users u" +
+            "  JOIN users_with_roles z on z.user_id = u.id";
+
+    private static final String SELECT_WITH_EXPLICIT_LEFT_OUTER_JOIN_OF_ROLE_IDS = "" +
+            "SELECT u.name, z.role_id" +
+            "  FROM users u" +
+            "  LEFT JOIN users_with_roles z on z.user_id = u.id";
+
+    /**
+     * How the reads of users and roles fetch them.
+     */
+    public enum Fetch {
+
+        /**
+         * As entities, the EntityManager keeps a snapshot of each one to find the dirty ones on flush.
+         */
+        MANAGED,
+
+        /**
+         * As read-only entities ({@code org.hibernate.readOnly}), without snapshots. They're still managed, i.e. part
+         * of the persistence context until the EntityManager is closed.
+         */
+        READ_ONLY,
+
+        /**
+         * As plain {@link User}s and {@link Role}s, via {@code Projections.constructor}. No entities at all, but no
+         * lazy loading either.
+         */
+        PROJECTION
+    }
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final Fetch fetch;
+
+    /**
+     * Every call gets its own EntityManager, which makes the Scenarios thread-safe and doesn't keep a connection
+     * between calls.
+     */
+    public QueryDSLJpaScenarios(EntityManagerFactory entityManagerFactory) {
+        this(entityManagerFactory, Fetch.MANAGED);
+    }
+
+    public QueryDSLJpaScenarios(EntityManagerFactory entityManagerFactory, Fetch fetch) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.fetch = fetch;
+    }
+
+    @Override
+    public List<Role> selectAllOrderedBy() {
+        return query(queryFactory -> rolesOrderedByName(queryFactory, null));
+    }
+
+    @Override
+    public List<User> selectWhereEquals(int id) {
+        QUserJPA qUserJPA = QUserJPA.userJPA;
+        return query(queryFactory -> users(queryFactory, qUserJPA.id.eq(id)));
+    }
+
+    @Override
+    public List<String> selectCountWithGroupBy() {
+        QRoleJPA qRoleJPA = QRoleJPA.roleJPA;
+        QUserJPA qUserJPA = QUserJPA.userJPA;
+        return query(queryFactory -> queryFactory
+                .select(qRoleJPA.name, qUserJPA.count())
+                .from(qRoleJPA)
+                .join(qRoleJPA.user, qUserJPA)
+                .groupBy(qRoleJPA.name)
+                .fetch()
+                .stream().map(t -> t.get(qRoleJPA.name) + " mit " + t.get(qUserJPA.count()) + " User(n)").collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<String> selectCountWithGroupByHaving(int count) {
+        QRoleJPA qRoleJPA = QRoleJPA.roleJPA;
+        QUserJPA qUserJPA = QUserJPA.userJPA;
+        return query(queryFactory -> queryFactory
+                .select(qRoleJPA.name, qUserJPA.count())
+                .from(qRoleJPA)
+                .join(qRoleJPA.user, qUserJPA)
+                .groupBy(qRoleJPA.name)
+                .having(qUserJPA.count().gt(count))
+                .fetch()
+                .stream().map(t -> t.get(qRoleJPA.name) + " mit " + t.get(qUserJPA.count()) + " User(n)").collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<String> selectWithExplicitJoin() {
+        QUserJPA qUserJPA = QUserJPA.userJPA;
+        QRoleJPA qRoleJPA = QRoleJPA.roleJPA;
+        return query(queryFactory -> queryFactory
+                .select(qUserJPA.name, qRoleJPA.name)
+                .from(qUserJPA)
+                .join(qUserJPA.roles, qRoleJPA)
+                .fetch()
+                .stream().map(t -> t.get(qUserJPA.name) + " ist " + t.get(qRoleJPA.name)).collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<String> selectWithExplicitLeftOuterJoin() {
+        QUserJPA qUserJPA = QUserJPA.userJPA;
+        QRoleJPA qRoleJPA = QRoleJPA.roleJPA;
+        return query(queryFactory -> queryFactory
+                .select(qUserJPA.name, qRoleJPA.name)
+                .from(qUserJPA)
+                .leftJoin(qUserJPA.roles, qRoleJPA)
+                .fetch()
+                .stream().map(t -> t.get(qUserJPA.name) + " ist " + t.get(qRoleJPA.name)).collect(Collectors.toList()));
+    }
+
+    /**
+     * A native query: JPQL only reaches the join table's role_id through the roles, which would join them on the server.
+     */
+    @Override
+    public List<String> selectWithExplicitJoin(HashJoin<Role> roles) {
+        return withEntityManager(entityManager -> {
+            List<String> result = new ArrayList<>();
+            Iterator<Object[]> rows = rows(entityManager.createNativeQuery(SELECT_WITH_EXPLICIT_JOIN_OF_ROLE_IDS));
+            roles.innerJoin(rows, row -> (Integer) row[1], (row, role) -> row[0] + " ist " + role.name, result::add);
+            return result;
+        });
+    }
+
+    /**
+     * A native query, see {@link #selectWithExplicitJoin(HashJoin)}.
+     */
+    @Override
+    public List<String> selectWithExplicitLeftOuterJoin(HashJoin<Role> roles) {
+        return withEntityManager(entityManager -> {
+            List<String> result = new ArrayList<>();
+            Iterator<Object[]> rows = rows(entityManager.createNativeQuery(SELECT_WITH_EXPLICIT_LEFT_OUTER_JOIN_OF_ROLE_IDS));
+            roles.leftOuterJoin(rows, row -> row[1] != null, row -> (Integer) row[1], (row, role) -> row[0] + " ist " + (role != null ? role.name : null), result::add);
+            return result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Iterator<Object[]> rows(Query query) {
+        return ((List<Object[]>) query.getResultList()).iterator();
+    }
+
+    /**
+     * Hibernate scrolls through the results of {@code iterate()}, the tuples aren't kept by the EntityManager.
+     */
+    @Override
+    public void selectWithExplicitLeftOuterJoin(ChannelExport export) {
+        QUserJPA qUserJPA = QUserJPA.userJPA;
+        QRoleJPA qRoleJPA = QRoleJPA.roleJPA;
+        inTransaction(entityManager -> {
+            try (CloseableIterator<Tuple> iterator = new JPAQueryFactory(entityManager)
+                    .select(qUserJPA.id, qUserJPA.name, qUserJPA.email, qRoleJPA.name)
+                    .from(qUserJPA)
+                    .leftJoin(qUserJPA.roles, qRoleJPA)
+                    .orderBy(qUserJPA.id.asc(), qRoleJPA.id.asc())
+                    .iterate()) {
+                while (iterator.hasNext()) {
+                    Tuple t = iterator.next();
+                    export.row(t.get(qUserJPA.id), t.get(qUserJPA.name), t.get(qUserJPA.email), t.get(qRoleJPA.name));
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public int insert(User user) {
+        return inTransaction(entityManager -> {
+            entityManager.persist(new UserJPA(user.id, user.name, user.email));
+            return 1;
+        });
+    }
+
+    /**
+     * A bulk delete, like the other libraries' delete it leaves the join table alone. {@code EntityManager#remove}
+     * would delete the user's role assignments first.
+     */
+    @Override
+    public int delete(int id) {
+        QUserJPA qUserJPA = QUserJPA.userJPA;
+        return inTransaction(entityManager -> (int) new JPAQueryFactory(entityManager)
+                .delete(qUserJPA)
+                .where(qUserJPA.id.eq(id))
+                .execute());
+    }
+
+    @Override
+    public int[] insertRoles(int userId, int... roleIds) {
+        return inTransaction(entityManager -> {
+            List<RoleJPA> roles = entityManager.getReference(UserJPA.class, userId).getRoles();
+            int[] inserted = new int[roleIds.length];
+            for (int i = 0; i < roleIds.length; i++) {
+                roles.add(entityManager.getReference(RoleJPA.class, roleIds[i]));
+                inserted[i] = 1;
+            }
+            return inserted;
+        });
+    }
+
+    @Override
+    public int[] deleteRoles(int userId, int... roleIds) {
+        return inTransaction(entityManager -> {
+            List<RoleJPA> roles = entityManager.getReference(UserJPA.class, userId).getRoles();
+            int[] deleted = new int[roleIds.length];
+            for (int i = 0; i < roleIds.length; i++) {
+                int roleId = roleIds[i];
+                deleted[i] = roles.removeIf(r -> r.getId() == roleId) ? 1 : 0;
+            }
+            return deleted;
+        });
+    }
+
+    /**
+     * Hibernate batches the inserts as configured by {@code hibernate.jdbc.batch_size}, one statement each otherwise.
+     * Every {@link #FLUSH_EVERY} users the persistence context is flushed and cleared, it'd keep them all otherwise.
+     */
+    @Override
+    public int insert(List<User> users) {
+        return inTransaction(entityManager -> {
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                entityManager.persist(new UserJPA(user.id, user.name, user.email));
+                if ((i + 1) % FLUSH_EVERY == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            return users.size();
+        });
+    }
+
+    /**
+     * A JDBC batch on the EntityManager's connection: through the entities each user's roles would be loaded to add to
+     * them, a query per user.
+     */
+    @Override
+    public int insertRoles(int[] userIds, int[] roleIds) {
+        if (userIds.length == 0)
+            return 0;
+
+        return inTransaction(entityManager -> entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_ROLE)) {
+                for (int i = 0; i < userIds.length; i++) {
+                    ps.setInt(1, userIds[i]);
+                    ps.setInt(2, roleIds[i]);
+                    ps.addBatch();
+                }
+                return IntStream.of(ps.executeBatch()).sum();
+            }
+        }));
+    }
+
+    /**
+     * The query has to be consumed within the function, the EntityManager is closed afterwards.
+     */
+    private <T> T query(Function<JPAQueryFactory, T> query) {
+        return withEntityManager(entityManager -> query.apply(new JPAQueryFactory(entityManager)));
+    }
+
+    private <T> T withEntityManager(Function<EntityManager, T> work) {
+        EntityManager entityManager = createEntityManager();
+        try {
+            return work.apply(entityManager);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private <T> T inTransaction(Function<EntityManager, T> work) {
+        EntityManager entityManager = createEntityManager();
+        EntityTransaction transaction = entityManager.getTransaction();
+        transaction.begin();
+        try {
+            T result = work.apply(entityManager);
+            transaction.commit();
+            return result;
+        } finally {
+            if (transaction.isActive())
+                transaction.rollback();
+            entityManager.close();
+        }
+    }
+
+    /**
+     * Within a call with a {@link Deadline}, the queries of the EntityManager get the time remaining as their timeout
+     * ({@code javax.persistence.query.timeout}), rounded up to whole seconds, Hibernate's granularity. The statements of
+     * a flush have no timeout, {@link Deadline#statementTimeout} covers those too.
+     */
+    private EntityManager createEntityManager() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        Deadline deadline = Deadline.current();
+        if (deadline != null)
+            entityManager.setProperty(QueryHints.SPEC_HINT_TIMEOUT, (int) TimeUnit.SECONDS.toMillis(deadline.remainingSecondsRoundedUp()));
+        return entityManager;
+    }
+
+    @Override
+    public CompletableFuture<List<Role>> selectAllOrderedBy(QueryBatch batch) {
+        throw new UnsupportedOperationException("QueryDSL-JPA doesn't expose the SQL of its queries (afaik)");
+    }
+
+    @Override
+    public CompletableFuture<List<User>> selectWhereEquals(QueryBatch batch, int id) {
+        throw new UnsupportedOperationException("QueryDSL-JPA doesn't expose the SQL of its queries (afaik)");
+    }
+
+    @Override
+    public CompletableFuture<List<String>> selectCountWithGroupBy(QueryBatch batch) {
+        throw new UnsupportedOperationException("QueryDSL-JPA doesn't expose the SQL of its queries (afaik)");
+    }
+
+    @Override
+    public List<User> selectAll(Partition partition) {
+        QUserJPA qUserJPA = QUserJPA.userJPA;
+        return query(queryFactory -> users(queryFactory, qUserJPA.id.between(partition.from, partition.to)));
+    }
+
+    /**
+     * Scans the users of the partition within a StatelessSession, for scans too large for a persistence context: the
+     * results are scrolled ({@code ScrollMode.FORWARD_ONLY}), each entity is passed on and forgotten. The driver
+     * fetches the rows in chunks of its default fetch size, if there is one. The users' roles aren't loaded, a
+     * StatelessSession doesn't load collections.
+     */
+    public void selectAll(Partition partition, Consumer<User> users) {
+        QUserJPA qUserJPA = QUserJPA.userJPA;
+        StatelessSession session = entityManagerFactory.unwrap(SessionFactory.class).openStatelessSession();
+        try {
+            Transaction transaction = session.beginTransaction();
+            try (CloseableIterator<UserJPA> iterator = new HibernateQuery<UserJPA>(session)
+                    .from(qUserJPA)
+                    .where(qUserJPA.id.between(partition.from, partition.to))
+                    .iterate()) {
+                while (iterator.hasNext())
+                    users.accept(iterator.next());
+            } finally {
+                transaction.rollback();
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    @Override
+    public List<User> selectAllOrderedBy(Partition partition) {
+        QUserJPA qUserJPA = QUserJPA.userJPA;
+        return query(queryFactory -> users(queryFactory, qUserJPA.id.between(partition.from, partition.to), qUserJPA.name.desc()));
+    }
+
+    private List<User> users(JPAQueryFactory queryFactory, Predicate where, OrderSpecifier<?>... orderBy) {
+        QUserJPA qUserJPA = QUserJPA.userJPA;
+        if (fetch == Fetch.PROJECTION)
+            return queryFactory
+                    .select(Projections.constructor(User.class, qUserJPA.id, qUserJPA.name, qUserJPA.email))
+                    .from(qUserJPA)
+                    .where(where)
+                    .orderBy(orderBy)
+                    .fetch();
+        return new ArrayList<>(hint(queryFactory
+                .selectFrom(qUserJPA)
+                .where(where)
+                .orderBy(orderBy))
+                .fetch());
+    }
+
+    private List<Role> rolesOrderedByName(JPAQueryFactory queryFactory, Predicate where) {
+        QRoleJPA qRoleJPA = QRoleJPA.roleJPA;
+        if (fetch == Fetch.PROJECTION)
+            return queryFactory
+                    .select(Projections.constructor(Role.class, qRoleJPA.id, qRoleJPA.name))
+                    .from(qRoleJPA)
+                    .where(where)
+                    .orderBy(qRoleJPA.name.desc())
+                    .fetch();
+        return new ArrayList<>(hint(queryFactory
+                .selectFrom(qRoleJPA)
+                .where(where)
+                .orderBy(qRoleJPA.name.desc()))
+                .fetch());
+    }
+
+    private <T> JPAQuery<T> hint(JPAQuery<T> query) {
+        if (fetch == Fetch.READ_ONLY)
+            query.setHint(QueryHints.HINT_READONLY, true);
+        return query;
+    }
+
+    @Override
+    public Map<String, Long> selectCountWithGroupBy(Partition partition) {
+        QRoleJPA qRoleJPA = QRoleJPA.roleJPA;
+        QUserJPA qUserJPA = QUserJPA.userJPA;
+        return query(queryFactory -> queryFactory
+                .select(qRoleJPA.name, qUserJPA.count())
+                .from(qRoleJPA)
+                .join(qRoleJPA.user, qUserJPA)
+                .where(qUserJPA.id.between(partition.from, partition.to))
+                .groupBy(qRoleJPA.name)
+                .fetch()
+                .stream().collect(Collectors.toMap(t -> t.get(qRoleJPA.name), t -> t.get(qUserJPA.count()))));
+    }
+}
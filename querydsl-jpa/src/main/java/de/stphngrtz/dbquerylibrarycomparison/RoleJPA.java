@@ -8,7 +8,7 @@ import java.util.List;
 @Table(name = "roles")
 public class RoleJPA extends Role {
 
-    private List<UserJPA> user = new ArrayList<>();
+    private List<UserJPA> user; // allocated on first use, Hibernate sets its own on load
 
     public RoleJPA() {
         super(null, null);
@@ -39,6 +39,8 @@ public class RoleJPA extends Role {
 
     @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE}, mappedBy = "roles")
     public List<UserJPA> getUser() {
+        if (user == null)
+            user = new ArrayList<>();
         return user;
     }
 
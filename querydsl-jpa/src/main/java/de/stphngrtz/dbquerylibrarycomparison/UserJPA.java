@@ -1,5 +1,7 @@
 package de.stphngrtz.dbquerylibrarycomparison;
 
+import org.hibernate.annotations.OptimisticLock;
+
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -8,7 +10,8 @@ import java.util.List;
 @Table(name = "users")
 public class UserJPA extends User {
 
-    private List<RoleJPA> roles = new ArrayList<>();
+    private Integer version;
+    private List<RoleJPA> roles; // allocated on first use, Hibernate sets its own on load
 
     public UserJPA() {
         super(null, null, null);
@@ -46,9 +49,22 @@ public class UserJPA extends User {
         this.email = email;
     }
 
+    @Version
+    @Column(name = "version")
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    @OptimisticLock(excluded = true) // assigning a role doesn't increment the user's version, that'd be another update
     @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(name = "users_with_roles", joinColumns = @JoinColumn(name = "user_id"), inverseJoinColumns = @JoinColumn(name = "role_id"))
     public List<RoleJPA> getRoles() {
+        if (roles == null)
+            roles = new ArrayList<>();
         return roles;
     }
 
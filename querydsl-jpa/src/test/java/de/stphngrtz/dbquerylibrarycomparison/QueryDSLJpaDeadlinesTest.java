@@ -0,0 +1,110 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.fail;
+
+/**
+ * The query timeout hint is in whole seconds: a deadline 200ms ahead cancels after a second. With
+ * {@code statement_timeout} the DataSource is a single pooled connection, the call after a cancelled one gets the same
+ * connection.
+ */
+public class QueryDSLJpaDeadlinesTest {
+
+    private static final String db_url = "192.168.99.100";
+    private static final String db_port = "5432";
+    private static final String db_username = "stephan";
+    private static final String db_password = "mysecretpassword";
+    private static final String db_database = db_username;
+
+    private static final User STEPHAN = new UserJPA(1, "Stephan", "stephan.goertz@gmail.com");
+
+    private static PGPoolingDataSource pgPoolingDataSource;
+    private static EntityManagerFactory entityManagerFactory;
+    private static EntityManagerFactory statementTimeoutEntityManagerFactory;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        pgPoolingDataSource = new PGPoolingDataSource();
+        pgPoolingDataSource.setDataSourceName("QueryDSLJpaDeadlinesTest");
+        pgPoolingDataSource.setServerName(db_url);
+        pgPoolingDataSource.setPortNumber(Integer.valueOf(db_port));
+        pgPoolingDataSource.setDatabaseName(db_database);
+        pgPoolingDataSource.setUser(db_username);
+        pgPoolingDataSource.setPassword(db_password);
+        pgPoolingDataSource.setMaxConnections(1);
+
+        entityManagerFactory = Persistence.createEntityManagerFactory("QueryDSLJpa");
+        statementTimeoutEntityManagerFactory = Persistence.createEntityManagerFactory("QueryDSLJpa",
+                Collections.singletonMap("hibernate.connection.datasource", Deadline.statementTimeout(pgPoolingDataSource)));
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        statementTimeoutEntityManagerFactory.close();
+        entityManagerFactory.close();
+        pgPoolingDataSource.close();
+    }
+
+    @Test
+    public void withinDeadline() throws Exception {
+        Scenarios scenarios = new DeadlineScenarios(new QueryDSLJpaScenarios(entityManagerFactory), 1, TimeUnit.SECONDS);
+        assertThat(scenarios.selectWhereEquals(1), contains(STEPHAN));
+    }
+
+    @Test
+    public void cancelledAtDeadline() throws Exception {
+        assertDeadlineExceeded(new QueryDSLJpaScenarios(entityManagerFactory), 2000);
+    }
+
+    @Test
+    public void statementTimeout() throws Exception {
+        assertDeadlineExceeded(new QueryDSLJpaScenarios(statementTimeoutEntityManagerFactory), 1000);
+        try (Connection c = pgPoolingDataSource.getConnection(); Statement s = c.createStatement(); ResultSet rs = s.executeQuery("SHOW statement_timeout")) {
+            rs.next();
+            assertThat(rs.getString(1), equalTo("0"));
+        }
+    }
+
+    /**
+     * The users are locked meanwhile, the call waits for them until it's cancelled.
+     */
+    private static void assertDeadlineExceeded(Scenarios scenarios, long maxMillis) throws Exception {
+        try (Connection other = connect(); Statement s = other.createStatement()) {
+            other.setAutoCommit(false);
+            s.execute("LOCK TABLE users IN ACCESS EXCLUSIVE MODE");
+
+            long start = System.nanoTime();
+            try {
+                new DeadlineScenarios(scenarios, 200, TimeUnit.MILLISECONDS).selectWhereEquals(1);
+                fail("deadline passed");
+            } catch (DeadlineExceededException e) {
+                assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), lessThan(maxMillis));
+            } finally {
+                other.rollback();
+            }
+        }
+        assertThat(scenarios.selectWhereEquals(1), contains(STEPHAN));
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection("jdbc:postgresql://" + db_url + ":" + db_port + "/" + db_database, db_username, db_password);
+    }
+}
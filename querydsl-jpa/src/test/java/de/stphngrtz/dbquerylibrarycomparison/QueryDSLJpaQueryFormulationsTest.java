@@ -0,0 +1,59 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.persistence.Persistence;
+import java.util.EnumSet;
+
+import static de.stphngrtz.dbquerylibrarycomparison.Formulation.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+
+public class QueryDSLJpaQueryFormulationsTest {
+
+    private static QueryFormulations queryFormulations;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        queryFormulations = new QueryDSLJpaQueryFormulations(new JPAQueryFactory(Persistence.createEntityManagerFactory("QueryDSLJpa").createEntityManager()));
+    }
+
+    @Test
+    public void selectWithSubselectInSelectBlock() throws Exception {
+        for (Formulation formulation : EnumSet.of(CORRELATED_SUBQUERY, JOIN_GROUP_BY)) {
+            assertThat(formulation.name(), queryFormulations.selectWithSubselectInSelectBlock(formulation),
+                    containsInAnyOrder(
+                            "Stephan (2)",
+                            "Steffi (1)",
+                            "Willi (0)",
+                            "Franz (1)"
+                    )
+            );
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void selectWithSubselectInSelectBlockAsLateral() throws Exception {
+        queryFormulations.selectWithSubselectInSelectBlock(LATERAL);
+    }
+
+    @Test
+    public void selectWithSubselectInWhereBlock() throws Exception {
+        for (Formulation formulation : EnumSet.of(IN_SUBQUERY, EXISTS, JOIN_GROUP_BY)) {
+            assertThat(formulation.name(), queryFormulations.selectWithSubselectInWhereBlock(formulation),
+                    containsInAnyOrder(
+                            "Stephan",
+                            "Steffi",
+                            "Franz"
+                    )
+            );
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void selectFromMoreComplexCommonTable() throws Exception {
+        queryFormulations.selectFromMoreComplexCommonTable(MATERIALIZED_CTE);
+    }
+}
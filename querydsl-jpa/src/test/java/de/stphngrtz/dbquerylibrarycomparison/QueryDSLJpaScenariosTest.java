@@ -0,0 +1,290 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.fail;
+
+public class QueryDSLJpaScenariosTest {
+
+    private static EntityManagerFactory entityManagerFactory;
+    private static Scenarios scenarios;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        entityManagerFactory = Persistence.createEntityManagerFactory("QueryDSLJpa");
+        scenarios = new QueryDSLJpaScenarios(entityManagerFactory);
+    }
+
+    @Test
+    public void selectAllOrderedBy() throws Exception {
+        assertThat(scenarios.selectAllOrderedBy(),
+                contains(
+                        new RoleJPA(2, "Developer"),
+                        new RoleJPA(3, "Designer"),
+                        new RoleJPA(1, "Admin")
+                )
+        );
+    }
+
+    @Test
+    public void selectWhereEquals() throws Exception {
+        assertThat(scenarios.selectWhereEquals(1),
+                contains(
+                        new UserJPA(1, "Stephan", "stephan.goertz@gmail.com")
+                )
+        );
+    }
+
+    @Test
+    public void selectCountWithGroupBy() throws Exception {
+        assertThat(scenarios.selectCountWithGroupBy(),
+                containsInAnyOrder(
+                        "Admin mit 1 User(n)",
+                        "Developer mit 2 User(n)",
+                        "Designer mit 1 User(n)"
+                )
+        );
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void batch() throws Exception {
+        scenarios.selectWhereEquals(new QueryBatch(), 1);
+    }
+
+    @Test
+    public void selectCountWithGroupByHaving() throws Exception {
+        assertThat(scenarios.selectCountWithGroupByHaving(1),
+                contains(
+                        "Developer mit 2 User(n)"
+                )
+        );
+    }
+
+    @Test
+    public void dmlStatements() throws Exception {
+        assertThat(scenarios.insert(new User(5, "Test", "test@mail.de")), equalTo(1));
+        try {
+            assertThat(scenarios.insertRoles(5, 1, 3), equalTo(new int[]{1, 1}));
+            assertThat(scenarios.deleteRoles(5, 1, 2), equalTo(new int[]{1, 0}));
+            assertThat(scenarios.selectWhereEquals(5), contains(new UserJPA(5, "Test", "test@mail.de")));
+        } finally {
+            scenarios.deleteRoles(5, 1, 2, 3);
+            assertThat(scenarios.delete(5), equalTo(1));
+        }
+    }
+
+    @Test
+    public void dmlBatches() throws Exception {
+        assertThat(scenarios.insert(Arrays.asList(new User(5, "Test", "test@mail.de"), new User(6, "Test2", "test2@mail.de"))), equalTo(2));
+        try {
+            assertThat(scenarios.insertRoles(new int[]{5, 5, 6}, new int[]{1, 3, 2}), equalTo(3));
+            try {
+                scenarios.insertRoles(new int[]{6, 7}, new int[]{1, 1}); // there's no user 7
+                fail();
+            } catch (RuntimeException expected) {
+            }
+            assertThat(scenarios.deleteRoles(6, 1, 2), equalTo(new int[]{0, 1}));
+        } finally {
+            scenarios.deleteRoles(5, 1, 3);
+            scenarios.delete(5);
+            scenarios.delete(6);
+        }
+    }
+
+    @Test
+    public void roleCountView() throws Exception {
+        RoleCountView view = new RoleCountView(scenarios);
+        assertThat(view.selectCountWithGroupBy(), containsInAnyOrder(scenarios.selectCountWithGroupBy().toArray()));
+
+        view.insert(new User(5, "Test", "test@mail.de"));
+        try {
+            view.insertRoles(5, 1, 2, 3);
+            view.deleteRoles(5, 1, 1);
+            assertThat(view.isConsistent(), equalTo(true));
+            assertThat(view.selectCountWithGroupByHaving(1), containsInAnyOrder(scenarios.selectCountWithGroupByHaving(1).toArray()));
+            assertThat(view.selectCountWithGroupByHaving(1), containsInAnyOrder("Developer mit 3 User(n)", "Designer mit 2 User(n)"));
+        } finally {
+            view.deleteRoles(5, 2, 3);
+            view.delete(5);
+        }
+        assertThat(view.isConsistent(), equalTo(true));
+        assertThat(view.selectCountWithGroupBy(), containsInAnyOrder(scenarios.selectCountWithGroupBy().toArray()));
+    }
+
+    @Test
+    public void selectWithExplicitJoin() throws Exception {
+        HashJoin<Role> roles = new HashJoin<>(scenarios.selectAllOrderedBy(), r -> r.id);
+        for (List<String> result : Arrays.asList(scenarios.selectWithExplicitJoin(), scenarios.selectWithExplicitJoin(roles))) {
+            assertThat(result,
+                    containsInAnyOrder(
+                            "Stephan ist Admin",
+                            "Stephan ist Developer",
+                            "Steffi ist Designer",
+                            "Franz ist Developer"
+                    )
+            );
+        }
+    }
+
+    @Test
+    public void selectWithExplicitLeftOuterJoin() throws Exception {
+        HashJoin<Role> roles = new HashJoin<>(scenarios.selectAllOrderedBy(), r -> r.id);
+        for (List<String> result : Arrays.asList(scenarios.selectWithExplicitLeftOuterJoin(), scenarios.selectWithExplicitLeftOuterJoin(roles))) {
+            assertThat(result,
+                    containsInAnyOrder(
+                            "Stephan ist Admin",
+                            "Stephan ist Developer",
+                            "Steffi ist Designer",
+                            "Willi ist null",
+                            "Franz ist Developer"
+                    )
+            );
+        }
+    }
+
+    @Test
+    public void selectWithExplicitLeftOuterJoinExport() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ChannelExport export = new ChannelExport(Channels.newChannel(out), ChannelExport.Format.CSV, new DirectBufferPool(1024))) {
+            scenarios.selectWithExplicitLeftOuterJoin(export);
+        }
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8),
+                equalTo("" +
+                        "1,Stephan,stephan.goertz@gmail.com,Admin\n" +
+                        "1,Stephan,stephan.goertz@gmail.com,Developer\n" +
+                        "2,Steffi,steffi05.04@freenet.de,Designer\n" +
+                        "3,Willi,willi@web.de,\n" +
+                        "4,Franz,franz@web.de,Developer\n"
+                )
+        );
+    }
+
+    @Test
+    public void partitioned() throws Exception {
+        List<Partition> partitions = Partition.byIdRange(2, 1, 4);
+        assertThat(scenarios.selectAll(partitions.get(1)),
+                containsInAnyOrder(
+                        new UserJPA(3, "Willi", "willi@web.de"),
+                        new UserJPA(4, "Franz", "franz@web.de")
+                )
+        );
+        assertThat(scenarios.selectAllOrderedBy(partitions.get(0)),
+                contains(
+                        new UserJPA(1, "Stephan", "stephan.goertz@gmail.com"),
+                        new UserJPA(2, "Steffi", "steffi05.04@freenet.de")
+                )
+        );
+
+        Map<String, Long> counts = scenarios.selectCountWithGroupBy(partitions.get(0));
+        assertThat(counts.keySet(), containsInAnyOrder("Admin", "Developer", "Designer"));
+        assertThat(counts.values(), contains(1L, 1L, 1L));
+        assertThat(scenarios.selectCountWithGroupBy(partitions.get(1)), equalTo(Collections.singletonMap("Developer", 1L)));
+    }
+
+    @Test
+    public void readOnly() throws Exception {
+        Scenarios readOnly = new QueryDSLJpaScenarios(entityManagerFactory, QueryDSLJpaScenarios.Fetch.READ_ONLY);
+        assertThat(readOnly.selectAllOrderedBy(), contains(scenarios.selectAllOrderedBy().toArray()));
+        assertThat(readOnly.selectWhereEquals(1), contains(new UserJPA(1, "Stephan", "stephan.goertz@gmail.com")));
+    }
+
+    @Test
+    public void projection() throws Exception {
+        Scenarios projection = new QueryDSLJpaScenarios(entityManagerFactory, QueryDSLJpaScenarios.Fetch.PROJECTION);
+        assertThat(projection.selectAllOrderedBy(),
+                contains(
+                        new Role(2, "Developer"),
+                        new Role(3, "Designer"),
+                        new Role(1, "Admin")
+                )
+        );
+        assertThat(projection.selectWhereEquals(1), contains(new User(1, "Stephan", "stephan.goertz@gmail.com")));
+
+        List<Partition> partitions = Partition.byIdRange(2, 1, 4);
+        assertThat(projection.selectAll(partitions.get(1)),
+                containsInAnyOrder(
+                        new User(3, "Willi", "willi@web.de"),
+                        new User(4, "Franz", "franz@web.de")
+                )
+        );
+        assertThat(projection.selectAllOrderedBy(partitions.get(0)),
+                contains(
+                        new User(1, "Stephan", "stephan.goertz@gmail.com"),
+                        new User(2, "Steffi", "steffi05.04@freenet.de")
+                )
+        );
+    }
+
+    @Test
+    public void selectAllStateless() throws Exception {
+        List<User> users = new ArrayList<>();
+        ((QueryDSLJpaScenarios) scenarios).selectAll(Partition.byIdRange(2, 1, 4).get(1), users::add);
+        assertThat(users,
+                containsInAnyOrder(
+                        new UserJPA(3, "Willi", "willi@web.de"),
+                        new UserJPA(4, "Franz", "franz@web.de")
+                )
+        );
+    }
+
+    @Test
+    public void queryEvents() throws Exception {
+        EntityManagerFactory instrumentedFactory = Persistence.createEntityManagerFactory("QueryDSLJpa", QueryDSLJpaQueryEvents.properties());
+        Scenarios instrumented = new QueryEventScenarios(new QueryDSLJpaScenarios(instrumentedFactory));
+
+        List<RecordedEvent> events;
+        try {
+            events = record(() -> instrumented.selectWhereEquals(1));
+        } finally {
+            instrumentedFactory.close();
+        }
+
+        assertThat(events.stream().map(e -> e.getString("phase")).collect(Collectors.toList()), contains("EXECUTE", "FETCH", "MAP"));
+        for (RecordedEvent event : events) {
+            assertThat(event.getString("library"), equalTo("QueryDSL-JPA"));
+            assertThat(event.getString("scenario"), equalTo("selectWhereEquals(int)"));
+            assertThat(event.getInt("sqlHash"), not(0));
+        }
+    }
+
+    private static List<RecordedEvent> record(Runnable runnable) throws Exception {
+        Path file = Files.createTempFile("query", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(QueryEvent.class);
+            recording.start();
+            runnable.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().equals("de.stphngrtz.dbquerylibrarycomparison.Query"))
+                    .sorted(Comparator.comparing(RecordedEvent::getStartTime))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import com.querydsl.core.QueryFlag;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.SQLTemplates;
+import com.querydsl.sql.dml.SQLDeleteClause;
+import com.querydsl.sql.dml.SQLInsertClause;
+import com.querydsl.sql.dml.SQLUpdateClause;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Function;
+
+public class QueryDSLSqlContentionScenarios implements ContentionScenarios {
+
+    private final SQLQueryFactory queryFactory;
+
+    public QueryDSLSqlContentionScenarios(SQLQueryFactory queryFactory) {
+        this.queryFactory = queryFactory;
+    }
+
+    @Override
+    public void updatePessimistic(int userId, String name, int roleId) {
+        QUsers qUsers = QUsers.users;
+        inTransaction(connection -> {
+            new SQLQuery<Void>(connection, templates())
+                    .select(qUsers.id)
+                    .from(qUsers)
+                    .where(qUsers.id.eq(userId))
+                    .forUpdate()
+                    .fetch();
+            update(connection, userId, name, roleId);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean updateOptimistic(int userId, String name, int roleId) {
+        QUsers qUsers = QUsers.users;
+        return inTransaction(connection -> {
+            Integer version = new SQLQuery<Void>(connection, templates())
+                    .select(qUsers.version)
+                    .from(qUsers)
+                    .where(qUsers.id.eq(userId))
+                    .fetchOne();
+            if (new SQLUpdateClause(connection, templates(), qUsers)
+                    .set(qUsers.name, name)
+                    .set(qUsers.version, qUsers.version.add(1))
+                    .where(qUsers.id.eq(userId), qUsers.version.eq(version))
+                    .execute() == 0)
+                return false;
+            toggleRole(connection, userId, roleId);
+            return true;
+        });
+    }
+
+    /**
+     * QueryDSL knows {@code FOR UPDATE} but not {@code SKIP LOCKED}, it's appended as a flag at the end of the query.
+     */
+    @Override
+    public int updateSkipLocked(int fromUserId, int toUserId, String name, int roleId) {
+        QUsers qUsers = QUsers.users;
+        return inTransaction(connection -> {
+            SQLQuery<Integer> query = new SQLQuery<Void>(connection, templates())
+                    .select(qUsers.id)
+                    .from(qUsers)
+                    .where(qUsers.id.between(fromUserId, toUserId))
+                    .orderBy(qUsers.id.asc())
+                    .limit(1)
+                    .forUpdate();
+            query.addFlag(QueryFlag.Position.END, " SKIP LOCKED");
+            Integer userId = query.fetchOne();
+            if (userId == null)
+                return -1;
+            update(connection, userId, name, roleId);
+            return userId;
+        });
+    }
+
+    private void update(Connection connection, int userId, String name, int roleId) {
+        QUsers qUsers = QUsers.users;
+        new SQLUpdateClause(connection, templates(), qUsers)
+                .set(qUsers.name, name)
+                .set(qUsers.version, qUsers.version.add(1))
+                .where(qUsers.id.eq(userId))
+                .execute();
+        toggleRole(connection, userId, roleId);
+    }
+
+    private void toggleRole(Connection connection, int userId, int roleId) {
+        QUsersWithRoles qUsersWithRoles = QUsersWithRoles.usersWithRoles;
+        if (new SQLDeleteClause(connection, templates(), qUsersWithRoles)
+                .where(qUsersWithRoles.userId.eq(userId), qUsersWithRoles.roleId.eq(roleId))
+                .execute() == 0)
+            new SQLInsertClause(connection, templates(), qUsersWithRoles)
+                    .columns(qUsersWithRoles.userId, qUsersWithRoles.roleId)
+                    .values(userId, roleId)
+                    .execute();
+    }
+
+    private SQLTemplates templates() {
+        return queryFactory.getConfiguration().getTemplates();
+    }
+
+    /**
+     * Runs the work on a connection of its own, see {@link QueryDSLSqlScenarios}.
+     */
+    private <T> T inTransaction(Function<Connection, T> work) {
+        try (Connection connection = queryFactory.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                T result = work.apply(connection);
+                connection.commit();
+                return result;
+            } catch (RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw queryFactory.getConfiguration().translate(e);
+        }
+    }
+}
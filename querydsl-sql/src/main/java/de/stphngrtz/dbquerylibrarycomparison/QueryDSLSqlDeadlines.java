@@ -0,0 +1,48 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import com.querydsl.sql.SQLBaseListener;
+import com.querydsl.sql.SQLListenerContext;
+
+import java.sql.PreparedStatement;
+
+/**
+ * Cancels QueryDSL-SQL's statements at the current {@link Deadline}, as far as they're executed by then. Stateless, one
+ * instance serves all threads, e.g. via {@code configuration.addListener(new QueryDSLSqlDeadlines())}.
+ * <p>
+ * Like {@link QueryDSLSqlQueryEvents}, only queries of the query factory's Configuration are covered, not the export
+ * and the batches of {@link QueryDSLSqlScenarios}.
+ */
+public class QueryDSLSqlDeadlines extends SQLBaseListener {
+
+    private static final String CANCELLATION = QueryDSLSqlDeadlines.class.getName();
+
+    /**
+     * A batch is executed as a whole, by its first statement.
+     */
+    @Override
+    public void preExecute(SQLListenerContext context) {
+        PreparedStatement statement = context.getPreparedStatement() != null
+                ? context.getPreparedStatement()
+                : context.getPreparedStatements().iterator().next();
+        context.setData(CANCELLATION, Deadline.cancelAt(statement));
+    }
+
+    @Override
+    public void executed(SQLListenerContext context) {
+        done(context);
+    }
+
+    /**
+     * Also after an exception.
+     */
+    @Override
+    public void end(SQLListenerContext context) {
+        done(context);
+    }
+
+    private static void done(SQLListenerContext context) {
+        Deadline.Cancellation cancellation = (Deadline.Cancellation) context.getData(CANCELLATION);
+        if (cancellation != null)
+            cancellation.close();
+    }
+}
@@ -0,0 +1,49 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import com.querydsl.sql.SQLBaseListener;
+import com.querydsl.sql.SQLListenerContext;
+
+/**
+ * Reports the phases of QueryDSL-SQL's queries as {@link QueryEvent}s: render, execute, fetch and, within a scenario,
+ * map. QueryDSL doesn't tell how many rows a query fetched or updated. Stateless, one instance serves all threads, e.g.
+ * via {@code configuration.addListener(new QueryDSLSqlQueryEvents())}.
+ * <p>
+ * Only queries of the query factory's Configuration are reported, not the ones of {@link QueryDSLSqlScenarios} on
+ * connections of their own (the export and the batches, whose factories have a Configuration without listeners).
+ */
+public class QueryDSLSqlQueryEvents extends SQLBaseListener {
+
+    private static final String LIBRARY = "QueryDSL-SQL";
+
+    @Override
+    public void preRender(SQLListenerContext context) {
+        QueryEvents.begin(LIBRARY, QueryEvents.Phase.RENDER);
+    }
+
+    @Override
+    public void rendered(SQLListenerContext context) {
+        QueryEvents.sql(context.getSQL());
+    }
+
+    @Override
+    public void preExecute(SQLListenerContext context) {
+        QueryEvents.begin(LIBRARY, QueryEvents.Phase.EXECUTE);
+    }
+
+    /**
+     * A query is fetched next, DML (which has an entity) is done with the following {@link #end}.
+     */
+    @Override
+    public void executed(SQLListenerContext context) {
+        if (context.getEntity() == null)
+            QueryEvents.begin(LIBRARY, QueryEvents.Phase.FETCH);
+    }
+
+    /**
+     * Also after an exception.
+     */
+    @Override
+    public void end(SQLListenerContext context) {
+        QueryEvents.end();
+    }
+}
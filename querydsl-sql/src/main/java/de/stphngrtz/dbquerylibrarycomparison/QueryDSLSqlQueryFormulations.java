@@ -0,0 +1,131 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.sql.SQLExpressions;
+import com.querydsl.sql.SQLQueryFactory;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class QueryDSLSqlQueryFormulations implements QueryFormulations {
+
+    private final SQLQueryFactory queryFactory;
+
+    public QueryDSLSqlQueryFormulations(SQLQueryFactory queryFactory) {
+        this.queryFactory = queryFactory;
+    }
+
+    @Override
+    public List<String> selectWithSubselectInSelectBlock(Formulation formulation) {
+        QUsers qUsers = QUsers.users;
+        QUsersWithRoles qUsersWithRoles = QUsersWithRoles.usersWithRoles;
+        switch (formulation) {
+            case CORRELATED_SUBQUERY:
+                return queryFactory
+                        .select(qUsers.name, SQLExpressions.select(qUsersWithRoles.count()).from(qUsersWithRoles).where(qUsersWithRoles.userId.eq(qUsers.id)))
+                        .from(qUsers)
+                        .fetch()
+                        .stream().map(t -> t.get(qUsers.name) + " (" + t.get(1, Long.class) + ")").collect(Collectors.toList());
+            case JOIN_GROUP_BY:
+                return queryFactory
+                        .select(qUsers.name, qUsersWithRoles.userId.count())
+                        .from(qUsers)
+                        .leftJoin(qUsersWithRoles).on(qUsersWithRoles.userId.eq(qUsers.id))
+                        .groupBy(qUsers.id, qUsers.name)
+                        .fetch()
+                        .stream().map(t -> t.get(qUsers.name) + " (" + t.get(1, Long.class) + ")").collect(Collectors.toList());
+            case LATERAL:
+                // there is no LATERAL in QueryDSL-SQL (afaik), but it can be added as a flag to the join
+                NumberPath<Long> count = Expressions.numberPath(Long.class, "count");
+                PathBuilder<Tuple> roleCount = new PathBuilder<>(Tuple.class, "role_count");
+                return queryFactory
+                        .select(qUsers.name, roleCount.get(count))
+                        .from(qUsers)
+                        .join(SQLExpressions.select(qUsersWithRoles.count().as(count)).from(qUsersWithRoles).where(qUsersWithRoles.userId.eq(qUsers.id)), roleCount)
+                        .addJoinFlag(" lateral", JoinFlag.Position.BEFORE_TARGET)
+                        .on(Expressions.TRUE.isTrue())
+                        .fetch()
+                        .stream().map(t -> t.get(qUsers.name) + " (" + t.get(1, Long.class) + ")").collect(Collectors.toList());
+            default:
+                throw new UnsupportedOperationException(formulation + " doesn't make sense for this scenario");
+        }
+    }
+
+    @Override
+    public List<String> selectWithSubselectInWhereBlock(Formulation formulation) {
+        QUsers qUsers = QUsers.users;
+        QUsersWithRoles qUsersWithRoles = QUsersWithRoles.usersWithRoles;
+        switch (formulation) {
+            case IN_SUBQUERY:
+                return queryFactory
+                        .select(qUsers.name)
+                        .from(qUsers)
+                        .where(qUsers.id.in(SQLExpressions.select(qUsersWithRoles.userId).from(qUsersWithRoles)))
+                        .fetch();
+            case EXISTS:
+                return queryFactory
+                        .select(qUsers.name)
+                        .from(qUsers)
+                        .where(SQLExpressions.selectOne().from(qUsersWithRoles).where(qUsersWithRoles.userId.eq(qUsers.id)).exists())
+                        .fetch();
+            case JOIN_GROUP_BY:
+                return queryFactory
+                        .select(qUsers.name)
+                        .from(qUsers)
+                        .join(qUsersWithRoles).on(qUsersWithRoles.userId.eq(qUsers.id))
+                        .groupBy(qUsers.id, qUsers.name)
+                        .fetch();
+            case LATERAL:
+                PathBuilder<Tuple> anyRole = new PathBuilder<>(Tuple.class, "any_role");
+                return queryFactory
+                        .select(qUsers.name)
+                        .from(qUsers)
+                        .join(SQLExpressions.selectOne().from(qUsersWithRoles).where(qUsersWithRoles.userId.eq(qUsers.id)).limit(1), anyRole)
+                        .addJoinFlag(" lateral", JoinFlag.Position.BEFORE_TARGET)
+                        .on(Expressions.TRUE.isTrue())
+                        .fetch();
+            default:
+                throw new UnsupportedOperationException(formulation + " doesn't make sense for this scenario");
+        }
+    }
+
+    @Override
+    public List<String> selectFromMoreComplexCommonTable(Formulation formulation) {
+        QUsers qUsers = QUsers.users;
+        QRoles qRoles = QRoles.roles;
+        QUsersWithRoles qUsersWithRoles = QUsersWithRoles.usersWithRoles;
+        PathBuilder<Tuple> common = new PathBuilder<>(Tuple.class, "common");
+        switch (formulation) {
+            case MATERIALIZED_CTE:
+                return queryFactory.query()
+                        .with(common, SQLExpressions
+                                .select(qUsers.name.as("userName"), qRoles.name.as("roleName"))
+                                .from(qUsers)
+                                .leftJoin(qUsersWithRoles).on(qUsersWithRoles.userId.eq(qUsers.id))
+                                .leftJoin(qRoles).on(qRoles.id.eq(qUsersWithRoles.roleId))
+                        )
+                        .select(common.getString("userName"), common.getString("roleName"))
+                        .from(common)
+                        .where(common.getString("userName").startsWith("S"))
+                        .fetch()
+                        .stream().map(t -> t.get(common.getString("userName")) + " ist " + t.get(common.getString("roleName"))).collect(Collectors.toList());
+            case INLINED_CTE:
+                return queryFactory
+                        .select(common.getString("userName"), common.getString("roleName"))
+                        .from(SQLExpressions
+                                .select(qUsers.name.as("userName"), qRoles.name.as("roleName"))
+                                .from(qUsers)
+                                .leftJoin(qUsersWithRoles).on(qUsersWithRoles.userId.eq(qUsers.id))
+                                .leftJoin(qRoles).on(qRoles.id.eq(qUsersWithRoles.roleId)), common)
+                        .where(common.getString("userName").startsWith("S"))
+                        .fetch()
+                        .stream().map(t -> t.get(common.getString("userName")) + " ist " + t.get(common.getString("roleName"))).collect(Collectors.toList());
+            default:
+                throw new UnsupportedOperationException(formulation + " doesn't make sense for this scenario");
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.SQLBindings;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.dml.SQLInsertClause;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class QueryDSLSqlScenarios implements Scenarios {
+
+    private final SQLQueryFactory queryFactory;
+
+    public QueryDSLSqlScenarios(SQLQueryFactory queryFactory) {
+        this.queryFactory = queryFactory;
+    }
+
+    @Override
+    public List<Role> selectAllOrderedBy() {
+        QRoles qRoles = QRoles.roles;
+        return selectAllOrderedByQuery()
+                .fetch()
+                .stream().map(t -> new Role(t.get(qRoles.id), t.get(qRoles.name))).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<User> selectWhereEquals(int id) {
+        QUsers qUsers = QUsers.users;
+        return selectWhereEqualsQuery(id)
+                .fetch()
+                .stream().map(t -> new User(t.get(qUsers.id), t.get(qUsers.name), t.get(qUsers.email))).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<String> selectCountWithGroupBy() {
+        return selectCountWithGroupByQuery()
+                .fetch()
+                .stream().map(t -> t.get(0, String.class) + " mit " + t.get(1, Long.class) + " User(n)").collect(Collectors.toList());
+    }
+
+    @Override
+    public List<String> selectCountWithGroupByHaving(int count) {
+        QUsersWithRoles qUsersWithRoles = QUsersWithRoles.usersWithRoles;
+        return selectCountWithGroupByQuery()
+                .having(qUsersWithRoles.count().gt(count))
+                .fetch()
+                .stream().map(t -> t.get(0, String.class) + " mit " + t.get(1, Long.class) + " User(n)").collect(Collectors.toList());
+    }
+
+    @Override
+    public List<String> selectWithExplicitJoin() {
+        QUsers qUsers = QUsers.users;
+        QRoles qRoles = QRoles.roles;
+        QUsersWithRoles qUsersWithRoles = QUsersWithRoles.usersWithRoles;
+        return queryFactory
+                .select(qUsers.name, qRoles.name)
+                .from(qUsers)
+                .join(qUsersWithRoles).on(qUsersWithRoles.userId.eq(qUsers.id))
+                .join(qRoles).on(qRoles.id.eq(qUsersWithRoles.roleId))
+                .fetch()
+                .stream().map(t -> t.get(qUsers.name) + " ist " + t.get(qRoles.name)).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<String> selectWithExplicitLeftOuterJoin() {
+        QUsers qUsers = QUsers.users;
+        QRoles qRoles = QRoles.roles;
+        QUsersWithRoles qUsersWithRoles = QUsersWithRoles.usersWithRoles;
+        return queryFactory
+                .select(qUsers.name, qRoles.name)
+                .from(qUsers)
+                .leftJoin(qUsersWithRoles).on(qUsersWithRoles.userId.eq(qUsers.id))
+                .leftJoin(qRoles).on(qRoles.id.eq(qUsersWithRoles.roleId))
+                .fetch()
+                .stream().map(t -> t.get(qUsers.name) + " ist " + t.get(qRoles.name)).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<String> selectWithExplicitJoin(HashJoin<Role> roles) {
+        QUsers qUsers = QUsers.users;
+        QUsersWithRoles qUsersWithRoles = QUsersWithRoles.usersWithRoles;
+        List<String> result = new ArrayList<>();
+        try (CloseableIterator<Tuple> iterator = queryFactory
+                .select(qUsers.name, qUsersWithRoles.roleId)
+                .from(qUsers)
+                .join(qUsersWithRoles).on(qUsersWithRoles.userId.eq(qUsers.id))
+                .iterate()) {
+            roles.innerJoin(iterator, t -> t.get(qUsersWithRoles.roleId), (t, role) -> t.get(qUsers.name) + " ist " + role.name, result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public List<String> selectWithExplicitLeftOuterJoin(HashJoin<Role> roles) {
+        QUsers qUsers = QUsers.users;
+        QUsersWithRoles qUsersWithRoles = QUsersWithRoles.usersWithRoles;
+        List<String> result = new ArrayList<>();
+        try (CloseableIterator<Tuple> iterator = queryFactory
+                .select(qUsers.name, qUsersWithRoles.roleId)
+                .from(qUsers)
+                .leftJoin(qUsersWithRoles).on(qUsersWithRoles.userId.eq(qUsers.id))
+                .iterate()) {
+            roles.leftOuterJoin(iterator, t -> t.get(qUsersWithRoles.roleId) != null, t -> t.get(qUsersWithRoles.roleId), (t, role) -> t.get(qUsers.name) + " ist " + (role != null ? role.name : null), result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public void selectWithExplicitLeftOuterJoin(ChannelExport export) {
+        QUsers qUsers = QUsers.users;
+        QUsersWithRoles qUsersWithRoles = QUsersWithRoles.usersWithRoles;
+        QRoles qRoles = QRoles.roles;
+        inTransaction(connection -> {
+            try (CloseableIterator<Tuple> iterator = new SQLQuery<Void>(connection, queryFactory.getConfiguration().getTemplates())
+                    .select(qUsers.id, qUsers.name, qUsers.email, qRoles.name)
+                    .from(qUsers)
+                    .leftJoin(qUsersWithRoles).on(qUsersWithRoles.userId.eq(qUsers.id))
+                    .leftJoin(qRoles).on(qRoles.id.eq(qUsersWithRoles.roleId))
+                    .orderBy(qUsers.id.asc(), qUsersWithRoles.roleId.asc())
+                    .iterate()) {
+                while (iterator.hasNext()) {
+                    Tuple t = iterator.next();
+                    export.row(t.get(qUsers.id), t.get(qUsers.name), t.get(qUsers.email), t.get(qRoles.name));
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public int insert(User user) {
+        QUsers qUsers = QUsers.users;
+        return (int) queryFactory
+                .insert(qUsers)
+                .columns(qUsers.id, qUsers.name, qUsers.email)
+                .values(user.id, user.name, user.email)
+                .execute();
+    }
+
+    @Override
+    public int delete(int id) {
+        QUsers qUsers = QUsers.users;
+        return (int) queryFactory
+                .delete(qUsers)
+                .where(qUsers.id.eq(id))
+                .execute();
+    }
+
+    /**
+     * A batch only tells the rows inserted in total, but an insert either inserts its row or fails the batch.
+     */
+    @Override
+    public int[] insertRoles(int userId, int... roleIds) {
+        if (roleIds.length == 0)
+            return new int[0];
+
+        QUsersWithRoles qUsersWithRoles = QUsersWithRoles.usersWithRoles;
+        SQLInsertClause insert = queryFactory.insert(qUsersWithRoles);
+        for (int roleId : roleIds)
+            insert.columns(qUsersWithRoles.userId, qUsersWithRoles.roleId).values(userId, roleId).addBatch();
+        insert.execute();
+
+        int[] inserted = new int[roleIds.length];
+        Arrays.fill(inserted, 1);
+        return inserted;
+    }
+
+    /**
+     * One statement per role, a batch only tells the rows deleted in total.
+     */
+    @Override
+    public int[] deleteRoles(int userId, int... roleIds) {
+        QUsersWithRoles qUsersWithRoles = QUsersWithRoles.usersWithRoles;
+        int[] deleted = new int[roleIds.length];
+        for (int i = 0; i < roleIds.length; i++) {
+            deleted[i] = (int) queryFactory
+                    .delete(qUsersWithRoles)
+                    .where(qUsersWithRoles.userId.eq(userId), qUsersWithRoles.roleId.eq(roleIds[i]))
+                    .execute();
+        }
+        return deleted;
+    }
+
+    @Override
+    public int insert(List<User> users) {
+        if (users.isEmpty())
+            return 0;
+
+        QUsers qUsers = QUsers.users;
+        return inTransaction(connection -> {
+            SQLInsertClause insert = new SQLInsertClause(connection, queryFactory.getConfiguration().getTemplates(), qUsers);
+            for (User user : users)
+                insert.columns(qUsers.id, qUsers.name, qUsers.email).values(user.id, user.name, user.email).addBatch();
+            return (int) insert.execute();
+        });
+    }
+
+    @Override
+    public int insertRoles(int[] userIds, int[] roleIds) {
+        if (userIds.length == 0)
+            return 0;
+
+        QUsersWithRoles qUsersWithRoles = QUsersWithRoles.usersWithRoles;
+        return inTransaction(connection -> {
+            SQLInsertClause insert = new SQLInsertClause(connection, queryFactory.getConfiguration().getTemplates(), qUsersWithRoles);
+            for (int i = 0; i < userIds.length; i++)
+                insert.columns(qUsersWithRoles.userId, qUsersWithRoles.roleId).values(userIds[i], roleIds[i]).addBatch();
+            return (int) insert.execute();
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<Role>> selectAllOrderedBy(QueryBatch batch) {
+        QRoles qRoles = QRoles.roles;
+        Configuration configuration = queryFactory.getConfiguration();
+        return add(batch, selectAllOrderedByQuery(), rs -> new Role(
+                configuration.get(rs, qRoles.id, 1, Integer.class),
+                configuration.get(rs, qRoles.name, 2, String.class)));
+    }
+
+    @Override
+    public CompletableFuture<List<User>> selectWhereEquals(QueryBatch batch, int id) {
+        QUsers qUsers = QUsers.users;
+        Configuration configuration = queryFactory.getConfiguration();
+        return add(batch, selectWhereEqualsQuery(id), rs -> new User(
+                configuration.get(rs, qUsers.id, 1, Integer.class),
+                configuration.get(rs, qUsers.name, 2, String.class),
+                configuration.get(rs, qUsers.email, 3, String.class)));
+    }
+
+    @Override
+    public CompletableFuture<List<String>> selectCountWithGroupBy(QueryBatch batch) {
+        QRoles qRoles = QRoles.roles;
+        Configuration configuration = queryFactory.getConfiguration();
+        return add(batch, selectCountWithGroupByQuery(), rs ->
+                configuration.get(rs, qRoles.name, 1, String.class) + " mit " + rs.getLong(2) + " User(n)");
+    }
+
+    @Override
+    public List<User> selectAll(Partition partition) {
+        QUsers qUsers = QUsers.users;
+        return queryFactory
+                .select(qUsers.id, qUsers.name, qUsers.email)
+                .from(qUsers)
+                .where(qUsers.id.between(partition.from, partition.to))
+                .fetch()
+                .stream().map(t -> new User(t.get(qUsers.id), t.get(qUsers.name), t.get(qUsers.email))).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<User> selectAllOrderedBy(Partition partition) {
+        QUsers qUsers = QUsers.users;
+        return queryFactory
+                .select(qUsers.id, qUsers.name, qUsers.email)
+                .from(qUsers)
+                .where(qUsers.id.between(partition.from, partition.to))
+                .orderBy(qUsers.name.desc())
+                .fetch()
+                .stream().map(t -> new User(t.get(qUsers.id), t.get(qUsers.name), t.get(qUsers.email))).collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<String, Long> selectCountWithGroupBy(Partition partition) {
+        QRoles qRoles = QRoles.roles;
+        QUsersWithRoles qUsersWithRoles = QUsersWithRoles.usersWithRoles;
+        return selectCountWithGroupByQuery()
+                .where(qUsersWithRoles.userId.between(partition.from, partition.to))
+                .fetch()
+                .stream().collect(Collectors.toMap(t -> t.get(qRoles.name), t -> t.get(qUsersWithRoles.count())));
+    }
+
+    private SQLQuery<Tuple> selectAllOrderedByQuery() {
+        QRoles qRoles = QRoles.roles;
+        return queryFactory
+                .select(qRoles.id, qRoles.name)
+                .from(qRoles)
+                .orderBy(qRoles.name.desc());
+    }
+
+    private SQLQuery<Tuple> selectWhereEqualsQuery(int id) {
+        QUsers qUsers = QUsers.users;
+        return queryFactory
+                .select(qUsers.id, qUsers.name, qUsers.email)
+                .from(qUsers)
+                .where(qUsers.id.eq(id));
+    }
+
+    private SQLQuery<Tuple> selectCountWithGroupByQuery() {
+        QRoles qRoles = QRoles.roles;
+        QUsersWithRoles qUsersWithRoles = QUsersWithRoles.usersWithRoles;
+        return queryFactory
+                .select(qRoles.name, qUsersWithRoles.count())
+                .from(qRoles)
+                .join(qUsersWithRoles).on(qUsersWithRoles.roleId.eq(qRoles.id))
+                .groupBy(qRoles.name);
+    }
+
+    /**
+     * Runs the work on a connection of its own, the factory's queries run with auto-commit. Queries and clauses on the
+     * connection need a configuration of their own too, the factory's closes the connection after each statement.
+     */
+    private <T> T inTransaction(Function<Connection, T> work) {
+        try (Connection connection = queryFactory.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                T result = work.apply(connection);
+                connection.commit();
+                return result;
+            } catch (RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw queryFactory.getConfiguration().translate(e);
+        }
+    }
+
+    /**
+     * The query is rendered with its bindings, its result is read back column by column via
+     * {@link Configuration#get(java.sql.ResultSet, com.querydsl.core.types.Path, int, Class)}, in the order of the
+     * projection.
+     */
+    private <T> CompletableFuture<List<T>> add(QueryBatch batch, SQLQuery<?> query, QueryBatch.RowMapper<T> mapper) {
+        SQLBindings sql = query.getSQL();
+        return batch.add(sql.getSQL(), sql.getBindings(), QueryBatch.ResultSetMapper.eachRow(mapper));
+    }
+}
@@ -0,0 +1,82 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.SQLTemplates;
+import com.querydsl.sql.dml.SQLDeleteClause;
+import com.querydsl.sql.dml.SQLInsertClause;
+import com.querydsl.sql.dml.SQLUpdateClause;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Function;
+
+public class QueryDSLSqlUserWrites implements UserWrites {
+
+    private final SQLQueryFactory queryFactory;
+
+    public QueryDSLSqlUserWrites(SQLQueryFactory queryFactory) {
+        this.queryFactory = queryFactory;
+    }
+
+    @Override
+    public void update(User user) {
+        QUsers qUsers = QUsers.users;
+        queryFactory.update(qUsers)
+                .set(qUsers.name, user.name)
+                .set(qUsers.email, user.email)
+                .where(qUsers.id.eq(user.id))
+                .execute();
+    }
+
+    @Override
+    public void write(int[] deletes, List<User> inserts, List<User> updates) {
+        QUsers qUsers = QUsers.users;
+        inTransaction(connection -> {
+            if (deletes.length > 0) {
+                SQLDeleteClause delete = new SQLDeleteClause(connection, templates(), qUsers);
+                for (int id : deletes)
+                    delete.where(qUsers.id.eq(id)).addBatch();
+                delete.execute();
+            }
+            if (!inserts.isEmpty()) {
+                SQLInsertClause insert = new SQLInsertClause(connection, templates(), qUsers);
+                for (User user : inserts)
+                    insert.columns(qUsers.id, qUsers.name, qUsers.email).values(user.id, user.name, user.email).addBatch();
+                insert.execute();
+            }
+            if (!updates.isEmpty()) {
+                SQLUpdateClause update = new SQLUpdateClause(connection, templates(), qUsers);
+                for (User user : updates)
+                    update.set(qUsers.name, user.name).set(qUsers.email, user.email).where(qUsers.id.eq(user.id)).addBatch();
+                update.execute();
+            }
+            return null;
+        });
+    }
+
+    private SQLTemplates templates() {
+        return queryFactory.getConfiguration().getTemplates();
+    }
+
+    /**
+     * Runs the work on a connection of its own, see {@link QueryDSLSqlScenarios}.
+     */
+    private <T> T inTransaction(Function<Connection, T> work) {
+        try (Connection connection = queryFactory.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                T result = work.apply(connection);
+                connection.commit();
+                return result;
+            } catch (RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw queryFactory.getConfiguration().translate(e);
+        }
+    }
+}
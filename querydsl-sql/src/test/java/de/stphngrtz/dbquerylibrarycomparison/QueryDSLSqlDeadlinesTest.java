@@ -0,0 +1,107 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.PostgreSQLTemplates;
+import com.querydsl.sql.SQLQueryFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.fail;
+
+/**
+ * A single pooled connection: the call after a cancelled one gets the same connection.
+ */
+public class QueryDSLSqlDeadlinesTest {
+
+    private static final String db_url = "192.168.99.100";
+    private static final String db_port = "5432";
+    private static final String db_username = "stephan";
+    private static final String db_password = "mysecretpassword";
+    private static final String db_database = db_username;
+
+    private static final User STEPHAN = new User(1, "Stephan", "stephan.goertz@gmail.com");
+
+    private static PGPoolingDataSource pgPoolingDataSource;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        pgPoolingDataSource = new PGPoolingDataSource();
+        pgPoolingDataSource.setDataSourceName("QueryDSLSqlDeadlinesTest");
+        pgPoolingDataSource.setServerName(db_url);
+        pgPoolingDataSource.setPortNumber(Integer.valueOf(db_port));
+        pgPoolingDataSource.setDatabaseName(db_database);
+        pgPoolingDataSource.setUser(db_username);
+        pgPoolingDataSource.setPassword(db_password);
+        pgPoolingDataSource.setMaxConnections(1);
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        pgPoolingDataSource.close();
+    }
+
+    @Test
+    public void withinDeadline() throws Exception {
+        Scenarios scenarios = new DeadlineScenarios(scenarios(true), 1, TimeUnit.SECONDS);
+        assertThat(scenarios.selectWhereEquals(1), contains(STEPHAN));
+    }
+
+    @Test
+    public void cancelledAtDeadline() throws Exception {
+        assertDeadlineExceeded(new DeadlineScenarios(scenarios(true), 200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void statementTimeout() throws Exception {
+        assertDeadlineExceeded(new DeadlineScenarios(new QueryDSLSqlScenarios(new SQLQueryFactory(new Configuration(new PostgreSQLTemplates()), Deadline.statementTimeout(pgPoolingDataSource))), 200, TimeUnit.MILLISECONDS));
+        try (Connection c = pgPoolingDataSource.getConnection(); Statement s = c.createStatement(); ResultSet rs = s.executeQuery("SHOW statement_timeout")) {
+            rs.next();
+            assertThat(rs.getString(1), equalTo("0"));
+        }
+    }
+
+    /**
+     * The users are locked meanwhile, the call waits for them until it's cancelled.
+     */
+    private static void assertDeadlineExceeded(Scenarios scenarios) throws Exception {
+        try (Connection other = connect(); Statement s = other.createStatement()) {
+            other.setAutoCommit(false);
+            s.execute("LOCK TABLE users IN ACCESS EXCLUSIVE MODE");
+
+            long start = System.nanoTime();
+            try {
+                scenarios.selectWhereEquals(1);
+                fail("deadline passed");
+            } catch (DeadlineExceededException e) {
+                assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), lessThan(1000L));
+            } finally {
+                other.rollback();
+            }
+        }
+        assertThat(scenarios(false).selectWhereEquals(1), contains(STEPHAN));
+    }
+
+    private static Scenarios scenarios(boolean deadlines) {
+        Configuration configuration = new Configuration(new PostgreSQLTemplates());
+        if (deadlines)
+            configuration.addListener(new QueryDSLSqlDeadlines());
+        return new QueryDSLSqlScenarios(new SQLQueryFactory(configuration, pgPoolingDataSource));
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection("jdbc:postgresql://" + db_url + ":" + db_port + "/" + db_database, db_username, db_password);
+    }
+}
@@ -0,0 +1,84 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.PostgreSQLTemplates;
+import com.querydsl.sql.SQLQueryFactory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.util.EnumSet;
+
+import static de.stphngrtz.dbquerylibrarycomparison.Formulation.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+
+public class QueryDSLSqlQueryFormulationsTest {
+
+    private static final String db_url = "192.168.99.100";
+    private static final String db_port = "5432";
+    private static final String db_username = "stephan";
+    private static final String db_password = "mysecretpassword";
+    private static final String db_database = db_username;
+
+    private static QueryFormulations queryFormulations;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        PGPoolingDataSource pgPoolingDataSource = new PGPoolingDataSource();
+        pgPoolingDataSource.setDataSourceName("QueryDSLSqlQueryFormulationsTest");
+        pgPoolingDataSource.setServerName(db_url);
+        pgPoolingDataSource.setPortNumber(Integer.valueOf(db_port));
+        pgPoolingDataSource.setDatabaseName(db_database);
+        pgPoolingDataSource.setUser(db_username);
+        pgPoolingDataSource.setPassword(db_password);
+        pgPoolingDataSource.setMaxConnections(10);
+
+        queryFormulations = new QueryDSLSqlQueryFormulations(new SQLQueryFactory(new Configuration(new PostgreSQLTemplates()), pgPoolingDataSource));
+    }
+
+    @Test
+    public void selectWithSubselectInSelectBlock() throws Exception {
+        for (Formulation formulation : EnumSet.of(CORRELATED_SUBQUERY, JOIN_GROUP_BY, LATERAL)) {
+            assertThat(formulation.name(), queryFormulations.selectWithSubselectInSelectBlock(formulation),
+                    containsInAnyOrder(
+                            "Stephan (2)",
+                            "Steffi (1)",
+                            "Willi (0)",
+                            "Franz (1)"
+                    )
+            );
+        }
+    }
+
+    @Test
+    public void selectWithSubselectInWhereBlock() throws Exception {
+        for (Formulation formulation : EnumSet.of(IN_SUBQUERY, EXISTS, JOIN_GROUP_BY, LATERAL)) {
+            assertThat(formulation.name(), queryFormulations.selectWithSubselectInWhereBlock(formulation),
+                    containsInAnyOrder(
+                            "Stephan",
+                            "Steffi",
+                            "Franz"
+                    )
+            );
+        }
+    }
+
+    @Test
+    public void selectFromMoreComplexCommonTable() throws Exception {
+        for (Formulation formulation : EnumSet.of(MATERIALIZED_CTE, INLINED_CTE)) {
+            assertThat(formulation.name(), queryFormulations.selectFromMoreComplexCommonTable(formulation),
+                    containsInAnyOrder(
+                            "Stephan ist Admin",
+                            "Stephan ist Developer",
+                            "Steffi ist Designer"
+                    )
+            );
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void selectWithSubselectInSelectBlockAsCommonTable() throws Exception {
+        queryFormulations.selectWithSubselectInSelectBlock(MATERIALIZED_CTE);
+    }
+}
@@ -0,0 +1,46 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.file.Path;
+
+/**
+ * An in-process stand-in for the PostgreSQL database, H2 in PostgreSQL mode, for running the reactive scenarios
+ * without a database server.
+ */
+public class H2StandIn {
+
+    private H2StandIn() {
+    }
+
+    /**
+     * @param name       name of the in-memory database, kept until {@link #drop(ConnectionFactory)}
+     * @param initScript SQL script to initialize the database with, e.g. db/init.sql
+     */
+    public static ConnectionFactory connectionFactory(String name, Path initScript) {
+        H2ConnectionFactory connectionFactory = new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                .inMemory(name)
+                .property("DB_CLOSE_DELAY", "-1")
+                .property("DATABASE_TO_LOWER", "TRUE")
+                .property("MODE", "PostgreSQL")
+                .build());
+        execute(connectionFactory, "RUNSCRIPT FROM '" + initScript.toAbsolutePath() + "'");
+        return connectionFactory;
+    }
+
+    public static void drop(ConnectionFactory connectionFactory) {
+        execute(connectionFactory, "DROP ALL OBJECTS");
+    }
+
+    private static void execute(ConnectionFactory connectionFactory, String sql) {
+        Flux.usingWhen(
+                connectionFactory.create(),
+                c -> Flux.from(c.createStatement(sql).execute()).concatMap(result -> result.getRowsUpdated()),
+                Connection::close
+        ).blockLast();
+    }
+}
@@ -0,0 +1,158 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The scenarios on a non-blocking driver (R2DBC). Nothing happens until a subscriber requests rows, they are streamed
+ * as requested rather than collected into a list, and no thread waits for the database meanwhile. With a fetch size,
+ * rows are fetched from the database in chunks of that size as demand arrives.
+ * <p>
+ * Each publisher uses a connection of its own, taken from the ConnectionFactory on subscription and released on
+ * completion, error or cancellation.
+ */
+public class R2dbcScenarios {
+
+    private static final String SELECT_ALL = "" +
+            "SELECT u.id, u.name, u.email" +
+            "  FROM users u";
+
+    private static final String SELECT_ALL_ORDERED_BY = "" +
+            "SELECT r.id, r.name" +
+            "  FROM roles r" +
+            " ORDER BY r.name DESC";
+
+    private static final String SELECT_WHERE_EQUALS = "" +
+            "SELECT u.id, u.name, u.email" +
+            "  FROM users u" +
+            " WHERE u.id = $1";
+
+    private static final String SELECT_WITH_EXPLICIT_JOIN = "" +
+            "SELECT u.name, r.name" +
+            "  FROM users u" +
+            "  JOIN users_with_roles z on z.user_id = u.id" +
+            "  JOIN roles r on r.id = z.role_id";
+
+    private static final String SELECT_COUNT_WITH_GROUP_BY = "" +
+            "SELECT r.name, count(*)" +
+            "  FROM roles r" +
+            "  JOIN users_with_roles z on z.role_id = r.id" +
+            " GROUP BY r.name";
+
+    private static final String INSERT = "" +
+            "INSERT INTO users (id, name, email)" +
+            "VALUES ($1, $2, $3)";
+
+    private static final String INSERT_ROLE = "" +
+            "INSERT INTO users_with_roles (user_id, role_id)" +
+            "VALUES ($1, $2)";
+
+    private static final String UPDATE = "" +
+            "UPDATE users" +
+            "   SET name = $2, email = $3" +
+            " WHERE id = $1";
+
+    private static final String DELETE_ROLES = "" +
+            "DELETE FROM users_with_roles" +
+            " WHERE user_id = $1";
+
+    private static final String DELETE = "" +
+            "DELETE FROM users" +
+            " WHERE id = $1";
+
+    private static final BiFunction<Row, RowMetadata, User> USER = (row, metadata) -> new User(row.get(0, Integer.class), row.get(1, String.class), row.get(2, String.class));
+    private static final BiFunction<Row, RowMetadata, Role> ROLE = (row, metadata) -> new Role(row.get(0, Integer.class), row.get(1, String.class));
+
+    private final ConnectionFactory connectionFactory;
+    private final int fetchSize;
+
+    /**
+     * @param fetchSize rows per fetch, 0 for the driver's default
+     */
+    public R2dbcScenarios(ConnectionFactory connectionFactory, int fetchSize) {
+        this.connectionFactory = connectionFactory;
+        this.fetchSize = fetchSize;
+    }
+
+    public Publisher<User> selectAll() {
+        return query(SELECT_ALL, USER);
+    }
+
+    public Publisher<Role> selectAllOrderedBy() {
+        return query(SELECT_ALL_ORDERED_BY, ROLE);
+    }
+
+    public Publisher<User> selectWhereEquals(int id) {
+        return query(SELECT_WHERE_EQUALS, USER, id);
+    }
+
+    public Publisher<String> selectWithExplicitJoin() {
+        return query(SELECT_WITH_EXPLICIT_JOIN, (row, metadata) -> row.get(0, String.class) + " ist " + row.get(1, String.class));
+    }
+
+    public Publisher<String> selectCountWithGroupBy() {
+        return query(SELECT_COUNT_WITH_GROUP_BY, (row, metadata) -> row.get(0, String.class) + " mit " + row.get(1, Long.class) + " User(n)");
+    }
+
+    /**
+     * @return rows inserted, the user's and one per role
+     */
+    public Publisher<Integer> insert(User user, int... roleIds) {
+        return inTransaction(c -> {
+            Flux<Integer> rowsUpdated = update(c, INSERT, user.id, user.name, user.email);
+            for (int roleId : roleIds)
+                rowsUpdated = rowsUpdated.concatWith(update(c, INSERT_ROLE, user.id, roleId));
+            return rowsUpdated;
+        });
+    }
+
+    public Publisher<Integer> update(User user) {
+        return inTransaction(c -> update(c, UPDATE, user.id, user.name, user.email));
+    }
+
+    /**
+     * @return rows deleted, the user's role assignments first
+     */
+    public Publisher<Integer> delete(int id) {
+        return inTransaction(c -> update(c, DELETE_ROLES, id).concatWith(update(c, DELETE, id)));
+    }
+
+    private <T> Flux<T> query(String sql, BiFunction<Row, RowMetadata, T> mapper, Object... parameters) {
+        return Flux.usingWhen(
+                connectionFactory.create(),
+                c -> Flux.from(statement(c, sql, parameters).execute()).concatMap(result -> result.map(mapper)),
+                Connection::close
+        );
+    }
+
+    private Flux<Integer> update(Connection c, String sql, Object... parameters) {
+        return Flux.from(statement(c, sql, parameters).execute()).concatMap(result -> result.getRowsUpdated());
+    }
+
+    private Flux<Integer> inTransaction(Function<Connection, Flux<Integer>> work) {
+        return Flux.usingWhen(
+                connectionFactory.create(),
+                c -> Flux.from(c.beginTransaction()).thenMany(work.apply(c)),
+                c -> Flux.from(c.commitTransaction()).concatWith(c.close()),
+                (c, e) -> Flux.from(c.rollbackTransaction()).concatWith(c.close()),
+                c -> Flux.from(c.rollbackTransaction()).concatWith(c.close())
+        );
+    }
+
+    private Statement statement(Connection c, String sql, Object... parameters) {
+        Statement statement = c.createStatement(sql);
+        for (int i = 0; i < parameters.length; i++)
+            statement.bind(i, parameters[i]);
+        if (fetchSize > 0)
+            statement.fetchSize(fetchSize);
+        return statement;
+    }
+}
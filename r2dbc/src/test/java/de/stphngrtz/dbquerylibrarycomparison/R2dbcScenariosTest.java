@@ -0,0 +1,111 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+
+public class R2dbcScenariosTest {
+
+    private ConnectionFactory connectionFactory;
+    private R2dbcScenarios scenarios;
+
+    @Before
+    public void setUp() throws Exception {
+        connectionFactory = H2StandIn.connectionFactory(UUID.randomUUID().toString(), Paths.get("../db/init.sql"));
+        scenarios = new R2dbcScenarios(connectionFactory, 2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        H2StandIn.drop(connectionFactory);
+    }
+
+    @Test
+    public void selectAllOrderedBy() throws Exception {
+        assertThat(Flux.from(scenarios.selectAllOrderedBy()).collectList().block(),
+                contains(
+                        new Role(2, "Developer"),
+                        new Role(3, "Designer"),
+                        new Role(1, "Admin")
+                )
+        );
+    }
+
+    @Test
+    public void selectWhereEquals() throws Exception {
+        assertThat(Flux.from(scenarios.selectWhereEquals(1)).collectList().block(),
+                contains(
+                        new User(1, "Stephan", "stephan.goertz@gmail.com")
+                )
+        );
+    }
+
+    @Test
+    public void selectWithExplicitJoin() throws Exception {
+        assertThat(Flux.from(scenarios.selectWithExplicitJoin()).collectList().block(),
+                containsInAnyOrder(
+                        "Stephan ist Admin",
+                        "Stephan ist Developer",
+                        "Steffi ist Designer",
+                        "Franz ist Developer"
+                )
+        );
+    }
+
+    @Test
+    public void selectCountWithGroupBy() throws Exception {
+        assertThat(Flux.from(scenarios.selectCountWithGroupBy()).collectList().block(),
+                containsInAnyOrder(
+                        "Admin mit 1 User(n)",
+                        "Developer mit 2 User(n)",
+                        "Designer mit 1 User(n)"
+                )
+        );
+    }
+
+    @Test
+    public void selectAllOnDemand() throws Exception {
+        StepVerifier.create(scenarios.selectAll(), 0)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenRequest(1)
+                .expectNext(new User(1, "Stephan", "stephan.goertz@gmail.com"))
+                .thenRequest(1)
+                .expectNext(new User(2, "Steffi", "steffi05.04@freenet.de"))
+                .thenCancel()
+                .verify();
+
+        assertThat(Flux.from(scenarios.selectAll()).map(u -> u.name).collectList().block(), contains("Stephan", "Steffi", "Willi", "Franz"));
+    }
+
+    @Test
+    public void insertUpdateDelete() throws Exception {
+        assertThat(Flux.from(scenarios.insert(new User(5, "Hans", "hans@web.de"), 1, 3)).collectList().block(), contains(1, 1, 1));
+        assertThat(Flux.from(scenarios.update(new User(5, "Hans", "hans@gmx.de"))).collectList().block(), contains(1));
+        assertThat(Flux.from(scenarios.selectWhereEquals(5)).collectList().block(), contains(new User(5, "Hans", "hans@gmx.de")));
+        assertThat(Flux.from(scenarios.delete(5)).collectList().block(), contains(2, 1));
+        assertThat(Flux.from(scenarios.selectWhereEquals(5)).collectList().block(), empty());
+    }
+
+    @Test
+    public void insertRollsBackOnError() throws Exception {
+        StepVerifier.create(scenarios.insert(new User(5, "Hans", "hans@web.de"), 1, 42))
+                .expectNext(1, 1)
+                .expectError()
+                .verify();
+
+        assertThat(Flux.from(scenarios.selectWhereEquals(5)).collectList().block(), empty());
+    }
+}
@@ -0,0 +1,121 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.sql2o.Connection;
+import org.sql2o.Sql2o;
+
+public class Sql2oContentionScenarios implements ContentionScenarios {
+
+    private static final String SELECT_FOR_UPDATE = "" +
+            "SELECT u.id" +
+            "  FROM users u" +
+            " WHERE u.id = :id" +
+            "   FOR UPDATE";
+
+    private static final String SELECT_VERSION = "" +
+            "SELECT u.version" +
+            "  FROM users u" +
+            " WHERE u.id = :id";
+
+    private static final String SELECT_FOR_UPDATE_SKIP_LOCKED = "" +
+            "SELECT u.id" +
+            "  FROM users u" +
+            " WHERE u.id BETWEEN :from AND :to" +
+            " ORDER BY u.id" +
+            " LIMIT 1" +
+            "   FOR UPDATE SKIP LOCKED";
+
+    private static final String UPDATE = "" +
+            "UPDATE users" +
+            "   SET name = :name, version = version + 1" +
+            " WHERE id = :id";
+
+    private static final String UPDATE_VERSION = "" +
+            "UPDATE users" +
+            "   SET name = :name, version = version + 1" +
+            " WHERE id = :id" +
+            "   AND version = :version";
+
+    private static final String INSERT_ROLE = "" +
+            "INSERT INTO users_with_roles (user_id, role_id)" +
+            "VALUES (:userId, :roleId)";
+
+    private static final String DELETE_ROLE = "" +
+            "DELETE FROM users_with_roles" +
+            " WHERE user_id = :userId" +
+            "   AND role_id = :roleId";
+
+    private final Sql2o sql2o;
+
+    public Sql2oContentionScenarios(Sql2o sql2o) {
+        this.sql2o = sql2o;
+    }
+
+    @Override
+    public void updatePessimistic(int userId, String name, int roleId) {
+        try (Connection c = sql2o.beginTransaction()) {
+            c.createQuery(SELECT_FOR_UPDATE)
+                    .addParameter("id", userId)
+                    .executeScalarList(Integer.class);
+            update(c, userId, name, roleId);
+            c.commit();
+        }
+    }
+
+    @Override
+    public boolean updateOptimistic(int userId, String name, int roleId) {
+        try (Connection c = sql2o.beginTransaction()) {
+            Integer version = c.createQuery(SELECT_VERSION)
+                    .addParameter("id", userId)
+                    .executeScalar(Integer.class);
+            if (c.createQuery(UPDATE_VERSION)
+                    .addParameter("name", name)
+                    .addParameter("id", userId)
+                    .addParameter("version", version)
+                    .executeUpdate()
+                    .getResult() == 0) {
+                c.rollback();
+                return false;
+            }
+            toggleRole(c, userId, roleId);
+            c.commit();
+            return true;
+        }
+    }
+
+    @Override
+    public int updateSkipLocked(int fromUserId, int toUserId, String name, int roleId) {
+        try (Connection c = sql2o.beginTransaction()) {
+            Integer userId = c.createQuery(SELECT_FOR_UPDATE_SKIP_LOCKED)
+                    .addParameter("from", fromUserId)
+                    .addParameter("to", toUserId)
+                    .executeScalar(Integer.class);
+            if (userId == null) {
+                c.rollback();
+                return -1;
+            }
+            update(c, userId, name, roleId);
+            c.commit();
+            return userId;
+        }
+    }
+
+    private static void update(Connection c, int userId, String name, int roleId) {
+        c.createQuery(UPDATE)
+                .addParameter("name", name)
+                .addParameter("id", userId)
+                .executeUpdate();
+        toggleRole(c, userId, roleId);
+    }
+
+    private static void toggleRole(Connection c, int userId, int roleId) {
+        if (c.createQuery(DELETE_ROLE)
+                .addParameter("userId", userId)
+                .addParameter("roleId", roleId)
+                .executeUpdate()
+                .getResult() == 0)
+            c.createQuery(INSERT_ROLE)
+                    .addParameter("userId", userId)
+                    .addParameter("roleId", roleId)
+                    .executeUpdate();
+    }
+}
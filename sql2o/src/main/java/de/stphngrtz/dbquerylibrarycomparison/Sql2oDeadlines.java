@@ -0,0 +1,60 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+/**
+ * Cancels sql2o's statements at the current {@link Deadline}, as far as they're executed by then. Sql2o has no hooks,
+ * so its DataSource is wrapped, like for {@link Sql2oQueryEvents}: the statements of connections the wrapper hands out
+ * schedule the cancel when they're executed. Sql2o can't tell the quirks from the wrapper, e.g.
+ * {@code new Sql2o(Sql2oDeadlines.dataSource(dataSource), new PostgresQuirks())}.
+ * <p>
+ * Sql2o has no timeout of its own, its queries' statements can be reached for a
+ * {@link java.sql.Statement#setQueryTimeout(int)} (in whole seconds) only.
+ */
+public final class Sql2oDeadlines {
+
+    private Sql2oDeadlines() {
+    }
+
+    public static DataSource dataSource(DataSource dataSource) {
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            Object result = invoke(dataSource, method, args);
+            return method.getName().equals("getConnection") ? connection((Connection) result) : result;
+        });
+    }
+
+    private static Connection connection(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            return method.getName().equals("prepareStatement") ? statement((PreparedStatement) result) : result;
+        });
+    }
+
+    private static PreparedStatement statement(PreparedStatement statement) {
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute"))
+                return invoke(statement, method, args);
+            try (Deadline.Cancellation ignored = Deadline.cancelAt(statement)) {
+                return invoke(statement, method, args);
+            }
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(Sql2oDeadlines.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+}
@@ -0,0 +1,118 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.sql2o.Sql2o;
+import org.sql2o.quirks.PostgresQuirks;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.stream.IntStream;
+
+/**
+ * Reports the phases of sql2o's queries as {@link QueryEvent}s: execute, fetch (counting the rows, sql2o maps each one
+ * as it's read) and, within a scenario, map. Sql2o has no hooks, so its DataSource is wrapped: the statements of
+ * connections the wrapper hands out tell when they're executed and read. There's no render phase, the SQL is known
+ * when the statement is prepared.
+ * <p>
+ * Without a recording of the events the statements aren't wrapped, just the connections.
+ */
+public final class Sql2oQueryEvents {
+
+    private static final String LIBRARY = "sql2o";
+
+    private Sql2oQueryEvents() {
+    }
+
+    /**
+     * The quirks are given, sql2o can't tell them from the wrapper.
+     */
+    public static Sql2o sql2o(DataSource dataSource) {
+        return new Sql2o(proxy(DataSource.class, (proxy, method, args) -> {
+            Object result = invoke(dataSource, method, args);
+            return method.getName().equals("getConnection") ? connection((Connection) result) : result;
+        }), new PostgresQuirks());
+    }
+
+    private static Connection connection(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (!method.getName().equals("prepareStatement") || !QueryEvents.enabled())
+                return result;
+            QueryEvents.sql((String) args[0]);
+            return statement((PreparedStatement) result);
+        });
+    }
+
+    private static PreparedStatement statement(PreparedStatement statement) {
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "executeQuery":
+                    QueryEvents.begin(LIBRARY, QueryEvents.Phase.EXECUTE);
+                    ResultSet resultSet = (ResultSet) execute(statement, method, args);
+                    QueryEvents.begin(LIBRARY, QueryEvents.Phase.FETCH);
+                    return resultSet(resultSet);
+                case "executeUpdate":
+                    QueryEvents.begin(LIBRARY, QueryEvents.Phase.EXECUTE);
+                    int rows = (int) execute(statement, method, args);
+                    QueryEvents.rows(rows);
+                    QueryEvents.end();
+                    return rows;
+                case "executeBatch":
+                    QueryEvents.begin(LIBRARY, QueryEvents.Phase.EXECUTE);
+                    int[] batchRows = (int[]) execute(statement, method, args);
+                    QueryEvents.rows(IntStream.of(batchRows).filter(r -> r > 0).sum());
+                    QueryEvents.end();
+                    return batchRows;
+                case "close":
+                    QueryEvents.end();
+                    return invoke(statement, method, args);
+                default:
+                    return invoke(statement, method, args);
+            }
+        });
+    }
+
+    /**
+     * The fetch ends with the last row, or when the result set or its statement is closed before.
+     */
+    private static ResultSet resultSet(ResultSet resultSet) {
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            Object result = invoke(resultSet, method, args);
+            if (method.getName().equals("next")) {
+                if ((boolean) result)
+                    QueryEvents.rows(1);
+                else
+                    QueryEvents.end();
+            } else if (method.getName().equals("close")) {
+                QueryEvents.end();
+            }
+            return result;
+        });
+    }
+
+    private static Object execute(PreparedStatement statement, Method method, Object[] args) throws Throwable {
+        try {
+            return invoke(statement, method, args);
+        } catch (Throwable e) {
+            QueryEvents.end();
+            throw e;
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(Sql2oQueryEvents.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+}
@@ -0,0 +1,121 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.sql2o.Connection;
+import org.sql2o.ResultSetHandler;
+import org.sql2o.Sql2o;
+
+import java.util.List;
+
+public class Sql2oQueryFormulations implements QueryFormulations {
+
+    private final Sql2o sql2o;
+
+    public Sql2oQueryFormulations(Sql2o sql2o) {
+        this.sql2o = sql2o;
+    }
+
+    @Override
+    public List<String> selectWithSubselectInSelectBlock(Formulation formulation) {
+        String sql;
+        switch (formulation) {
+            case CORRELATED_SUBQUERY:
+                sql = "" +
+                        "SELECT u.name, (SELECT count(*) FROM users_with_roles z WHERE z.user_id = u.id)" +
+                        "  FROM users u";
+                break;
+            case JOIN_GROUP_BY:
+                sql = "" +
+                        "SELECT u.name, count(z.user_id)" +
+                        "  FROM users u" +
+                        "  LEFT OUTER JOIN users_with_roles z on z.user_id = u.id" +
+                        " GROUP BY u.id, u.name";
+                break;
+            case LATERAL:
+                sql = "" +
+                        "SELECT u.name, c.count" +
+                        "  FROM users u" +
+                        " CROSS JOIN LATERAL (SELECT count(*) FROM users_with_roles z WHERE z.user_id = u.id) c";
+                break;
+            default:
+                throw new UnsupportedOperationException(formulation + " doesn't make sense for this scenario");
+        }
+        try (Connection c = sql2o.open()) {
+            return c.createQuery(sql)
+                    .executeAndFetch((ResultSetHandler<String>) rs -> rs.getString(1) + " (" + rs.getString(2) + ")");
+        }
+    }
+
+    @Override
+    public List<String> selectWithSubselectInWhereBlock(Formulation formulation) {
+        String sql;
+        switch (formulation) {
+            case IN_SUBQUERY:
+                sql = "" +
+                        "SELECT u.name" +
+                        "  FROM users u" +
+                        " WHERE u.id IN (SELECT z.user_id FROM users_with_roles z)";
+                break;
+            case EXISTS:
+                sql = "" +
+                        "SELECT u.name" +
+                        "  FROM users u" +
+                        " WHERE EXISTS (SELECT 1 FROM users_with_roles z WHERE z.user_id = u.id)";
+                break;
+            case JOIN_GROUP_BY:
+                sql = "" +
+                        "SELECT u.name" +
+                        "  FROM users u" +
+                        "  JOIN users_with_roles z on z.user_id = u.id" +
+                        " GROUP BY u.id, u.name";
+                break;
+            case LATERAL:
+                sql = "" +
+                        "SELECT u.name" +
+                        "  FROM users u" +
+                        " CROSS JOIN LATERAL (SELECT 1 FROM users_with_roles z WHERE z.user_id = u.id LIMIT 1) x";
+                break;
+            default:
+                throw new UnsupportedOperationException(formulation + " doesn't make sense for this scenario");
+        }
+        try (Connection c = sql2o.open()) {
+            return c.createQuery(sql)
+                    .executeAndFetch(String.class);
+        }
+    }
+
+    @Override
+    public List<String> selectFromMoreComplexCommonTable(Formulation formulation) {
+        String sql;
+        switch (formulation) {
+            case MATERIALIZED_CTE:
+                sql = "" +
+                        "WITH common AS (" +
+                        "    SELECT u.name AS user_name, r.name AS role_name" +
+                        "      FROM users u" +
+                        "      LEFT OUTER JOIN users_with_roles z on z.user_id = u.id" +
+                        "      LEFT OUTER JOIN roles r on r.id = z.role_id" +
+                        ")" +
+                        "SELECT c.user_name, c.role_name" +
+                        "  FROM common c" +
+                        " WHERE c.user_name LIKE 'S%'";
+                break;
+            case INLINED_CTE:
+                sql = "" +
+                        "SELECT c.user_name, c.role_name" +
+                        "  FROM (" +
+                        "    SELECT u.name AS user_name, r.name AS role_name" +
+                        "      FROM users u" +
+                        "      LEFT OUTER JOIN users_with_roles z on z.user_id = u.id" +
+                        "      LEFT OUTER JOIN roles r on r.id = z.role_id" +
+                        "  ) c" +
+                        " WHERE c.user_name LIKE 'S%'";
+                break;
+            default:
+                throw new UnsupportedOperationException(formulation + " doesn't make sense for this scenario");
+        }
+        try (Connection c = sql2o.open()) {
+            return c.createQuery(sql)
+                    .executeAndFetch((ResultSetHandler<String>) rs -> rs.getString(1) + " ist " + rs.getString(2));
+        }
+    }
+}
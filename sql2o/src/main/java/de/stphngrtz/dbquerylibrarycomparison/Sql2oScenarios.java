@@ -0,0 +1,369 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.sql2o.Connection;
+import org.sql2o.DefaultResultSetHandlerFactoryBuilder;
+import org.sql2o.Query;
+import org.sql2o.ResultSetHandler;
+import org.sql2o.ResultSetHandlerFactory;
+import org.sql2o.ResultSetIterable;
+import org.sql2o.Sql2o;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class Sql2oScenarios implements Scenarios {
+
+    private static final String SELECT_ALL_ORDERED_BY = "" +
+            "SELECT *" +
+            "  FROM roles r" +
+            " ORDER BY r.name DESC";
+
+    /**
+     * users.version (see ContentionScenarios) has no property in User, the queries selecting * don't throw on it.
+     */
+    private static final String SELECT_WHERE_EQUALS = "" +
+            "SELECT *" +
+            "  FROM users u" +
+            " WHERE u.id = :id";
+
+    private static final String SELECT_COUNT_WITH_GROUP_BY = "" +
+            "SELECT r.name, count(z.*)" +
+            "  FROM roles r" +
+            "  JOIN users_with_roles z on z.role_id = r.id" +
+            " GROUP BY r.name";
+
+    private static final String SELECT_COUNT_WITH_GROUP_BY_HAVING = "" +
+            "SELECT r.name, count(z.*)" +
+            "  FROM roles r" +
+            "  JOIN users_with_roles z on z.role_id = r.id" +
+            " GROUP BY r.name" +
+            " HAVING count(z.*) > :count";
+
+    private static final String SELECT_WITH_EXPLICIT_JOIN = "" +
+            "SELECT u.name, r.name" +
+            "  FROM users u" +
+            "  JOIN users_with_roles z on z.user_id = u.id" +
+            "  JOIN roles r on r.id = z.role_id";
+
+    private static final String SELECT_WITH_EXPLICIT_LEFT_OUTER_JOIN = "" +
+            "SELECT u.name, r.name" +
+            "  FROM users u" +
+            "  LEFT JOIN users_with_roles z on z.user_id = u.id" +
+            "  LEFT JOIN roles r on r.id = z.role_id";
+
+    private static final String SELECT_WITH_EXPLICIT_LEFT_OUTER_JOIN_ORDERED_BY_ID = "" +
+            "SELECT u.id, u.name, u.email, r.name" +
+            "  FROM users u" +
+            "  LEFT JOIN users_with_roles z on z.user_id = u.id" +
+            "  LEFT JOIN roles r on r.id = z.role_id" +
+            " ORDER BY u.id, z.role_id";
+
+    private static final String SELECT_WITH_EXPLICIT_JOIN_OF_ROLE_IDS = "" +
+            "SELECT u.name, z.role_id" +
+            "  FROM users u" +
+            "  JOIN users_with_roles z on z.user_id = u.id";
+
+    private static final String SELECT_WITH_EXPLICIT_LEFT_OUTER_JOIN_OF_ROLE_IDS = "" +
+            "SELECT u.name, z.role_id" +
+            "  FROM users u" +
+            "  LEFT JOIN users_with_roles z on z.user_id = u.id";
+
+    private static final String SELECT_ALL_IN_PARTITION = "" +
+            "SELECT *" +
+            "  FROM users u" +
+            " WHERE u.id BETWEEN :from AND :to";
+
+    private static final String SELECT_ALL_ORDERED_BY_IN_PARTITION = "" +
+            "SELECT u.id, u.name, u.email" +
+            "  FROM users u" +
+            " WHERE u.id BETWEEN :from AND :to" +
+            " ORDER BY u.name DESC";
+
+    private static final String SELECT_COUNT_WITH_GROUP_BY_IN_PARTITION = "" +
+            "SELECT r.name, count(z.*)" +
+            "  FROM roles r" +
+            "  JOIN users_with_roles z on z.role_id = r.id" +
+            " WHERE z.user_id BETWEEN :from AND :to" +
+            " GROUP BY r.name";
+
+    private static final String INSERT = "" +
+            "INSERT INTO users (id, name, email)" +
+            "VALUES (:id, :name, :email)";
+
+    private static final String DELETE = "" +
+            "DELETE FROM users" +
+            " WHERE id = :id";
+
+    private static final String INSERT_ROLE = "" +
+            "INSERT INTO users_with_roles (user_id, role_id)" +
+            "VALUES (:userId, :roleId)";
+
+    private static final String DELETE_ROLE = "" +
+            "DELETE FROM users_with_roles" +
+            " WHERE user_id = :userId" +
+            "   AND role_id = :roleId";
+
+    private static final ResultSetHandler<String> ROLE_COUNT = rs -> rs.getString(1) + " mit " + rs.getString(2) + " User(n)";
+    private static final ResultSetHandler<String> USER_ROLE = rs -> rs.getString(1) + " ist " + rs.getString(2);
+    private static final ResultSetHandler<Map.Entry<String, Integer>> USER_ROLE_ID = rs -> new AbstractMap.SimpleEntry<>(rs.getString(1), (Integer) rs.getObject(2));
+    private static final ResultSetHandler<Map.Entry<String, Long>> PARTIAL_ROLE_COUNT = rs -> new AbstractMap.SimpleEntry<>(rs.getString(1), rs.getLong(2));
+
+    private final Sql2o sql2o;
+
+    public Sql2oScenarios(Sql2o sql2o) {
+        this.sql2o = sql2o;
+    }
+
+    @Override
+    public List<Role> selectAllOrderedBy() {
+        try (Connection c = sql2o.open()) {
+            return c.createQuery(SELECT_ALL_ORDERED_BY)
+                    .executeAndFetch(Role.class);
+        }
+    }
+
+    @Override
+    public List<User> selectWhereEquals(int id) {
+        try (Connection c = sql2o.open()) {
+            return c.createQuery(SELECT_WHERE_EQUALS)
+                    .throwOnMappingFailure(false)
+                    .addParameter("id", id)
+                    .executeAndFetch(User.class);
+        }
+    }
+
+    @Override
+    public List<String> selectCountWithGroupBy() {
+        try (Connection c = sql2o.open()) {
+            return c.createQuery(SELECT_COUNT_WITH_GROUP_BY)
+                    .executeAndFetch(ROLE_COUNT);
+        }
+    }
+
+    @Override
+    public List<String> selectCountWithGroupByHaving(int count) {
+        try (Connection c = sql2o.open()) {
+            return c.createQuery(SELECT_COUNT_WITH_GROUP_BY_HAVING)
+                    .addParameter("count", count)
+                    .executeAndFetch(ROLE_COUNT);
+        }
+    }
+
+    @Override
+    public List<String> selectWithExplicitJoin() {
+        try (Connection c = sql2o.open()) {
+            return c.createQuery(SELECT_WITH_EXPLICIT_JOIN)
+                    .executeAndFetch(USER_ROLE);
+        }
+    }
+
+    @Override
+    public List<String> selectWithExplicitLeftOuterJoin() {
+        try (Connection c = sql2o.open()) {
+            return c.createQuery(SELECT_WITH_EXPLICIT_LEFT_OUTER_JOIN)
+                    .executeAndFetch(USER_ROLE);
+        }
+    }
+
+    @Override
+    public List<String> selectWithExplicitJoin(HashJoin<Role> roles) {
+        List<String> result = new ArrayList<>();
+        try (Connection c = sql2o.open();
+             ResultSetIterable<Map.Entry<String, Integer>> rows = c.createQuery(SELECT_WITH_EXPLICIT_JOIN_OF_ROLE_IDS).executeAndFetchLazy(USER_ROLE_ID)) {
+            roles.innerJoin(rows.iterator(), Map.Entry::getValue, (row, role) -> row.getKey() + " ist " + role.name, result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public List<String> selectWithExplicitLeftOuterJoin(HashJoin<Role> roles) {
+        List<String> result = new ArrayList<>();
+        try (Connection c = sql2o.open();
+             ResultSetIterable<Map.Entry<String, Integer>> rows = c.createQuery(SELECT_WITH_EXPLICIT_LEFT_OUTER_JOIN_OF_ROLE_IDS).executeAndFetchLazy(USER_ROLE_ID)) {
+            roles.leftOuterJoin(rows.iterator(), row -> row.getValue() != null, Map.Entry::getValue, (row, role) -> row.getKey() + " ist " + (role != null ? role.name : null), result::add);
+        }
+        return result;
+    }
+
+    /**
+     * The handler writes each row as it's read, there's no object per row.
+     */
+    @Override
+    public void selectWithExplicitLeftOuterJoin(ChannelExport export) {
+        ResultSetHandler<Void> write = rs -> {
+            export.row(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4));
+            return null;
+        };
+        try (Connection c = sql2o.beginTransaction()) {
+            try (ResultSetIterable<Void> rows = c.createQuery(SELECT_WITH_EXPLICIT_LEFT_OUTER_JOIN_ORDERED_BY_ID).executeAndFetchLazy(write)) {
+                rows.forEach(row -> {
+                });
+            }
+            c.commit();
+        }
+    }
+
+    @Override
+    public int insert(User user) {
+        try (Connection c = sql2o.open()) {
+            return c.createQuery(INSERT)
+                    .addParameter("id", user.id)
+                    .addParameter("name", user.name)
+                    .addParameter("email", user.email)
+                    .executeUpdate()
+                    .getResult();
+        }
+    }
+
+    @Override
+    public int delete(int id) {
+        try (Connection c = sql2o.open()) {
+            return c.createQuery(DELETE)
+                    .addParameter("id", id)
+                    .executeUpdate()
+                    .getResult();
+        }
+    }
+
+    @Override
+    public int[] insertRoles(int userId, int... roleIds) {
+        return batch(INSERT_ROLE, userId, roleIds);
+    }
+
+    @Override
+    public int[] deleteRoles(int userId, int... roleIds) {
+        return batch(DELETE_ROLE, userId, roleIds);
+    }
+
+    @Override
+    public int insert(List<User> users) {
+        if (users.isEmpty())
+            return 0;
+
+        try (Connection c = sql2o.beginTransaction()) {
+            Query query = c.createQuery(INSERT);
+            for (User user : users)
+                query.addParameter("id", user.id).addParameter("name", user.name).addParameter("email", user.email).addToBatch();
+            int inserted = IntStream.of(query.executeBatch().getBatchResult()).sum();
+            c.commit();
+            return inserted;
+        }
+    }
+
+    @Override
+    public int insertRoles(int[] userIds, int[] roleIds) {
+        if (userIds.length == 0)
+            return 0;
+
+        try (Connection c = sql2o.beginTransaction()) {
+            Query query = c.createQuery(INSERT_ROLE);
+            for (int i = 0; i < userIds.length; i++)
+                query.addParameter("userId", userIds[i]).addParameter("roleId", roleIds[i]).addToBatch();
+            int inserted = IntStream.of(query.executeBatch().getBatchResult()).sum();
+            c.commit();
+            return inserted;
+        }
+    }
+
+    private int[] batch(String sql, int userId, int... roleIds) {
+        if (roleIds.length == 0)
+            return new int[0];
+
+        try (Connection c = sql2o.beginTransaction()) {
+            Query query = c.createQuery(sql);
+            for (int roleId : roleIds)
+                query.addParameter("userId", userId).addParameter("roleId", roleId).addToBatch();
+            int[] result = query.executeBatch().getBatchResult();
+            c.commit();
+            return result;
+        }
+    }
+
+    @Override
+    public CompletableFuture<List<Role>> selectAllOrderedBy(QueryBatch batch) {
+        return add(batch, SELECT_ALL_ORDERED_BY, Collections.emptyMap(), handlerFactory(Role.class));
+    }
+
+    @Override
+    public CompletableFuture<List<User>> selectWhereEquals(QueryBatch batch, int id) {
+        return add(batch, SELECT_WHERE_EQUALS, Collections.singletonMap("id", id), handlerFactory(User.class));
+    }
+
+    @Override
+    public CompletableFuture<List<String>> selectCountWithGroupBy(QueryBatch batch) {
+        return add(batch, SELECT_COUNT_WITH_GROUP_BY, Collections.emptyMap(), metaData -> ROLE_COUNT);
+    }
+
+    @Override
+    public List<User> selectAll(Partition partition) {
+        try (Connection c = sql2o.open()) {
+            return c.createQuery(SELECT_ALL_IN_PARTITION)
+                    .throwOnMappingFailure(false)
+                    .addParameter("from", partition.from)
+                    .addParameter("to", partition.to)
+                    .executeAndFetch(User.class);
+        }
+    }
+
+    @Override
+    public List<User> selectAllOrderedBy(Partition partition) {
+        try (Connection c = sql2o.open()) {
+            return c.createQuery(SELECT_ALL_ORDERED_BY_IN_PARTITION)
+                    .addParameter("from", partition.from)
+                    .addParameter("to", partition.to)
+                    .executeAndFetch(User.class);
+        }
+    }
+
+    @Override
+    public Map<String, Long> selectCountWithGroupBy(Partition partition) {
+        try (Connection c = sql2o.open()) {
+            return c.createQuery(SELECT_COUNT_WITH_GROUP_BY_IN_PARTITION)
+                    .addParameter("from", partition.from)
+                    .addParameter("to", partition.to)
+                    .executeAndFetch(PARTIAL_ROLE_COUNT)
+                    .stream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        }
+    }
+
+    private <T> ResultSetHandlerFactory<T> handlerFactory(Class<T> clazz) {
+        DefaultResultSetHandlerFactoryBuilder builder = new DefaultResultSetHandlerFactoryBuilder();
+        builder.setQuirks(sql2o.getQuirks());
+        builder.setColumnMappings(sql2o.getDefaultColumnMappings());
+        builder.setCaseSensitive(sql2o.isDefaultCaseSensitive());
+        builder.throwOnMappingError(false);
+        return builder.newFactory(clazz);
+    }
+
+    /**
+     * The named parameters are parsed the same way sql2o does it before creating a statement, rows are mapped by the
+     * same {@link ResultSetHandler}s sql2o uses for {@link org.sql2o.Query#executeAndFetch(Class)}.
+     */
+    private <T> CompletableFuture<List<T>> add(QueryBatch batch, String sql, Map<String, Object> parameters, ResultSetHandlerFactory<T> handlerFactory) {
+        Map<String, List<Integer>> indices = new HashMap<>();
+        String parsedSql = sql2o.getQuirks().getSqlParameterParsingStrategy().parseSql(sql, indices);
+
+        Object[] values = new Object[indices.values().stream().mapToInt(List::size).sum()];
+        indices.forEach((name, positions) -> {
+            if (!parameters.containsKey(name))
+                throw new IllegalArgumentException("no value for parameter " + name);
+            positions.forEach(position -> values[position - 1] = parameters.get(name));
+        });
+
+        return batch.add(parsedSql, Arrays.asList(values), rs -> {
+            ResultSetHandler<T> handler = handlerFactory.newResultSetHandler(rs.getMetaData());
+            List<T> rows = new ArrayList<>();
+            while (rs.next())
+                rows.add(handler.handle(rs));
+            return rows;
+        });
+    }
+}
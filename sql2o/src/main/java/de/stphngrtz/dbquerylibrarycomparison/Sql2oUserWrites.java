@@ -0,0 +1,65 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.sql2o.Connection;
+import org.sql2o.Query;
+import org.sql2o.Sql2o;
+
+import java.util.List;
+
+public class Sql2oUserWrites implements UserWrites {
+
+    private static final String UPDATE = "" +
+            "UPDATE users" +
+            "   SET name = :name, email = :email" +
+            " WHERE id = :id";
+
+    private static final String INSERT = "" +
+            "INSERT INTO users (id, name, email)" +
+            "VALUES (:id, :name, :email)";
+
+    private static final String DELETE = "" +
+            "DELETE FROM users" +
+            " WHERE id = :id";
+
+    private final Sql2o sql2o;
+
+    public Sql2oUserWrites(Sql2o sql2o) {
+        this.sql2o = sql2o;
+    }
+
+    @Override
+    public void update(User user) {
+        try (Connection c = sql2o.open()) {
+            c.createQuery(UPDATE)
+                    .addParameter("name", user.name)
+                    .addParameter("email", user.email)
+                    .addParameter("id", user.id)
+                    .executeUpdate();
+        }
+    }
+
+    @Override
+    public void write(int[] deletes, List<User> inserts, List<User> updates) {
+        try (Connection c = sql2o.beginTransaction()) {
+            if (deletes.length > 0) {
+                Query query = c.createQuery(DELETE);
+                for (int id : deletes)
+                    query.addParameter("id", id).addToBatch();
+                query.executeBatch();
+            }
+            if (!inserts.isEmpty()) {
+                Query query = c.createQuery(INSERT);
+                for (User user : inserts)
+                    query.addParameter("id", user.id).addParameter("name", user.name).addParameter("email", user.email).addToBatch();
+                query.executeBatch();
+            }
+            if (!updates.isEmpty()) {
+                Query query = c.createQuery(UPDATE);
+                for (User user : updates)
+                    query.addParameter("name", user.name).addParameter("email", user.email).addParameter("id", user.id).addToBatch();
+                query.executeBatch();
+            }
+            c.commit();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sql2o.Sql2o;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.fail;
+
+public class Sql2oContentionScenariosTest {
+
+    private static final String db_url = "192.168.99.100";
+    private static final String db_port = "5432";
+    private static final String db_username = "stephan";
+    private static final String db_password = "mysecretpassword";
+    private static final String db_database = db_username;
+
+    private static final String[] UNCHANGED = {"Stephan ist Admin", "Stephan ist Developer", "Steffi ist Designer", "Franz ist Developer"};
+    private static final String[] CHANGED = {"Stephan ist Admin", "Stephan ist Developer", "Steffi ist Designer", "Frank ist Developer", "Frank ist Designer"};
+
+    private Scenarios scenarios;
+    private ContentionScenarios contentionScenarios;
+
+    @Before
+    public void setUp() throws Exception {
+        Sql2o sql2o = new Sql2o("jdbc:postgresql://" + db_url + ":" + db_port + "/" + db_database, db_username, db_password);
+        scenarios = new Sql2oScenarios(sql2o);
+        contentionScenarios = new Sql2oContentionScenarios(sql2o);
+    }
+
+    @Test
+    public void updatePessimistic() throws Exception {
+        contentionScenarios.updatePessimistic(4, "Frank", 3);
+        try {
+            assertThat(scenarios.selectWithExplicitJoin(), containsInAnyOrder(CHANGED));
+        } finally {
+            contentionScenarios.updatePessimistic(4, "Franz", 3);
+        }
+        assertThat(scenarios.selectWithExplicitJoin(), containsInAnyOrder(UNCHANGED));
+    }
+
+    @Test
+    public void updateOptimistic() throws Exception {
+        assertThat(contentionScenarios.updateOptimistic(4, "Frank", 3), equalTo(true));
+        try {
+            assertThat(scenarios.selectWithExplicitJoin(), containsInAnyOrder(CHANGED));
+        } finally {
+            contentionScenarios.updateOptimistic(4, "Franz", 3);
+        }
+        assertThat(scenarios.selectWithExplicitJoin(), containsInAnyOrder(UNCHANGED));
+    }
+
+    @Test
+    public void updateOptimisticAborted() throws Exception {
+        try (Connection other = connect(); Statement s = other.createStatement()) {
+            other.setAutoCommit(false);
+            s.executeUpdate("UPDATE users SET version = version + 1 WHERE id = 4");
+
+            CompletableFuture<Boolean> updated = CompletableFuture.supplyAsync(() -> contentionScenarios.updateOptimistic(4, "Frank", 3));
+            awaitLockWait();
+            other.commit();
+            assertThat(updated.get(10, TimeUnit.SECONDS), equalTo(false));
+        }
+        assertThat(scenarios.selectWithExplicitJoin(), containsInAnyOrder(UNCHANGED));
+    }
+
+    @Test
+    public void updateSkipLocked() throws Exception {
+        try (Connection other = connect(); Statement s = other.createStatement()) {
+            other.setAutoCommit(false);
+            s.executeQuery("SELECT id FROM users WHERE id = 3 FOR UPDATE").close();
+            try {
+                assertThat(contentionScenarios.updateSkipLocked(3, 4, "Frank", 3), equalTo(4));
+                assertThat(scenarios.selectWithExplicitJoin(), containsInAnyOrder(CHANGED));
+
+                s.executeQuery("SELECT id FROM users WHERE id = 4 FOR UPDATE").close();
+                assertThat(contentionScenarios.updateSkipLocked(3, 4, "Frank", 3), equalTo(-1));
+            } finally {
+                other.rollback();
+                contentionScenarios.updatePessimistic(4, "Franz", 3);
+            }
+        }
+        assertThat(scenarios.selectWithExplicitJoin(), containsInAnyOrder(UNCHANGED));
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection("jdbc:postgresql://" + db_url + ":" + db_port + "/" + db_database, db_username, db_password);
+    }
+
+    /**
+     * Until another backend waits for a lock, the unit of work running in the background.
+     */
+    private static void awaitLockWait() throws Exception {
+        try (Connection c = connect(); Statement s = c.createStatement()) {
+            for (int i = 0; i < 1000; i++) {
+                try (ResultSet rs = s.executeQuery("SELECT count(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock' AND datname = current_database()")) {
+                    rs.next();
+                    if (rs.getInt(1) > 0)
+                        return;
+                }
+                Thread.sleep(10);
+            }
+        }
+        fail("no one waits for a lock");
+    }
+}
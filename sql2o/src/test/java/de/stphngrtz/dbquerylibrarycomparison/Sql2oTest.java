@@ -36,6 +36,7 @@ public class Sql2oTest {
             assertThat(c.createQuery("" +
                             "SELECT *" +
                             "  FROM users")
+                            .throwOnMappingFailure(false) // users.version has no property in User
                             .executeAndFetch(User.class),
                     containsInAnyOrder(
                             new User(1, "Stephan", "stephan.goertz@gmail.com"),
@@ -71,6 +72,7 @@ public class Sql2oTest {
                             "SELECT *" +
                             "  FROM users u" +
                             " WHERE u.id = :id")
+                            .throwOnMappingFailure(false) // users.version has no property in User
                             .addParameter("id", 1)
                             .executeAndFetch(User.class),
                     contains(
@@ -87,6 +89,7 @@ public class Sql2oTest {
                             "SELECT *" +
                             "  FROM users u" +
                             " WHERE u.email LIKE '%@gmail.com'")
+                            .throwOnMappingFailure(false) // users.version has no property in User
                             .executeAndFetch(User.class),
                     contains(
                             new User(1, "Stephan", "stephan.goertz@gmail.com")
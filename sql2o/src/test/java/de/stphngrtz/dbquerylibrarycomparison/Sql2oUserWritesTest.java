@@ -0,0 +1,185 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.postgresql.ds.PGPoolingDataSource;
+import org.sql2o.Sql2o;
+import org.sql2o.quirks.PostgresQuirks;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.fail;
+
+/**
+ * The users written have ids from 9000 on, they're deleted after each test.
+ */
+public class Sql2oUserWritesTest {
+
+    private static final String db_url = "192.168.99.100";
+    private static final String db_port = "5432";
+    private static final String db_username = "stephan";
+    private static final String db_password = "mysecretpassword";
+    private static final String db_database = db_username;
+
+    private static PGPoolingDataSource pgPoolingDataSource;
+
+    private WriteBehindBuffer buffer;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        pgPoolingDataSource = new PGPoolingDataSource();
+        pgPoolingDataSource.setDataSourceName("Sql2oUserWritesTest");
+        pgPoolingDataSource.setServerName(db_url);
+        pgPoolingDataSource.setPortNumber(Integer.valueOf(db_port));
+        pgPoolingDataSource.setDatabaseName(db_database);
+        pgPoolingDataSource.setUser(db_username);
+        pgPoolingDataSource.setPassword(db_password);
+        pgPoolingDataSource.setMaxConnections(2);
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        pgPoolingDataSource.close();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        buffer = new WriteBehindBuffer(new Sql2oUserWrites(new Sql2o(pgPoolingDataSource, new PostgresQuirks())), 100, 1, TimeUnit.MINUTES);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        buffer.close();
+        try (Connection c = connect(); Statement s = c.createStatement()) {
+            s.executeUpdate("DELETE FROM users WHERE id >= 9000");
+        }
+    }
+
+    @Test
+    public void coalesced() throws Exception {
+        buffer.insert(new User(9001, "Gustav", "gustav@web.de"));
+        buffer.insert(new User(9002, "Hugo", "hugo@web.de"));
+        buffer.flush().get(10, TimeUnit.SECONDS);
+
+        buffer.update(new User(9001, "Gustav", "gustav@gmx.de"));
+        buffer.update(new User(9001, "Gustl", "gustav@gmx.de"));
+        buffer.update(new User(9002, "Hugo", "hugo@gmx.de"));
+        buffer.delete(9002);
+        buffer.insert(new User(9003, "Ida", "ida@web.de"));
+        buffer.update(new User(9003, "Ida", "ida@gmx.de"));
+        buffer.flush().get(10, TimeUnit.SECONDS);
+
+        assertThat(users(), contains("9001 Gustl gustav@gmx.de", "9003 Ida ida@gmx.de"));
+        assertThat(buffer.groups(), equalTo(2L));
+        assertThat(buffer.coalesced(), equalTo(3L));
+    }
+
+    @Test
+    public void notDurableUntilWritten() throws Exception {
+        CompletableFuture<Void> inserted = buffer.insert(new User(9001, "Gustav", "gustav@web.de"));
+        Thread.sleep(50);
+        assertThat(inserted.isDone(), equalTo(false));
+        assertThat(users(), empty());
+
+        buffer.flush();
+        inserted.get(10, TimeUnit.SECONDS);
+        assertThat(users(), contains("9001 Gustav gustav@web.de"));
+    }
+
+    @Test
+    public void failedGroupRolledBack() throws Exception {
+        CompletableFuture<Void> inserted = buffer.insert(new User(9001, "Gustav", "gustav@web.de"));
+        CompletableFuture<Void> duplicate = buffer.insert(new User(1, "Stephan", "stephan.goertz@gmail.com"));
+        buffer.flush().get(10, TimeUnit.SECONDS);
+
+        assertFailed(inserted, duplicate);
+        assertThat(users(), empty());
+    }
+
+    /**
+     * The connection writing a group is killed while it waits for the users, locked meanwhile: none of the group's
+     * writes is visible, their futures fail, the group after is written on a new connection.
+     */
+    @Test
+    public void crashWhileWriting() throws Exception {
+        buffer.insert(new User(9001, "Gustav", "gustav@web.de"));
+        buffer.flush().get(10, TimeUnit.SECONDS);
+
+        CompletableFuture<Void> updated;
+        CompletableFuture<Void> inserted;
+        try (Connection other = connect(); Statement s = other.createStatement()) {
+            other.setAutoCommit(false);
+            s.execute("LOCK TABLE users IN ACCESS EXCLUSIVE MODE");
+            try {
+                updated = buffer.update(new User(9001, "Gustl", "gustav@gmx.de"));
+                inserted = buffer.insert(new User(9002, "Hugo", "hugo@web.de"));
+                buffer.flush();
+                terminateLockWaiter();
+            } finally {
+                other.rollback();
+            }
+        }
+
+        assertFailed(updated, inserted);
+        assertThat(users(), contains("9001 Gustav gustav@web.de"));
+
+        buffer.update(new User(9001, "Gustl", "gustav@gmx.de"));
+        buffer.flush().get(10, TimeUnit.SECONDS);
+        assertThat(users(), contains("9001 Gustl gustav@gmx.de"));
+    }
+
+    @SafeVarargs
+    private static void assertFailed(CompletableFuture<Void>... futures) throws Exception {
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                fail("written");
+            } catch (ExecutionException e) {
+                // expected
+            }
+        }
+    }
+
+    private static List<String> users() throws SQLException {
+        List<String> users = new ArrayList<>();
+        try (Connection c = connect(); Statement s = c.createStatement(); ResultSet rs = s.executeQuery("SELECT id, name, email FROM users WHERE id >= 9000 ORDER BY id")) {
+            while (rs.next())
+                users.add(String.join(" ", Arrays.asList(rs.getString(1), rs.getString(2), rs.getString(3))));
+        }
+        return users;
+    }
+
+    private static void terminateLockWaiter() throws Exception {
+        try (Connection c = connect(); Statement s = c.createStatement()) {
+            for (int i = 0; i < 1000; i++) {
+                try (ResultSet rs = s.executeQuery("SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE wait_event_type = 'Lock' AND datname = current_database()")) {
+                    if (rs.next())
+                        return;
+                }
+                Thread.sleep(10);
+            }
+        }
+        fail("no one waits for a lock");
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection("jdbc:postgresql://" + db_url + ":" + db_port + "/" + db_database, db_username, db_password);
+    }
+}
@@ -0,0 +1,176 @@
+package de.stphngrtz.dbquerylibrarycomparison;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.postgresql.ds.PGPoolingDataSource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Runs the scenarios with a number of concurrent requests (default 10000), once with a virtual thread per request and
+ * once on a pool of platform threads, for each library. Reports throughput, peak heap and peak platform threads, and
+ * where virtual threads got pinned to their carrier thread (JFR's {@code jdk.VirtualThreadPinned}), e.g. blocking
+ * inside a {@code synchronized} block of a library or the JDBC driver.
+ * <p>
+ * Settings are system properties: {@code libraries} (comma separated, default all), {@code requests}, {@code rounds} (default 3, the first one is warm-up),
+ * {@code platform.threads} (default 200), {@code pool.size} (connections, default 20) and those of {@link Database}.
+ */
+public class VirtualThreadsReport {
+
+    private static final List<Library> libraries = Arrays.stream(System.getProperty("libraries", "JOOQ,QUERYDSL_SQL,SQL2O,QUERYDSL_JPA").split(",")).map(Library::valueOf).toList();
+    private static final int requests = Integer.getInteger("requests", 10_000);
+    private static final int rounds = Integer.getInteger("rounds", 3);
+    private static final int platformThreads = Integer.getInteger("platform.threads", 200);
+    private static final int poolSize = Integer.getInteger("pool.size", 20);
+
+    private enum Mode {
+        PLATFORM, VIRTUAL
+    }
+
+    private record Result(Library library, Mode mode, Duration duration, long peakHeap, int peakThreads) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%d requests, %d platform threads, %d connections%n%n", requests, platformThreads, poolSize);
+
+        List<Result> results = new ArrayList<>();
+        Map<Library, Map<String, Pinning>> pinnings = new LinkedHashMap<>();
+        for (Library library : libraries) {
+            PGPoolingDataSource dataSource = Database.dataSource(VirtualThreadsReport.class.getSimpleName() + "-" + library, poolSize);
+            try {
+                Supplier<Scenarios> scenarios = library.scenariosPerThread(dataSource);
+                results.add(run(library, Mode.PLATFORM, scenarios));
+
+                try (Recording recording = new Recording()) {
+                    recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+                    recording.start();
+                    results.add(run(library, Mode.VIRTUAL, scenarios));
+                    recording.stop();
+
+                    Path file = Files.createTempFile("virtual-threads-" + library, ".jfr");
+                    recording.dump(file);
+                    pinnings.put(library, pinnings(file));
+                    Files.delete(file);
+                }
+            } finally {
+                Library.close(dataSource);
+                dataSource.close();
+            }
+        }
+
+        System.out.printf("%-13s %-9s %10s %12s %14s %13s%n", "library", "mode", "ms", "requests/s", "peak heap MB", "peak threads");
+        for (Result result : results)
+            System.out.printf("%-13s %-9s %10d %12.0f %14d %13d%n",
+                    result.library(), result.mode(), result.duration().toMillis(), requests * 1_000_000_000.0 / result.duration().toNanos(), result.peakHeap() / 1024 / 1024, result.peakThreads());
+
+        for (Map.Entry<Library, Map<String, Pinning>> entry : pinnings.entrySet()) {
+            System.out.printf("%n%s: pinned virtual threads, by the frame they blocked in%n", entry.getKey());
+            if (entry.getValue().isEmpty())
+                System.out.println("  none");
+            entry.getValue().entrySet().stream()
+                    .sorted(Comparator.comparing((Map.Entry<String, Pinning> e) -> e.getValue().count).reversed())
+                    .limit(10)
+                    .forEach(e -> System.out.printf("  %8d x %8d ms  %s%n", e.getValue().count, e.getValue().duration.toMillis(), e.getKey()));
+        }
+    }
+
+    /**
+     * The best of all rounds but the first.
+     */
+    private static Result run(Library library, Mode mode, Supplier<Scenarios> scenarios) throws Exception {
+        Result best = null;
+        for (int round = 0; round < rounds; round++) {
+            System.gc();
+            List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream().filter(pool -> pool.getType() == MemoryType.HEAP).toList();
+            heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+            ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+
+            long start = System.nanoTime();
+            try (ExecutorService executor = mode == Mode.VIRTUAL ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(platformThreads)) {
+                List<Future<?>> futures = new ArrayList<>(requests);
+                for (int i = 0; i < requests; i++) {
+                    int request = i;
+                    futures.add(executor.submit(() -> request(scenarios.get(), request)));
+                }
+                for (Future<?> future : futures)
+                    future.get();
+            }
+            Duration duration = Duration.ofNanos(System.nanoTime() - start);
+
+            long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+            int peakThreads = ManagementFactory.getThreadMXBean().getPeakThreadCount();
+            System.out.printf("%s %s round %d: %d ms%n", library, mode, round + 1, duration.toMillis());
+
+            Result result = new Result(library, mode, duration, peakHeap, peakThreads);
+            if (round > 0 && (best == null || result.duration().compareTo(best.duration()) < 0))
+                best = result;
+            if (rounds == 1)
+                best = result;
+        }
+        return best;
+    }
+
+    /**
+     * The scenario catalogue, round robin.
+     */
+    private static Object request(Scenarios scenarios, int request) {
+        switch (request % 3) {
+            case 0:
+                return scenarios.selectWhereEquals(1);
+            case 1:
+                return scenarios.selectAllOrderedBy();
+            default:
+                return scenarios.selectCountWithGroupBy();
+        }
+    }
+
+    private static class Pinning {
+        private int count = 0;
+        private Duration duration = Duration.ZERO;
+    }
+
+    /**
+     * Pinned events by the topmost frames outside of the JDK: where the library or driver blocked while holding a
+     * monitor, and the callers in two more classes.
+     */
+    private static Map<String, Pinning> pinnings(Path file) throws Exception {
+        Map<String, Pinning> pinnings = new HashMap<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            List<String> frames = new ArrayList<>();
+            String previousType = null;
+            if (event.getStackTrace() != null) {
+                for (RecordedFrame recordedFrame : event.getStackTrace().getFrames()) {
+                    String type = recordedFrame.getMethod().getType().getName();
+                    if (type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.") || type.equals(previousType))
+                        continue;
+                    previousType = type;
+                    frames.add(type + "." + recordedFrame.getMethod().getName() + ":" + recordedFrame.getLineNumber());
+                    if (frames.size() == 3)
+                        break;
+                }
+            }
+            Pinning pinning = pinnings.computeIfAbsent(frames.isEmpty() ? "(no stack trace)" : String.join("\n" + " ".repeat(26) + "< ", frames), f -> new Pinning());
+            pinning.count++;
+            pinning.duration = pinning.duration.plus(event.getDuration());
+        }
+        return pinnings;
+    }
+}